@@ -2,6 +2,7 @@ package au.org.ala.listsapi;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -11,6 +12,7 @@ import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -54,6 +56,20 @@ public class ListsApiApplication {
     return threadPoolTaskExecutor;
   }
 
+  /**
+   * Runs StreamingResponseBody responses (downloads and streamed lookups), see WebConfig
+   */
+  @Bean(name = "streamingExecutor")
+  public AsyncTaskExecutor streamingExecutor(@Value("${streaming.poolSize:10}") int poolSize) {
+    ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+    threadPoolTaskExecutor.setThreadNamePrefix("Stream-");
+    threadPoolTaskExecutor.setCorePoolSize(poolSize);
+    threadPoolTaskExecutor.setMaxPoolSize(poolSize);
+    threadPoolTaskExecutor.setQueueCapacity(100);
+    threadPoolTaskExecutor.afterPropertiesSet();
+    return threadPoolTaskExecutor;
+  }
+
   @Bean
   public MessageSource messageSource() {
     ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
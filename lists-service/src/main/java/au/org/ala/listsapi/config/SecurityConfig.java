@@ -167,6 +167,10 @@ public class SecurityConfig {
                     if (auth != null && auth.startsWith("Bearer ")) {
                         return false;
                     }
+                    // Read-only lookups that use POST only to carry a large request body
+                    if (request.getRequestURI().endsWith("/v2/speciesList/byGuids")) {
+                        return false;
+                    }
                     // Keep CSRF for browser requests (all non-safe methods)
                     return !Set.of("GET", "HEAD", "TRACE", "OPTIONS")
                                .contains(request.getMethod());
@@ -14,9 +14,13 @@
  */
 package au.org.ala.listsapi.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -36,6 +40,25 @@ public class WebConfig implements WebMvcConfigurer {
     @Value("${app.url}")
     private String appUrl;
 
+    @Autowired
+    @Qualifier("streamingExecutor")
+    private AsyncTaskExecutor streamingExecutor;
+
+    /** Timeout of async requests, long enough for the largest downloads */
+    @Value("${streaming.timeoutMs:3600000}")
+    private long streamingTimeoutMs;
+
+    /**
+     * StreamingResponseBody responses are written on the streaming executor rather than on
+     * Tomcat request threads. @EnableWebMvc turns off the spring.mvc.async properties, so the
+     * executor and timeout are set here.
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor);
+        configurer.setDefaultTimeout(streamingTimeoutMs);
+    }
+
     /**
      * CORS configuration for the application.
      * 
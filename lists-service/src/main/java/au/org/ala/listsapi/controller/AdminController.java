@@ -2,6 +2,7 @@ package au.org.ala.listsapi.controller;
 
 
 import au.org.ala.listsapi.ListsApiApplication;
+import au.org.ala.listsapi.model.ConsistencyReport;
 import au.org.ala.listsapi.service.*;
 import au.org.ala.ws.security.profile.AlaUserProfile;
 import io.swagger.v3.oas.annotations.Hidden;
@@ -19,6 +20,8 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
+import java.util.Arrays;
+import java.util.List;
 
 /** 
  * Admin REST API
@@ -37,6 +40,12 @@ public class AdminController {
 
   @Autowired protected AuthUtils authUtils;
 
+  @Autowired protected ConsistencyService consistencyService;
+
+  @Autowired protected DeadLetterService deadLetterService;
+
+  @Autowired protected ReleaseService releaseService;
+
   @Nullable
   private ResponseEntity<Object> checkAuthorized(Principal principal) {
     // check user logged in
@@ -110,4 +119,103 @@ public class AdminController {
 
     return new ResponseEntity<>(adminService.getMongoIndexes(), HttpStatus.OK);
   }
+
+  @Hidden
+  @SecurityRequirement(name = "JWT")
+  @Operation(summary = "Get the latest Mongo / ES consistency report", tags = "Admin")
+  @GetMapping("/admin/consistency")
+  public ResponseEntity<Object> consistencyReport(@AuthenticationPrincipal Principal principal) {
+
+    ResponseEntity<Object> errorResponse = checkAuthorized(principal);
+    if (errorResponse != null) return errorResponse;
+
+    ConsistencyReport report = consistencyService.getLatestReport();
+    if (report == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return new ResponseEntity<>(report, HttpStatus.OK);
+  }
+
+  @Hidden
+  @SecurityRequirement(name = "JWT")
+  @Operation(summary = "Run the Mongo / ES consistency check, optionally repairing divergent lists", tags = "Admin")
+  @PostMapping("/admin/consistency")
+  public ResponseEntity<Object> consistencyCheck(
+      @RequestParam(name = "repair", defaultValue = "true") boolean repair,
+      @AuthenticationPrincipal Principal principal) {
+
+    ResponseEntity<Object> errorResponse = checkAuthorized(principal);
+    if (errorResponse != null) return errorResponse;
+
+    if (consistencyService.isRunning()) {
+      return new ResponseEntity<>("Consistency check is already running.", HttpStatus.CONFLICT);
+    }
+
+    logger.info("Starting consistency check (repair = {})...", repair);
+    consistencyService.checkAllAsync(repair);
+
+    return new ResponseEntity<>(HttpStatus.ACCEPTED);
+  }
+
+  @Hidden
+  @SecurityRequirement(name = "JWT")
+  @Operation(summary = "Release species lists, several at a time in the background", tags = "Admin")
+  @PostMapping("/admin/release")
+  public ResponseEntity<Object> release(
+      @RequestParam(name = "speciesListIDs") String speciesListIDs,
+      @RequestParam(name = "ignoreCurrentVersion", defaultValue = "false") boolean ignoreCurrentVersion,
+      @AuthenticationPrincipal Principal principal) {
+
+    ResponseEntity<Object> errorResponse = checkAuthorized(principal);
+    if (errorResponse != null) return errorResponse;
+
+    List<String> ids = Arrays.stream(speciesListIDs.split(","))
+        .map(String::trim)
+        .filter(id -> !id.isEmpty())
+        .distinct()
+        .toList();
+    logger.info("Releasing {} lists...", ids.size());
+    releaseService.asyncReleaseAll(ids, ignoreCurrentVersion);
+
+    return new ResponseEntity<>(HttpStatus.ACCEPTED);
+  }
+
+  @Hidden
+  @SecurityRequirement(name = "JWT")
+  @Operation(summary = "List the species list items that failed to index", tags = "Admin")
+  @GetMapping("/admin/deadletters")
+  public ResponseEntity<Object> deadLetters(
+      @RequestParam(name = "speciesListID", required = false) String speciesListID,
+      @RequestParam(name = "page", defaultValue = "1") int page,
+      @RequestParam(name = "pageSize", defaultValue = "50") int pageSize,
+      @AuthenticationPrincipal Principal principal) {
+
+    ResponseEntity<Object> errorResponse = checkAuthorized(principal);
+    if (errorResponse != null) return errorResponse;
+
+    return new ResponseEntity<>(
+        deadLetterService.getDeadLetters(speciesListID, Math.max(page - 1, 0), pageSize).getContent(),
+        HttpStatus.OK);
+  }
+
+  @Hidden
+  @SecurityRequirement(name = "JWT")
+  @Operation(summary = "Reindex the species list items that failed to index", tags = "Admin")
+  @PostMapping("/admin/deadletters/replay")
+  public ResponseEntity<Object> replayDeadLetters(
+      @RequestParam(name = "speciesListID", required = false) String speciesListID,
+      @AuthenticationPrincipal Principal principal) {
+
+    ResponseEntity<Object> errorResponse = checkAuthorized(principal);
+    if (errorResponse != null) return errorResponse;
+
+    if (deadLetterService.isReplaying()) {
+      return new ResponseEntity<>("Dead letter replay is already running.", HttpStatus.CONFLICT);
+    }
+
+    logger.info("Replaying dead letters (speciesListID = {})...", speciesListID);
+    deadLetterService.replayAsync(speciesListID);
+
+    return new ResponseEntity<>(HttpStatus.ACCEPTED);
+  }
 }
@@ -1,21 +1,27 @@
 package au.org.ala.listsapi.controller;
 
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.Principal;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import org.bson.types.ObjectId;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -24,15 +30,16 @@ import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.opencsv.CSVWriter;
-
-import au.org.ala.listsapi.model.Classification;
 import au.org.ala.listsapi.model.SpeciesList;
-import au.org.ala.listsapi.model.SpeciesListItem;
-import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.service.BulkExportService;
+import au.org.ala.listsapi.service.ColumnarExportService;
+import au.org.ala.listsapi.service.ExportCacheService;
+import au.org.ala.listsapi.service.ExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -40,7 +47,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Controller for downloading species lists in CSV format. Supports both zipped and plain CSV downloads.
@@ -51,29 +57,29 @@ public class DownloadController {
 
     private static final Logger logger = LoggerFactory.getLogger(DownloadController.class);
     protected final SpeciesListMongoRepository speciesListMongoRepository;
-    protected final SpeciesListItemMongoRepository speciesListItemMongoRepository;
+    protected final ExportService exportService;
+    protected final ExportCacheService exportCacheService;
+    protected final ColumnarExportService columnarExportService;
+    protected final BulkExportService bulkExportService;
     protected final AuthUtils authUtils;
 
-    public static final String[] CLASSIFICATION_HEADER_NAMES = {
-            "guid", // taxonID would be better
-            "scientificName",
-            "genus",
-            "family",
-            "order",
-            "class",
-            "phylum",
-            "kingdom",
-            "vernacularName",
-            "matchType",
-            "nameType"
-    };
+    @Value("${export.columnar.maxLists:100}")
+    private int maxColumnarLists;
+
+    public static final String[] CLASSIFICATION_HEADER_NAMES = ExportService.CLASSIFICATION_HEADER_NAMES;
 
     public DownloadController(
             SpeciesListMongoRepository speciesListMongoRepository,
-            SpeciesListItemMongoRepository speciesListItemMongoRepository,
+            ExportService exportService,
+            ExportCacheService exportCacheService,
+            ColumnarExportService columnarExportService,
+            BulkExportService bulkExportService,
             AuthUtils authUtils) {
         this.speciesListMongoRepository = speciesListMongoRepository;
-        this.speciesListItemMongoRepository = speciesListItemMongoRepository;
+        this.exportService = exportService;
+        this.exportCacheService = exportCacheService;
+        this.columnarExportService = columnarExportService;
+        this.bulkExportService = bulkExportService;
         this.authUtils = authUtils;
     }
 
@@ -82,159 +88,359 @@ public class DownloadController {
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "CSV data (when zip=false or not specified)", content = @Content(mediaType = "application/octet-stream", schema = @Schema(implementation = String.class))),
             @ApiResponse(responseCode = "200", description = "Zipped CSV data (when zip=true)", content = @Content(mediaType = "application/octet-stream", schema = @Schema(implementation = byte[].class))),
+            @ApiResponse(responseCode = "206", description = "The requested byte range of the download"),
+            @ApiResponse(responseCode = "304", description = "Not modified - the download matches the If-None-Match ETag"),
             @ApiResponse(responseCode = "400", description = "Bad Request - invalid query parameters", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "Cannot query private lists without a user ID"))),
             @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to downwload private species lists", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "You must be authenticated to query private lists"))),
             @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "Species list not found")))
     })
     @GetMapping("/v2/download/{speciesListID}")
-    public ResponseEntity<Object> download(
+    public ResponseEntity<StreamingResponseBody> download(
             @Parameter(description = "The species list ID or data resource ID to download", example = "dr656", required = true)
             @PathVariable("speciesListID") String speciesListID,
             @AuthenticationPrincipal Principal principal,
             @Parameter(name = "zip", description = "Set to true to receive data in ZIP format, false for plain CSV", schema = @Schema(type = "boolean", defaultValue = "false")) 
             @RequestParam(value = "zip", defaultValue = "false") Boolean zipped,
-            HttpServletResponse response) {
-        try {
-            logger.info("Downloading species list " + speciesListID);
-            Optional<SpeciesList> speciesListOptional = speciesListMongoRepository
-                    .findByIdOrDataResourceUid(speciesListID, speciesListID);
-            if (speciesListOptional.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unrecognized ID while downloading dataset");
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @Parameter(hidden = true) @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        logger.info("Downloading species list " + speciesListID);
+        Optional<SpeciesList> speciesListOptional = speciesListMongoRepository
+                .findByIdOrDataResourceUid(speciesListID, speciesListID);
+        if (speciesListOptional.isEmpty()) {
+            return textResponse(HttpStatus.NOT_FOUND, "Unrecognized ID while downloading dataset");
+        }
+
+        SpeciesList speciesList = speciesListOptional.get();
+        if (speciesList.getIsPrivate()) {
+            // if private, check user is logged in and authorised
+            ResponseEntity<StreamingResponseBody> errorResponse = checkAuthorizedToDownload(speciesList, principal);
+            if (errorResponse != null) {
+                return errorResponse; // return 401 if not logged in or not authorized
             }
+        }
+
+        if (exportCacheService.isEnabled()) {
+            return cachedDownload(speciesList, zipped, ifNoneMatch, range, ifRange);
+        }
 
+        // written on an async request thread, so large downloads don't hold a Tomcat thread
+        StreamingResponseBody body = outputStream -> {
+            try {
+                if (zipped) {
+                    ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+                    zipOutputStream.putNextEntry(new ZipEntry("taxa.csv"));
+                    exportService.writeCsv(speciesList, zipOutputStream);
+                    zipOutputStream.closeEntry();
+                    zipOutputStream.finish();
+                } else {
+                    exportService.writeCsv(speciesList, outputStream);
+                }
+                outputStream.flush();
+                logger.info("Finished writing download data for species list " + speciesList.getId());
+            } catch (IOException e) {
+                // usually the client going away, the response is already committed
+                logger.warn("Download of species list " + speciesList.getId() + " failed: " + e.getMessage());
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(speciesList, zipped))
+                .body(body);
+    }
+
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Download one or more species lists in a columnar format", tags = "REST v2",
+            description = "Gzipped newline delimited JSON. Each list is written as a schema line, with the name and type "
+                    + "(integer, number, boolean or string) of every column, followed by row groups that hold an array of "
+                    + "values per column. Columns are the supplied name, the list's fields and the matched classification. "
+                    + "A value edited during the download that no longer fits its column's type is written as null.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Gzipped columnar data", content = @Content(mediaType = "application/gzip", schema = @Schema(implementation = byte[].class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - no or too many species list IDs", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "401", description = "User is not authorized to download a private species list", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string")))
+    })
+    @GetMapping("/v2/download/columnar")
+    public ResponseEntity<StreamingResponseBody> downloadColumnar(
+            @Parameter(description = "Comma separated species list IDs or data resource IDs", example = "dr656,dr18457", required = true)
+            @RequestParam("speciesListIDs") String speciesListIDs,
+            @AuthenticationPrincipal Principal principal) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        for (String id : speciesListIDs.split(",")) {
+            if (!id.isBlank()) {
+                ids.add(id.trim());
+            }
+        }
+        if (ids.isEmpty() || ids.size() > maxColumnarLists) {
+            return textResponse(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + maxColumnarLists + " species list IDs are required");
+        }
+
+        List<SpeciesList> speciesLists = new ArrayList<>();
+        for (String id : ids) {
+            Optional<SpeciesList> speciesListOptional = speciesListMongoRepository.findByIdOrDataResourceUid(id, id);
+            if (speciesListOptional.isEmpty()) {
+                return textResponse(HttpStatus.NOT_FOUND, "Unrecognized ID while downloading dataset: " + id);
+            }
             SpeciesList speciesList = speciesListOptional.get();
             if (speciesList.getIsPrivate()) {
-                // if private, check user is logged in and authorised
-                ResponseEntity<Object> errorResponse = checkAuthorizedToDownload(speciesList, principal);
+                ResponseEntity<StreamingResponseBody> errorResponse = checkAuthorizedToDownload(speciesList, principal);
                 if (errorResponse != null) {
-                    return errorResponse; // return 401 if not logged in or not authorized
+                    return errorResponse;
                 }
             }
+            speciesLists.add(speciesList);
+        }
+        logger.info("Downloading " + speciesLists.size() + " species lists in columnar format");
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                columnarExportService.write(speciesLists, outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                logger.warn("Columnar download of species lists " + ids + " failed: " + e.getMessage());
+                throw e;
+            }
+        };
+
+        String filename = speciesLists.size() == 1
+                ? "species-list-" + speciesLists.get(0).getId()
+                : "species-lists";
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename + ".columnar.json.gz")
+                .body(body);
+    }
 
-            List<String> csvHeaders = new ArrayList<>();
-            csvHeaders.add("Supplied Name");
-            csvHeaders.addAll(speciesList.getFieldList());
-            csvHeaders.addAll(Arrays.asList(CLASSIFICATION_HEADER_NAMES));
-
-            setupResponseHeaders(response, speciesList.getId(), zipped);
-
-            if (zipped) {
-                try (ZipOutputStream zipOutputStream = new ZipOutputStream(response.getOutputStream())) {
-                    ZipEntry zipEntry = new ZipEntry("taxa.csv");
-                    zipOutputStream.putNextEntry(zipEntry);
-                    writeCSV(speciesList.getId(), zipOutputStream, csvHeaders, speciesList);
-                } catch (Exception ex) {
-                    logger.error(ex.getMessage(), ex);
-                    return ResponseEntity.badRequest()
-                            .body("Error while attempting to download dataset: " + ex.getMessage());
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Download a set of species lists in a single ZIP", tags = "REST v2",
+            description = "Selects lists by ID, by flag or both (flags without IDs select public lists only). The ZIP "
+                    + "holds lists.json, with the metadata and file name of every list, and one CSV per list in the "
+                    + "format of /v2/download/{speciesListID}.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Zipped CSV data", content = @Content(mediaType = "application/zip", schema = @Schema(implementation = byte[].class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - no selection or too many species lists", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "401", description = "User is not authorized to download a private species list", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string")))
+    })
+    @GetMapping("/v2/download/bulk")
+    public ResponseEntity<StreamingResponseBody> downloadBulk(
+            @Parameter(description = "Comma separated species list IDs or data resource IDs", example = "dr656,dr18457")
+            @RequestParam(value = "speciesListIDs", required = false) String speciesListIDs,
+            @RequestParam(value = "isAuthoritative", required = false) Boolean isAuthoritative,
+            @RequestParam(value = "isThreatened", required = false) Boolean isThreatened,
+            @RequestParam(value = "isInvasive", required = false) Boolean isInvasive,
+            @RequestParam(value = "isSDS", required = false) Boolean isSDS,
+            @RequestParam(value = "isBIE", required = false) Boolean isBIE,
+            @AuthenticationPrincipal Principal principal) {
+        LinkedHashSet<String> ids = new LinkedHashSet<>();
+        if (speciesListIDs != null) {
+            for (String id : speciesListIDs.split(",")) {
+                if (!id.isBlank()) {
+                    ids.add(id.trim());
                 }
-            } else {
-                writeCSV(speciesList.getId(), response.getOutputStream(), csvHeaders, speciesList);
             }
+        }
+        SpeciesList filter = SpeciesList.builder()
+                .isAuthoritative(isAuthoritative)
+                .isThreatened(isThreatened)
+                .isInvasive(isInvasive)
+                .isSDS(isSDS)
+                .isBIE(isBIE)
+                .build();
+        if (ids.isEmpty() && isAuthoritative == null && isThreatened == null && isInvasive == null
+                && isSDS == null && isBIE == null) {
+            return textResponse(HttpStatus.BAD_REQUEST, "Species list IDs or a list flag filter is required");
+        }
 
-            logger.info("Finished writing zip download data for species list " + speciesList.getId());
-            return new ResponseEntity<>(HttpStatus.OK);
-        } catch (Exception e) {
-            return ResponseEntity.badRequest()
-                    .body("Error while attempting to download dataset: " + e.getMessage());
+        List<SpeciesList> speciesLists = bulkExportService.findLists(ids, filter);
+        if (speciesLists.size() > bulkExportService.getMaxLists()) {
+            return textResponse(HttpStatus.BAD_REQUEST,
+                    "More than " + bulkExportService.getMaxLists() + " species lists selected");
         }
+        if (!ids.isEmpty()) {
+            for (String id : ids) {
+                boolean found = speciesLists.stream()
+                        .anyMatch(list -> id.equals(list.getId()) || id.equals(list.getDataResourceUid()));
+                if (!found && BulkExportService.flagCriteria(filter).isEmpty()) {
+                    return textResponse(HttpStatus.NOT_FOUND, "Unrecognized ID while downloading dataset: " + id);
+                }
+            }
+            for (SpeciesList speciesList : speciesLists) {
+                if (Boolean.TRUE.equals(speciesList.getIsPrivate())) {
+                    ResponseEntity<StreamingResponseBody> errorResponse = checkAuthorizedToDownload(speciesList, principal);
+                    if (errorResponse != null) {
+                        return errorResponse;
+                    }
+                }
+            }
+        }
+        logger.info("Downloading " + speciesLists.size() + " species lists in a single archive");
+
+        StreamingResponseBody body = outputStream -> {
+            try {
+                bulkExportService.writeZip(speciesLists, outputStream);
+                outputStream.flush();
+            } catch (IOException e) {
+                logger.warn("Bulk download of " + speciesLists.size() + " species lists failed: " + e.getMessage());
+                throw e;
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=species-lists.zip")
+                .body(body);
     }
 
-    private void writeCSV(
-            String speciesListID,
-            OutputStream outputStream,
-            List<String> csvHeaders,
-            SpeciesList speciesList) {
-        try (CSVWriter csvWriter = new CSVWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8))) {
-            writeCsvHeaders(csvWriter, csvHeaders);
-
-            int batchSize = 10000;
-            ObjectId lastId = null;
-
-            boolean finished = false;
-            while (!finished) {
-                List<SpeciesListItem> items = speciesListItemMongoRepository.findNextBatch(speciesListID, lastId,
-                        PageRequest.of(0, batchSize));
-                if (items.isEmpty()) {
-                    finished = true;
-                } else {
-                    logger.info(
-                            "Writing CSV data for species list "
-                                    + speciesListID
-                                    + " lastId "
-                                    + lastId
-                                    + " page size "
-                                    + items.size());
-
-                    writeCsvData(csvWriter, speciesList.getFieldList(), items);
-                    csvWriter.flush();
-                    lastId = items.get(items.size() - 1).getId();
+    /**
+     * Serves the download from the export cache, with ETag validation and single byte range
+     * requests. Multiple ranges are answered with the whole download.
+     */
+    private ResponseEntity<StreamingResponseBody> cachedDownload(
+            SpeciesList speciesList, boolean zipped, String ifNoneMatch, String range, String ifRange) {
+        ExportCacheService.Format format = zipped ? ExportCacheService.Format.ZIP : ExportCacheService.Format.CSV;
+        String etag = ExportCacheService.etag(speciesList, format);
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        FileChannel channel = null;
+        long length = 0;
+        Path file = exportCacheService.getCachedExport(speciesList, format);
+        if (file != null) {
+            try {
+                // opened now, so the download can still be read if it is evicted before it is sent
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                length = channel.size();
+            } catch (NoSuchFileException e) {
+                // evicted since it was found, generated again below
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+                return textResponse(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Error while attempting to download dataset: " + e.getMessage());
+            }
+        }
+
+        if (channel == null) {
+            // not cached yet, so the export is streamed as it is generated and cached at the same
+            // time. Its length isn't known, so ranges are only served once it is cached.
+            StreamingResponseBody body = outputStream -> {
+                try {
+                    exportCacheService.writeExport(speciesList, format, outputStream);
+                    outputStream.flush();
+                } catch (IOException e) {
+                    logger.warn("Download of species list " + speciesList.getId() + " failed: " + e.getMessage());
+                    throw e;
                 }
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .eTag(etag)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(speciesList, zipped))
+                    .body(body);
+        }
+
+        long start = 0;
+        long end = length - 1;
+        boolean partial = false;
+        if (range != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    partial = true;
+                }
+            } catch (IllegalArgumentException e) {
+                closeQuietly(channel);
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+            }
+        }
+
+        FileChannel cached = channel;
+        long from = start;
+        long count = end - start + 1;
+        StreamingResponseBody body = outputStream -> {
+            try (FileChannel in = cached) {
+                WritableByteChannel out = Channels.newChannel(outputStream);
+                long position = from;
+                long remaining = count;
+                while (remaining > 0) {
+                    long written = in.transferTo(position, remaining, out);
+                    if (written <= 0) {
+                        break;
+                    }
+                    position += written;
+                    remaining -= written;
+                }
+                outputStream.flush();
             }
-            logger.info("Finished writing CSV data for species list " + speciesListID);
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(count)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(speciesList, zipped));
+        if (partial) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
         }
+        return response.body(body);
     }
 
-    private void setupResponseHeaders(
-            HttpServletResponse response, String speciesListID, Boolean isZipped) {
-        response.setHeader("Content-Type", "application/octet-stream");
-        response.setHeader(
-                "Content-Disposition",
-                "attachment; filename=species-list-" + speciesListID + (isZipped ? ".zip" : ".csv"));
+    /** @return true if the If-None-Match header lists the entity tag, or is * */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private void writeCsvHeaders(CSVWriter csvWriter, List<String> csvHeaders) {
-        csvWriter.writeNext(csvHeaders.toArray(new String[0]));
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
     }
 
-    private void writeCsvData(
-            CSVWriter csvWriter, List<String> fieldList, List<SpeciesListItem> items) {
-        items.forEach(
-                speciesListItem -> {
-                    List<String> csvRow = new ArrayList<>();
-                    // add the supplied name
-                    csvRow.add(speciesListItem.getScientificName());
-
-                    fieldList.forEach(
-                            field -> speciesListItem.getProperties().stream()
-                                    .filter(keyValue -> keyValue.getKey().equals(field))
-                                    .findFirst()
-                                    .ifPresent(keyValue -> csvRow.add(keyValue.getValue())));
-
-                    Classification classification = speciesListItem.getClassification();
-
-                    if (classification != null) {
-                        csvRow.add(speciesListItem.getClassification().getTaxonConceptID());
-                        csvRow.add(speciesListItem.getClassification().getScientificName());
-                        csvRow.add(speciesListItem.getClassification().getGenus());
-                        csvRow.add(speciesListItem.getClassification().getFamily());
-                        csvRow.add(speciesListItem.getClassification().getOrder());
-                        csvRow.add(speciesListItem.getClassification().getClasss());
-                        csvRow.add(speciesListItem.getClassification().getPhylum());
-                        csvRow.add(speciesListItem.getClassification().getKingdom());
-                        csvRow.add(speciesListItem.getClassification().getVernacularName());
-                        csvRow.add(speciesListItem.getClassification().getMatchType());
-                        csvRow.add(speciesListItem.getClassification().getNameType());
-                    }
+    private static String contentDisposition(SpeciesList speciesList, boolean zipped) {
+        return "attachment; filename=species-list-" + speciesList.getId() + (zipped ? ".zip" : ".csv");
+    }
 
-                    csvWriter.writeNext(csvRow.toArray(new String[0]));
-                });
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+                .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Nullable
-    private ResponseEntity<Object> checkAuthorizedToDownload(
+    private ResponseEntity<StreamingResponseBody> checkAuthorizedToDownload(
             SpeciesList speciesList, Principal principal) {
 
         // check user logged in
         if (!authUtils.isAuthenticated(principal)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not logged in");
+            return textResponse(HttpStatus.UNAUTHORIZED, "User not logged in");
         }
 
         // check authorised
         if (!authUtils.isAuthorized(speciesList, principal)) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not authorized");
+            return textResponse(HttpStatus.UNAUTHORIZED, "User not authorized");
         }
         return null;
     }
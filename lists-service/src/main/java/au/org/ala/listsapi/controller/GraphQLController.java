@@ -18,11 +18,14 @@ import java.net.URI;
 import java.security.Principal;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -52,6 +55,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import au.org.ala.listsapi.model.Classification;
 import au.org.ala.listsapi.model.ConstraintType;
 import au.org.ala.listsapi.model.Facet;
+import au.org.ala.listsapi.model.FacetedPage;
 import au.org.ala.listsapi.model.Filter;
 import au.org.ala.listsapi.model.Image;
 import au.org.ala.listsapi.model.InputSpeciesListItem;
@@ -64,17 +68,22 @@ import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListIndex;
 import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.repo.ReleaseMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListIndexCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListIndexElasticRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.service.ChangeFeedService;
 import au.org.ala.listsapi.service.MetadataService;
+import au.org.ala.listsapi.service.SearchCacheService;
 import au.org.ala.listsapi.service.SearchHelperService;
+import au.org.ala.listsapi.service.SnapshotService;
 import au.org.ala.listsapi.service.TaxonService;
 import au.org.ala.listsapi.service.ValidationService;
 import au.org.ala.listsapi.util.ElasticUtils;
 import au.org.ala.ws.security.profile.AlaUserProfile;
 import graphql.ErrorType;
 import graphql.GraphQLError;
+import graphql.language.Field;
 import graphql.schema.DataFetchingEnvironment;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Nullable;
@@ -133,9 +142,17 @@ public class GraphQLController {
     @Autowired
     protected SpeciesListIndexElasticRepository speciesListIndexElasticRepository;
     @Autowired
+    protected SpeciesListIndexCustomRepository speciesListIndexCustomRepository;
+    @Autowired
     protected SpeciesListItemMongoRepository speciesListItemMongoRepository;
     @Autowired
     protected SearchHelperService searchHelperService;
+    @Autowired
+    protected SearchCacheService searchCacheService;
+    @Autowired
+    protected ChangeFeedService changeFeedService;
+    @Autowired
+    protected SnapshotService snapshotService;
 
     @Autowired
     protected TaxonService taxonService;
@@ -167,12 +184,29 @@ public class GraphQLController {
             @Argument String sort,
             @Argument Boolean isPrivate,
             @Argument String dir,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            DataFetchingEnvironment env) {
 
         // Build search context with permission checks
         ListSearchContext searchContext = buildSearchContext(
             searchQuery, isPrivate, filters, userId, sort, dir, principal
         );
+
+        // When facetSpeciesLists is in the same operation, fetch both with one search
+        FacetClaim claim = claimFacets(env, "facetSpeciesLists", listFacetKey(searchContext));
+        if (claim != null && claim.owner()) {
+            try {
+                FacetedPage<SpeciesList> result = searchHelperService.searchSpeciesListsWithFacets(
+                    searchContext,
+                    PageRequest.of(page, size)
+                );
+                claim.facets().complete(result.getFacets());
+                return result.getPage();
+            } catch (RuntimeException e) {
+                claim.facets().completeExceptionally(e);
+                throw e;
+            }
+        }
         
         // Delegate to service for the actual search
         return searchHelperService.searchSpeciesLists(
@@ -192,15 +226,83 @@ public class GraphQLController {
             @Argument Boolean isPrivate,
             @Argument Integer page,
             @Argument Integer size,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            DataFetchingEnvironment env) {
 
         // Build search context with permission checks
         ListSearchContext searchContext = buildSearchContext(
             searchQuery, isPrivate, filters, userId, null, null, principal
         );
+
+        // Use the facets of the lists search of the same operation, if it got there first
+        FacetClaim claim = claimFacets(env, "lists", listFacetKey(searchContext));
+        List<Facet> shared = sharedFacets(claim);
+        if (shared != null) {
+            return shared;
+        }
         
         // Delegate to service for facet aggregation
-        return searchHelperService.getFacetsForSpeciesLists(searchContext);
+        List<Facet> facets = searchHelperService.getFacetsForSpeciesLists(searchContext);
+        if (claim != null && claim.owner()) {
+            claim.facets().complete(facets);
+        }
+        return facets;
+    }
+
+    /**
+     * Facets shared between a search field and its facet field within one GraphQL operation.
+     * Whichever of the two fields is resolved first claims the facets: the search field fetches
+     * its results and facets in a single Elasticsearch request, while a facet field that is
+     * resolved first only fetches the facets, so the search field then runs a plain search.
+     *
+     * @param facets the facets, completed by the owner of the claim
+     * @param owner  true if this field made the claim and must complete the facets
+     */
+    private record FacetClaim(CompletableFuture<List<Facet>> facets, boolean owner) {}
+
+    /**
+     * Claims the facets for a search, if the sibling field is also selected in the operation.
+     *
+     * @return the claim, or null if the sibling field is not selected
+     */
+    private static FacetClaim claimFacets(DataFetchingEnvironment env, String siblingField, List<Object> key) {
+        if (env == null || env.getOperationDefinition() == null) {
+            return null;
+        }
+        boolean siblingSelected = env.getOperationDefinition().getSelectionSet()
+            .getSelectionsOfType(Field.class).stream()
+            .anyMatch(field -> siblingField.equals(field.getName()));
+        if (!siblingSelected) {
+            return null;
+        }
+        CompletableFuture<List<Facet>> created = new CompletableFuture<>();
+        CompletableFuture<List<Facet>> claimed = env.getGraphQlContext().computeIfAbsent(key, k -> created);
+        return new FacetClaim(claimed, claimed == created);
+    }
+
+    /**
+     * Waits for the facets claimed by the sibling field.
+     *
+     * @return the facets, or null if there are none to share (not claimed by the sibling, or its search failed)
+     */
+    private static List<Facet> sharedFacets(FacetClaim claim) {
+        if (claim == null || claim.owner()) {
+            return null;
+        }
+        try {
+            return claim.facets().join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    private static List<Object> listFacetKey(ListSearchContext context) {
+        return Arrays.asList("listFacets", context.getSearchQuery(), context.getFilters(), context.getUserId());
+    }
+
+    private static List<Object> singleListFacetKey(SingleListSearchContext context, List<String> facetFields) {
+        return Arrays.asList("singleListFacets", context.getSpeciesListId(), context.getSearchQuery(),
+            context.getFilters(), facetFields);
     }
 
     /**
@@ -412,6 +514,7 @@ public class GraphQLController {
             while (!finished) {
                 List<SpeciesListItem> items = speciesListItemMongoRepository.findNextBatch(toUpdate.getId(), lastId,
                         PageRequest.of(0, batchSize));
+                snapshotService.recordBeforeChange(toUpdate, items);
 
                 for (SpeciesListItem item : items) {
                     item.getProperties().add(new KeyValue(fieldName, fieldValue));
@@ -465,6 +568,7 @@ public class GraphQLController {
         while (!finished) {
             List<SpeciesListItem> items = speciesListItemMongoRepository.findNextBatch(toUpdate.getId(), lastId,
                     PageRequest.of(0, batchSize));
+            snapshotService.recordBeforeChange(toUpdate, items);
 
             for (SpeciesListItem item : items) {
                 Optional<KeyValue> kv = item.getProperties().stream().filter(k -> k.getKey().equals(oldName))
@@ -515,6 +619,7 @@ public class GraphQLController {
         while (!finished) {
             List<SpeciesListItem> items = speciesListItemMongoRepository.findNextBatch(toUpdate.getId(), lastId,
                     PageRequest.of(0, batchSize));
+            snapshotService.recordBeforeChange(toUpdate, items);
 
             for (SpeciesListItem item : items) {
                 Optional<KeyValue> kv = item.getProperties().stream().filter(k -> k.getKey().equals(fieldName))
@@ -567,6 +672,7 @@ public class GraphQLController {
         }
 
         SpeciesListItem speciesListItem = optionalSpeciesListItem.get();
+        snapshotService.recordBeforeChange(speciesList, speciesListItem);
         updateItem(inputSpeciesListItem, speciesListItem, principal);
 
         // update last updated
@@ -649,9 +755,12 @@ public class GraphQLController {
                 speciesList.getTags(),
                 speciesList.getDateCreated() != null ? speciesList.getDateCreated().toString() : null,
                 speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().toString() : null,
-                speciesList.getLastUpdatedBy());
+                speciesList.getLastUpdatedBy(),
+                ElasticUtils.toPropertiesMap(speciesListItem.getProperties()),
+                ElasticUtils.itemChecksum(speciesListItem.getId().toString(), speciesListItem.getVersion()));
 
         speciesListIndexElasticRepository.save(speciesListIndex);
+        searchCacheService.invalidate();
     }
 
     @SchemaMapping(typeName = "Mutation", field = "addSpeciesListItem")
@@ -677,6 +786,7 @@ public class GraphQLController {
         // add the new entry
         SpeciesListItem speciesListItem = new SpeciesListItem();
         speciesListItem = updateItem(inputSpeciesListItem, speciesListItem, principal);
+        snapshotService.recordCreated(speciesList, speciesListItem);
 
         // update last updated
         speciesList = updateLastUpdated(speciesList, principal);
@@ -729,8 +839,10 @@ public class GraphQLController {
         }
 
         // delete the list item
+        changeFeedService.recordItemDeleted(speciesList, optionalSpeciesListItem.get());
+        snapshotService.recordBeforeChange(speciesList, optionalSpeciesListItem.get());
         speciesListItemMongoRepository.deleteById(id);
-        speciesListIndexElasticRepository.deleteById(id);
+        speciesListIndexCustomRepository.deleteById(id, speciesList.getId());
 
         // update distinct match count
         speciesList.setDistinctMatchCount(taxonService.getDistinctTaxaCount(speciesList.getId()));
@@ -840,6 +952,9 @@ public class GraphQLController {
             // If the visibility has changed, update the visibility of the list items
             // in elasticsearch and mongo
             SpeciesList updatedList = speciesListMongoRepository.save(toUpdate);
+            if (isPrivate != null && isPrivate != previousIsPrivate) {
+                changeFeedService.recordVisibilityChange(updatedList);
+            }
             if (reindexRequired) {
                 logger.debug("Reindexing list {} after metadata update. isPrivate changed to: {}", 
                         updatedList.getId(), updatedList.getIsPrivate());
@@ -862,7 +977,7 @@ public class GraphQLController {
             @Argument Integer size,
             @AuthenticationPrincipal Principal principal) {
         return filterSpeciesList(
-            speciesListID, null, new ArrayList<>(), page, size, null, null, principal
+            speciesListID, null, new ArrayList<>(), page, size, null, null, null, principal, null
         );
     }
 
@@ -878,7 +993,9 @@ public class GraphQLController {
             @Argument Integer size,
             @Argument String sort,
             @Argument String dir,
-            @AuthenticationPrincipal Principal principal) {
+            @Argument String cursor,
+            @AuthenticationPrincipal Principal principal,
+            DataFetchingEnvironment env) {
 
         // Validate and authorize access to the list
         SpeciesList speciesList = validateAndAuthorizeListAccess(speciesListID, principal);
@@ -896,6 +1013,30 @@ public class GraphQLController {
             principal
         );
 
+        // Cursor paging reads past the 10,000 item limit of page based requests
+        if (cursor != null) {
+            return searchHelperService.searchSingleSpeciesListWithCursor(searchContext, size, cursor);
+        }
+
+        // When facetSpeciesList is in the same operation, fetch both with one search.
+        // Facets are shared for the list's configured facet fields, the ones the UI requests.
+        List<String> facetFields = speciesList.getFacetList();
+        FacetClaim claim = claimFacets(env, "facetSpeciesList", singleListFacetKey(searchContext, facetFields));
+        if (claim != null && claim.owner()) {
+            try {
+                FacetedPage<SpeciesListItem> result = searchHelperService.searchSingleSpeciesListWithFacets(
+                    searchContext,
+                    PageRequest.of(page, size),
+                    facetFields
+                );
+                claim.facets().complete(result.getFacets());
+                return result.getPage();
+            } catch (RuntimeException e) {
+                claim.facets().completeExceptionally(e);
+                throw e;
+            }
+        }
+
         // Delegate to service for the actual search
         return searchHelperService.searchSingleSpeciesList(
             searchContext,
@@ -914,7 +1055,8 @@ public class GraphQLController {
             @Argument List<String> facetFields,
             @Argument Integer page,
             @Argument Integer size,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            DataFetchingEnvironment env) {
 
         // Validate and authorize access to the list
         SpeciesList speciesList = validateAndAuthorizeListAccess(speciesListID, principal);
@@ -937,11 +1079,23 @@ public class GraphQLController {
             ? facetFields
             : speciesList.getFacetList();
 
+        // Use the facets of the filterSpeciesList search of the same operation, if it got there first
+        FacetClaim claim = claimFacets(env, "filterSpeciesList",
+            singleListFacetKey(searchContext, effectiveFacetFields));
+        List<Facet> shared = sharedFacets(claim);
+        if (shared != null) {
+            return shared;
+        }
+
         // Delegate to service for facet aggregation
-        return searchHelperService.getFacetsForSingleSpeciesList(
+        List<Facet> facets = searchHelperService.getFacetsForSingleSpeciesList(
             searchContext,
             effectiveFacetFields
         );
+        if (claim != null && claim.owner()) {
+            claim.facets().complete(facets);
+        }
+        return facets;
     }
 
     /**
@@ -15,6 +15,9 @@
 package au.org.ala.listsapi.controller;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -38,17 +41,25 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import au.org.ala.listsapi.model.IngestJob;
 import au.org.ala.listsapi.model.IngestProgressItem;
 import au.org.ala.listsapi.model.InputSpeciesList;
+import au.org.ala.listsapi.model.ListDiffEntry;
+import au.org.ala.listsapi.model.ListSnapshot;
 import au.org.ala.listsapi.model.MigrateProgressItem;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.service.ListDiffService;
 import au.org.ala.listsapi.service.MigrateService;
 import au.org.ala.listsapi.service.ProgressService;
 import au.org.ala.listsapi.service.ReleaseService;
 import au.org.ala.listsapi.service.S3Service;
+import au.org.ala.listsapi.service.SnapshotService;
 import au.org.ala.listsapi.service.TaxonService;
 import au.org.ala.listsapi.service.UploadService;
 import au.org.ala.listsapi.service.UserdetailsService;
@@ -95,6 +106,10 @@ public class IngressController {
     protected ProgressService progressService;
     @Autowired
     protected UserdetailsService userdetailsService;
+    @Autowired
+    protected SnapshotService snapshotService;
+    @Autowired
+    protected ListDiffService listDiffService;
     @Autowired(required = false)
     protected S3Service s3Service;
 
@@ -162,6 +177,47 @@ public class IngressController {
         }
     }
 
+    @SecurityRequirement(name = "JWT")
+    @Operation(tags = "Ingress", summary = "Take a snapshot of a species list",
+            description = "Numbers the current state of the list's items as a version that can be read back from "
+            + "`/v2/snapshot/{speciesListID}/{version}`. Nothing is copied when the snapshot is taken, "
+            + "items are copied only when they are first changed after it.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Snapshot created", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ListSnapshot.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Bad Request", content = {
+                    @Content(mediaType = "text/plain") })
+    })
+    @PostMapping("/v2/snapshot/{speciesListID}")
+    public ResponseEntity<Object> snapshot(
+            @Parameter(description = "The species list ID or data resource ID", example = "dr656", required = true)
+            @PathVariable("speciesListID") String speciesListID,
+            @Parameter(description = "An optional description of this version")
+            @RequestParam(name = "description", required = false) String description,
+            @AuthenticationPrincipal Principal principal) {
+        try {
+            ResponseEntity<Object> errorResponse = checkAuthorized(speciesListID, principal);
+            if (errorResponse != null) {
+                return errorResponse;
+            }
+
+            Optional<SpeciesList> optionalSpeciesList = speciesListMongoRepository
+                    .findByIdOrDataResourceUid(speciesListID, speciesListID);
+            if (optionalSpeciesList.isEmpty()) {
+                return ResponseEntity.badRequest().body("Species list does not exist!");
+            }
+
+            ListSnapshot snapshot = snapshotService.createSnapshot(optionalSpeciesList.get(), description,
+                    principal.getName());
+            return new ResponseEntity<>(snapshot, HttpStatus.OK);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            return ResponseEntity.badRequest()
+                    .body("Error while creating the snapshot: " + e.getMessage());
+        }
+    }
+
     @Hidden
     @SecurityRequirement(name = "JWT")
     @Operation(tags = "Ingress", description = "Rematch the taxonomy for a species list. This is a long running process.", summary = "Rematch the taxonomy for a species list")
@@ -463,23 +519,11 @@ public class IngressController {
                 return errorResponse;
             }
 
-            // Verify the file exists
-            if (s3Enabled) {
-                if (!s3Service.fileExists(fileIdentifier)) {
-                    return ResponseEntity.badRequest().body("File not found in S3. Please upload the file first.");
-                }
-                logger.info("Re-Ingestion started for S3 key: {}", fileIdentifier);
-            } else {
-                // Ensure the file identifier is a simple filename and cannot escape the temp directory
-                if (fileIdentifier.contains("..") || fileIdentifier.contains("/") || fileIdentifier.contains("\\")) {
-                    return ResponseEntity.badRequest().body("Invalid file identifier");
-                }
-                File tempFile = new File(tempDir, fileIdentifier);
-                if (!tempFile.exists()) {
-                    return ResponseEntity.badRequest().body("File not uploaded yet");
-                }
-                logger.info("Re-Ingestion started for local file: {}", fileIdentifier);
+            String fileError = checkUploadedFile(fileIdentifier);
+            if (fileError != null) {
+                return ResponseEntity.badRequest().body(fileError);
             }
+            logger.info("Re-Ingestion started for {}: {}", s3Enabled ? "S3 key" : "local file", fileIdentifier);
 
             SpeciesList speciesList = uploadService.reload(speciesListID, fileIdentifier, false);
             if (speciesList != null) {
@@ -494,6 +538,106 @@ public class IngressController {
         }
     }
 
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Preview the changes a re-ingest of an existing species list would make",
+            description = "A dry run of `/v2/ingest/{speciesListID}`. The uploaded file is loaded into a staging area and "
+            + "compared with the current list, and the list is not changed. The response is the same newline delimited JSON "
+            + "as `/v2/diff`, from the current list to the uploaded file. Matching the uploaded names takes as long as it "
+            + "does for the ingest, use `key=scientificName` to compare without matching. The file is loaded before the "
+            + "response starts, so a file that cannot be loaded is a 400 response.", tags = "Ingress")
+    @PostMapping("/v2/ingest/{speciesListID}/dryRun")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The differences, followed by an {\"added\", \"removed\", \"changed\", \"unchanged\"} line", content = {
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ListDiffEntry.class))
+            }),
+            @ApiResponse(responseCode = "400", description = "Bad Request", content = {
+                    @Content(mediaType = "text/plain") })
+    })
+    public ResponseEntity<StreamingResponseBody> ingestExistingDryRun(
+            @Parameter(description = "Value should be the `localFile` property returned from the `/v2/upload` endpoint")
+            @RequestParam("file") String fileIdentifier,
+            @Parameter(description = "Value should be the `speciesListID` for the existing species list to be reloaded")
+            @PathVariable("speciesListID") String speciesListID,
+            @Parameter(description = "The key items are paired by, taxonConceptID or scientificName")
+            @RequestParam(name = "key", defaultValue = "taxonConceptID") String key,
+            @AuthenticationPrincipal Principal principal) {
+        try {
+            ResponseEntity<Object> errorResponse = checkAuthorized(speciesListID, principal);
+            if (errorResponse != null) {
+                return textResponse(HttpStatus.valueOf(errorResponse.getStatusCode().value()),
+                        String.valueOf(errorResponse.getBody()));
+            }
+
+            String fileError = checkUploadedFile(fileIdentifier);
+            if (fileError != null) {
+                return textResponse(HttpStatus.BAD_REQUEST, fileError);
+            }
+
+            ListDiffService.Key diffKey = ListDiffService.Key.of(key);
+            SpeciesList speciesList = speciesListMongoRepository
+                    .findByIdOrDataResourceUid(speciesListID, speciesListID).orElseThrow();
+
+            // staged before the response starts, so a file that can't be loaded is an error status.
+            // Items left behind by a body that never runs are removed by UploadService.deleteOrphanedStaging
+            String stagingID = uploadService.stageReload(speciesList, fileIdentifier,
+                    diffKey == ListDiffService.Key.TAXON_CONCEPT_ID);
+
+            StreamingResponseBody body = outputStream -> {
+                ObjectWriter writer = new ObjectMapper().writer();
+                try {
+                    ListDiffService.Result result = listDiffService.diff(
+                            listDiffService.items(speciesList.getId(), null, diffKey),
+                            listDiffService.items(stagingID, null, diffKey),
+                            diffKey, entry -> {
+                                try {
+                                    outputStream.write(writer.writeValueAsBytes(entry));
+                                    outputStream.write('\n');
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            });
+                    outputStream.write(writer.writeValueAsBytes(result));
+                    outputStream.write('\n');
+                    outputStream.flush();
+                } finally {
+                    uploadService.deleteStaged(stagingID);
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+        } catch (Exception e) {
+            logger.error("Error while comparing the file: " + e.getMessage(), e);
+            return textResponse(HttpStatus.BAD_REQUEST, "Error while comparing the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return why the uploaded file cannot be ingested, or null if it can
+     */
+    @Nullable
+    private String checkUploadedFile(String fileIdentifier) {
+        // Verify the file exists
+        if (s3Enabled) {
+            if (!s3Service.fileExists(fileIdentifier)) {
+                return "File not found in S3. Please upload the file first.";
+            }
+        } else {
+            // Ensure the file identifier is a simple filename and cannot escape the temp directory
+            if (fileIdentifier.contains("..") || fileIdentifier.contains("/") || fileIdentifier.contains("\\")) {
+                return "Invalid file identifier";
+            }
+            File tempFile = new File(tempDir, fileIdentifier);
+            if (!tempFile.exists()) {
+                return "File not uploaded yet";
+            }
+        }
+        return null;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+                .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Nullable
     private ResponseEntity<Object> checkAuthorized(String speciesListID, Principal principal) {
         // check user logged in
@@ -15,15 +15,22 @@
 
 package au.org.ala.listsapi.controller;
 
+import java.io.OutputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +40,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -45,8 +53,13 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import au.org.ala.listsapi.config.Views;
 import au.org.ala.listsapi.model.ErrorResponse;
@@ -97,6 +110,11 @@ public class LegacyController {
     @Autowired
     protected AuthUtils authUtils;
 
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     @Operation(tags = "REST v1", summary = "Get species list metadata for all lists", deprecated = true)
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Species lists found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = SpeciesListPageVersion1.class))),
@@ -253,13 +271,14 @@ public class LegacyController {
      * as the logic is mostly shared between the two endpoints. The presence of list filter parameters 
      * or absence of druid indicates a search-based request, otherwise it's a direct ID lookup.
      */
-    private ResponseEntity<Object> internalSpeciesListItems(
+    private ResponseEntity<StreamingResponseBody> internalSpeciesListItems(
             String druid, String isAuthoritative, String isThreatened, String isInvasive,
             String isSDS, String isBIE, String query, Boolean nonulls, String sort, 
-            String order, String dir, Integer max, Integer offset, Principal principal) {
+            String order, String dir, Integer max, Integer offset, Principal principal,
+            Class<?> view, HttpServletRequest request) {
         try {
             if (Boolean.TRUE.equals(nonulls)) {
-                return ResponseEntity.badRequest().body("The 'nonulls' parameter is not yet supported.");
+                return textResponse(HttpStatus.BAD_REQUEST, "The 'nonulls' parameter is not yet supported.");
             }
 
             String effectiveOrder = StringUtils.isNotBlank(order) ? order : (StringUtils.isNotBlank(dir) ? dir : "asc");
@@ -268,7 +287,7 @@ public class LegacyController {
             int effectiveOffset = (offset != null) ? offset : 0;
 
             if (effectiveOffset != 0 && (effectiveOffset % effectiveMax) != 0) {
-                return ResponseEntity.badRequest().body(
+                return textResponse(HttpStatus.BAD_REQUEST,
                         String.format("Invalid pagination: 'offset' (%d) must be a multiple of 'max' (%d).",
                                 effectiveOffset, effectiveMax));
             }
@@ -291,10 +310,10 @@ public class LegacyController {
                 String userId = profile != null ? profile.getUserId() : null;
                 Boolean isAdmin = authUtils.hasAdminRole(profile);
 
-                Page<SpeciesList> speciesLists = searchHelperService.searchDocuments(convertedSpeciesListQuery, userId, isAdmin, decodedQuery, paging);
+                Page<SpeciesList> speciesLists = searchHelperService.searchDocuments(convertedSpeciesListQuery, userId, isAdmin, decodedQuery, paging, false);
 
                 if (speciesLists.isEmpty()) {
-                    return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+                    return streamListItemsVersion1(Collections.emptyIterator(), view, request);
                 }
 
                 String speciesListIDs = speciesLists.getContent().stream()
@@ -303,24 +322,20 @@ public class LegacyController {
 
                 String itemSort = sort != null ? fixSortField(sort) : "speciesListID";
 
-                List<SpeciesListItem> speciesListItems = searchHelperService.fetchSpeciesListItems(
+                Iterator<List<SpeciesListItem>> speciesListItems = searchHelperService.streamSpeciesListItems(
                         speciesListIDs,
                         StringUtils.isNotBlank(decodedQuery) ? decodedQuery : null,
-                        null, null, page, effectiveMax, itemSort, effectiveOrder, principal);
+                        null, page, effectiveMax, itemSort, effectiveOrder, principal);
 
-                if (speciesListItems.isEmpty()) {
-                    return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
-                }
-
-                return new ResponseEntity<>(legacyService.convertListItemToVersion1(speciesListItems), HttpStatus.OK);
+                return streamListItemsVersion1(speciesListItems, view, request);
             } 
             // Branch B: Direct ID Lookup
             else {
-                return getLegacySpeciesListItems(druid, decodedQuery, null, nonulls, effectiveOffset, effectiveMax, sort, effectiveOrder, principal);
+                return getLegacySpeciesListItems(druid, decodedQuery, null, nonulls, effectiveOffset, effectiveMax, sort, effectiveOrder, principal, view, request);
             }
         } catch (Exception e) {
             logger.error("Error occurred for species list items: {}", e.getMessage(), e);
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
@@ -336,7 +351,7 @@ public class LegacyController {
             @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
     })
     @GetMapping({"/v1/speciesListItems", "/ws/speciesListItems"})
-    public ResponseEntity<Object> searchSpeciesListItems(
+    public ResponseEntity<StreamingResponseBody> searchSpeciesListItems(
             @Parameter(description = "Filter by list ID (druid) as query parameter", example = "dr656")
             @RequestParam(name = "druid", required = false) String druid,
             @RequestParam(name = "isAuthoritative", required = false) String isAuthoritative,
@@ -344,7 +359,7 @@ public class LegacyController {
             @RequestParam(name = "isInvasive", required = false) String isInvasive,
             @RequestParam(name = "isSDS", required = false) String isSDS,
             @RequestParam(name = "isBIE", required = false) String isBIE,
-            @Parameter(description = "Query string to find items within the specified list", example = "Eucalyptus" )
+            @Parameter(description = "Text to find items within the specified list, matched case insensitively within item names or at the start of a phrase in property values (not a regular expression)", example = "Eucalyptus" )
             @RequestParam(name = "q", required = false) String query,
             @RequestParam(name = "nonulls", required = false) Boolean nonulls,
             @RequestParam(name = "sort", defaultValue = "speciesListID") String sort,
@@ -352,10 +367,11 @@ public class LegacyController {
             @RequestParam(name = "dir", required = false) String dir,
             @RequestParam(name = "max", required = false) Integer max,
             @RequestParam(name = "offset", defaultValue = "0") Integer offset,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            HttpServletRequest request) {
         
         return internalSpeciesListItems(druid, isAuthoritative, isThreatened, isInvasive, isSDS, isBIE, 
-                                    query, nonulls, sort, order, dir, max, offset, principal);
+                                    query, nonulls, sort, order, dir, max, offset, principal, null, request);
     }
 
     /**
@@ -369,22 +385,22 @@ public class LegacyController {
             @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view this species list", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
     })
-    @JsonView(Views.Narrow.class)
     @GetMapping({"/v1/speciesListItems/{druid}", "/v1/speciesListItems/{druid}/", "/ws/speciesListItems/{druid}", "/ws/speciesListItems/{druid}/"})
-    public ResponseEntity<Object> getSpeciesListItemsByPath(
+    public ResponseEntity<StreamingResponseBody> getSpeciesListItemsByPath(
             @Parameter(description = "The species list ID path parameter", example = "dr656") 
             @PathVariable(name = "druid") String druid,
-            @Parameter(description = "Query string to find items within the specified list", example = "Eucalyptus" )
+            @Parameter(description = "Text to find items within the specified list, matched case insensitively within item names or at the start of a phrase in property values (not a regular expression)", example = "Eucalyptus" )
             @RequestParam(name = "q", required = false) String query,
             @RequestParam(name = "sort", defaultValue = "speciesListID") String sort,
             @RequestParam(name = "order", required = false) String order,
             @RequestParam(name = "max", required = false) Integer max,
             @RequestParam(name = "offset", defaultValue = "0") Integer offset,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            HttpServletRequest request) {
         
         // Note: Filter booleans are nullified here as path lookup is specific to one list
         return internalSpeciesListItems(druid, null, null, null, null, null, 
-                                    query, null, sort, order, null, max, offset, principal);
+                                    query, null, sort, order, null, max, offset, principal, Views.Narrow.class, request);
     }
 
     @SecurityRequirement(name = "JWT")
@@ -462,10 +478,9 @@ public class LegacyController {
             @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ErrorResponse.class))),
 
     })
-    @JsonView(Views.Narrow.class)
     @SecurityRequirement(name = "JWT")
     @GetMapping({"/v1/speciesListItemsInternal/{druid}", "/v1/speciesListItemsInternal/{druid}/", "/ws/speciesListItemsInternal/{druid}", "/ws/speciesListItemsInternal/{druid}/"})
-    public ResponseEntity<Object> speciesListItemsInternal(
+    public ResponseEntity<StreamingResponseBody> speciesListItemsInternal(
             @Parameter(
                     name = "druid",
                     description = "The data resource id (or speciesListID) or comma separated ids to identify list(s) to return list items for e.g. '/v1/speciesListItemsInternal/dr123,dr456,dr789'",
@@ -485,23 +500,23 @@ public class LegacyController {
             @Nullable @RequestParam(name = "max", defaultValue = "10") Integer max,
             @Nullable @RequestParam(name = "sort", defaultValue="speciesListID") String sort,
             @Nullable @RequestParam(name = "dir", defaultValue="asc") String dir,
-            @AuthenticationPrincipal Principal principal) {
+            @AuthenticationPrincipal Principal principal,
+            HttpServletRequest request) {
         try {
             if (Boolean.TRUE.equals(nonulls)) {
                 // TODO: remove this code when nonulls is supported
-                return ResponseEntity.badRequest().body("The 'nonulls' parameter is not yet supported.");
+                return textResponse(HttpStatus.BAD_REQUEST, "The 'nonulls' parameter is not yet supported.");
             }
             // Check if the user/client app is authorized to access this endpoint
             if (!authUtils.isAuthorized(principal)) {
                 ErrorResponse errorResponse = new ErrorResponse(HttpStatus.FORBIDDEN.name(), "Not authorised to access this endpoint", HttpStatus.FORBIDDEN.value());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .contentType(MediaType.APPLICATION_JSON)
-                        .body(errorResponse);
+                return jsonResponse(HttpStatus.FORBIDDEN, errorResponse);
             }
 
-            return getLegacySpeciesListItems(speciesListIDs, searchQuery, null, nonulls, offset, max, sort, dir, principal);
+            return getLegacySpeciesListItems(speciesListIDs, searchQuery, null, nonulls, offset, max, sort, dir, principal,
+                    Views.Narrow.class, request);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
@@ -516,35 +531,96 @@ public class LegacyController {
      * @param sort
      * @param dir
      * @param principal
+     * @param view the JSON view to write the items with, or null for all fields
+     * @param request
      * @return
      */
-    private ResponseEntity<Object> getLegacySpeciesListItems(String speciesListIDs, String searchQuery, String fields, Boolean nonulls,
-            Integer offset, Integer max, String sort, String dir, Principal principal) {
+    private ResponseEntity<StreamingResponseBody> getLegacySpeciesListItems(String speciesListIDs, String searchQuery, String fields, Boolean nonulls,
+            Integer offset, Integer max, String sort, String dir, Principal principal, Class<?> view, HttpServletRequest request) {
         // convert max and offset to page and pageSize
         int[] pageAndSize = calculatePageAndSize(offset, max);
         int page = pageAndSize[0];
         int pageSize = pageAndSize[1];
         logger.debug("Fetching legacy species list items for speciesListIDs: {} with offset: {}, max: {}", speciesListIDs, offset, max);
         logger.debug("Calculated page and pageSize: {} with page: {}, pageSize: {}", speciesListIDs, page, pageSize);
-        List<SpeciesListItem> speciesListItems;
+        Iterator<List<SpeciesListItem>> speciesListItems;
         
         try {
-            speciesListItems = searchHelperService.fetchSpeciesListItems(speciesListIDs, searchQuery, fields, nonulls, page, pageSize, sort, dir, principal);
+            speciesListItems = searchHelperService.streamSpeciesListItems(speciesListIDs, searchQuery, fields, page, pageSize, sort, dir, principal);
         } catch (Exception e) {
             logger.error("Error fetching species list items: {}", e.getMessage(), e);
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.name(), e.getMessage(), HttpStatus.BAD_REQUEST.value()));
+            return jsonResponse(HttpStatus.BAD_REQUEST,
+                new ErrorResponse(HttpStatus.BAD_REQUEST.name(), e.getMessage(), HttpStatus.BAD_REQUEST.value()));
         }
 
-        if (speciesListItems.isEmpty()) {
-                // Return 200 with empty array for legacy compatibility
-                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
+        // No items are written as an empty array for legacy compatibility
+        return streamListItemsVersion1(speciesListItems, view, request);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamListItemsVersion1(Iterator<List<SpeciesListItem>> speciesListItems,
+            Class<?> view, HttpServletRequest request) {
+        Map<String, Optional<SpeciesList>> listCache = new HashMap<>();
+        return streamJsonArray(speciesListItems,
+                (batch, startIndex) -> legacyService.convertListItemToVersion1(batch, startIndex, listCache), view, request);
+    }
+
+    /**
+     * Writes the batches of items as a JSON array, converting and serialising one batch at a time so
+     * that large pages are never held in memory. The response is gzipped when the client accepts it.
+     *
+     * @param batches the items, the first batch already read so query errors are reported before this
+     * @param convert converts a batch, given the index of its first item
+     * @param view the JSON view to write the items with, or null for all fields
+     */
+    private <T> ResponseEntity<StreamingResponseBody> streamJsonArray(Iterator<List<SpeciesListItem>> batches,
+            BiFunction<List<SpeciesListItem>, Integer, List<T>> convert, Class<?> view, HttpServletRequest request) {
+        boolean gzip = acceptsGzip(request);
+        ObjectWriter writer = (view != null ? objectMapper.writerWithView(view) : objectMapper.writer())
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        StreamingResponseBody body = outputStream -> {
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) : null;
+            OutputStream out = gzipStream != null ? gzipStream : outputStream;
+            try (JsonGenerator generator = writer.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                int index = 0;
+                while (batches.hasNext()) {
+                    List<SpeciesListItem> batch = batches.next();
+                    for (T item : convert.apply(batch, index)) {
+                        writer.writeValue(generator, item);
+                    }
+                    index += batch.size();
+                }
+                generator.writeEndArray();
+            }
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+            outputStream.flush();
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(body);
+    }
 
-        List<SpeciesListItemVersion1> legacySpeciesListItems = legacyService.convertListItemToVersion1(speciesListItems);
+    static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+
+    private ResponseEntity<StreamingResponseBody> jsonResponse(HttpStatus status, Object body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> outputStream.write(objectMapper.writeValueAsBytes(body)));
+    }
 
-        return new ResponseEntity<>(legacySpeciesListItems, HttpStatus.OK);
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+                .body(outputStream -> outputStream.write(String.valueOf(message).getBytes(StandardCharsets.UTF_8)));
     }
 
     @Operation(
@@ -683,9 +759,8 @@ public class LegacyController {
                     )
             )
     })
-    @JsonView(Views.Wide.class)
     @GetMapping({"/v1/species/**", "/ws/species/**"})
-    public ResponseEntity<Object> speciesListItemsForGuid(
+    public ResponseEntity<StreamingResponseBody> speciesListItemsForGuid(
             @Parameter(
                     name = "guids",
                     allowReserved = true,
@@ -734,62 +809,21 @@ public class LegacyController {
         String inputGuids = (StringUtils.isNotBlank(guid) ? guid : (StringUtils.isNotBlank(guids) ? guids : ""));
 
         try {
-            // If any boolean list-level filters are set, resolve matching list IDs via MongoDB
-            // and intersect with any caller-supplied speciesListIDs
-            boolean hasBooleanFilters = StringUtils.isNotBlank(isAuthoritative)
-                    || StringUtils.isNotBlank(isThreatened)
-                    || StringUtils.isNotBlank(isInvasive)
-                    || StringUtils.isNotBlank(isSDS)
-                    || StringUtils.isNotBlank(isBIE);
-
-            if (hasBooleanFilters) {
-                RESTSpeciesListQuery speciesListQuery = new RESTSpeciesListQuery();
-                fixLegacyBooleanSyntax(isAuthoritative, isThreatened, isInvasive, isSDS, isBIE, null, null, speciesListQuery);
-
-                AlaUserProfile profile = authUtils.getUserProfile(principal);
-                String userId = profile != null ? profile.getUserId() : null;
-                Boolean isAdmin = authUtils.hasAdminRole(profile);
-
-                // Fetch all matching lists (up to 10,000) — no text search, just boolean filters
-                Page<SpeciesList> matchingLists = searchHelperService.searchDocuments(
-                        speciesListQuery.convertTo(), userId, isAdmin, ".*", PageRequest.of(0, 10000));
-
-                String filteredListIDs = matchingLists.getContent().stream()
-                        .map(list -> list.getDataResourceUid() != null ? list.getDataResourceUid() : list.getId())
-                        .collect(java.util.stream.Collectors.joining(","));
-
-                if (filteredListIDs.isEmpty()) {
-                    return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
-                }
-
-                // Intersect with caller-supplied speciesListIDs if present
-                if (StringUtils.isNotBlank(speciesListIDs)) {
-                    Set<String> callerIDs = new java.util.HashSet<>(Arrays.asList(speciesListIDs.split(",")));
-                    filteredListIDs = Arrays.stream(filteredListIDs.split(","))
-                            .filter(callerIDs::contains)
-                            .collect(java.util.stream.Collectors.joining(","));
-
-                    if (filteredListIDs.isEmpty()) {
-                        return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK);
-                    }
-                }
-
-                speciesListIDs = filteredListIDs;
-            }
-
-            List<SpeciesListItem> speciesListItems = searchHelperService.fetchSpeciesListItems(
-                    inputGuids, speciesListIDs, pageVal, pageSizeVal, principal);
-
-            if (speciesListItems.isEmpty()) {
-                return new ResponseEntity<>(new ArrayList<>(), HttpStatus.OK); // empty list
-            }
+            // Boolean list-level filters are denormalised onto the items, so they are applied in the item query
+            RESTSpeciesListQuery speciesListQuery = new RESTSpeciesListQuery();
+            fixLegacyBooleanSyntax(isAuthoritative, isThreatened, isInvasive, isSDS, isBIE, null, null, speciesListQuery);
 
-            List<SpeciesItemVersion1> legacySpeciesListItems = legacyService.convertToSpeciesItemVersion1(speciesListItems);
+            // Large pages (9999 by default) are read, converted and written a batch at a time
+            Iterator<List<SpeciesListItem>> speciesListItems = searchHelperService.streamSpeciesListItems(
+                    inputGuids, speciesListIDs, speciesListQuery.convertTo(), pageVal, pageSizeVal, principal);
 
-            return new ResponseEntity<>(legacySpeciesListItems, HttpStatus.OK);
+            Map<String, SpeciesList> listCache = new HashMap<>();
+            return streamJsonArray(speciesListItems,
+                    (batch, startIndex) -> legacyService.convertToSpeciesItemVersion1(batch, listCache),
+                    Views.Wide.class, request);
         } catch (Exception e) {
             logger.info(e.getMessage(), e);
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
         }
     }
 
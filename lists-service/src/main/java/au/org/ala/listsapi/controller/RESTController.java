@@ -15,11 +15,17 @@
 
 package au.org.ala.listsapi.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.security.Principal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
 import java.net.URLDecoder;
@@ -49,22 +55,46 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import au.org.ala.listsapi.model.ChangeEvent;
+import au.org.ala.listsapi.model.ChangeTombstone;
+import au.org.ala.listsapi.model.ListDiffEntry;
+import au.org.ala.listsapi.model.ListSetCount;
+import au.org.ala.listsapi.model.ListSnapshot;
+import au.org.ala.listsapi.model.ListSetMember;
 import au.org.ala.listsapi.model.RESTSpeciesListQuery;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListIndex;
 import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.model.SpeciesListPage;
+import au.org.ala.listsapi.model.TaxonLists;
+import au.org.ala.listsapi.model.TaxonListsQuery;
 import au.org.ala.listsapi.repo.SpeciesListCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
 import au.org.ala.listsapi.service.BiocacheService;
+import au.org.ala.listsapi.service.ChangeFeedService;
+import au.org.ala.listsapi.service.ListDiffService;
+import au.org.ala.listsapi.service.ListSetOperationService;
+import au.org.ala.listsapi.service.MembershipSnapshotService;
+import au.org.ala.listsapi.service.SearchCacheService;
 import au.org.ala.listsapi.service.SearchHelperService;
+import au.org.ala.listsapi.service.SnapshotService;
+import au.org.ala.listsapi.service.TaxonListsService;
+import au.org.ala.listsapi.util.ChangeCursor;
 import au.org.ala.listsapi.util.ElasticUtils;
 import au.org.ala.ws.security.profile.AlaUserProfile;
 import co.elastic.clients.elasticsearch.core.search.FieldCollapse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -96,9 +126,27 @@ public class RESTController {
     @Autowired
     protected SearchHelperService searchHelperService;
 
+    @Autowired
+    protected SearchCacheService searchCacheService;
+
     @Autowired
     protected ElasticsearchOperations elasticsearchOperations;
 
+    @Autowired
+    protected TaxonListsService taxonListsService;
+
+    @Autowired
+    protected MembershipSnapshotService membershipSnapshotService;
+
+    @Autowired
+    protected ListSetOperationService listSetOperationService;
+    @Autowired
+    protected ChangeFeedService changeFeedService;
+    @Autowired
+    protected SnapshotService snapshotService;
+    @Autowired
+    protected ListDiffService listDiffService;
+
     @Operation(tags = "REST v2", summary = "Get species list metadata")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Species list found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = SpeciesList.class))),
@@ -151,6 +199,8 @@ public class RESTController {
             @RequestParam(name = "page", defaultValue = "1", required = false) @Max(10000) int page,
             @Parameter(description = "Number of items per page", example = "10", required = false)
             @RequestParam(name = "pageSize", defaultValue = "10", required = false) @Max(1000) int pageSize,
+            @Parameter(description = "Whether the total number of lists must be exact. When false, large filtered totals are capped at 10000 and unfiltered totals are estimated.", example = "true", required = false)
+            @RequestParam(name = "exactCount", defaultValue = "true", required = false) boolean exactCount,
             @AuthenticationPrincipal Principal principal) {
         try {
             String decodedQuery = searchQuery != null && !searchQuery.isBlank()
@@ -190,7 +240,7 @@ public class RESTController {
                             publicLists.setIsPrivate("false");
 
                             Page<SpeciesList> results = speciesListCustomRepository
-                                    .findByMultipleExamples(privateLists.convertTo(), publicLists.convertTo(), decodedQuery, paging);
+                                    .findByMultipleExamples(privateLists.convertTo(), publicLists.convertTo(), decodedQuery, paging, exactCount);
                             SpeciesListPage response = getLegacyFormatModel(results);
                             response.setQ(decodedQuery);
                             response.setSort(sort);
@@ -212,8 +262,16 @@ public class RESTController {
                 // If the user is an admin or has internal scope, they can query any lists without restrictions
             }
 
-            Page<SpeciesList> results = speciesListCustomRepository
-                    .findByExample(speciesList.convertTo(), decodedQuery, paging);
+            Page<SpeciesList> results;
+            if (profile == null) {
+                // anonymous queries only see public lists, so their results can be shared
+                results = searchCacheService.get("speciesLists", Arrays.asList(speciesList, decodedQuery, paging, exactCount),
+                        () -> speciesListCustomRepository.findByExample(speciesList.convertTo(), decodedQuery, paging, exactCount),
+                        SearchCacheService::copyLists);
+            } else {
+                results = speciesListCustomRepository
+                        .findByExample(speciesList.convertTo(), decodedQuery, paging, exactCount);
+            }
 
             SpeciesListPage response = getLegacyFormatModel(results);
             response.setQ(decodedQuery);
@@ -325,6 +383,384 @@ public class RESTController {
         }
     }
 
+    @Operation(tags = "REST v2", summary = "Get the species lists of many taxa in one request. Returns one JSON document per line for each taxon found in at least one list.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lists of the taxa", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = TaxonLists.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - no taxa or too many taxa requested", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "At least one taxonConceptID or taxonID is required")))
+    })
+    @PostMapping(value = "/v2/speciesList/byGuids", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> speciesListsByGuids(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "The taxonConceptIDs and/or taxonIDs to look up and the KVP fields to return for each list", required = true)
+            @RequestBody TaxonListsQuery taxonListsQuery,
+            @AuthenticationPrincipal Principal principal) {
+        try {
+            taxonListsService.validate(taxonListsQuery);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write(e.getMessage().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        // written as each taxon is read, so the whole response is never held in memory
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = new ObjectMapper().writer();
+            taxonListsService.streamTaxonLists(taxonListsQuery, principal, taxonLists -> {
+                try {
+                    outputStream.write(writer.writeValueAsBytes(taxonLists));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @Operation(tags = "REST v2", summary = "Get the public authoritative, SDS and BIE lists that contain a taxon, with the taxon's KVPs in each list. Served from an in-memory snapshot that is refreshed when any of these lists change.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lists of the taxon", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = TaxonLists.class))),
+            @ApiResponse(responseCode = "503", description = "The snapshot is disabled or has not been built yet", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "The membership snapshot is not available yet")))
+    })
+    @GetMapping("/v2/speciesList/membership")
+    public ResponseEntity<Object> speciesListMembership(
+            @Parameter(description = "The taxonConceptID of the taxon", example = "https://biodiversity.org.au/afd/taxa/0d382040-d26d-4009-921a-abf76013df3a", required = true)
+            @RequestParam(name = "guid") String guid) {
+        if (!membershipSnapshotService.isEnabled() || !membershipSnapshotService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("The membership snapshot is not available yet");
+        }
+        return ResponseEntity.ok(membershipSnapshotService.lookup(guid.trim()));
+    }
+
+    @Operation(tags = "REST v2", summary = "Count the taxa in the intersection, union or difference of species lists. The difference is the taxa of the first list that are in none of the others.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Number of taxa in the result", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = ListSetCount.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - unknown operation or wrong number of lists", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "At least two species lists are required"))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view one of the species lists", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "User does not have permission to view species list: dr123"))),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "Species list not found: dr123")))
+    })
+    @GetMapping("/v2/speciesList/setOperation/count")
+    public ResponseEntity<Object> listSetOperationCount(
+            @Parameter(description = "Comma separated species list IDs or data resource IDs", example = "dr18404,dr18457", required = true)
+            @RequestParam(name = "speciesListIDs") String speciesListIDs,
+            @Parameter(description = "The set operation: intersection, union or difference", example = "intersection", required = true)
+            @RequestParam(name = "operation") String operation,
+            @AuthenticationPrincipal Principal principal) {
+        ListSetOperationService.Operation setOperation = ListSetOperationService.Operation.parse(operation);
+        List<SpeciesList> lists = new ArrayList<>();
+        ResponseEntity<Object> error = findReadableLists(speciesListIDs, principal, lists);
+        if (error != null) {
+            return error;
+        }
+
+        long count = listSetOperationService.count(lists, setOperation);
+        return ResponseEntity.ok(new ListSetCount(setOperation.name().toLowerCase(),
+                lists.stream().map(SpeciesList::getId).toList(), count));
+    }
+
+    @Operation(tags = "REST v2", summary = "Get the taxa in the intersection, union or difference of species lists. Returns one JSON document per line for each taxon, in taxonConceptID order.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Taxa in the result", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ListSetMember.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - unknown operation or wrong number of lists", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "At least two species lists are required"))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view one of the species lists", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "User does not have permission to view species list: dr123"))),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "Species list not found: dr123")))
+    })
+    @GetMapping("/v2/speciesList/setOperation/members")
+    public ResponseEntity<StreamingResponseBody> listSetOperationMembers(
+            @Parameter(description = "Comma separated species list IDs or data resource IDs", example = "dr18404,dr18457", required = true)
+            @RequestParam(name = "speciesListIDs") String speciesListIDs,
+            @Parameter(description = "The set operation: intersection, union or difference", example = "intersection", required = true)
+            @RequestParam(name = "operation") String operation,
+            @AuthenticationPrincipal Principal principal) {
+        ListSetOperationService.Operation setOperation = ListSetOperationService.Operation.parse(operation);
+        List<SpeciesList> lists = new ArrayList<>();
+        ResponseEntity<Object> error = findReadableLists(speciesListIDs, principal, lists);
+        if (error == null) {
+            try {
+                listSetOperationService.validate(lists);
+            } catch (IllegalArgumentException e) {
+                error = ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
+        if (error != null) {
+            String message = String.valueOf(error.getBody());
+            return ResponseEntity.status(error.getStatusCode()).contentType(MediaType.TEXT_PLAIN)
+                    .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = new ObjectMapper().writer();
+            listSetOperationService.stream(lists, setOperation, member -> {
+                try {
+                    outputStream.write(writer.writeValueAsBytes(member));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @Operation(tags = "REST v2", summary = "Stream the items added, updated or deleted since a time or cursor, for one list or all public lists",
+            description = "Newline delimited JSON, one change per line in the order they were made: added or updated (with the item), "
+                    + "deleted (with the id, taxonConceptID and scientificName of the item), reset (all earlier items of the list were "
+                    + "removed by a reload, its current items follow as added) or listDeleted. The last line holds the cursor to resume "
+                    + "from and whether more changes are waiting. Deletions are kept for " + ChangeTombstone.RETENTION_DAYS + " days.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The changes, followed by a {\"cursor\", \"more\", \"count\"} line", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ChangeEvent.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - missing or invalid since, cursor or limit", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view the species list", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "410", description = "Gone - deletions since the requested time have expired, a full download is required", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string")))
+    })
+    @GetMapping("/v2/changes")
+    public ResponseEntity<StreamingResponseBody> changes(
+            @Parameter(description = "The species list ID or data resource ID, all public lists when not set", example = "dr656")
+            @RequestParam(name = "speciesListID", required = false) String speciesListID,
+            @Parameter(description = "Return the changes made after this time, ISO-8601 or epoch milliseconds", example = "2025-06-01T00:00:00Z")
+            @RequestParam(name = "since", required = false) String since,
+            @Parameter(description = "The cursor of the previous response, takes precedence over since")
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @Parameter(description = "The maximum number of changes to return")
+            @RequestParam(name = "limit", defaultValue = "10000") int limit,
+            @AuthenticationPrincipal Principal principal) {
+        ChangeCursor start;
+        try {
+            changeFeedService.validateLimit(limit);
+            if (cursor != null && !cursor.isBlank()) {
+                start = ChangeCursor.decode(cursor);
+            } else if (since != null && !since.isBlank()) {
+                start = ChangeCursor.after(parseTime(since.trim()));
+            } else {
+                throw new IllegalArgumentException("since or cursor is required");
+            }
+        } catch (IllegalArgumentException e) {
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (ChangeFeedService.isExpired(start)) {
+            return textResponse(HttpStatus.GONE, "Changes before " + ChangeTombstone.RETENTION_DAYS
+                    + " days ago are no longer available, download the lists again");
+        }
+
+        String listID = null;
+        if (speciesListID != null && !speciesListID.isBlank()) {
+            Optional<SpeciesList> speciesList = speciesListMongoRepository.findByIdOrDataResourceUid(speciesListID.trim(),
+                    speciesListID.trim());
+            if (speciesList.isPresent()) {
+                if (Boolean.TRUE.equals(speciesList.get().getIsPrivate()) && !authUtils.isAuthorized(speciesList.get(), principal)) {
+                    return textResponse(HttpStatus.FORBIDDEN, "User does not have permission to view species list: " + speciesListID);
+                }
+                listID = speciesList.get().getId();
+            } else if (changeFeedService.hasPublicTombstones(speciesListID.trim())) {
+                // a deleted list, its tombstones are still available
+                listID = speciesListID.trim();
+            } else {
+                return textResponse(HttpStatus.NOT_FOUND, "Species list not found: " + speciesListID);
+            }
+        }
+
+        String feedListID = listID;
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).writer();
+            ChangeFeedService.Result result = changeFeedService.stream(feedListID, start, limit, event -> {
+                try {
+                    outputStream.write(writer.writeValueAsBytes(event));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            Map<String, Object> end = new LinkedHashMap<>();
+            end.put("cursor", result.cursor().encode());
+            end.put("more", result.more());
+            end.put("count", result.count());
+            outputStream.write(writer.writeValueAsBytes(end));
+            outputStream.write('\n');
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @Operation(tags = "REST v2", summary = "Get the snapshots of a species list, latest first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The snapshots of the list", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, array = @ArraySchema(schema = @Schema(implementation = ListSnapshot.class)))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view this species list", content = @Content),
+            @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content)
+    })
+    @GetMapping("/v2/snapshots/{speciesListID}")
+    public ResponseEntity<List<ListSnapshot>> snapshots(
+            @Parameter(description = "The species list ID or data resource ID", example = "dr656", required = true)
+            @PathVariable("speciesListID") String speciesListID,
+            @AuthenticationPrincipal Principal principal) {
+        Optional<SpeciesList> speciesList = speciesListMongoRepository.findByIdOrDataResourceUid(speciesListID,
+                speciesListID);
+        if (speciesList.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (Boolean.TRUE.equals(speciesList.get().getIsPrivate()) && !authUtils.isAuthorized(speciesList.get(), principal)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(snapshotService.getSnapshots(speciesList.get().getId()));
+    }
+
+    @Operation(tags = "REST v2", summary = "Stream the items of a species list as they were at a snapshot",
+            description = "Newline delimited JSON, one item per line in item id order.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The items of the snapshot", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = SpeciesListItem.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view the species list", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "404", description = "Species list or snapshot not found", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string")))
+    })
+    @GetMapping("/v2/snapshot/{speciesListID}/{version}")
+    public ResponseEntity<StreamingResponseBody> snapshotItems(
+            @Parameter(description = "The species list ID or data resource ID", example = "dr656", required = true)
+            @PathVariable("speciesListID") String speciesListID,
+            @Parameter(description = "The snapshot version", example = "1", required = true)
+            @PathVariable("version") int version,
+            @AuthenticationPrincipal Principal principal) {
+        Optional<SpeciesList> speciesList = speciesListMongoRepository.findByIdOrDataResourceUid(speciesListID,
+                speciesListID);
+        if (speciesList.isEmpty()) {
+            return textResponse(HttpStatus.NOT_FOUND, "Species list not found: " + speciesListID);
+        }
+        if (Boolean.TRUE.equals(speciesList.get().getIsPrivate()) && !authUtils.isAuthorized(speciesList.get(), principal)) {
+            return textResponse(HttpStatus.FORBIDDEN, "User does not have permission to view species list: " + speciesListID);
+        }
+        String listID = speciesList.get().getId();
+        if (snapshotService.getSnapshot(listID, version).isEmpty()) {
+            return textResponse(HttpStatus.NOT_FOUND, "Snapshot " + version + " of species list " + speciesListID + " not found");
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = new ObjectMapper().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).writer();
+            snapshotService.stream(listID, version, item -> {
+                try {
+                    outputStream.write(writer.writeValueAsBytes(item));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    @Operation(tags = "REST v2", summary = "Stream the differences between two species lists, or two versions of a list",
+            description = "Items are paired by their matched taxonConceptID or their supplied scientific name. Newline delimited JSON, "
+                    + "one line per item in key order: added (only in the to list), removed (only in the from list) or changed "
+                    + "(the property values that differ). Unmatched items are paired by their scientific name when the key is taxonConceptID, items without a key are never paired. The last line holds the counts, "
+                    + "including the unchanged items. A version is a snapshot taken with `/v2/snapshot/{speciesListID}`.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "The differences, followed by an {\"added\", \"removed\", \"changed\", \"unchanged\"} line", content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ListDiffEntry.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request - invalid key", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "403", description = "Forbidden - user is not authorized to view a species list", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string"))),
+            @ApiResponse(responseCode = "404", description = "Species list or snapshot not found", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string")))
+    })
+    @GetMapping("/v2/diff")
+    public ResponseEntity<StreamingResponseBody> diff(
+            @Parameter(description = "The species list ID or data resource ID to compare from", example = "dr656", required = true)
+            @RequestParam("from") String from,
+            @Parameter(description = "The species list ID or data resource ID to compare to, the from list when not set", example = "dr657")
+            @RequestParam(name = "to", required = false) String to,
+            @Parameter(description = "The snapshot version of the from list, its current items when not set")
+            @RequestParam(name = "fromVersion", required = false) Integer fromVersion,
+            @Parameter(description = "The snapshot version of the to list, its current items when not set")
+            @RequestParam(name = "toVersion", required = false) Integer toVersion,
+            @Parameter(description = "The key items are paired by, taxonConceptID or scientificName")
+            @RequestParam(name = "key", defaultValue = "taxonConceptID") String key,
+            @AuthenticationPrincipal Principal principal) {
+        ListDiffService.Key diffKey;
+        try {
+            diffKey = ListDiffService.Key.of(key);
+        } catch (IllegalArgumentException e) {
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        String[] listIDs = new String[2];
+        String[] requested = { from, to != null && !to.isBlank() ? to : from };
+        Integer[] versions = { fromVersion, toVersion };
+        for (int i = 0; i < 2; i++) {
+            Optional<SpeciesList> speciesList = speciesListMongoRepository.findByIdOrDataResourceUid(requested[i],
+                    requested[i]);
+            if (speciesList.isEmpty()) {
+                return textResponse(HttpStatus.NOT_FOUND, "Species list not found: " + requested[i]);
+            }
+            if (Boolean.TRUE.equals(speciesList.get().getIsPrivate()) && !authUtils.isAuthorized(speciesList.get(), principal)) {
+                return textResponse(HttpStatus.FORBIDDEN, "User does not have permission to view species list: " + requested[i]);
+            }
+            listIDs[i] = speciesList.get().getId();
+            if (versions[i] != null && snapshotService.getSnapshot(listIDs[i], versions[i]).isEmpty()) {
+                return textResponse(HttpStatus.NOT_FOUND, "Snapshot " + versions[i] + " of species list " + requested[i] + " not found");
+            }
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            ObjectWriter writer = new ObjectMapper().writer();
+            ListDiffService.Result result = listDiffService.diff(
+                    listDiffService.items(listIDs[0], versions[0], diffKey),
+                    listDiffService.items(listIDs[1], versions[1], diffKey),
+                    diffKey, entry -> {
+                        try {
+                            outputStream.write(writer.writeValueAsBytes(entry));
+                            outputStream.write('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            outputStream.write(writer.writeValueAsBytes(result));
+            outputStream.write('\n');
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    /**
+     * @return the time in epoch milliseconds, from epoch milliseconds, an ISO-8601 instant or date
+     */
+    static long parseTime(String value) {
+        try {
+            if (value.chars().allMatch(Character::isDigit)) {
+                return Long.parseLong(value);
+            }
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+            }
+            return Instant.parse(value).toEpochMilli();
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid since: " + value);
+        }
+    }
+
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status).contentType(MediaType.TEXT_PLAIN)
+                .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Looks up the comma separated lists, adding each distinct one to lists.
+     *
+     * @return the error response if a list does not exist or the user can't view it, otherwise null
+     */
+    private ResponseEntity<Object> findReadableLists(String speciesListIDs, Principal principal, List<SpeciesList> lists) {
+        for (String id : speciesListIDs.split(",")) {
+            if (id.isBlank()) {
+                continue;
+            }
+            Optional<SpeciesList> speciesList = speciesListMongoRepository.findByIdOrDataResourceUid(id.trim(), id.trim());
+            if (speciesList.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Species list not found: " + id.trim());
+            }
+            if (Boolean.TRUE.equals(speciesList.get().getIsPrivate()) && !authUtils.isAuthorized(speciesList.get(), principal)) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN).body("User does not have permission to view species list: " + id.trim());
+            }
+            if (lists.stream().noneMatch(list -> list.getId().equals(speciesList.get().getId()))) {
+                lists.add(speciesList.get());
+            }
+        }
+        return null;
+    }
+
     @Operation(tags = "REST v2", summary = "Get species lists items for a list. List IDs can be a single value, or comma separated IDs.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Species list found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = SpeciesListPage.class))),
@@ -348,8 +784,15 @@ public class RESTController {
             @Nullable @RequestParam(name = "sort", defaultValue = "scientificName") String sort,
             @Parameter(description = "Sort direction (asc or desc)", example = "asc", required = false)
             @Nullable @RequestParam(name = "dir", defaultValue = "asc") String dir,
+            @Parameter(description = "Cursor for paging through all items: \"*\" for the first page, then the cursor returned with the previous page. The page parameter is ignored when set.", example = "*", required = false)
+            @Nullable @RequestParam(name = "cursor") String cursor,
             @AuthenticationPrincipal Principal principal) {
         try {
+            if (cursor != null) {
+                return new ResponseEntity<>(searchHelperService.fetchSpeciesListItemsWithCursor(speciesListIDs,
+                        searchQuery, fields, pageSize, sort, dir, cursor, principal), HttpStatus.OK);
+            }
+
             int pageIndex = (page - 1); // spring data pageable is zero based
             List<SpeciesListItem> speciesListItems = searchHelperService.fetchSpeciesListItems(speciesListIDs,
                     searchQuery, fields, null, pageIndex, pageSize, sort, dir, principal);
@@ -377,8 +820,15 @@ public class RESTController {
             @RequestParam(name = "page", defaultValue = "1", required = false) @Max(10000) int page,
             @Parameter(description = "The number of items per page", example = "10")
             @RequestParam(name = "pageSize", defaultValue = "10", required = false) @Max(1000) int pageSize,
+            @Parameter(description = "Cursor for paging through all items: \"*\" for the first page, then the cursor returned with the previous page. The page parameter is ignored when set.", example = "*")
+            @Nullable @RequestParam(name = "cursor", required = false) String cursor,
             @AuthenticationPrincipal Principal principal) {
         try {
+            if (cursor != null) {
+                return new ResponseEntity<>(searchHelperService.fetchSpeciesListItemsWithCursor(guids,
+                        speciesListIDs, pageSize, cursor, principal), HttpStatus.OK);
+            }
+
             int pageIndex = (page - 1); // spring data pageable is zero based
             String searchQuery = guids.replaceAll(",", "|"); // convert to regex OR
             List<SpeciesListItem> speciesListItems = searchHelperService.fetchSpeciesListItems(speciesListIDs,
@@ -392,7 +842,9 @@ public class RESTController {
         }
     }
 
-    @Operation(tags = "REST v2", summary = "Generate a Biocache query ID (QID) for up to 4000 taxa from a given species list")
+    @Operation(tags = "REST v2", summary = "Generate Biocache query IDs (QIDs) for the taxa of a given species list",
+            description = "qid covers the whole list when qids has a single entry. Large lists are split across several QIDs, listed in qids, "
+                    + "which are searched separately as combining them in one query would exceed the biocache clause limit.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Species list found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = SpeciesListPage.class))),
             @ApiResponse(responseCode = "404", description = "Species list not found", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(type = "string", example = "Species list not found")))
@@ -407,8 +859,11 @@ public class RESTController {
 
             // Ensure the species list exists
             if (speciesList.isPresent()) {
-                String qid = biocacheService.getQidForSpeciesList(speciesList.get().getId());
-                return new ResponseEntity<>(Collections.singletonMap("qid", qid), HttpStatus.OK);
+                List<String> qids = biocacheService.getQidsForSpeciesList(speciesList.get());
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("qid", qids.isEmpty() ? null : qids.get(0));
+                result.put("qids", qids);
+                return new ResponseEntity<>(result, HttpStatus.OK);
             }
 
             return ResponseEntity.status(404).body("Species list not found");
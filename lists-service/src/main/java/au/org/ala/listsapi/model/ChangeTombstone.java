@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Records a removal for the change feed: a deleted item, the removal of all items of a list
+ * before a reload, or a deleted list. Tombstones expire after RETENTION.
+ */
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@org.springframework.data.mongodb.core.mapping.Document(collection = "changeTombstones")
+@CompoundIndex(name = "speciesListID_deletedAt", def = "{ 'speciesListID': 1, 'deletedAt': 1, '_id': 1 }")
+public class ChangeTombstone {
+    public static final String RETENTION = "180d";
+    public static final int RETENTION_DAYS = 180;
+
+    public enum Type {
+        ITEM_DELETED,
+        LIST_RESET,
+        LIST_DELETED
+    }
+
+    @Id private ObjectId id;
+    private String speciesListID;
+    private String dataResourceUid;
+    private Type type;
+    private String itemId;
+    private String taxonConceptID;
+    private String scientificName;
+    private Boolean isPrivate;
+    @Indexed(expireAfter = RETENTION) private Date deletedAt;
+}
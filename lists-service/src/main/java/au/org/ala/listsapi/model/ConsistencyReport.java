@@ -0,0 +1,51 @@
+package au.org.ala.listsapi.model;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Result of a Mongo / Elasticsearch consistency check run, listing the lists that had drifted
+ * and what was done to repair them.
+ */
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@Jacksonized
+@org.springframework.data.mongodb.core.mapping.Document(collection = "consistencyReports")
+public class ConsistencyReport {
+    @Id private String id;
+    @org.springframework.data.mongodb.core.index.Indexed
+    private Date started;
+    private Date finished;
+    private boolean repair;
+    private long listsChecked;
+    private long listsDivergent;
+    private long itemsReindexed;
+    private List<ListDrift> divergentLists;
+
+    @NoArgsConstructor
+    @Data
+    @SuperBuilder
+    @AllArgsConstructor
+    @Jacksonized
+    public static class ListDrift {
+        private String speciesListID;
+        private long mongoCount;
+        private long elasticCount;
+        private long mongoChecksum;
+        private long elasticChecksum;
+        private int rangesChecked;
+        private int rangesRepaired;
+        private long itemsReindexed;
+        private String error;
+    }
+}
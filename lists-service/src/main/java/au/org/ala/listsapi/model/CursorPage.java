@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.fasterxml.jackson.annotation.JsonIncludeProperties;
+
+/**
+ * A page of results read with a search cursor. The cursor is the token for the next page,
+ * or null when there are no more results.
+ */
+@JsonIncludeProperties({"content", "totalElements", "cursor"})
+public class CursorPage<T> extends PageImpl<T> {
+    private final String cursor;
+
+    public CursorPage(List<T> content, int pageSize, long total, String cursor) {
+        super(content, PageRequest.of(0, Math.max(pageSize, 1)), total);
+        this.cursor = cursor;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+}
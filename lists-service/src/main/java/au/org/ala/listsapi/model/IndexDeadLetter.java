@@ -0,0 +1,33 @@
+package au.org.ala.listsapi.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * A species list item that could not be written to the species-lists index, with the last
+ * Elasticsearch error. Keyed by the item id so repeated failures update a single entry.
+ */
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@Jacksonized
+@org.springframework.data.mongodb.core.mapping.Document(collection = "indexDeadLetters")
+public class IndexDeadLetter {
+    @Id private String id;
+    @org.springframework.data.mongodb.core.index.Indexed
+    private String speciesListID;
+    private int status;
+    private String errorType;
+    private String reason;
+    private int attempts;
+    private Date created;
+    private Date lastAttempt;
+}
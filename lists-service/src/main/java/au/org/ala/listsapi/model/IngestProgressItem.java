@@ -24,6 +24,8 @@ public class IngestProgressItem {
     private long rowCount;
     private long mongoTotal = 0;
     private long elasticTotal = 0;
+    /** Items that could not be indexed and were sent to the indexDeadLetters collection */
+    private long elasticFailed = 0;
     private boolean completed = false;
 
     @CreatedDate public Date started;
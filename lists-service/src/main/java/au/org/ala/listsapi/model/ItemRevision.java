@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * The state of a list item at a snapshot, recorded the first time the item is changed after the
+ * snapshot was taken. The item is null when it was created after the snapshot.
+ */
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@org.springframework.data.mongodb.core.mapping.Document(collection = "itemRevisions")
+@CompoundIndexes({
+        @CompoundIndex(name = "speciesListID_itemId_snapshotVersion",
+                def = "{ 'speciesListID': 1, 'itemId': 1, 'snapshotVersion': 1 }", unique = true),
+        // list diffs of a snapshot, recorded states in key order
+        @CompoundIndex(name = "speciesListID_taxonConceptID_itemId_snapshotVersion",
+                def = "{ 'speciesListID': 1, 'item.classification.taxonConceptID': 1, 'itemId': 1, 'snapshotVersion': 1 }"),
+        @CompoundIndex(name = "speciesListID_scientificName_itemId_snapshotVersion",
+                def = "{ 'speciesListID': 1, 'item.scientificName': 1, 'itemId': 1, 'snapshotVersion': 1 }")
+})
+public class ItemRevision {
+    @Id private ObjectId id;
+    private String speciesListID;
+    private ObjectId itemId;
+    private Integer snapshotVersion;
+    private SpeciesListItem item;
+    private Date recordedAt;
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a list diff. op is added (the item is only in the second list), removed (only in
+ * the first) or changed (paired by key, with the property values that differ). Unchanged items
+ * are counted but not written.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ListDiffEntry {
+    public static final String ADDED = "added";
+    public static final String REMOVED = "removed";
+    public static final String CHANGED = "changed";
+
+    private String op;
+    private String key;
+    private String scientificName;
+    private String fromId;
+    private String toId;
+    private List<ValueChange> changes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ValueChange {
+        private String key;
+        private String from;
+        private String to;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.Date;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * A numbered version of a list. The snapshot holds no items: items changed after it are
+ * recorded as ItemRevisions, and the version is read back by merging those with the live items.
+ */
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+@org.springframework.data.mongodb.core.mapping.Document(collection = "listSnapshots")
+@CompoundIndex(name = "speciesListID_version", def = "{ 'speciesListID': 1, 'version': 1 }", unique = true)
+public class ListSnapshot {
+    @JsonSerialize(using = ToStringSerializer.class)
+    @Id private ObjectId id;
+    private String speciesListID;
+    private Integer version;
+    private String description;
+    private String createdBy;
+    private Date createdAt;
+    private Integer rowCount;
+    private List<String> fieldList;
+}
@@ -8,6 +8,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.index.TextIndexed;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -26,8 +27,8 @@ import lombok.extern.jackson.Jacksonized;
     @Id private String id;
     @Version private Integer version;
     @Indexed private String dataResourceUid;
-    private String title;
-    private String description;
+    @TextIndexed(weight = 2) private String title;
+    @TextIndexed private String description;
     private String listType;
     private String licence;
     private List<String> originalFieldList;
@@ -40,6 +41,7 @@ import lombok.extern.jackson.Jacksonized;
     private String category;
     private String region;
     private String wkt;
+    private Integer snapshotVersion; // the latest snapshot, item changes are recorded against it
 
     Boolean isVersioned;
     Boolean isAuthoritative;
@@ -81,6 +83,7 @@ import lombok.extern.jackson.Jacksonized;
         this.category = other.category;
         this.region = other.region;
         this.wkt = other.wkt;
+        this.snapshotVersion = other.snapshotVersion;
         this.isVersioned = other.isVersioned;
         this.isAuthoritative = other.isAuthoritative;
         this.isPrivate = other.isPrivate;
@@ -16,10 +16,12 @@
 package au.org.ala.listsapi.model;
 
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Routing;
 import org.springframework.data.elasticsearch.annotations.Setting;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -35,10 +37,12 @@ import lombok.experimental.SuperBuilder;
  * lists are represented by aggregating the entries for each list's taxa in the index.
  * Note: any changes to this file will require the ElasticSearch index to be deleted, 
  * recreated and reindexed again. Otherwise the mappings.json file is not sent to the server.
+ * Documents are routed by speciesListID, so all items of a list live on a single shard.
  */
 @Document(indexName = "species-lists", createIndex = true)
 @Setting(settingPath = "/elasticsearch/settings.json")
 @Mapping(mappingPath = "/elasticsearch/mappings.json")
+@Routing("speciesListID")
 @NoArgsConstructor
 @Data
 @SuperBuilder
@@ -76,6 +80,8 @@ public class SpeciesListIndex {
     public String dateCreated;
     public String lastUpdated;
     private String lastUpdatedBy;
+    private Map<String, String> propertiesMap;
+    private Integer itemChecksum;
 
     @JsonProperty("class")
     public String getClasss() {
@@ -11,6 +11,8 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -23,6 +25,14 @@ import lombok.NoArgsConstructor;
 import lombok.experimental.SuperBuilder;
 
 @org.springframework.data.mongodb.core.mapping.Document(collection = "listItems")
+// change feed order, per list and across lists
+@CompoundIndexes({
+        @CompoundIndex(name = "speciesListID_lastUpdated", def = "{ 'speciesListID': 1, 'lastUpdated': 1, '_id': 1 }"),
+        @CompoundIndex(name = "lastUpdated", def = "{ 'lastUpdated': 1, '_id': 1 }"),
+        // list diffs, items in key order
+        @CompoundIndex(name = "speciesListID_taxonConceptID", def = "{ 'speciesListID': 1, 'classification.taxonConceptID': 1, '_id': 1 }"),
+        @CompoundIndex(name = "speciesListID_scientificName", def = "{ 'speciesListID': 1, 'scientificName': 1, '_id': 1 }")
+})
 @NoArgsConstructor
 @Data
 @SuperBuilder
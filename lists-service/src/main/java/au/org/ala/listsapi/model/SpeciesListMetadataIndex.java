@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ * 
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+
+package au.org.ala.listsapi.model;
+
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Mapping;
+import org.springframework.data.elasticsearch.annotations.Setting;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * SpeciesListMetadataIndex is a model/bean for the species-lists-metadata index, which holds
+ * one document per species list: the list metadata plus counts derived from its items. It is
+ * used to search, sort, facet and paginate lists without aggregating the item documents in
+ * the species-lists index.
+ * Note: any changes to this file will require the index to be deleted, recreated and
+ * reindexed again. Otherwise the list-mappings.json file is not sent to the server.
+ */
+@Document(indexName = "species-lists-metadata", createIndex = true)
+@Setting(settingPath = "/elasticsearch/list-settings.json")
+@Mapping(mappingPath = "/elasticsearch/list-mappings.json")
+@NoArgsConstructor
+@Data
+@SuperBuilder
+@AllArgsConstructor
+public class SpeciesListMetadataIndex {
+    @Id private String id;
+    private String dataResourceUid;
+    private String speciesListName;
+    private String listType;
+    private String description;
+    private String licence;
+    private boolean isPrivate;
+    private boolean isAuthoritative;
+    private boolean isBIE;
+    private boolean isSDS;
+    private boolean isThreatened;
+    private boolean isInvasive;
+    private boolean hasRegion;
+    private String owner;
+    private List<String> editors;
+    private List<String> tags;
+    private Long dateCreated;
+    private Long lastUpdated;
+    private String lastUpdatedBy;
+    private long rowCount;
+    private long distinctMatchCount;
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The lists a taxon belongs to, one line of the bulk taxon to lists lookup. Only one of
+ * taxonConceptID and taxonID is set, depending on how the taxon was requested.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaxonLists {
+    private String taxonConceptID;
+    private String taxonID;
+    private List<Membership> lists = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Membership {
+        private String speciesListID;
+        private String dataResourceUid;
+        private String title;
+        private String listType;
+        private Boolean isAuthoritative;
+        private Boolean isThreatened;
+        private Boolean isInvasive;
+        private Boolean isSDS;
+        private Boolean isBIE;
+        private Map<String, String> kvps;
+
+        /** The membership of a list, with the metadata of the list and the given KVPs */
+        public static Membership of(SpeciesList list, Map<String, String> kvps) {
+            return new Membership(list.getId(), list.getDataResourceUid(), list.getTitle(), list.getListType(),
+                    list.getIsAuthoritative(), list.getIsThreatened(), list.getIsInvasive(), list.getIsSDS(),
+                    list.getIsBIE(), kvps);
+        }
+    }
+}
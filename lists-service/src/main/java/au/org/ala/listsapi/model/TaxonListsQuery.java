@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request body for the bulk taxon to lists lookup. Taxa can be given as taxonConceptIDs (matched
+ * against the matched classification) and/or as the taxonIDs supplied in the lists.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaxonListsQuery {
+    private List<String> taxonConceptIDs;
+    private List<String> taxonIDs;
+    /** The KVP keys to return for each list, none when empty */
+    private List<String> fields;
+}
@@ -0,0 +1,10 @@
+package au.org.ala.listsapi.repo;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import au.org.ala.listsapi.model.ChangeTombstone;
+
+public interface ChangeTombstoneMongoRepository extends MongoRepository<ChangeTombstone, ObjectId> {
+    boolean existsBySpeciesListIDAndIsPrivateNot(String speciesListID, Boolean isPrivate);
+}
@@ -0,0 +1,11 @@
+package au.org.ala.listsapi.repo;
+
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import au.org.ala.listsapi.model.ConsistencyReport;
+
+public interface ConsistencyReportMongoRepository extends MongoRepository<ConsistencyReport, String> {
+    Optional<ConsistencyReport> findFirstByOrderByStartedDesc();
+}
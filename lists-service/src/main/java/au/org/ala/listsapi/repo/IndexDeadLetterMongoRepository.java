@@ -0,0 +1,21 @@
+package au.org.ala.listsapi.repo;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import au.org.ala.listsapi.model.IndexDeadLetter;
+
+public interface IndexDeadLetterMongoRepository extends MongoRepository<IndexDeadLetter, String> {
+    Page<IndexDeadLetter> findBySpeciesListID(String speciesListID, Pageable pageable);
+
+    List<IndexDeadLetter> findByIdGreaterThan(String id, Pageable pageable);
+
+    List<IndexDeadLetter> findBySpeciesListIDAndIdGreaterThan(String speciesListID, String id, Pageable pageable);
+
+    long countBySpeciesListID(String speciesListID);
+
+    void deleteBySpeciesListID(String speciesListID);
+}
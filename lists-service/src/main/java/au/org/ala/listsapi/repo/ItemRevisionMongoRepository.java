@@ -0,0 +1,10 @@
+package au.org.ala.listsapi.repo;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import au.org.ala.listsapi.model.ItemRevision;
+
+public interface ItemRevisionMongoRepository extends MongoRepository<ItemRevision, ObjectId> {
+    void deleteBySpeciesListID(String speciesListID);
+}
@@ -0,0 +1,17 @@
+package au.org.ala.listsapi.repo;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import au.org.ala.listsapi.model.ListSnapshot;
+
+public interface ListSnapshotMongoRepository extends MongoRepository<ListSnapshot, ObjectId> {
+    List<ListSnapshot> findBySpeciesListIDOrderByVersionDesc(String speciesListID);
+
+    Optional<ListSnapshot> findBySpeciesListIDAndVersion(String speciesListID, Integer version);
+
+    void deleteBySpeciesListID(String speciesListID);
+}
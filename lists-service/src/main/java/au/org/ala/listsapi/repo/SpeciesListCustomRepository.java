@@ -6,12 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 
 import au.org.ala.listsapi.model.SpeciesList;
@@ -22,8 +23,16 @@ public class SpeciesListCustomRepository {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    /** Filtered totals are counted up to this value when an exact count isn't needed */
+    public static final int ESTIMATED_COUNT_LIMIT = 10000;
+
     public Page<SpeciesList> findByExample(SpeciesList example, String searchQuery, Pageable pageable) {
-        return findByCriteria(new Criteria().alike(Example.of(example, matcher())), searchQuery, pageable);
+        return findByExample(example, searchQuery, pageable, true);
+    }
+
+    public Page<SpeciesList> findByExample(
+            SpeciesList example, String searchQuery, Pageable pageable, boolean exactCount) {
+        return findByCriteria(new Criteria().alike(Example.of(example, matcher())), searchQuery, pageable, exactCount);
     }
 
     public Page<SpeciesList> findByMultipleExamples(SpeciesList exampleA, SpeciesList exampleB, Pageable pageable) {
@@ -32,30 +41,61 @@ public class SpeciesListCustomRepository {
 
     public Page<SpeciesList> findByMultipleExamples(
             SpeciesList exampleA, SpeciesList exampleB, String searchQuery, Pageable pageable) {
+        return findByMultipleExamples(exampleA, exampleB, searchQuery, pageable, true);
+    }
+
+    public Page<SpeciesList> findByMultipleExamples(
+            SpeciesList exampleA, SpeciesList exampleB, String searchQuery, Pageable pageable, boolean exactCount) {
 
         Criteria criteriaA = new Criteria().alike(Example.of(exampleA, matcher()));
         Criteria criteriaB = new Criteria().alike(Example.of(exampleB, matcher()));
         Criteria combined = new Criteria().orOperator(criteriaA, criteriaB);
-        return findByCriteria(combined, searchQuery, pageable);
+        return findByCriteria(combined, searchQuery, pageable, exactCount);
+    }
+
+    private Page<SpeciesList> findByCriteria(
+            Criteria baseCriteria, String searchQuery, Pageable pageable, boolean exactCount) {
+        Query query = new Query(baseCriteria);
+        addTextSearch(query, searchQuery);
+        query.with(pageable).with(Sort.by("_id"));
+        return findPage(mongoTemplate, query, pageable, exactCount);
     }
 
-    private Page<SpeciesList> findByCriteria(Criteria baseCriteria, String searchQuery, Pageable pageable) {
-        Criteria criteria = baseCriteria;
-        if (searchQuery != null && !searchQuery.isBlank()) {
-            java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(
-                    java.util.regex.Pattern.quote(searchQuery),
-                    java.util.regex.Pattern.CASE_INSENSITIVE);
-            criteria = new Criteria().andOperator(
-                    baseCriteria,
-                    new Criteria().orOperator(
-                            Criteria.where("title").regex(pattern),
-                            Criteria.where("description").regex(pattern)));
+    /**
+     * Adds a search of the title and description to a list query, using the text index on those
+     * fields (see SpeciesList). Each word of the search is matched as a whole, stemmed term, and a
+     * list matches when its title or description contains any of them. Partial words don't match.
+     * A blank or match-all (".*") search adds nothing.
+     */
+    public static void addTextSearch(Query query, String searchQuery) {
+        if (searchQuery != null && !searchQuery.isBlank() && !".*".equals(searchQuery.trim())) {
+            TextCriteria textCriteria = TextCriteria.forDefaultLanguage();
+            for (String term : searchQuery.trim().split("\\s+")) {
+                textCriteria.matching(term);
+            }
+            query.addCriteria(textCriteria);
         }
+    }
 
-        Query query = new Query(criteria).with(pageable).with(Sort.by("_id"));
+    /**
+     * Runs a list query for a page. The total is only counted when it can't be derived from the
+     * page itself, i.e. for a full page or an empty page past the first. Without an exact count,
+     * an unfiltered query uses the estimated document count of the collection, and a filtered
+     * one stops counting at ESTIMATED_COUNT_LIMIT.
+     */
+    public static Page<SpeciesList> findPage(
+            MongoTemplate mongoTemplate, Query query, Pageable pageable, boolean exactCount) {
         List<SpeciesList> content = mongoTemplate.find(query, SpeciesList.class);
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), SpeciesList.class);
-        return new PageImpl<>(content, pageable, total);
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            Query countQuery = Query.of(query).limit(-1).skip(-1);
+            if (exactCount) {
+                return mongoTemplate.count(countQuery, SpeciesList.class);
+            }
+            if (countQuery.getQueryObject().isEmpty()) {
+                return mongoTemplate.estimatedCount(SpeciesList.class);
+            }
+            return mongoTemplate.count(countQuery.limit(ESTIMATED_COUNT_LIMIT), SpeciesList.class);
+        });
     }
 
     private ExampleMatcher matcher() {
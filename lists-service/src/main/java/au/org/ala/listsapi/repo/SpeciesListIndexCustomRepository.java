@@ -0,0 +1,86 @@
+package au.org.ala.listsapi.repo;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.DeleteQuery;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
+import org.springframework.data.elasticsearch.core.routing.RoutingResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.service.SearchCacheService;
+import au.org.ala.listsapi.util.ElasticUtils;
+
+/**
+ * Deletes from the species-lists index using the list id as the routing value, so that
+ * single-list deletes only touch the shard that holds the list (see @Routing on SpeciesListIndex).
+ */
+@Repository
+public class SpeciesListIndexCustomRepository {
+
+    private static final String SPECIES_LIST_ID = "speciesListID";
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private SearchCacheService searchCacheService;
+
+    public void deleteBySpeciesListID(String speciesListID) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.term(t -> t.field(SPECIES_LIST_ID).value(speciesListID)))
+                .withRoute(speciesListID)
+                .build();
+
+        elasticsearchOperations.withRouting(RoutingResolver.just(speciesListID))
+                .delete(DeleteQuery.builder(query).build(), SpeciesListIndex.class);
+        searchCacheService.invalidate();
+    }
+
+    /**
+     * Finds the ids of documents of a list in the id range (afterId, toId], in id order, starting
+     * after searchAfter if given. Used to page through the documents of a range, such as to find
+     * those left behind in the index after their items were removed from Mongo.
+     */
+    public List<String> findIdsInRange(String speciesListID, String afterId, String toId,
+            @Nullable String searchAfter, int limit) {
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(ElasticUtils.idRangeQuery(speciesListID, afterId, toId))
+                .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("id").build())
+                .withSort(Sort.by(Sort.Direction.ASC, "id"))
+                .withRoute(speciesListID)
+                .withTrackTotalHits(false)
+                .withMaxResults(limit);
+        if (searchAfter != null) {
+            builder.withSearchAfter(List.of(searchAfter));
+        }
+
+        return elasticsearchOperations.search(builder.build(), SpeciesListIndex.class).stream()
+                .map(SearchHit::getId)
+                .toList();
+    }
+
+    public void deleteByIds(String speciesListID, List<String> ids) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.ids(i -> i.values(ids)))
+                .withRoute(speciesListID)
+                .build();
+
+        elasticsearchOperations.withRouting(RoutingResolver.just(speciesListID))
+                .delete(DeleteQuery.builder(query).build(), SpeciesListIndex.class);
+        searchCacheService.invalidate();
+    }
+
+    public void deleteById(String id, String speciesListID) {
+        elasticsearchOperations.withRouting(RoutingResolver.just(speciesListID))
+                .delete(id, SpeciesListIndex.class);
+        searchCacheService.invalidate();
+    }
+}
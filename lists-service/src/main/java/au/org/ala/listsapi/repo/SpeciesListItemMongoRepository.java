@@ -1,5 +1,6 @@
 package au.org.ala.listsapi.repo;
 
+import java.util.Date;
 import java.util.List;
 
 import org.bson.types.ObjectId;
@@ -47,45 +48,6 @@ public interface SpeciesListItemMongoRepository extends MongoRepository<SpeciesL
     )
     List<SpeciesListItem> findNextBatch(String speciesListId, ObjectId lastId, Pageable pageable);
 
-    /**
-     * Fetches up to `batchSize` items for the given list of `speciesListIds`.
-     *
-     * Uses offset-based pagination via the Pageable parameter.
-     *
-     * @param speciesListIds The list of species list IDs
-     * @param queryString The query string to filter results (searches across common fields)
-     * @param sortField The field to sort by
-     * @param sortDirection The sort direction (1 for ascending, -1 for descending)
-     * @param pageable Pageable object with the desired batch size and offset
-     * @return List of SpeciesListItem objects for the given batch
-     */
-    @Query(value = """
-        {
-            'speciesListID': ?#{ [0].isEmpty() ? { '$exists': true } : { '$in': [0] } },
-            '$or': [
-                { 'rawScientificName': { '$regex': ?1, '$options': 'i' } },
-                { 'suppliedName': { '$regex': ?1, '$options': 'i' } },
-                { 'vernacularName': { '$regex': ?1, '$options': 'i' } },
-                { 'scientificName': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.taxonConceptID': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.kingdom': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.phylum': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.classs': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.order': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.family': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.genus': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.scientificName': { '$regex': ?1, '$options': 'i' } },
-                { 'classification.vernacularName': { '$regex': ?1, '$options': 'i' } },
-                { 'properties.value': { '$regex': ?1, '$options': 'i' } }
-            ]
-        }
-    """)
-    Page<SpeciesListItem> findNextBatch(
-            List<String> speciesListIds,
-            String queryString,
-            Pageable pageable
-    );
-
     /**
      * For the first batch (no lastId)
      * Used by bulk operations like taxon matching for better performance in DocumentDB (AWS)
@@ -109,5 +71,41 @@ public interface SpeciesListItemMongoRepository extends MongoRepository<SpeciesL
     @Query(value = "{ 'speciesListID': ?0, '_id': { '$gt': ?1 } }", sort = "{ '_id': 1 }")
     List<SpeciesListItem> findNextBatchAfter(String speciesListId, ObjectId lastId, Pageable pageable);
     
+    /**
+     * As findFirstBatch, reading only the fields written to exports
+     */
+    @Query(value = "{ 'speciesListID': ?0 }", sort = "{ '_id': 1 }", fields = EXPORT_FIELDS)
+    List<SpeciesListItem> findFirstExportBatch(String speciesListId, Pageable pageable);
+
+    /**
+     * As findNextBatchAfter, reading only the fields written to exports
+     */
+    @Query(value = "{ 'speciesListID': ?0, '_id': { '$gt': ?1 } }", sort = "{ '_id': 1 }", fields = EXPORT_FIELDS)
+    List<SpeciesListItem> findNextExportBatchAfter(String speciesListId, ObjectId lastId, Pageable pageable);
+
+    String EXPORT_FIELDS = "{ 'scientificName': 1, 'properties': 1, 'classification': 1 }";
+
+    /**
+     * As findFirstBatch, reading only the supplied name and matched taxon
+     */
+    @Query(value = "{ 'speciesListID': ?0 }", sort = "{ '_id': 1 }", fields = NAME_FIELDS)
+    List<SpeciesListItem> findFirstNameBatch(String speciesListId, Pageable pageable);
+
+    /**
+     * As findNextBatchAfter, reading only the supplied name and matched taxon
+     */
+    @Query(value = "{ 'speciesListID': ?0, '_id': { '$gt': ?1 } }", sort = "{ '_id': 1 }", fields = NAME_FIELDS)
+    List<SpeciesListItem> findNextNameBatchAfter(String speciesListId, ObjectId lastId, Pageable pageable);
+
+    String NAME_FIELDS = "{ 'scientificName': 1, 'classification.taxonConceptID': 1 }";
+
     void deleteBySpeciesListID(String speciesListID);
+
+    /**
+     * Deletes the staged items (see UploadService.stageReload) created before the given time
+     *
+     * @return the number of items deleted
+     */
+    @Query(value = "{ 'speciesListID': { '$regex': '^staging-' }, 'dateCreated': { '$lt': ?0 } }", delete = true)
+    long deleteStagedCreatedBefore(Date before);
 }
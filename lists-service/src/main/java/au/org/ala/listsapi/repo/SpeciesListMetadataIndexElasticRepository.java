@@ -0,0 +1,8 @@
+package au.org.ala.listsapi.repo;
+
+import au.org.ala.listsapi.model.SpeciesListMetadataIndex;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+public interface SpeciesListMetadataIndexElasticRepository
+    extends ElasticsearchRepository<SpeciesListMetadataIndex, String> {
+}
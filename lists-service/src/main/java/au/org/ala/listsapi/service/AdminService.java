@@ -35,6 +35,7 @@ public class AdminService {
     @Autowired protected SpeciesListIndexElasticRepository speciesListIndexElasticRepository;
     @Autowired protected ElasticsearchOperations elasticsearchOperations;
     @Autowired protected MongoTemplate mongoTemplate;
+    @Autowired protected SpeciesListMetadataIndexService speciesListMetadataIndexService;
 
     public void deleteDocs() {
         speciesListMongoRepository.deleteAll();
@@ -43,6 +44,7 @@ public class AdminService {
 
     public void deleteIndex() {
         elasticsearchOperations.indexOps(IndexCoordinates.of("species-lists")).delete();
+        speciesListMetadataIndexService.resetIndex();
     }
 
     public HashMap<String, List<IndexInfo>> getMongoIndexes() {
@@ -14,6 +14,7 @@
  */
 package au.org.ala.listsapi.service;
 
+import java.io.IOException;
 import java.net.ProxySelector;
 import java.net.URI;
 import java.net.URLEncoder;
@@ -21,12 +22,19 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,9 +43,21 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Creates biocache query ids (QIDs) for the occurrences of the taxa in a species list.
+ *
+ * The query covers every item of the list: matched items by lsid and unmatched items by
+ * supplied name, each term once. Terms are grouped into nested OR clauses of at most
+ * maxBooleanClause terms, and lists with more than biocache.qid.maxTerms distinct terms are
+ * split across several QIDs. QIDs are cached per list id, version and lastUpdated, so a list
+ * only posts its query again once it has changed.
+ */
 @Service
 public class BiocacheService {
     @Autowired
@@ -48,75 +68,180 @@ public class BiocacheService {
     @Value("${biocache.api.url}")
     private String biocacheUrl;
 
-    private final int maxBooleanClause = 1000;
+    @Value("${biocache.qid.maxTerms:2000}")
+    private int maxTerms;
 
-    // Helper method to batch lists
-    private <T> Stream<List<T>> batches(List<T> source) {
-        int size = source.size();
-        if (size <= 0)
-            return Stream.empty();
-        int fullChunks = (size - 1) / maxBooleanClause;
-        return IntStream.range(0, fullChunks + 1).mapToObj(
-                n -> source.subList(n * maxBooleanClause, n == fullChunks ? size : (n + 1) * maxBooleanClause));
-    }
+    @Value("${biocache.qid.cacheCapacity:1000}")
+    private long cacheCapacity;
 
-    private String listBatchToString(List<SpeciesListItem> listBatch) {
-        return "(" + listBatch.stream().map((speciesListItem -> {
-            Classification classification = speciesListItem.getClassification();
+    @Value("${biocache.qid.ttlHours:24}")
+    private long ttlHours;
 
-            if (classification != null && classification.getTaxonConceptID() != null) {
-                return "lsid:" + classification.getTaxonConceptID();
-            } else if (speciesListItem.getScientificName() != null) {
-                return "raw_scientificName:\"" + speciesListItem.getScientificName() + "\"";
-            }
+    private final int maxBooleanClause = 200;
 
-            return null;
-        })).filter(Objects::nonNull).collect(Collectors.joining(" OR ")) + ")";
-    }
+    private final int batchSize = 5000;
 
-    public String getQidForSpeciesList(String speciesListId) throws Exception {
-        int page = 0;
-        int pageSize = 200;
-        List<String> batchQueries = new java.util.ArrayList<>();
-        List<SpeciesListItem> batch;
-
-        int maxBatches = 10; // 2000 terms total, with 200 per batch
-        int batchCount = 0;
-        do {
-            if (batchCount >= maxBatches) {
-                log.warn("Reached the maximum number of batches: {}", maxBatches);
-                break;
-            }
+    private HttpClient client;
 
-            batch = speciesListItemMongoRepository
-                .findNextBatch(speciesListId, null, PageRequest.of(page, pageSize));
-            if (batch != null && !batch.isEmpty()) {
-                String batchQuery = listBatchToString(batch);
-                batchQueries.add(batchQuery);
-            }
-
-            page++;
-            batchCount++;
-        } while (batch != null && batch.size() == pageSize);
+    private Cache<String, List<String>> qidCache;
 
-        // Build the final query string: ((batch1) OR (batch2) OR ...)
-        String finalQuery = batchQueries.stream()
-            .collect(Collectors.joining(" OR "));
-        String formData = "q=" + URLEncoder.encode("(" + finalQuery + ")", StandardCharsets.UTF_8);
+    private final ConcurrentHashMap<String, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
 
-        HttpClient client = HttpClient.newBuilder()
+    @PostConstruct
+    public void init() {
+        // one client, so connections to biocache are pooled and reused
+        client = HttpClient.newBuilder()
             .proxy(ProxySelector.getDefault())
             .followRedirects(HttpClient.Redirect.ALWAYS)
+            .connectTimeout(Duration.ofSeconds(10))
             .build();
+        qidCache = new Cache2kBuilder<String, List<String>>() {}
+            .entryCapacity(cacheCapacity)
+            .expireAfterWrite(ttlHours, TimeUnit.HOURS)
+            .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (qidCache != null) {
+            qidCache.close();
+        }
+    }
+
+    /** @return the key QIDs are cached under, changes with each new version of the list */
+    static String cacheKey(SpeciesList speciesList) {
+        return speciesList.getId() + ":" + speciesList.getVersion() + ":"
+            + (speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().getTime() : 0);
+    }
+
+    /**
+     * @return the QIDs that together cover the list, empty if the list has no items
+     */
+    public List<String> getQidsForSpeciesList(SpeciesList speciesList) throws IOException, InterruptedException {
+        String key = cacheKey(speciesList);
+        List<String> cached = qidCache.peek(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<List<String>> future = new CompletableFuture<>();
+        CompletableFuture<List<String>> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            // the same list is being posted already, wait for its QIDs
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            List<String> qids = createQids(speciesList.getId());
+            qidCache.put(key, qids);
+            future.complete(qids);
+            return qids;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
 
-        HttpRequest httpRequest = HttpRequest.newBuilder(new URI(biocacheUrl + "/ws/qid"))
+    private List<String> createQids(String speciesListId) throws IOException, InterruptedException {
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        ObjectId lastId = null;
+        while (true) {
+            List<SpeciesListItem> batch = lastId == null
+                ? speciesListItemMongoRepository.findFirstNameBatch(speciesListId, PageRequest.of(0, batchSize))
+                : speciesListItemMongoRepository.findNextNameBatchAfter(speciesListId, lastId, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (SpeciesListItem item : batch) {
+                String term = term(item);
+                if (term != null) {
+                    terms.add(term);
+                }
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+
+        List<String> queries = buildQueries(terms, maxBooleanClause, maxTerms);
+        if (queries.size() > 1) {
+            log.info("Species list {} has {} distinct taxa, creating {} QIDs", speciesListId, terms.size(), queries.size());
+        }
+        List<String> qids = new ArrayList<>(queries.size());
+        for (String query : queries) {
+            qids.add(postQuery(query));
+        }
+        return List.copyOf(qids);
+    }
+
+    private String postQuery(String query) throws IOException, InterruptedException {
+        String formData = "q=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(biocacheUrl + "/ws/qid"))
             .header("Content-Type", "application/x-www-form-urlencoded")
+            .timeout(Duration.ofSeconds(60))
             .POST(HttpRequest.BodyPublishers.ofString(formData))
             .build();
 
         HttpResponse<String> response = client.send(httpRequest, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Biocache QID request failed with status " + response.statusCode());
+        }
+        return response.body().trim();
+    }
+
+    /** @return the query term for the item, its lsid when matched, otherwise its supplied name */
+    static String term(SpeciesListItem speciesListItem) {
+        Classification classification = speciesListItem.getClassification();
+        if (classification != null && classification.getTaxonConceptID() != null) {
+            return "lsid:" + classification.getTaxonConceptID();
+        } else if (speciesListItem.getScientificName() != null) {
+            String name = speciesListItem.getScientificName().replace("\\", "\\\\").replace("\"", "\\\"");
+            return "raw_scientificName:\"" + name + "\"";
+        }
+        return null;
+    }
 
-        return response.body();
+    /**
+     * Splits the terms into queries of at most termsPerQuery terms, each of the form
+     * ((t1 OR t2 ...) OR (t201 OR ...)) with at most termsPerGroup terms per group.
+     */
+    static List<String> buildQueries(Collection<String> terms, int termsPerGroup, int termsPerQuery) {
+        List<String> queries = new ArrayList<>();
+        List<String> groups = new ArrayList<>();
+        StringBuilder group = new StringBuilder();
+        int inGroup = 0;
+        int inQuery = 0;
+        for (String term : terms) {
+            if (inGroup > 0) {
+                group.append(" OR ");
+            }
+            group.append(term);
+            inGroup++;
+            inQuery++;
+            if (inGroup == termsPerGroup || inQuery == termsPerQuery) {
+                groups.add("(" + group + ")");
+                group.setLength(0);
+                inGroup = 0;
+            }
+            if (inQuery == termsPerQuery) {
+                queries.add("(" + String.join(" OR ", groups) + ")");
+                groups.clear();
+                inQuery = 0;
+            }
+        }
+        if (inGroup > 0) {
+            groups.add("(" + group + ")");
+        }
+        if (!groups.isEmpty()) {
+            queries.add("(" + String.join(" OR ", groups) + ")");
+        }
+        return queries;
     }
-    
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import au.org.ala.listsapi.model.SpeciesList;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Writes a set of species lists into a single streamed ZIP: a lists.json entry with the
+ * metadata of every list, followed by one CSV entry per list in the download format.
+ *
+ * The CSVs are generated (or read from the export cache) on a pool of export.bulk.parallelism
+ * threads, a few lists ahead of the one being written, while the ZIP entries are written
+ * sequentially in list order.
+ */
+@Service
+public class BulkExportService {
+    private static final Logger logger = LoggerFactory.getLogger(BulkExportService.class);
+
+    public static final String METADATA_ENTRY = "lists.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private ExportCacheService exportCacheService;
+
+    @Value("${export.bulk.parallelism:4}")
+    private int parallelism;
+
+    @Value("${export.bulk.maxLists:1000}")
+    private int maxLists;
+
+    @Value("${temp.dir:/tmp}")
+    private String tempDir;
+
+    private ExecutorService exportExecutor;
+
+    @PostConstruct
+    public void init() {
+        exportExecutor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (exportExecutor != null) {
+            exportExecutor.shutdownNow();
+        }
+    }
+
+    public int getMaxLists() {
+        return maxLists;
+    }
+
+    /**
+     * Finds the lists to export, either the given ids (list ids or data resource uids) or, when no
+     * ids are given, all public lists. Only lists with the flags set in the filter are returned.
+     *
+     * @return the lists ordered by id, at most maxLists + 1 so callers can detect too many lists
+     */
+    public List<SpeciesList> findLists(Collection<String> ids, SpeciesList filter) {
+        Criteria criteria = ids != null && !ids.isEmpty()
+                ? new Criteria().orOperator(Criteria.where("_id").in(ids), Criteria.where("dataResourceUid").in(ids))
+                : Criteria.where("isPrivate").ne(true);
+        List<Criteria> flags = flagCriteria(filter);
+        if (!flags.isEmpty()) {
+            flags.add(0, criteria);
+            criteria = new Criteria().andOperator(flags);
+        }
+        Query query = new Query(criteria).with(Sort.by("_id")).limit(maxLists + 1);
+        return mongoTemplate.find(query, SpeciesList.class);
+    }
+
+    /** @return a criteria for each flag set in the filter */
+    static List<Criteria> flagCriteria(SpeciesList filter) {
+        List<Criteria> criteria = new ArrayList<>();
+        if (filter == null) {
+            return criteria;
+        }
+        addFlag(criteria, "isAuthoritative", filter.getIsAuthoritative());
+        addFlag(criteria, "isThreatened", filter.getIsThreatened());
+        addFlag(criteria, "isInvasive", filter.getIsInvasive());
+        addFlag(criteria, "isSDS", filter.getIsSDS());
+        addFlag(criteria, "isBIE", filter.getIsBIE());
+        return criteria;
+    }
+
+    private static void addFlag(List<Criteria> criteria, String field, Boolean value) {
+        if (value != null) {
+            // lists saved before a flag existed don't have it, they count as false
+            criteria.add(value ? Criteria.where(field).is(true) : Criteria.where(field).ne(true));
+        }
+    }
+
+    /**
+     * Writes the ZIP to the stream. The stream is finished but not closed.
+     */
+    public void writeZip(List<SpeciesList> speciesLists, OutputStream outputStream) throws IOException {
+        List<String> entryNames = entryNames(speciesLists);
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        zipOutputStream.putNextEntry(new ZipEntry(METADATA_ENTRY));
+        zipOutputStream.write(MAPPER.writeValueAsBytes(metadata(speciesLists, entryNames)));
+        zipOutputStream.closeEntry();
+
+        int window = Math.max(parallelism, 1);
+        Deque<CompletableFuture<PreparedExport>> pending = new ArrayDeque<>();
+        int next = 0;
+        int written = 0;
+        try {
+            while (next < speciesLists.size() && pending.size() < window) {
+                pending.add(prepareAsync(speciesLists.get(next++)));
+            }
+            while (!pending.isEmpty()) {
+                PreparedExport export = await(pending.poll());
+                if (next < speciesLists.size()) {
+                    pending.add(prepareAsync(speciesLists.get(next++)));
+                }
+                try (export) {
+                    // the exports complete in list order
+                    zipOutputStream.putNextEntry(new ZipEntry(entryNames.get(written++)));
+                    try (InputStream in = Channels.newInputStream(export.channel())) {
+                        in.transferTo(zipOutputStream);
+                    }
+                    zipOutputStream.closeEntry();
+                }
+            }
+            zipOutputStream.finish();
+            logger.info("Finished writing bulk export of {} species lists", speciesLists.size());
+        } finally {
+            // the client went away or an export failed, release the exports prepared ahead
+            for (CompletableFuture<PreparedExport> future : pending) {
+                future.thenAccept(PreparedExport::closeQuietly);
+            }
+        }
+    }
+
+    /** @return the name of the list's CSV in the archive */
+    public static String entryName(SpeciesList speciesList) {
+        String name = speciesList.getDataResourceUid() != null ? speciesList.getDataResourceUid() : speciesList.getId();
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + ".csv";
+    }
+
+    /**
+     * @return the names of the lists' CSVs in the archive, in list order. A name that is already
+     * taken, by lists whose data resource ids sanitise to the same name or a list requested twice,
+     * has the list id added, then a counter.
+     */
+    static List<String> entryNames(List<SpeciesList> speciesLists) {
+        Set<String> used = new HashSet<>();
+        List<String> names = new ArrayList<>(speciesLists.size());
+        for (SpeciesList speciesList : speciesLists) {
+            String name = entryName(speciesList);
+            if (used.contains(name)) {
+                String base = name.substring(0, name.length() - ".csv".length()) + "-"
+                        + String.valueOf(speciesList.getId()).replaceAll("[^A-Za-z0-9._-]", "_");
+                name = base + ".csv";
+                for (int i = 2; used.contains(name); i++) {
+                    name = base + "-" + i + ".csv";
+                }
+            }
+            used.add(name);
+            names.add(name);
+        }
+        return names;
+    }
+
+    static List<Map<String, Object>> metadata(List<SpeciesList> speciesLists, List<String> entryNames) {
+        List<Map<String, Object>> metadata = new ArrayList<>(speciesLists.size());
+        for (int i = 0; i < speciesLists.size(); i++) {
+            SpeciesList speciesList = speciesLists.get(i);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("file", entryNames.get(i));
+            entry.put("id", speciesList.getId());
+            entry.put("dataResourceUid", speciesList.getDataResourceUid());
+            entry.put("title", speciesList.getTitle());
+            entry.put("listType", speciesList.getListType());
+            entry.put("licence", speciesList.getLicence());
+            entry.put("region", speciesList.getRegion());
+            entry.put("version", speciesList.getVersion());
+            entry.put("rowCount", speciesList.getRowCount());
+            entry.put("lastUpdated", speciesList.getLastUpdated());
+            entry.put("isAuthoritative", speciesList.getIsAuthoritative());
+            entry.put("isThreatened", speciesList.getIsThreatened());
+            entry.put("isInvasive", speciesList.getIsInvasive());
+            entry.put("isSDS", speciesList.getIsSDS());
+            entry.put("isBIE", speciesList.getIsBIE());
+            entry.put("fields", ExportService.csvHeaders(speciesList));
+            metadata.add(entry);
+        }
+        return metadata;
+    }
+
+    private CompletableFuture<PreparedExport> prepareAsync(SpeciesList speciesList) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return prepare(speciesList);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, exportExecutor);
+    }
+
+    /**
+     * Generates the list's CSV, from the export cache when it is cached, otherwise into a
+     * temporary file that is also written to the cache when it is enabled. The cached file is
+     * opened straight away so cache eviction can't remove it before it is written.
+     */
+    PreparedExport prepare(SpeciesList speciesList) throws IOException {
+        if (exportCacheService.isEnabled()) {
+            Path file = exportCacheService.getCachedExport(speciesList, ExportCacheService.Format.CSV);
+            if (file != null) {
+                try {
+                    return new PreparedExport(speciesList, file, false, FileChannel.open(file, StandardOpenOption.READ));
+                } catch (NoSuchFileException e) {
+                    // evicted since it was found, generated again below
+                }
+            }
+        }
+
+        Path file = Files.createTempFile(Path.of(tempDir), "bulk-export-", ".csv");
+        try {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                if (exportCacheService.isEnabled()) {
+                    exportCacheService.writeExport(speciesList, ExportCacheService.Format.CSV, out);
+                } else {
+                    exportService.writeCsv(speciesList, out);
+                }
+            }
+            return new PreparedExport(speciesList, file, true, FileChannel.open(file, StandardOpenOption.READ));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    private static PreparedExport await(CompletableFuture<PreparedExport> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    /** A generated CSV waiting to be written into the archive */
+    record PreparedExport(SpeciesList speciesList, Path file, boolean temporary, FileChannel channel)
+            implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                if (temporary) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                close();
+            } catch (IOException e) {
+                logger.warn("Unable to remove bulk export file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.ChangeEvent;
+import au.org.ala.listsapi.model.ChangeTombstone;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.ChangeTombstoneMongoRepository;
+import au.org.ala.listsapi.util.ChangeCursor;
+
+/**
+ * Incremental change feed of list items, for one list or across all public lists.
+ *
+ * Additions and updates are read from SpeciesListItem.lastUpdated, removals from tombstones
+ * written before items or lists are deleted. Both are read in (time, id) order with keyset
+ * queries and merged, so a feed can be resumed from the cursor of the last change returned.
+ * Changes of the last changes.lagSeconds are held back, so writes still in flight are not
+ * skipped by a cursor that has already moved past them. Writers set lastUpdated just before
+ * each write, and the lag has to cover the longest write, an ingest batch of 10,000 items.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ChangeTombstoneMongoRepository changeTombstoneMongoRepository;
+
+    @Value("${changes.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${changes.lagSeconds:60}")
+    private long lagSeconds;
+
+    @Value("${changes.maxLimit:50000}")
+    private int maxLimit;
+
+    /**
+     * @param cursor the cursor to resume from
+     * @param more   true if the limit was reached before the end of the feed
+     * @param count  the number of changes returned
+     */
+    public record Result(ChangeCursor cursor, boolean more, int count) {
+    }
+
+    private record PublicListIds(List<String> ids, long loadedAt) {
+    }
+
+    private volatile PublicListIds publicListIds;
+
+    public void recordItemDeleted(SpeciesList speciesList, SpeciesListItem item) {
+        ChangeTombstone tombstone = tombstone(speciesList, ChangeTombstone.Type.ITEM_DELETED);
+        tombstone.setItemId(item.getId() != null ? item.getId().toHexString() : null);
+        tombstone.setScientificName(item.getScientificName());
+        if (item.getClassification() != null) {
+            tombstone.setTaxonConceptID(item.getClassification().getTaxonConceptID());
+        }
+        changeTombstoneMongoRepository.save(tombstone);
+    }
+
+    /** Records that every item of the list is about to be removed, as before a reload */
+    public void recordListReset(SpeciesList speciesList) {
+        changeTombstoneMongoRepository.save(tombstone(speciesList, ChangeTombstone.Type.LIST_RESET));
+    }
+
+    public void recordListDeleted(SpeciesList speciesList) {
+        changeTombstoneMongoRepository.save(tombstone(speciesList, ChangeTombstone.Type.LIST_DELETED));
+    }
+
+    /**
+     * Records a change of the list's visibility. Public feed consumers get a reset of the list,
+     * so the items of a list made private are removed, then every item is touched so it is sent
+     * again, to the public feed if the list was made public and to the list's own feed either way.
+     */
+    public void recordVisibilityChange(SpeciesList speciesList) {
+        ChangeTombstone reset = tombstone(speciesList, ChangeTombstone.Type.LIST_RESET);
+        // the reset is for consumers of the public feed, whichever way the list went
+        reset.setIsPrivate(false);
+        changeTombstoneMongoRepository.save(reset);
+
+        // after the reset, so the items are sent again once it has been read
+        Date touched = new Date(reset.getDeletedAt().getTime() + 1);
+        long updated = mongoTemplate.updateMulti(
+                new Query(Criteria.where("speciesListID").is(speciesList.getId())),
+                new Update().set("lastUpdated", touched),
+                SpeciesListItem.class).getModifiedCount();
+        logger.info("Visibility of species list {} changed, resent {} items", speciesList.getId(), updated);
+    }
+
+    private static ChangeTombstone tombstone(SpeciesList speciesList, ChangeTombstone.Type type) {
+        return ChangeTombstone.builder()
+                .speciesListID(speciesList.getId())
+                .dataResourceUid(speciesList.getDataResourceUid())
+                .isPrivate(speciesList.getIsPrivate())
+                .type(type)
+                .deletedAt(new Date())
+                .build();
+    }
+
+    /** @return true if the list has tombstones recorded while it was public, e.g. it was deleted */
+    public boolean hasPublicTombstones(String speciesListID) {
+        return changeTombstoneMongoRepository.existsBySpeciesListIDAndIsPrivateNot(speciesListID, true);
+    }
+
+    /** @return true if tombstones after the cursor may already have expired */
+    public static boolean isExpired(ChangeCursor cursor) {
+        return cursor.time() < System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ChangeTombstone.RETENTION_DAYS);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public void validateLimit(int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxLimit);
+        }
+    }
+
+    /**
+     * Streams the changes after the cursor, in order, to the consumer.
+     *
+     * @param speciesListID the list to read changes of, or null for all public lists
+     * @param start         the cursor to resume after
+     * @param limit         the maximum number of changes to return
+     */
+    public Result stream(@Nullable String speciesListID, ChangeCursor start, int limit, Consumer<ChangeEvent> consumer) {
+        long until = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(lagSeconds);
+        if (start.time() >= until) {
+            return new Result(start, false, 0);
+        }
+
+        Criteria itemScope;
+        Criteria tombstoneScope;
+        if (speciesListID != null) {
+            itemScope = Criteria.where("speciesListID").is(speciesListID);
+            tombstoneScope = Criteria.where("speciesListID").is(speciesListID);
+        } else {
+            itemScope = Criteria.where("speciesListID").in(publicListIds());
+            tombstoneScope = Criteria.where("isPrivate").ne(true);
+        }
+
+        KeysetSource<SpeciesListItem> items = new KeysetSource<>(after -> mongoTemplate.find(
+                keysetQuery(itemScope, "lastUpdated", after, until), SpeciesListItem.class),
+                item -> new ChangeCursor(item.getLastUpdated().getTime(), item.getId().toHexString()), start);
+        KeysetSource<ChangeTombstone> tombstones = new KeysetSource<>(after -> mongoTemplate.find(
+                keysetQuery(tombstoneScope, "deletedAt", after, until), ChangeTombstone.class),
+                tombstone -> new ChangeCursor(tombstone.getDeletedAt().getTime(), tombstone.getId().toHexString()), start);
+
+        ChangeCursor position = start;
+        int count = 0;
+        while (count < limit) {
+            SpeciesListItem item = items.peek();
+            ChangeTombstone tombstone = tombstones.peek();
+            if (item == null && tombstone == null) {
+                break;
+            }
+            if (tombstone == null || (item != null && compare(items.keyOf(item), tombstones.keyOf(tombstone)) < 0)) {
+                position = items.keyOf(items.poll());
+                consumer.accept(itemEvent(item, start.time()));
+            } else {
+                position = tombstones.keyOf(tombstones.poll());
+                consumer.accept(tombstoneEvent(tombstone));
+            }
+            count++;
+        }
+
+        boolean more = count == limit && (items.peek() != null || tombstones.peek() != null);
+        if (!more) {
+            // everything up to until has been read, the next call starts there
+            position = ChangeCursor.after(until);
+        }
+        logger.debug("Change feed for {} returned {} changes", speciesListID != null ? speciesListID : "public lists", count);
+        return new Result(position, more, count);
+    }
+
+    /**
+     * The ids are cached for half the lag, so a list made public or created is in them before
+     * its items are read.
+     */
+    private List<String> publicListIds() {
+        PublicListIds cached = publicListIds;
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < TimeUnit.SECONDS.toMillis(lagSeconds) / 2) {
+            return cached.ids();
+        }
+        Query query = new Query(Criteria.where("isPrivate").ne(true));
+        query.fields().include("_id");
+        List<String> ids = mongoTemplate.find(query, SpeciesList.class).stream().map(SpeciesList::getId).toList();
+        publicListIds = new PublicListIds(ids, now);
+        return ids;
+    }
+
+    private Query keysetQuery(Criteria scope, String timeField, ChangeCursor after, long until) {
+        Date afterTime = new Date(after.time());
+        Criteria keyset = new Criteria().orOperator(
+                Criteria.where(timeField).gt(afterTime),
+                new Criteria().andOperator(
+                        Criteria.where(timeField).is(afterTime),
+                        Criteria.where("_id").gt(after.objectId())));
+        return new Query(new Criteria().andOperator(scope, Criteria.where(timeField).lte(new Date(until)), keyset))
+                .with(Sort.by(Sort.Direction.ASC, timeField, "_id"))
+                .limit(batchSize);
+    }
+
+    static int compare(ChangeCursor a, ChangeCursor b) {
+        int byTime = Long.compare(a.time(), b.time());
+        return byTime != 0 ? byTime : a.objectId().compareTo(b.objectId());
+    }
+
+    static ChangeEvent itemEvent(SpeciesListItem item, long since) {
+        boolean added = item.getDateCreated() == null || item.getDateCreated().getTime() > since;
+        ChangeEvent event = new ChangeEvent();
+        event.setOp(added ? ChangeEvent.ADDED : ChangeEvent.UPDATED);
+        event.setSpeciesListID(item.getSpeciesListID());
+        event.setId(item.getId().toHexString());
+        event.setAt(item.getLastUpdated());
+        event.setItem(item);
+        return event;
+    }
+
+    static ChangeEvent tombstoneEvent(ChangeTombstone tombstone) {
+        ChangeEvent event = new ChangeEvent();
+        event.setOp(switch (tombstone.getType()) {
+            case ITEM_DELETED -> ChangeEvent.DELETED;
+            case LIST_RESET -> ChangeEvent.RESET;
+            case LIST_DELETED -> ChangeEvent.LIST_DELETED;
+        });
+        event.setSpeciesListID(tombstone.getSpeciesListID());
+        event.setId(tombstone.getItemId());
+        event.setAt(tombstone.getDeletedAt());
+        event.setTaxonConceptID(tombstone.getTaxonConceptID());
+        event.setScientificName(tombstone.getScientificName());
+        return event;
+    }
+
+    /** Reads one source of changes in pages, after the position of the last change read */
+    private class KeysetSource<T> {
+        private final Function<ChangeCursor, List<T>> fetch;
+        private final Function<T, ChangeCursor> key;
+        private final Deque<T> buffer = new ArrayDeque<>();
+        private ChangeCursor after;
+        private boolean exhausted;
+
+        KeysetSource(Function<ChangeCursor, List<T>> fetch, Function<T, ChangeCursor> key, ChangeCursor after) {
+            this.fetch = fetch;
+            this.key = key;
+            this.after = after;
+        }
+
+        T peek() {
+            if (buffer.isEmpty() && !exhausted) {
+                List<T> page = fetch.apply(after);
+                buffer.addAll(page);
+                exhausted = page.size() < batchSize;
+                if (!page.isEmpty()) {
+                    after = key.apply(page.get(page.size() - 1));
+                }
+            }
+            return buffer.peek();
+        }
+
+        T poll() {
+            return buffer.poll();
+        }
+
+        ChangeCursor keyOf(T value) {
+            return key.apply(value);
+        }
+    }
+}
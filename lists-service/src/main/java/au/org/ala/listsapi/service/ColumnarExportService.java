@@ -0,0 +1,353 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+
+/**
+ * Writes species lists in a gzipped, column oriented JSON format for analytics consumers.
+ *
+ * Each list is written as one schema line followed by row group lines, one JSON document per
+ * line:
+ * <pre>
+ * {"speciesListID":"...","title":"...","columns":[{"name":"suppliedName","type":"string"},{"name":"count","type":"integer"},...]}
+ * {"speciesListID":"...","rows":10000,"columns":[["Acacia dealbata",...],[3,...],...]}
+ * </pre>
+ * Column types of the list's fields are inferred from their values (integer, number, boolean or
+ * string) in a first pass over the list, so KVP columns keep their types. Row groups hold
+ * rowGroupSize items, so memory stays bounded whatever the size of the list.
+ *
+ * This is not Parquet or Arrow, which would add their writers and Hadoop dependencies to the
+ * service, but it converts to a typed dataframe with a JSON reader, e.g. in Python:
+ * <pre>
+ * for line in gzip.open("lists.columnar.json.gz", "rt"):
+ *     chunk = json.loads(line)
+ *     if "rows" not in chunk:
+ *         names = [c["name"] for c in chunk["columns"]]
+ *     else:
+ *         frames.append(pandas.DataFrame(dict(zip(names, chunk["columns"]))))
+ * </pre>
+ */
+@Service
+public class ColumnarExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarExportService.class);
+
+    public static final String SUPPLIED_NAME_COLUMN = "suppliedName";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    enum ColumnType {
+        INTEGER, NUMBER, BOOLEAN, STRING;
+
+        String jsonName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Autowired
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @Value("${export.columnar.rowGroupSize:10000}")
+    private int rowGroupSize;
+
+    /**
+     * Writes the lists, gzipped, to the stream. The stream is finished but not closed.
+     */
+    public void write(List<SpeciesList> speciesLists, OutputStream outputStream) throws IOException {
+        GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 64 * 1024);
+        JsonGenerator generator = JSON_FACTORY.createGenerator(gzipOutputStream, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        for (SpeciesList speciesList : speciesLists) {
+            writeList(speciesList, generator);
+        }
+        generator.flush();
+        gzipOutputStream.finish();
+    }
+
+    private void writeList(SpeciesList speciesList, JsonGenerator generator) throws IOException {
+        List<String> fieldList = speciesList.getFieldList() != null ? speciesList.getFieldList() : List.of();
+        ColumnType[] fieldTypes = inferFieldTypes(speciesList.getId(), fieldList);
+        Map<String, Integer> columnIndex = ExportService.columnIndex(fieldList);
+
+        List<String> names = new ArrayList<>();
+        List<ColumnType> types = new ArrayList<>();
+        names.add(SUPPLIED_NAME_COLUMN);
+        types.add(ColumnType.STRING);
+        for (int i = 0; i < fieldList.size(); i++) {
+            names.add(fieldList.get(i));
+            types.add(fieldTypes[i]);
+        }
+        for (String name : ExportService.CLASSIFICATION_HEADER_NAMES) {
+            names.add(name);
+            types.add(ColumnType.STRING);
+        }
+
+        generator.writeStartObject();
+        generator.writeStringField("speciesListID", speciesList.getId());
+        generator.writeStringField("dataResourceUid", speciesList.getDataResourceUid());
+        generator.writeStringField("title", speciesList.getTitle());
+        generator.writeArrayFieldStart("columns");
+        for (int i = 0; i < names.size(); i++) {
+            generator.writeStartObject();
+            generator.writeStringField("name", names.get(i));
+            generator.writeStringField("type", types.get(i).jsonName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+
+        long[] rows = {0};
+        long[] mismatched = {0};
+        try {
+            forEachBatch(speciesList.getId(), items -> {
+                try {
+                    mismatched[0] += writeRowGroup(speciesList.getId(), items, columnIndex, types, generator);
+                    rows[0] += items.size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (mismatched[0] > 0) {
+            logger.warn("Wrote {} values that no longer fit their column type as null for species list {}",
+                    mismatched[0], speciesList.getId());
+        }
+        logger.info("Finished writing {} columnar rows for species list {}", rows[0], speciesList.getId());
+    }
+
+    /**
+     * @return the number of values written as null because they don't fit their column type
+     */
+    private long writeRowGroup(String speciesListID, List<SpeciesListItem> items, Map<String, Integer> columnIndex,
+            List<ColumnType> types, JsonGenerator generator) throws IOException {
+        // resolve the rows first, then write them column by column
+        String[][] rows = new String[items.size()][];
+        for (int r = 0; r < items.size(); r++) {
+            rows[r] = ExportService.toRow(items.get(r), columnIndex, types.size());
+        }
+
+        generator.writeStartObject();
+        generator.writeStringField("speciesListID", speciesListID);
+        generator.writeNumberField("rows", items.size());
+        generator.writeArrayFieldStart("columns");
+        long mismatched = 0;
+        for (int c = 0; c < types.size(); c++) {
+            generator.writeStartArray();
+            for (String[] row : rows) {
+                if (!writeValue(generator, row[c], types.get(c))) {
+                    mismatched++;
+                }
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        return mismatched;
+    }
+
+    /**
+     * @return false when the value doesn't fit the column type and null was written instead
+     */
+    private static boolean writeValue(JsonGenerator generator, String value, ColumnType type) throws IOException {
+        if (value == null || value.isBlank()) {
+            generator.writeNull();
+            return true;
+        }
+        // the type was inferred in an earlier pass, so a value edited since then may no longer
+        // fit it, and is written as null to keep to the schema
+        String trimmed = value.trim();
+        switch (type) {
+            case INTEGER:
+                if (!TypeInference.isInteger(trimmed)) {
+                    generator.writeNull();
+                    return false;
+                }
+                generator.writeNumber(Long.parseLong(trimmed));
+                return true;
+            case NUMBER:
+                if (!TypeInference.isNumber(trimmed)) {
+                    generator.writeNull();
+                    return false;
+                }
+                generator.writeNumber(Double.parseDouble(trimmed));
+                return true;
+            case BOOLEAN:
+                if (!TypeInference.isBoolean(trimmed)) {
+                    generator.writeNull();
+                    return false;
+                }
+                generator.writeBoolean(Boolean.parseBoolean(trimmed));
+                return true;
+            default:
+                generator.writeString(value);
+                return true;
+        }
+    }
+
+    /**
+     * Reads the values of the list's fields to find the narrowest type that holds all of them
+     */
+    private ColumnType[] inferFieldTypes(String speciesListID, List<String> fieldList) {
+        Map<String, Integer> index = ExportService.columnIndex(fieldList);
+        TypeInference[] inference = new TypeInference[fieldList.size()];
+        Arrays.setAll(inference, i -> new TypeInference());
+
+        forEachBatch(speciesListID, items -> {
+            for (SpeciesListItem item : items) {
+                if (item.getProperties() == null) {
+                    continue;
+                }
+                for (KeyValue keyValue : item.getProperties()) {
+                    Integer column = index.get(keyValue.getKey());
+                    if (column != null) {
+                        // columnIndex starts after the supplied name column
+                        inference[column - 1].accept(keyValue.getValue());
+                    }
+                }
+            }
+        });
+
+        ColumnType[] types = new ColumnType[fieldList.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = inference[i].type();
+        }
+        return types;
+    }
+
+    private void forEachBatch(String speciesListID, Consumer<List<SpeciesListItem>> consumer) {
+        ObjectId lastId = null;
+        while (true) {
+            List<SpeciesListItem> items = lastId == null
+                    ? speciesListItemMongoRepository.findFirstExportBatch(speciesListID, PageRequest.of(0, rowGroupSize))
+                    : speciesListItemMongoRepository.findNextExportBatchAfter(speciesListID, lastId,
+                            PageRequest.of(0, rowGroupSize));
+            if (items.isEmpty()) {
+                return;
+            }
+            consumer.accept(items);
+            lastId = items.get(items.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Narrows the type of a column as its values are seen, blank values fit any type. Values that
+     * would change when written as a number, such as codes with leading zeros ("0800", "007") or
+     * an explicit sign ("+5"), keep the column a string.
+     */
+    static class TypeInference {
+        private boolean seen;
+        private boolean integer = true;
+        private boolean number = true;
+        private boolean bool = true;
+
+        void accept(String value) {
+            if (value == null || value.isBlank()) {
+                return;
+            }
+            seen = true;
+            String trimmed = value.trim();
+            if (integer && !isInteger(trimmed)) {
+                integer = false;
+            }
+            if (number && !isNumber(trimmed)) {
+                number = false;
+            }
+            if (bool && !isBoolean(trimmed)) {
+                bool = false;
+            }
+        }
+
+        ColumnType type() {
+            if (!seen) {
+                return ColumnType.STRING;
+            }
+            if (integer) {
+                return ColumnType.INTEGER;
+            }
+            if (number) {
+                return ColumnType.NUMBER;
+            }
+            return bool ? ColumnType.BOOLEAN : ColumnType.STRING;
+        }
+
+        static boolean isInteger(String value) {
+            if (hasLeadingZero(value) || value.startsWith("+")) {
+                return false;
+            }
+            try {
+                Long.parseLong(value);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        static boolean isNumber(String value) {
+            // Double.parseDouble also accepts type suffixes ("1f", "1d") that aren't JSON numbers
+            if (hasLeadingZero(value) || value.startsWith("+")
+                    || !Character.isDigit(value.charAt(value.length() - 1))) {
+                return false;
+            }
+            try {
+                return Double.isFinite(Double.parseDouble(value));
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        static boolean isBoolean(String value) {
+            return value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false");
+        }
+
+        /** @return true for a zero followed by another digit, which a number would drop */
+        private static boolean hasLeadingZero(String value) {
+            int start = value.startsWith("-") ? 1 : 0;
+            return value.length() > start + 1 && value.charAt(start) == '0'
+                    && value.charAt(start + 1) != '.';
+        }
+    }
+}
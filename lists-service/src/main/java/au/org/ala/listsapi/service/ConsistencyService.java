@@ -0,0 +1,332 @@
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+
+import au.org.ala.listsapi.model.ConsistencyReport;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.ConsistencyReportMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListIndexCustomRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.util.ElasticUtils;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+
+/**
+ * Finds and repairs drift between the listItems collection and the species-lists index.
+ *
+ * For each list the item count and the sum of per-item checksums (see ElasticUtils.itemChecksum)
+ * are compared between Mongo and Elasticsearch. The Mongo pass also records the counts and
+ * checksums of consecutive _id ranges, so that when a list differs only the ranges that differ
+ * are reindexed, and documents left in the index for deleted items are removed.
+ */
+@Service
+public class ConsistencyService {
+    private static final Logger logger = LoggerFactory.getLogger(ConsistencyService.class);
+    private static final String SPECIES_LIST_ID = "speciesListID";
+    private static final String CHECKSUM_AGG = "checksum";
+    private static final int STALE_BATCH_SIZE = 1000;
+
+    @Value("${consistency.check.enabled:true}")
+    private boolean checkEnabled;
+
+    @Value("${consistency.check.rangeSize:10000}")
+    private int rangeSize;
+
+    @Autowired protected MongoTemplate mongoTemplate;
+    @Autowired protected ElasticsearchOperations elasticsearchOperations;
+    @Autowired protected SpeciesListMongoRepository speciesListMongoRepository;
+    @Autowired protected SpeciesListIndexCustomRepository speciesListIndexCustomRepository;
+    @Autowired protected ConsistencyReportMongoRepository consistencyReportMongoRepository;
+    @Autowired protected TaxonService taxonService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /** Counts and checksum of the items of a list in the _id range (after, to] */
+    private static class RangeStats {
+        ObjectId after;
+        ObjectId to;
+        long count;
+        long checksum;
+    }
+
+    @Scheduled(cron = "${consistency.check.cron:0 0 3 * * *}")
+    public void scheduledCheck() {
+        if (checkEnabled) {
+            checkAll(true);
+        }
+    }
+
+    @Async("processExecutor")
+    public void checkAllAsync(boolean repair) {
+        checkAll(repair);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ConsistencyReport getLatestReport() {
+        return consistencyReportMongoRepository.findFirstByOrderByStartedDesc().orElse(null);
+    }
+
+    /**
+     * Checks every list, repairing the divergent ones if requested.
+     *
+     * @return the report, or null if a check is already running
+     */
+    public ConsistencyReport checkAll(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("[consistency] Check already running, skipping");
+            return null;
+        }
+
+        try {
+            ConsistencyReport report = new ConsistencyReport();
+            report.setStarted(new Date());
+            report.setRepair(repair);
+            report.setDivergentLists(new ArrayList<>());
+
+            logger.info("[consistency] Starting check (repair = {})", repair);
+
+            int page = 0;
+            Page<SpeciesList> speciesLists;
+            do {
+                speciesLists = speciesListMongoRepository.findAll(PageRequest.of(page++, 1000));
+                for (SpeciesList speciesList : speciesLists) {
+                    ConsistencyReport.ListDrift drift = checkList(speciesList, repair);
+                    report.setListsChecked(report.getListsChecked() + 1);
+                    if (drift != null) {
+                        report.getDivergentLists().add(drift);
+                        report.setListsDivergent(report.getListsDivergent() + 1);
+                        report.setItemsReindexed(report.getItemsReindexed() + drift.getItemsReindexed());
+                    }
+                }
+            } while (speciesLists.hasNext());
+
+            report.setFinished(new Date());
+            logger.info("[consistency] Check complete. {} lists checked, {} divergent, {} items reindexed",
+                    report.getListsChecked(), report.getListsDivergent(), report.getItemsReindexed());
+
+            return consistencyReportMongoRepository.save(report);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Compares a single list between Mongo and Elasticsearch.
+     *
+     * @return the drift found, or null if the list is consistent
+     */
+    public ConsistencyReport.ListDrift checkList(SpeciesList speciesList, boolean repair) {
+        String speciesListID = speciesList.getId();
+        try {
+            List<RangeStats> ranges = mongoRangeStats(speciesListID);
+            long mongoCount = ranges.stream().mapToLong(r -> r.count).sum();
+            long mongoChecksum = ranges.stream().mapToLong(r -> r.checksum).sum();
+
+            RangeStats elastic = elasticStats(speciesListID, null, null);
+            if (elastic.count == mongoCount && elastic.checksum == mongoChecksum) {
+                return null;
+            }
+
+            logger.warn("[{}|consistency] Drift found: mongo {} items ({}), elastic {} items ({})",
+                    speciesListID, mongoCount, mongoChecksum, elastic.count, elastic.checksum);
+
+            ConsistencyReport.ListDrift drift = new ConsistencyReport.ListDrift();
+            drift.setSpeciesListID(speciesListID);
+            drift.setMongoCount(mongoCount);
+            drift.setMongoChecksum(mongoChecksum);
+            drift.setElasticCount(elastic.count);
+            drift.setElasticChecksum(elastic.checksum);
+
+            if (ranges.isEmpty()) {
+                // list has no items in Mongo, everything in the index is stale
+                RangeStats all = new RangeStats();
+                ranges.add(all);
+            }
+
+            for (RangeStats range : ranges) {
+                drift.setRangesChecked(drift.getRangesChecked() + 1);
+                RangeStats elasticRange = elasticStats(speciesListID, range.after, range.to);
+                if (elasticRange.count == range.count && elasticRange.checksum == range.checksum) {
+                    continue;
+                }
+                if (repair) {
+                    drift.setItemsReindexed(drift.getItemsReindexed() + repairRange(speciesList, range));
+                    drift.setRangesRepaired(drift.getRangesRepaired() + 1);
+                }
+            }
+
+            return drift;
+        } catch (Exception e) {
+            logger.error("[{}|consistency] Check failed: {}", speciesListID, e.getMessage(), e);
+            ConsistencyReport.ListDrift drift = new ConsistencyReport.ListDrift();
+            drift.setSpeciesListID(speciesListID);
+            drift.setError(e.getMessage());
+            return drift;
+        }
+    }
+
+    /**
+     * Reads the ids and versions of a list's items in _id order, in ranges of rangeSize items.
+     * The first range is open below and the last open above, so that index documents outside
+     * the Mongo id span are also covered.
+     */
+    private List<RangeStats> mongoRangeStats(String speciesListID) {
+        MongoCollection<Document> collection = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(SpeciesListItem.class));
+        Bson projection = Projections.include("_id", "version");
+
+        List<RangeStats> ranges = new ArrayList<>();
+        RangeStats current = null;
+        ObjectId lastId = null;
+
+        try (MongoCursor<Document> cursor = collection.find(Filters.eq(SPECIES_LIST_ID, speciesListID))
+                .projection(projection)
+                .sort(Sorts.ascending("_id"))
+                .batchSize(rangeSize)
+                .iterator()) {
+            while (cursor.hasNext()) {
+                Document item = cursor.next();
+                ObjectId id = item.getObjectId("_id");
+                if (current == null || current.count == rangeSize) {
+                    current = new RangeStats();
+                    current.after = lastId;
+                    ranges.add(current);
+                }
+                Number version = item.get("version", Number.class);
+                current.count++;
+                current.checksum += ElasticUtils.itemChecksum(id.toHexString(),
+                        version != null ? version.intValue() : null);
+                current.to = id;
+                lastId = id;
+            }
+        }
+
+        if (!ranges.isEmpty()) {
+            ranges.get(ranges.size() - 1).to = null;
+        }
+        return ranges;
+    }
+
+    private RangeStats elasticStats(String speciesListID, ObjectId after, ObjectId to) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(ElasticUtils.idRangeQuery(speciesListID,
+                        after != null ? after.toHexString() : null,
+                        to != null ? to.toHexString() : null))
+                .withRoute(speciesListID)
+                .withTrackTotalHits(true)
+                .withMaxResults(0)
+                .withAggregation(CHECKSUM_AGG,
+                        Aggregation.of(a -> a.sum(s -> s.field(ElasticUtils.ITEM_CHECKSUM))))
+                .build();
+
+        SearchHits<SpeciesListIndex> hits = elasticsearchOperations.search(query, SpeciesListIndex.class);
+
+        RangeStats stats = new RangeStats();
+        stats.count = hits.getTotalHits();
+
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
+        if (aggregations != null) {
+            aggregations.aggregations().stream()
+                    .filter(agg -> CHECKSUM_AGG.equals(agg.aggregation().getName()))
+                    .findFirst()
+                    .ifPresent(agg -> stats.checksum = Math.round(agg.aggregation().getAggregate().sum().value()));
+        }
+        return stats;
+    }
+
+    /**
+     * Reindexes the Mongo items in the range and removes index documents in the range that no
+     * longer exist in Mongo.
+     */
+    private long repairRange(SpeciesList speciesList, RangeStats range) {
+        String speciesListID = speciesList.getId();
+        logger.info("[{}|consistency] Repairing range ({}, {}]", speciesListID, range.after, range.to);
+
+        long indexed = taxonService.indexItems(speciesList, range.after, range.to);
+
+        List<Bson> conditions = new ArrayList<>();
+        conditions.add(Filters.eq(SPECIES_LIST_ID, speciesListID));
+        if (range.after != null) {
+            conditions.add(Filters.gt("_id", range.after));
+        }
+        if (range.to != null) {
+            conditions.add(Filters.lte("_id", range.to));
+        }
+
+        Set<String> keepIds = new HashSet<>();
+        MongoCollection<Document> items = mongoTemplate.getCollection(mongoTemplate.getCollectionName(SpeciesListItem.class));
+        items.find(Filters.and(conditions))
+                .projection(Projections.include("_id"))
+                .forEach(doc -> keepIds.add(doc.getObjectId("_id").toHexString()));
+
+        // An ingest or reindex may write items after the range was read, so documents missing from
+        // the snapshot are checked against Mongo again and only those still missing are deleted.
+        String searchAfter = null;
+        long deleted = 0;
+        while (true) {
+            List<String> page = speciesListIndexCustomRepository.findIdsInRange(speciesListID,
+                    range.after != null ? range.after.toHexString() : null,
+                    range.to != null ? range.to.toHexString() : null,
+                    searchAfter, STALE_BATCH_SIZE);
+            if (page.isEmpty()) {
+                break;
+            }
+            searchAfter = page.get(page.size() - 1);
+
+            List<String> candidates = page.stream().filter(id -> !keepIds.contains(id)).toList();
+            if (!candidates.isEmpty()) {
+                Set<String> present = new HashSet<>();
+                items.find(Filters.and(Filters.eq(SPECIES_LIST_ID, speciesListID),
+                                Filters.in("_id", candidates.stream().filter(ObjectId::isValid).map(ObjectId::new).toList())))
+                        .projection(Projections.include("_id"))
+                        .forEach(doc -> present.add(doc.getObjectId("_id").toHexString()));
+                List<String> stale = candidates.stream().filter(id -> !present.contains(id)).toList();
+                if (!stale.isEmpty()) {
+                    speciesListIndexCustomRepository.deleteByIds(speciesListID, stale);
+                    deleted += stale.size();
+                }
+            }
+            if (page.size() < STALE_BATCH_SIZE) {
+                break;
+            }
+        }
+        if (deleted > 0) {
+            logger.info("[{}|consistency] Deleted {} index documents with no item", speciesListID, deleted);
+        }
+
+        return indexed;
+    }
+}
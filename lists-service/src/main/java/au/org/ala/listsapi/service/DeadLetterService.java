@@ -0,0 +1,144 @@
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.IndexDeadLetter;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.repo.IndexDeadLetterMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+
+/**
+ * Inspection and replay of species list items that could not be indexed (see
+ * TaxonService.bulkIndexSafe).
+ */
+@Service
+public class DeadLetterService {
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    @Autowired protected IndexDeadLetterMongoRepository indexDeadLetterMongoRepository;
+    @Autowired protected SpeciesListMongoRepository speciesListMongoRepository;
+    @Autowired protected TaxonService taxonService;
+
+    @Value("${deadLetters.replay.batchSize:1000}")
+    private int batchSize;
+
+    private final AtomicBoolean replaying = new AtomicBoolean(false);
+
+    public Page<IndexDeadLetter> getDeadLetters(String speciesListID, int page, int pageSize) {
+        PageRequest pageRequest = PageRequest.of(page, pageSize, Sort.by(Sort.Direction.DESC, "lastAttempt"));
+        if (speciesListID != null) {
+            return indexDeadLetterMongoRepository.findBySpeciesListID(speciesListID, pageRequest);
+        }
+        return indexDeadLetterMongoRepository.findAll(pageRequest);
+    }
+
+    public boolean isReplaying() {
+        return replaying.get();
+    }
+
+    @Async("processExecutor")
+    public void replayAsync(String speciesListID) {
+        replay(speciesListID);
+    }
+
+    /**
+     * Reindexes the dead-lettered items, of a single list or of all lists, in batches. Entries for
+     * items that index successfully, or that no longer exist, are removed. Items that fail again
+     * keep their entry with the new error and an increased attempt count.
+     *
+     * @return the number of items indexed, or -1 if a replay is already running
+     */
+    public long replay(String speciesListID) {
+        if (!replaying.compareAndSet(false, true)) {
+            logger.info("[deadLetters] Replay already running, skipping");
+            return -1;
+        }
+
+        try {
+            long indexed = 0;
+            long replayed = 0;
+            String afterId = null;
+            List<IndexDeadLetter> deadLetters;
+            do {
+                deadLetters = nextBatch(speciesListID, afterId);
+                if (deadLetters.isEmpty()) {
+                    break;
+                }
+                afterId = deadLetters.get(deadLetters.size() - 1).getId();
+                replayed += deadLetters.size();
+
+                Map<String, List<IndexDeadLetter>> byList = deadLetters.stream()
+                        .collect(Collectors.groupingBy(IndexDeadLetter::getSpeciesListID));
+                for (Map.Entry<String, List<IndexDeadLetter>> entry : byList.entrySet()) {
+                    indexed += replayList(entry.getKey(), entry.getValue());
+                }
+            } while (deadLetters.size() == batchSize);
+
+            logger.info("[deadLetters] Replay complete. {} of {} items indexed", indexed, replayed);
+            return indexed;
+        } finally {
+            replaying.set(false);
+        }
+    }
+
+    /**
+     * Reads the next batch of entries in id order. Entries that fail again keep their id, so they
+     * are behind the cursor and are not read twice in a replay.
+     */
+    private List<IndexDeadLetter> nextBatch(String speciesListID, String afterId) {
+        PageRequest pageRequest = PageRequest.of(0, batchSize, Sort.by(Sort.Direction.ASC, "id"));
+        if (afterId == null) {
+            return speciesListID != null
+                    ? indexDeadLetterMongoRepository.findBySpeciesListID(speciesListID, pageRequest).getContent()
+                    : indexDeadLetterMongoRepository.findAll(pageRequest).getContent();
+        }
+        return speciesListID != null
+                ? indexDeadLetterMongoRepository.findBySpeciesListIDAndIdGreaterThan(speciesListID, afterId, pageRequest)
+                : indexDeadLetterMongoRepository.findByIdGreaterThan(afterId, pageRequest);
+    }
+
+    private long replayList(String speciesListID, List<IndexDeadLetter> deadLetters) {
+        Optional<SpeciesList> speciesList = speciesListMongoRepository.findById(speciesListID);
+        if (speciesList.isEmpty()) {
+            logger.info("[{}|deadLetters] List no longer exists, removing {} entries",
+                    speciesListID, deadLetters.size());
+            indexDeadLetterMongoRepository.deleteBySpeciesListID(speciesListID);
+            return 0;
+        }
+
+        Date replayStarted = new Date();
+        List<String> ids = deadLetters.stream().map(IndexDeadLetter::getId).toList();
+        long indexed = taxonService.indexItemsById(speciesList.get(),
+                ids.stream().filter(ObjectId::isValid).map(ObjectId::new).toList());
+
+        // items that failed again were updated with a new lastAttempt
+        List<IndexDeadLetter> resolved = new ArrayList<>();
+        indexDeadLetterMongoRepository.findAllById(ids).forEach(letter -> {
+            if (letter.getLastAttempt() == null || letter.getLastAttempt().before(replayStarted)) {
+                resolved.add(letter);
+            }
+        });
+        indexDeadLetterMongoRepository.deleteAll(resolved);
+
+        logger.info("[{}|deadLetters] Replayed {} items, {} indexed, {} still failing",
+                speciesListID, ids.size(), indexed, ids.size() - resolved.size());
+        return indexed;
+    }
+}
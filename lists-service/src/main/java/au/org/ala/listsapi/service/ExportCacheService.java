@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.output.TeeOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.SpeciesList;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Local disk cache of generated list downloads.
+ *
+ * An export is cached per list id, version, lastUpdated and format, so it is only generated once
+ * for each version of a list. Creating a new version evicts the older exports of the list, and
+ * when the cache grows past maxSizeMb the least recently downloaded exports are removed.
+ * An export that is not cached yet is streamed to the first request while it is written to the
+ * cache, so a cache miss never holds the response back until the whole export is generated.
+ */
+@Service
+public class ExportCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportCacheService.class);
+
+    public enum Format {
+        CSV("csv"),
+        ZIP("zip");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    @Value("${export.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${export.cache.dir:${temp.dir:/tmp}/export-cache}")
+    private String cacheDir;
+
+    @Value("${export.cache.maxSizeMb:2048}")
+    private long maxSizeMb;
+
+    @Autowired
+    private ExportService exportService;
+
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (enabled) {
+            Files.createDirectories(Path.of(cacheDir));
+            logger.info("Export cache enabled in {}, max size: {} MB", cacheDir, maxSizeMb);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return the entity tag of the export of this version of the list */
+    public static String etag(SpeciesList speciesList, Format format) {
+        return "\"" + exportKey(speciesList) + "-" + format.getExtension() + "\"";
+    }
+
+    /**
+     * Returns the cached export of the list, or null if it isn't cached yet. The file stays valid
+     * for the caller even if it is evicted while being read, as long as it is opened before then.
+     */
+    @Nullable
+    public Path getCachedExport(SpeciesList speciesList, Format format) {
+        Path file = Path.of(cacheDir, exportKey(speciesList) + "." + format.getExtension());
+        if (Files.exists(file)) {
+            touch(file);
+            return file;
+        }
+        return null;
+    }
+
+    /**
+     * Writes the export of the list to the output stream as it is generated, and caches it at the
+     * same time. When the export is already being cached by another request, it is only written
+     * to the output stream, so no request waits on another's generation. The export is only cached
+     * when it is written completely.
+     */
+    public void writeExport(SpeciesList speciesList, Format format, OutputStream outputStream) throws IOException {
+        String key = exportKey(speciesList) + "." + format.getExtension();
+        if (!inFlight.add(key)) {
+            write(speciesList, format, outputStream);
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            Path file = Path.of(cacheDir, key);
+            Path tmp = Files.createTempFile(Path.of(cacheDir), "export-", ".tmp");
+            try {
+                try (OutputStream fileStream = Files.newOutputStream(tmp)) {
+                    write(speciesList, format, new TeeOutputStream(outputStream, fileStream));
+                }
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                logger.info("Cached {} export of species list {} ({} bytes) in {} ms", format.getExtension(),
+                        speciesList.getId(), Files.size(file), System.currentTimeMillis() - start);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            evictOlderVersions(speciesList, format, file);
+            evictToSize();
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private void write(SpeciesList speciesList, Format format, OutputStream outputStream) throws IOException {
+        if (format == Format.ZIP) {
+            ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+            zipOutputStream.putNextEntry(new ZipEntry("taxa.csv"));
+            exportService.writeCsv(speciesList, zipOutputStream);
+            zipOutputStream.closeEntry();
+            zipOutputStream.finish();
+        } else {
+            exportService.writeCsv(speciesList, outputStream);
+        }
+    }
+
+    private void evictOlderVersions(SpeciesList speciesList, Format format, Path current) throws IOException {
+        String prefix = filePrefix(speciesList.getId());
+        String suffix = "." + format.getExtension();
+        try (Stream<Path> files = Files.list(Path.of(cacheDir))) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix) && !file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private synchronized void evictToSize() throws IOException {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        List<Path> files = new ArrayList<>();
+        long total = 0;
+        try (Stream<Path> stream = Files.list(Path.of(cacheDir))) {
+            for (Path file : stream.filter(f -> !f.getFileName().toString().endsWith(".tmp")).toList()) {
+                try {
+                    total += Files.size(file);
+                    files.add(file);
+                } catch (IOException e) {
+                    // removed by another request in the meantime
+                }
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        files.sort(Comparator.comparing(ExportCacheService::lastModified));
+        for (Path file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long size = Files.size(file);
+            if (Files.deleteIfExists(file)) {
+                total -= size;
+                logger.debug("Evicted export {}", file.getFileName());
+            }
+        }
+    }
+
+    /** Marks the export as recently used, exports are evicted least recently used first */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only affects the eviction order
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String filePrefix(String speciesListID) {
+        return "species-list-" + speciesListID + "-v";
+    }
+
+    private static String exportKey(SpeciesList speciesList) {
+        long lastUpdated = speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().getTime() : 0;
+        return filePrefix(speciesList.getId()) + speciesList.getVersion() + "-" + lastUpdated;
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.opencsv.CSVWriter;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+
+/**
+ * Writes species lists as CSV.
+ *
+ * Items are read in _id order with the keyset batch queries and a projection of the exported
+ * fields. The columns of each row are resolved once per row through an index of the list's field
+ * names, so a row costs O(properties), and fields missing from a row are written as empty cells
+ * so that every row has the same columns as the header.
+ */
+@Service
+public class ExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+
+    public static final String SUPPLIED_NAME_HEADER = "Supplied Name";
+
+    public static final String[] CLASSIFICATION_HEADER_NAMES = {
+            "guid", // taxonID would be better
+            "scientificName",
+            "genus",
+            "family",
+            "order",
+            "class",
+            "phylum",
+            "kingdom",
+            "vernacularName",
+            "matchType",
+            "nameType"
+    };
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @Value("${export.batchSize:10000}")
+    private int batchSize;
+
+    public static List<String> csvHeaders(SpeciesList speciesList) {
+        List<String> headers = new ArrayList<>();
+        headers.add(SUPPLIED_NAME_HEADER);
+        headers.addAll(fieldList(speciesList));
+        headers.addAll(Arrays.asList(CLASSIFICATION_HEADER_NAMES));
+        return headers;
+    }
+
+    /**
+     * Writes the list as CSV to the stream. The stream is flushed but not closed, so more entries
+     * can follow when it is a zip stream.
+     */
+    public void writeCsv(SpeciesList speciesList, OutputStream outputStream) throws IOException {
+        String speciesListID = speciesList.getId();
+        List<String> headers = csvHeaders(speciesList);
+        Map<String, Integer> columnIndex = columnIndex(fieldList(speciesList));
+
+        CSVWriter csvWriter = new CSVWriter(new BufferedWriter(
+                new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE));
+        csvWriter.writeNext(headers.toArray(new String[0]));
+
+        long rows = 0;
+        ObjectId lastId = null;
+        while (true) {
+            List<SpeciesListItem> items = lastId == null
+                    ? speciesListItemMongoRepository.findFirstExportBatch(speciesListID, PageRequest.of(0, batchSize))
+                    : speciesListItemMongoRepository.findNextExportBatchAfter(speciesListID, lastId,
+                            PageRequest.of(0, batchSize));
+            if (items.isEmpty()) {
+                break;
+            }
+
+            for (SpeciesListItem item : items) {
+                csvWriter.writeNext(toRow(item, columnIndex, headers.size()));
+            }
+            rows += items.size();
+            lastId = items.get(items.size() - 1).getId();
+        }
+        csvWriter.flush();
+        if (csvWriter.checkError()) {
+            throw new IOException("Error writing CSV for species list " + speciesListID);
+        }
+        logger.info("Finished writing {} CSV rows for species list {}", rows, speciesListID);
+    }
+
+    /** Maps each field name to its column, after the supplied name column */
+    static Map<String, Integer> columnIndex(List<String> fieldList) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < fieldList.size(); i++) {
+            index.putIfAbsent(fieldList.get(i), i + 1);
+        }
+        return index;
+    }
+
+    /**
+     * Resolves the item into a row of the given width. Cells of missing values are null, which
+     * CSVWriter writes as empty fields.
+     */
+    static String[] toRow(SpeciesListItem item, Map<String, Integer> columnIndex, int width) {
+        String[] row = new String[width];
+        row[0] = item.getScientificName();
+
+        if (item.getProperties() != null) {
+            for (KeyValue keyValue : item.getProperties()) {
+                Integer column = columnIndex.get(keyValue.getKey());
+                if (column != null && row[column] == null) {
+                    row[column] = keyValue.getValue();
+                }
+            }
+        }
+
+        Classification classification = item.getClassification();
+        if (classification != null) {
+            int c = width - CLASSIFICATION_HEADER_NAMES.length;
+            row[c++] = classification.getTaxonConceptID();
+            row[c++] = classification.getScientificName();
+            row[c++] = classification.getGenus();
+            row[c++] = classification.getFamily();
+            row[c++] = classification.getOrder();
+            row[c++] = classification.getClasss();
+            row[c++] = classification.getPhylum();
+            row[c++] = classification.getKingdom();
+            row[c++] = classification.getVernacularName();
+            row[c++] = classification.getMatchType();
+            row[c] = classification.getNameType();
+        }
+        return row;
+    }
+
+    private static List<String> fieldList(SpeciesList speciesList) {
+        return speciesList.getFieldList() != null ? speciesList.getFieldList() : List.of();
+    }
+}
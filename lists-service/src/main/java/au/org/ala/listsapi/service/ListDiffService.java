@@ -0,0 +1,503 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.ItemRevision;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.ListDiffEntry;
+import au.org.ala.listsapi.model.SpeciesListItem;
+
+/**
+ * Compares two species lists, or two versions of a list, item by item.
+ *
+ * Items are paired by a key, the matched taxonConceptID or the supplied scientific name. Both
+ * sides are read from MongoDB in key then _id order, in keyset pages, and merge-joined, so memory
+ * use does not depend on the size of the lists. Items with the same key are paired in _id order.
+ * Unmatched items, without a taxonConceptID, are paired by their scientific name instead and are
+ * read first. Items without a key at all are never paired, they are reported as removed or added.
+ *
+ * A snapshot version is read as the live items not changed since the snapshot, merged with the
+ * states recorded for the items that were (see SnapshotService).
+ */
+@Service
+public class ListDiffService {
+    private static final Logger logger = LoggerFactory.getLogger(ListDiffService.class);
+
+    public enum Key {
+        TAXON_CONCEPT_ID("taxonConceptID", "classification.taxonConceptID"),
+        SCIENTIFIC_NAME("scientificName", "scientificName");
+
+        private final String name;
+        private final String field;
+
+        Key(String name, String field) {
+            this.name = name;
+            this.field = field;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the name is not taxonConceptID or scientificName
+         */
+        public static Key of(String name) {
+            for (Key key : values()) {
+                if (key.name.equalsIgnoreCase(name)) {
+                    return key;
+                }
+            }
+            throw new IllegalArgumentException("Invalid key: " + name + ", expected taxonConceptID or scientificName");
+        }
+
+        /** @return the item's key, or null if it has none */
+        @Nullable
+        String get(SpeciesListItem item) {
+            if (this == SCIENTIFIC_NAME) {
+                return item.getScientificName();
+            }
+            Classification classification = item.getClassification();
+            return classification != null ? classification.getTaxonConceptID() : null;
+        }
+
+        /** @return the key that pairs the items without this one, or null if they aren't paired */
+        @Nullable
+        Key fallback() {
+            return this == TAXON_CONCEPT_ID ? SCIENTIFIC_NAME : null;
+        }
+
+        /** @return the key the item is paired by, or null if it can't be paired */
+        @Nullable
+        String pairBy(SpeciesListItem item) {
+            String value = get(item);
+            return value == null && fallback() != null ? fallback().get(item) : value;
+        }
+    }
+
+    public record Result(long added, long removed, long changed, long unchanged) {
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${diff.batchSize:1000}")
+    private int batchSize;
+
+    /**
+     * @param version the snapshot version to read, or null for the current items
+     * @return the items of the list in key then id order, read as they are iterated
+     */
+    public Iterator<SpeciesListItem> items(String speciesListID, @Nullable Integer version, Key key) {
+        Key fallback = key.fallback();
+        if (fallback == null) {
+            return items(speciesListID, version, key, key, null);
+        }
+        // the items without the key sort first, in fallback key order, as compareItems orders them
+        return new ConcatenatedSource(
+                items(speciesListID, version, key, fallback, false),
+                items(speciesListID, version, key, key, true));
+    }
+
+    /**
+     * @param orderBy the key to read the items in order of
+     * @param withKey true or false to read only the items with or without the key, null for all
+     */
+    private Iterator<SpeciesListItem> items(String speciesListID, @Nullable Integer version, Key key, Key orderBy,
+            @Nullable Boolean withKey) {
+        Criteria items = withKey(Criteria.where("speciesListID").is(speciesListID), key.field, withKey);
+        if (version == null) {
+            return new KeyOrderedSource<>(SpeciesListItem.class, items, orderBy.field, "_id", orderBy::get,
+                    SpeciesListItem::getId, page -> page);
+        }
+
+        Iterator<SpeciesListItem> unchanged = new KeyOrderedSource<>(SpeciesListItem.class, items, orderBy.field,
+                "_id", orderBy::get, SpeciesListItem::getId, page -> withoutRevisions(speciesListID, version, page));
+        Criteria revisions = withKey(Criteria.where("speciesListID").is(speciesListID)
+                .and("snapshotVersion").gte(version)
+                .and("item").ne(null), "item." + key.field, withKey);
+        // an item has a revision per snapshot, often with the same key, so they are also ordered by
+        // version for a page to never end part way through them
+        Iterator<SpeciesListItem> recorded = new KeyOrderedSource<>(ItemRevision.class, revisions,
+                "item." + orderBy.field, "itemId", "snapshotVersion", revision -> orderBy.get(revision.getItem()),
+                ItemRevision::getItemId, ItemRevision::getSnapshotVersion,
+                page -> statesAtSnapshot(speciesListID, version, page));
+        return new MergedSource(unchanged, recorded, key);
+    }
+
+    private static Criteria withKey(Criteria criteria, String keyField, @Nullable Boolean withKey) {
+        if (withKey == null) {
+            return criteria;
+        }
+        return withKey ? criteria.and(keyField).ne(null) : criteria.and(keyField).is(null);
+    }
+
+    /**
+     * Merge-joins two sides read in key then id order, writing an entry for every item that was
+     * added, removed or changed.
+     */
+    public Result diff(Iterator<SpeciesListItem> from, Iterator<SpeciesListItem> to, Key key,
+            Consumer<ListDiffEntry> consumer) {
+        long added = 0;
+        long removed = 0;
+        long changed = 0;
+        long unchanged = 0;
+
+        SpeciesListItem left = from.hasNext() ? from.next() : null;
+        SpeciesListItem right = to.hasNext() ? to.next() : null;
+        while (left != null || right != null) {
+            int c;
+            if (left == null) {
+                c = 1;
+            } else if (right == null) {
+                c = -1;
+            } else {
+                c = compareItems(key, left, right);
+                if (c == 0 && key.pairBy(left) == null) {
+                    // items without a key cannot be paired
+                    c = -1;
+                }
+            }
+
+            if (c < 0) {
+                consumer.accept(entry(ListDiffEntry.REMOVED, key, left, null, null));
+                removed++;
+                left = from.hasNext() ? from.next() : null;
+            } else if (c > 0) {
+                consumer.accept(entry(ListDiffEntry.ADDED, key, null, right, null));
+                added++;
+                right = to.hasNext() ? to.next() : null;
+            } else {
+                List<ListDiffEntry.ValueChange> changes = changes(left, right);
+                if (changes.isEmpty()) {
+                    unchanged++;
+                } else {
+                    consumer.accept(entry(ListDiffEntry.CHANGED, key, left, right, changes));
+                    changed++;
+                }
+                left = from.hasNext() ? from.next() : null;
+                right = to.hasNext() ? to.next() : null;
+            }
+        }
+        logger.debug("Diff by {}: {} added, {} removed, {} changed, {} unchanged", key.name, added, removed, changed,
+                unchanged);
+        return new Result(added, removed, changed, unchanged);
+    }
+
+    /**
+     * Compares items by their keys. Items without the key sort first, by the fallback key if
+     * there is one.
+     */
+    static int compareItems(Key key, SpeciesListItem a, SpeciesListItem b) {
+        String keyA = key.get(a);
+        String keyB = key.get(b);
+        Key fallback = key.fallback();
+        if (fallback != null && (keyA == null || keyB == null)) {
+            if (keyA != null || keyB != null) {
+                return keyA == null ? -1 : 1;
+            }
+            return compareKeys(fallback.get(a), fallback.get(b));
+        }
+        return compareKeys(keyA, keyB);
+    }
+
+    /**
+     * Compares keys in MongoDB's order, nulls first and then strings by their UTF-8 bytes, which
+     * is code point order rather than String.compareTo's UTF-16 order.
+     */
+    static int compareKeys(@Nullable String a, @Nullable String b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    /**
+     * The property values that differ between the items. Empty values are treated as missing, as
+     * a CSV column left blank is not a change.
+     */
+    static List<ListDiffEntry.ValueChange> changes(SpeciesListItem from, SpeciesListItem to) {
+        Map<String, String> before = properties(from);
+        Map<String, String> after = properties(to);
+
+        List<ListDiffEntry.ValueChange> changes = new ArrayList<>();
+        before.forEach((key, value) -> {
+            String newValue = after.get(key);
+            if (!Objects.equals(value, newValue)) {
+                changes.add(new ListDiffEntry.ValueChange(key, value, newValue));
+            }
+        });
+        after.forEach((key, value) -> {
+            if (!before.containsKey(key)) {
+                changes.add(new ListDiffEntry.ValueChange(key, null, value));
+            }
+        });
+        return changes;
+    }
+
+    private static Map<String, String> properties(SpeciesListItem item) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (item.getProperties() != null) {
+            for (KeyValue keyValue : item.getProperties()) {
+                if (StringUtils.isNotEmpty(keyValue.getValue())) {
+                    properties.putIfAbsent(keyValue.getKey(), keyValue.getValue());
+                }
+            }
+        }
+        return properties;
+    }
+
+    private static ListDiffEntry entry(String op, Key key, @Nullable SpeciesListItem from,
+            @Nullable SpeciesListItem to, @Nullable List<ListDiffEntry.ValueChange> changes) {
+        SpeciesListItem item = to != null ? to : from;
+        return new ListDiffEntry(op, key.get(item), item.getScientificName(),
+                from != null && from.getId() != null ? from.getId().toString() : null,
+                to != null && to.getId() != null ? to.getId().toString() : null,
+                changes);
+    }
+
+    /** Drops the live items that were changed since the snapshot, their state is in the revisions */
+    private List<SpeciesListItem> withoutRevisions(String speciesListID, int version, List<SpeciesListItem> page) {
+        Set<ObjectId> revised = revisionsOf(speciesListID, version,
+                page.stream().map(SpeciesListItem::getId).toList())
+                .stream().map(ItemRevision::getItemId).collect(Collectors.toSet());
+        return page.stream().filter(item -> !revised.contains(item.getId())).toList();
+    }
+
+    /**
+     * Keeps the earliest revision of each item at or after the snapshot, which holds its state at
+     * the snapshot. Later revisions are of later snapshots.
+     */
+    private List<SpeciesListItem> statesAtSnapshot(String speciesListID, int version, List<ItemRevision> page) {
+        Map<ObjectId, Integer> earliest = new HashMap<>();
+        for (ItemRevision revision : revisionsOf(speciesListID, version,
+                page.stream().map(ItemRevision::getItemId).toList())) {
+            earliest.merge(revision.getItemId(), revision.getSnapshotVersion(), Math::min);
+        }
+        List<SpeciesListItem> items = new ArrayList<>();
+        for (ItemRevision revision : page) {
+            if (revision.getSnapshotVersion().equals(earliest.get(revision.getItemId()))) {
+                SpeciesListItem item = revision.getItem();
+                item.setId(revision.getItemId());
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /** The item ids and versions of the revisions of the items, at or after the snapshot */
+    private List<ItemRevision> revisionsOf(String speciesListID, int version, List<ObjectId> itemIds) {
+        Query query = new Query(Criteria.where("speciesListID").is(speciesListID)
+                .and("itemId").in(itemIds)
+                .and("snapshotVersion").gte(version));
+        query.fields().include("itemId").include("snapshotVersion");
+        return mongoTemplate.find(query, ItemRevision.class);
+    }
+
+    /**
+     * Reads documents in key then id order, in pages after the key and id of the last document
+     * read. Documents sharing an id are also ordered by version when a version field is given.
+     * Each page is mapped to the items it contributes, which may be fewer.
+     */
+    private class KeyOrderedSource<T> implements Iterator<SpeciesListItem> {
+        private final Class<T> type;
+        private final Criteria scope;
+        private final String keyField;
+        private final String idField;
+        @Nullable private final String versionField;
+        private final Function<T, String> key;
+        private final Function<T, ObjectId> id;
+        @Nullable private final Function<T, Integer> version;
+        private final Function<List<T>, List<SpeciesListItem>> select;
+        private final Deque<SpeciesListItem> buffer = new ArrayDeque<>();
+        private String lastKey;
+        private ObjectId lastId;
+        private Integer lastVersion;
+        private boolean exhausted;
+
+        KeyOrderedSource(Class<T> type, Criteria scope, String keyField, String idField, Function<T, String> key,
+                Function<T, ObjectId> id, Function<List<T>, List<SpeciesListItem>> select) {
+            this(type, scope, keyField, idField, null, key, id, null, select);
+        }
+
+        KeyOrderedSource(Class<T> type, Criteria scope, String keyField, String idField,
+                @Nullable String versionField, Function<T, String> key, Function<T, ObjectId> id,
+                @Nullable Function<T, Integer> version, Function<List<T>, List<SpeciesListItem>> select) {
+            this.type = type;
+            this.scope = scope;
+            this.keyField = keyField;
+            this.idField = idField;
+            this.versionField = versionField;
+            this.key = key;
+            this.id = id;
+            this.version = version;
+            this.select = select;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (buffer.isEmpty() && !exhausted) {
+                List<T> page = mongoTemplate.find(nextPage(), type);
+                exhausted = page.size() < batchSize;
+                if (!page.isEmpty()) {
+                    T last = page.get(page.size() - 1);
+                    lastKey = key.apply(last);
+                    lastId = id.apply(last);
+                    lastVersion = version != null ? version.apply(last) : null;
+                    buffer.addAll(select.apply(page));
+                }
+            }
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public SpeciesListItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.poll();
+        }
+
+        private Query nextPage() {
+            Query query = new Query(scope);
+            if (lastId != null) {
+                // null keys sort first, a key of null is followed by the rest of the nulls and then every key
+                Criteria sameKey = Criteria.where(keyField).is(lastKey).and(idField).gt(lastId);
+                Criteria laterKey = lastKey == null
+                        ? Criteria.where(keyField).ne(null)
+                        : Criteria.where(keyField).gt(lastKey);
+                if (versionField != null) {
+                    Criteria sameId = Criteria.where(keyField).is(lastKey).and(idField).is(lastId)
+                            .and(versionField).gt(lastVersion);
+                    query.addCriteria(new Criteria().orOperator(sameId, sameKey, laterKey));
+                } else {
+                    query.addCriteria(new Criteria().orOperator(sameKey, laterKey));
+                }
+            }
+            Sort sort = versionField != null
+                    ? Sort.by(Sort.Direction.ASC, keyField, idField, versionField)
+                    : Sort.by(Sort.Direction.ASC, keyField, idField);
+            return query.with(sort).limit(batchSize);
+        }
+    }
+
+    /** Merges two sources read in key then id order */
+    private static class MergedSource implements Iterator<SpeciesListItem> {
+        private final Iterator<SpeciesListItem> first;
+        private final Iterator<SpeciesListItem> second;
+        private final Key key;
+        private SpeciesListItem nextFirst;
+        private SpeciesListItem nextSecond;
+
+        MergedSource(Iterator<SpeciesListItem> first, Iterator<SpeciesListItem> second, Key key) {
+            this.first = first;
+            this.second = second;
+            this.key = key;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextFirst == null && first.hasNext()) {
+                nextFirst = first.next();
+            }
+            if (nextSecond == null && second.hasNext()) {
+                nextSecond = second.next();
+            }
+            return nextFirst != null || nextSecond != null;
+        }
+
+        @Override
+        public SpeciesListItem next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SpeciesListItem item;
+            if (nextSecond == null || (nextFirst != null && compare(nextFirst, nextSecond) <= 0)) {
+                item = nextFirst;
+                nextFirst = null;
+            } else {
+                item = nextSecond;
+                nextSecond = null;
+            }
+            return item;
+        }
+
+        private int compare(SpeciesListItem a, SpeciesListItem b) {
+            int c = compareItems(key, a, b);
+            return c != 0 ? c : a.getId().compareTo(b.getId());
+        }
+    }
+
+    /** Reads one source, then the other */
+    private static class ConcatenatedSource implements Iterator<SpeciesListItem> {
+        private final Iterator<SpeciesListItem> first;
+        private final Iterator<SpeciesListItem> second;
+
+        ConcatenatedSource(Iterator<SpeciesListItem> first, Iterator<SpeciesListItem> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return first.hasNext() || second.hasNext();
+        }
+
+        @Override
+        public SpeciesListItem next() {
+            return first.hasNext() ? first.next() : second.next();
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.ListSetMember;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+
+/**
+ * Computes the intersection, union or difference of lists by matched taxon.
+ *
+ * The distinct taxonConceptIDs of each list are read in sorted order with a composite
+ * aggregation, one page at a time, and the lists are merge-joined on them. Only one page per
+ * list is held in memory, so lists of any size can be combined without reading them whole.
+ */
+@Service
+public class ListSetOperationService {
+
+    private static final String TAXA_AGG = "taxa";
+    private static final String NAME_AGG = "name";
+    private static final String TAXON_FIELD = "classification.taxonConceptID.keyword";
+
+    public enum Operation {
+        /** taxa in every list */
+        INTERSECTION,
+        /** taxa in any list */
+        UNION,
+        /** taxa in the first list and in none of the others */
+        DIFFERENCE;
+
+        /**
+         * @throws IllegalArgumentException if the value is not an operation name
+         */
+        public static Operation parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown set operation: " + value
+                        + ", expected intersection, union or difference");
+            }
+        }
+    }
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Value("${listSets.maxLists:10}")
+    private int maxLists;
+
+    @Value("${listSets.compositePageSize:5000}")
+    private int compositePageSize;
+
+    /**
+     * @throws IllegalArgumentException if fewer than two or more than maxLists lists are given
+     */
+    public void validate(List<SpeciesList> lists) {
+        if (lists.size() < 2) {
+            throw new IllegalArgumentException("At least two species lists are required");
+        }
+        if (lists.size() > maxLists) {
+            throw new IllegalArgumentException("A maximum of " + maxLists + " species lists can be combined");
+        }
+    }
+
+    /** @return the number of taxa in the result of the operation */
+    public long count(List<SpeciesList> lists, Operation operation) {
+        return run(lists, operation, false, member -> { });
+    }
+
+    /**
+     * Sends each taxon in the result of the operation to the sink, in taxonConceptID order.
+     *
+     * @return the number of taxa sent
+     */
+    public long stream(List<SpeciesList> lists, Operation operation, Consumer<ListSetMember> sink) {
+        return run(lists, operation, true, sink);
+    }
+
+    private long run(List<SpeciesList> lists, Operation operation, boolean withNames, Consumer<ListSetMember> sink) {
+        validate(lists);
+
+        List<TaxonCursor> cursors = new ArrayList<>();
+        for (SpeciesList list : lists) {
+            cursors.add(new TaxonCursor(list.getId(), withNames));
+        }
+
+        long count = 0;
+        while (true) {
+            // the operation can't match anything more once these lists are exhausted
+            if (operation == Operation.INTERSECTION && cursors.stream().anyMatch(c -> c.peek() == null)) {
+                break;
+            }
+            if (operation == Operation.DIFFERENCE && cursors.get(0).peek() == null) {
+                break;
+            }
+
+            String taxon = null;
+            for (TaxonCursor cursor : cursors) {
+                String next = cursor.peek();
+                if (next != null && (taxon == null || compareKeys(next, taxon) < 0)) {
+                    taxon = next;
+                }
+            }
+            if (taxon == null) {
+                break;
+            }
+
+            ListSetMember member = new ListSetMember(taxon, null, null, new ArrayList<>());
+            for (TaxonCursor cursor : cursors) {
+                if (taxon.equals(cursor.peek())) {
+                    CompositeBucket bucket = cursor.next();
+                    member.getSpeciesListIDs().add(cursor.speciesListID);
+                    if (withNames && member.getScientificName() == null) {
+                        setNames(member, bucket);
+                    }
+                }
+            }
+
+            boolean matches = switch (operation) {
+                case INTERSECTION -> member.getSpeciesListIDs().size() == cursors.size();
+                case UNION -> true;
+                case DIFFERENCE -> member.getSpeciesListIDs().size() == 1
+                        && member.getSpeciesListIDs().get(0).equals(cursors.get(0).speciesListID);
+            };
+            if (matches) {
+                count++;
+                sink.accept(member);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compares keys by code point, which is the order Elasticsearch sorts keyword terms in
+     * (UTF-8 byte order). String.compareTo differs from it for characters outside the BMP.
+     */
+    static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static void setNames(ListSetMember member, CompositeBucket bucket) {
+        if (!bucket.aggregations().containsKey(NAME_AGG)) {
+            return;
+        }
+        List<Hit<JsonData>> hits = bucket.aggregations().get(NAME_AGG).topHits().hits().hits();
+        if (!hits.isEmpty() && hits.get(0).source() != null) {
+            SpeciesListIndex item = hits.get(0).source().to(SpeciesListIndex.class);
+            member.setScientificName(item.getScientificName());
+            member.setVernacularName(item.getVernacularName());
+        }
+    }
+
+    /**
+     * Reads the distinct taxonConceptIDs of a list in sorted order, a composite page at a time
+     */
+    private class TaxonCursor {
+        private final String speciesListID;
+        private final boolean withNames;
+        private final Deque<CompositeBucket> buffer = new ArrayDeque<>();
+        private Map<String, FieldValue> after;
+        private boolean exhausted;
+
+        TaxonCursor(String speciesListID, boolean withNames) {
+            this.speciesListID = speciesListID;
+            this.withNames = withNames;
+        }
+
+        /** @return the next taxonConceptID, or null when the list has no more taxa */
+        String peek() {
+            if (buffer.isEmpty() && !exhausted) {
+                fetch();
+            }
+            return buffer.isEmpty() ? null : buffer.peekFirst().key().get(TAXA_AGG).stringValue();
+        }
+
+        CompositeBucket next() {
+            peek();
+            return buffer.pollFirst();
+        }
+
+        private void fetch() {
+            Map<String, FieldValue> afterKey = after;
+            Aggregation taxaAgg = Aggregation.of(a -> {
+                Aggregation.Builder.ContainerBuilder container = a.composite(c -> {
+                    c.size(compositePageSize)
+                            .sources(List.of(Map.of(TAXA_AGG,
+                                    CompositeAggregationSource.of(s -> s.terms(t -> t.field(TAXON_FIELD))))));
+                    if (afterKey != null) {
+                        c.after(afterKey);
+                    }
+                    return c;
+                });
+                if (withNames) {
+                    container.aggregations(NAME_AGG, sub -> sub.topHits(th -> th
+                            .size(1)
+                            .source(src -> src.filter(f -> f.includes("scientificName", "vernacularName")))));
+                }
+                return container;
+            });
+
+            NativeQuery query = NativeQuery.builder()
+                    .withQuery(q -> q.term(t -> t.field("speciesListID.keyword").value(speciesListID)))
+                    .withRoute(speciesListID)
+                    .withMaxResults(0)
+                    .withAggregation(TAXA_AGG, taxaAgg)
+                    .build();
+
+            SearchHits<SpeciesListIndex> hits = elasticsearchOperations.search(query, SpeciesListIndex.class);
+            CompositeAggregate taxa = ((ElasticsearchAggregations) hits.getAggregations())
+                    .aggregationsAsMap().get(TAXA_AGG).aggregation().getAggregate().composite();
+
+            List<CompositeBucket> buckets = taxa.buckets().array();
+            buffer.addAll(buckets);
+            after = taxa.afterKey();
+            exhausted = buckets.size() < compositePageSize || after == null || after.isEmpty();
+        }
+    }
+}
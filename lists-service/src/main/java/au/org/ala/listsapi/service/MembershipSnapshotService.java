@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.model.TaxonLists;
+
+/**
+ * Immutable in-memory snapshot of the membership of the public authoritative, SDS and BIE lists,
+ * mapping each taxonConceptID to the flagged lists it is in and its KVPs in each list.
+ *
+ * A scheduled check compares the id, version and lastUpdated of the flagged lists with those the
+ * current snapshot was built from. When any of them differ a new snapshot is built from Mongo in
+ * the background and swapped in atomically, so lookups never block and never see a partial build.
+ * These lists only hold a few hundred thousand rows, so the whole snapshot is kept on the heap.
+ */
+@Service
+public class MembershipSnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(MembershipSnapshotService.class);
+
+    @Value("${membership.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicBoolean building = new AtomicBoolean(false);
+
+    /**
+     * @param signature the id, version and lastUpdated of each list the snapshot was built from
+     * @param taxa      the memberships of each taxonConceptID
+     * @param built     when the snapshot was built
+     */
+    private record Snapshot(Map<String, String> signature, Map<String, List<TaxonLists.Membership>> taxa,
+            Date built) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** @return true once the first snapshot has been built */
+    public boolean isReady() {
+        return snapshot.get() != null;
+    }
+
+    /** @return when the current snapshot was built, or null if none has been built yet */
+    public Date getBuilt() {
+        Snapshot current = snapshot.get();
+        return current != null ? current.built() : null;
+    }
+
+    /**
+     * Returns the flagged lists that contain the taxon, with the taxon's KVPs in each list. The
+     * returned memberships are shared by all callers and must not be modified.
+     *
+     * @throws IllegalStateException if the snapshot has not been built yet
+     */
+    public TaxonLists lookup(String taxonConceptID) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            throw new IllegalStateException("The membership snapshot is not available yet");
+        }
+        TaxonLists taxonLists = new TaxonLists();
+        taxonLists.setTaxonConceptID(taxonConceptID);
+        taxonLists.setLists(current.taxa().getOrDefault(taxonConceptID, List.of()));
+        return taxonLists;
+    }
+
+    @Scheduled(fixedDelayString = "${membership.snapshot.checkIntervalMs:60000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            try {
+                refresh();
+            } catch (Exception e) {
+                logger.error("[membership] Failed to refresh snapshot: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot if any flagged list has changed since it was built.
+     *
+     * @return true if a new snapshot was swapped in
+     */
+    public boolean refresh() {
+        if (!building.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            List<SpeciesList> lists = findFlaggedLists();
+            Map<String, String> signature = new TreeMap<>();
+            lists.forEach(list -> signature.put(list.getId(), list.getVersion() + ":"
+                    + (list.getLastUpdated() != null ? list.getLastUpdated().getTime() : "")));
+
+            Snapshot current = snapshot.get();
+            if (current != null && current.signature().equals(signature)) {
+                return false;
+            }
+
+            long start = System.currentTimeMillis();
+            Snapshot next = build(lists, signature);
+            snapshot.set(next);
+            logger.info("[membership] Built snapshot of {} lists and {} taxa in {} ms",
+                    lists.size(), next.taxa().size(), System.currentTimeMillis() - start);
+            return true;
+        } finally {
+            building.set(false);
+        }
+    }
+
+    private List<SpeciesList> findFlaggedLists() {
+        Query query = new Query(new Criteria().andOperator(
+                new Criteria().orOperator(
+                        Criteria.where("isAuthoritative").is(true),
+                        Criteria.where("isSDS").is(true),
+                        Criteria.where("isBIE").is(true)),
+                Criteria.where("isPrivate").ne(true)));
+        query.fields().exclude("wkt", "description");
+        return mongoTemplate.find(query, SpeciesList.class);
+    }
+
+    private Snapshot build(List<SpeciesList> lists, Map<String, String> signature) {
+        Map<String, SpeciesList> listsById = new HashMap<>();
+        lists.forEach(list -> listsById.put(list.getId(), list));
+
+        Map<String, List<TaxonLists.Membership>> taxa = new HashMap<>();
+        if (!lists.isEmpty()) {
+            Query query = new Query(Criteria.where("speciesListID").in(listsById.keySet())
+                    .and("classification.taxonConceptID").ne(null));
+            query.fields().include("speciesListID", "classification.taxonConceptID", "properties");
+
+            try (Stream<SpeciesListItem> items = mongoTemplate.stream(query, SpeciesListItem.class)) {
+                items.forEach(item -> {
+                    SpeciesList list = listsById.get(item.getSpeciesListID());
+                    taxa.computeIfAbsent(item.getClassification().getTaxonConceptID(), k -> new ArrayList<>(1))
+                            .add(toMembership(list, item.getProperties()));
+                });
+            }
+        }
+
+        Map<String, List<TaxonLists.Membership>> immutable = new HashMap<>(taxa.size() * 4 / 3 + 1);
+        taxa.forEach((taxonConceptID, memberships) -> immutable.put(taxonConceptID, List.copyOf(memberships)));
+        return new Snapshot(Map.copyOf(signature), Collections.unmodifiableMap(immutable), new Date());
+    }
+
+    private static TaxonLists.Membership toMembership(SpeciesList list, List<KeyValue> properties) {
+        Map<String, String> kvps = new LinkedHashMap<>();
+        if (properties != null) {
+            properties.forEach(kv -> kvps.put(kv.getKey(), kv.getValue()));
+        }
+        return TaxonLists.Membership.of(list, Collections.unmodifiableMap(kvps));
+    }
+}
@@ -73,6 +73,7 @@ public class ProgressService {
             item.setRowCount(rowCount);
             item.setMongoTotal(0);
             item.setElasticTotal(0);
+            item.setElasticFailed(0);
             item.setCompleted(false);
             ingestProgressMongoRepository.save(item);
         } else {
@@ -103,15 +104,32 @@ public class ProgressService {
         if (item.isPresent()) {
             IngestProgressItem currentItem = item.get();
             currentItem.setElasticTotal(currentItem.getElasticTotal() + count);
+            updateIngestCompleted(currentItem);
 
-            if (currentItem.getElasticTotal() == currentItem.getRowCount()) {
-                currentItem.setCompleted(true);
-            }
+            ingestProgressMongoRepository.save(currentItem);
+        }
+    }
+
+    /**
+     * Records items that failed to index, so that an ingest with dead-lettered items still completes.
+     */
+    public void addIngestElasticFailures(String speciesListId, long count) {
+        Optional<IngestProgressItem> item = ingestProgressMongoRepository.findIngestProgressItemBySpeciesListID(speciesListId);
+        if (item.isPresent()) {
+            IngestProgressItem currentItem = item.get();
+            currentItem.setElasticFailed(currentItem.getElasticFailed() + count);
+            updateIngestCompleted(currentItem);
 
             ingestProgressMongoRepository.save(currentItem);
         }
     }
 
+    private void updateIngestCompleted(IngestProgressItem item) {
+        if (item.getElasticTotal() + item.getElasticFailed() >= item.getRowCount()) {
+            item.setCompleted(true);
+        }
+    }
+
     public void resetIngestProgress(String speciesListId) {
         try {
             Optional<IngestProgressItem> item = ingestProgressMongoRepository.findIngestProgressItemBySpeciesListID(speciesListId);
@@ -119,6 +137,7 @@ public class ProgressService {
                 IngestProgressItem currentItem = item.get();
                 currentItem.setMongoTotal(0);
                 currentItem.setElasticTotal(0);
+                currentItem.setElasticFailed(0);
 
                 ingestProgressMongoRepository.save(currentItem);
             } else {
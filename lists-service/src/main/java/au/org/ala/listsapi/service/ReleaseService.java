@@ -6,16 +6,33 @@ import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.repo.ReleaseMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.util.S3MultipartOutputStream;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.apache.commons.lang3.ArrayUtils;
+import org.bson.types.ObjectId;
 import org.gbif.dwc.terms.DwcTerm;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,17 +44,32 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
 
+/**
+ * Writes releases of species lists as CSV, optionally gzipped or zipped, either to the release
+ * directory or to S3 (release.s3.enabled, requires aws.s3.enabled).
+ *
+ * Items are read in _id order with keyset batches. S3 releases are uploaded with a multipart
+ * upload while the CSV is written, so a release is never staged on local disk. Releases of
+ * several lists run in parallel on a pool of release.parallelism threads.
+ */
 @Service
 public class ReleaseService {
 
   private static final Logger logger = LoggerFactory.getLogger(ReleaseService.class);
 
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
   @Autowired protected SpeciesListItemMongoRepository speciesListItemMongoRepository;
   @Autowired protected SpeciesListMongoRepository speciesItemMongoRepository;
 
   @Autowired protected ReleaseMongoRepository releaseMongoRepository;
 
+  /** Only available when aws.s3.enabled */
+  @Autowired(required = false)
+  protected S3Client s3Client;
+
   @Value("${release.s3.enabled:false}")
   private Boolean s3Enabled;
 
@@ -47,6 +79,33 @@ public class ReleaseService {
   @Value("${release.directory:/tmp/}")
   private String releaseDirectory;
 
+  /** none, gzip or zip */
+  @Value("${release.compression:none}")
+  private String compression;
+
+  @Value("${release.batchSize:5000}")
+  private int batchSize;
+
+  @Value("${release.parallelism:4}")
+  private int parallelism;
+
+  @Value("${release.s3.partSizeMb:8}")
+  private int partSizeMb;
+
+  private ExecutorService releaseExecutor;
+
+  @PostConstruct
+  public void init() {
+    releaseExecutor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (releaseExecutor != null) {
+      releaseExecutor.shutdown();
+    }
+  }
+
   public Release release(String speciesListID) throws Exception {
     return release(speciesListID, false);
   }
@@ -57,16 +116,70 @@ public class ReleaseService {
   }
 
   /**
-   * Write the speciesList to file and upload to S3
+   * Submits the releases to the release pool and returns without waiting for them, so no
+   * request or async thread is held while the lists are written.
+   *
+   * @return completes with the releases, as releaseAll, once every list has been released
+   */
+  public CompletableFuture<List<Release>> asyncReleaseAll(
+      Collection<String> speciesListIDs, boolean ignoreCurrentVersion) {
+    List<CompletableFuture<Release>> futures = submitAll(speciesListIDs, ignoreCurrentVersion);
+    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .thenApply(done -> collect(futures, speciesListIDs.size()));
+  }
+
+  /**
+   * Releases the lists in parallel, at most release.parallelism at a time. A list that fails to
+   * release is logged and left out of the result.
+   *
+   * @return the releases of the lists that were released or were already up to date, in the
+   *     order of the ids
+   */
+  public List<Release> releaseAll(Collection<String> speciesListIDs, boolean ignoreCurrentVersion) {
+    List<CompletableFuture<Release>> futures = submitAll(speciesListIDs, ignoreCurrentVersion);
+    return collect(futures, speciesListIDs.size());
+  }
+
+  private List<CompletableFuture<Release>> submitAll(
+      Collection<String> speciesListIDs, boolean ignoreCurrentVersion) {
+    List<CompletableFuture<Release>> futures = new ArrayList<>();
+    for (String speciesListID : speciesListIDs) {
+      futures.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                try {
+                  return release(speciesListID, ignoreCurrentVersion);
+                } catch (Exception e) {
+                  logger.error("Failed to release " + speciesListID + ": " + e.getMessage(), e);
+                  return null;
+                }
+              },
+              releaseExecutor));
+    }
+    return futures;
+  }
+
+  private List<Release> collect(List<CompletableFuture<Release>> futures, int requested) {
+    List<Release> releases = new ArrayList<>();
+    futures.forEach(
+        future -> {
+          Release release = future.join();
+          if (release != null) {
+            releases.add(release);
+          }
+        });
+    logger.info("Released " + releases.size() + " of " + requested + " lists");
+    return releases;
+  }
+
+  /**
+   * Write the speciesList to file or S3
    *
    * @param speciesListID
    */
   public Release release(String speciesListID, boolean ignoreCurrentVersion) throws Exception {
 
     logger.info("Releasing " + speciesListID);
-    int size = 10;
-    int page = 0;
-    boolean done = false;
 
     Optional<SpeciesList> speciesList = speciesItemMongoRepository.findById(speciesListID);
     if (speciesList.isEmpty()) {
@@ -77,46 +190,46 @@ public class ReleaseService {
     Release lastRelease = getLastRelease(speciesListID);
     if (!ignoreCurrentVersion
         && lastRelease != null
-        && lastRelease.getReleasedVersion() == speciesList.get().getVersion()) {
+        && Objects.equals(lastRelease.getReleasedVersion(), speciesList.get().getVersion())) {
       // dont re-release, there are no changes...
       logger.info("Not re-releasing, there are no changes for " + speciesListID);
       return lastRelease;
     }
 
-    final List<String> fieldList = speciesList.get().getFieldList();
-    final CsvMapper csvMapper = new CsvMapper();
-
-    String storedLocation =
-        releaseDirectory + "/" + speciesListID + "-" + (speciesList.get().getVersion()) + ".csv";
-    File csvFile = new File(storedLocation);
-
-    try (FileWriter fileWriter = new FileWriter(csvFile)) {
+    String fileName =
+        speciesListID + "-" + speciesList.get().getVersion() + ".csv" + fileSuffix();
+    String storedLocation;
+    OutputStream target;
+    if (Boolean.TRUE.equals(s3Enabled)) {
+      if (s3Client == null) {
+        throw new IllegalStateException("release.s3.enabled requires aws.s3.enabled");
+      }
+      String[] bucketAndPrefix = parseS3Location(s3Bucket);
+      String key = bucketAndPrefix[1] + fileName;
+      target =
+          new S3MultipartOutputStream(
+              s3Client, bucketAndPrefix[0], key, contentType(), partSizeMb * 1024 * 1024);
+      storedLocation = "s3://" + bucketAndPrefix[0] + "/" + key;
+    } else {
+      Path file = Path.of(releaseDirectory, fileName);
+      target = Files.newOutputStream(file);
+      storedLocation = file.toString();
+    }
 
-      SequenceWriter seqW = csvMapper.writer().writeValues(fileWriter);
-      // construct headers
-      String[] combinedHdrs = generateHeaders(fieldList);
-      seqW.write(combinedHdrs);
-
-      while (!done) {
-        Pageable paging = PageRequest.of(page, size);
-        /*
-          TODO: Before re-implementing releases, this part must be
-           updated to use speciesListMongoRepository.findNextBatch()!! (see TaxonService.java for example)
-         */
-        Page<SpeciesListItem> speciesListItems =
-            speciesListItemMongoRepository.findBySpeciesListIDOrderById(speciesListID, paging);
-        if (!speciesListItems.getContent().isEmpty()) {
-          speciesListItems.forEach(
-              speciesListItem -> {
-                writeSpeciesItem(fieldList, seqW, speciesListItem);
-              });
-        } else {
-          done = true;
-        }
-        page++;
+    try {
+      OutputStream outputStream = compressed(target, speciesListID);
+      long rows = writeCsv(speciesList.get(), outputStream);
+      // completes the multipart upload for S3
+      outputStream.close();
+      logger.info("Wrote " + rows + " rows to " + storedLocation);
+    } catch (Exception e) {
+      if (target instanceof S3MultipartOutputStream s3OutputStream) {
+        s3OutputStream.abort();
+      } else {
+        target.close();
+        Files.deleteIfExists(Path.of(storedLocation));
       }
-      seqW.flush();
-      seqW.close();
+      throw e;
     }
 
     // release repo
@@ -130,8 +243,99 @@ public class ReleaseService {
     return release;
   }
 
+  private long writeCsv(SpeciesList speciesList, OutputStream outputStream) throws IOException {
+    String speciesListID = speciesList.getId();
+    final List<String> fieldList =
+        speciesList.getFieldList() != null ? speciesList.getFieldList() : List.of();
+
+    // the stream is closed by the caller, which completes or aborts the upload
+    final CsvMapper csvMapper = new CsvMapper();
+    csvMapper.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+    long rows = 0;
+    try (SequenceWriter seqW = csvMapper.writer().writeValues(outputStream)) {
+      // construct headers
+      seqW.write(generateHeaders(fieldList));
+
+      ObjectId lastId = null;
+      while (true) {
+        List<SpeciesListItem> items =
+            lastId == null
+                ? speciesListItemMongoRepository.findFirstBatch(
+                    speciesListID, PageRequest.of(0, batchSize))
+                : speciesListItemMongoRepository.findNextBatchAfter(
+                    speciesListID, lastId, PageRequest.of(0, batchSize));
+        if (items.isEmpty()) {
+          break;
+        }
+        for (SpeciesListItem speciesListItem : items) {
+          seqW.write(toRow(fieldList, speciesListItem));
+        }
+        rows += items.size();
+        lastId = items.get(items.size() - 1).getId();
+      }
+    }
+    return rows;
+  }
+
+  private OutputStream compressed(OutputStream target, String speciesListID) throws IOException {
+    switch (compression()) {
+      case "gzip":
+        return new GZIPOutputStream(target, WRITE_BUFFER_SIZE);
+      case "zip":
+        ZipOutputStream zipOutputStream =
+            new ZipOutputStream(new BufferedOutputStream(target, WRITE_BUFFER_SIZE));
+        zipOutputStream.putNextEntry(new ZipEntry(speciesListID + ".csv"));
+        return zipOutputStream;
+      default:
+        return new BufferedOutputStream(target, WRITE_BUFFER_SIZE);
+    }
+  }
+
+  private String compression() {
+    return compression == null ? "none" : compression.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private String fileSuffix() {
+    switch (compression()) {
+      case "gzip":
+        return ".gz";
+      case "zip":
+        return ".zip";
+      default:
+        return "";
+    }
+  }
+
+  private String contentType() {
+    switch (compression()) {
+      case "gzip":
+        return "application/gzip";
+      case "zip":
+        return "application/zip";
+      default:
+        return "text/csv";
+    }
+  }
+
+  /**
+   * @return the bucket and the key prefix (empty or ending with /) of a bucket name or s3:// URL
+   */
+  static String[] parseS3Location(String location) {
+    String path = location.startsWith("s3://") ? location.substring(5) : location;
+    int slash = path.indexOf('/');
+    if (slash < 0) {
+      return new String[] {path, ""};
+    }
+    String prefix = path.substring(slash + 1);
+    if (!prefix.isEmpty() && !prefix.endsWith("/")) {
+      prefix += "/";
+    }
+    return new String[] {path.substring(0, slash), prefix};
+  }
+
   private Release getLastRelease(String speciesListID) {
-    Pageable paging = PageRequest.of(0, 1, Sort.Direction.DESC, "version");
+    Pageable paging = PageRequest.of(0, 1, Sort.Direction.DESC, "releasedVersion");
     Page<Release> release = releaseMongoRepository.findBySpeciesListID(speciesListID, paging);
     if (!release.getContent().isEmpty()) {
       return release.getContent().get(0);
@@ -139,36 +343,30 @@ public class ReleaseService {
     return null;
   }
 
-  private void writeSpeciesItem(
-      List<String> fieldList, SequenceWriter seqW, SpeciesListItem speciesListItem) {
-    try {
-
-      Map<String, String> map = new HashMap<>();
+  private String[] toRow(List<String> fieldList, SpeciesListItem speciesListItem) {
+    Map<String, String> map = new HashMap<>();
+    if (speciesListItem.getProperties() != null) {
       speciesListItem.getProperties().forEach(kv -> map.put(kv.getKey(), kv.getValue()));
+    }
 
-      // write the data to Elasticsearch
-      String[] originalClassification = {
-        speciesListItem.getId() != null ? speciesListItem.getId().toString() : "",
-        speciesListItem.getScientificName() != null ? speciesListItem.getScientificName() : "",
-        speciesListItem.getTaxonID() != null ? speciesListItem.getTaxonID() : "",
-        speciesListItem.getKingdom() != null ? speciesListItem.getKingdom() : "",
-        speciesListItem.getPhylum() != null ? speciesListItem.getPhylum() : "",
-        speciesListItem.getClasss() != null ? speciesListItem.getClasss() : "",
-        speciesListItem.getOrder() != null ? speciesListItem.getOrder() : "",
-        speciesListItem.getFamily() != null ? speciesListItem.getFamily() : "",
-        speciesListItem.getGenus() != null ? speciesListItem.getGenus() : "",
-      };
-
-      List<String> fields = new ArrayList<>();
-      for (String field : fieldList) {
-        fields.add(map.getOrDefault(field, ""));
-      }
+    String[] originalClassification = {
+      speciesListItem.getId() != null ? speciesListItem.getId().toString() : "",
+      speciesListItem.getScientificName() != null ? speciesListItem.getScientificName() : "",
+      speciesListItem.getTaxonID() != null ? speciesListItem.getTaxonID() : "",
+      speciesListItem.getKingdom() != null ? speciesListItem.getKingdom() : "",
+      speciesListItem.getPhylum() != null ? speciesListItem.getPhylum() : "",
+      speciesListItem.getClasss() != null ? speciesListItem.getClasss() : "",
+      speciesListItem.getOrder() != null ? speciesListItem.getOrder() : "",
+      speciesListItem.getFamily() != null ? speciesListItem.getFamily() : "",
+      speciesListItem.getGenus() != null ? speciesListItem.getGenus() : "",
+    };
 
-      String[] combined = ArrayUtils.addAll(originalClassification, fields.toArray(new String[0]));
-      seqW.write(combined);
-    } catch (Exception e) {
-      logger.error(e.getMessage(), e);
+    List<String> fields = new ArrayList<>();
+    for (String field : fieldList) {
+      fields.add(map.getOrDefault(field, ""));
     }
+
+    return ArrayUtils.addAll(originalClassification, fields.toArray(new String[0]));
   }
 
   private String[] generateHeaders(List<String> fieldList) {
@@ -0,0 +1,165 @@
+package au.org.ala.listsapi.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.Facet;
+import au.org.ala.listsapi.model.FacetCount;
+import au.org.ala.listsapi.model.FacetedPage;
+import au.org.ala.listsapi.model.SpeciesList;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process cache for anonymous list search and facet results.
+ *
+ * Entries are keyed by the normalised query together with a global data version. Any change
+ * to list or item data that is visible to search calls {@link #invalidate()}, which bumps the
+ * version so that every older entry stops matching and ages out of the bounded cache. Concurrent
+ * misses for the same key are coalesced, so a burst of identical requests runs the query once.
+ *
+ * The version is per instance, so with several instances a change made through another one is
+ * only picked up when the entries expire (search.cache.ttlSeconds).
+ */
+@Service
+public class SearchCacheService {
+    private static final Logger logger = LoggerFactory.getLogger(SearchCacheService.class);
+
+    @Value("${search.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.cache.entryCapacity:2000}")
+    private long entryCapacity;
+
+    @Value("${search.cache.ttlSeconds:300}")
+    private long ttlSeconds;
+
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final ConcurrentHashMap<CacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private Cache<CacheKey, Object> cache;
+
+    private record CacheKey(String kind, Object key, long version) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = Cache2kBuilder.of(CacheKey.class, Object.class)
+                .entryCapacity(entryCapacity)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        logger.info("Search result cache enabled: {}, capacity: {}, ttl: {}s", enabled, entryCapacity, ttlSeconds);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    /** Marks all cached results as stale. Call after any change to list or item data. */
+    public void invalidate() {
+        dataVersion.incrementAndGet();
+    }
+
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * As get, for results with mutable parts such as list entities: every caller gets its own
+     * copy, so a caller that changes its result does not change it for later requests.
+     */
+    public <T> T get(String kind, Object key, Supplier<T> loader, UnaryOperator<T> copy) {
+        T result = get(kind, key, loader);
+        return result != null ? copy.apply(result) : null;
+    }
+
+    public static Page<SpeciesList> copyLists(Page<SpeciesList> page) {
+        return new PageImpl<>(page.getContent().stream().map(SpeciesList::new).toList(), page.getPageable(),
+                page.getTotalElements());
+    }
+
+    public static List<Facet> copyFacets(List<Facet> facets) {
+        return facets.stream()
+                .map(facet -> new Facet(facet.getKey(), facet.getCounts() == null ? null : facet.getCounts().stream()
+                        .map(count -> new FacetCount(count.getValue(), count.getCount()))
+                        .toList()))
+                .toList();
+    }
+
+    public static FacetedPage<SpeciesList> copyListsWithFacets(FacetedPage<SpeciesList> page) {
+        return new FacetedPage<>(copyLists(page.getPage()),
+                page.getFacets() != null ? copyFacets(page.getFacets()) : null);
+    }
+
+    /**
+     * Returns the cached result for the key, computing it with the loader on a miss. The key
+     * must have value equality and must not be modified afterwards.
+     *
+     * @param kind   the kind of result, keeps keys of different queries apart
+     * @param key    the normalised query
+     * @param loader computes the result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String kind, Object key, Supplier<T> loader) {
+        if (!enabled || cache == null) {
+            return loader.get();
+        }
+
+        long version = dataVersion.get();
+        CacheKey cacheKey = new CacheKey(kind, key, version);
+        Object cached = cache.peek(cacheKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(cacheKey, future);
+        if (existing != null) {
+            // an identical query is already running, wait for its result
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            T result = loader.get();
+            // a result computed across a change is only reachable by the old version, skip storing it
+            if (result != null && dataVersion.get() == version) {
+                cache.put(cacheKey, result);
+            }
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, future);
+        }
+    }
+}
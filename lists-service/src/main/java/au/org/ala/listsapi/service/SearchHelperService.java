@@ -16,32 +16,41 @@
 package au.org.ala.listsapi.service;
 
 import java.security.Principal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHitSupport;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilterBuilder;
 import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -53,24 +62,28 @@ import org.springframework.stereotype.Service;
 import com.mongodb.bulk.BulkWriteResult;
 
 import au.org.ala.listsapi.controller.AuthUtils;
+import au.org.ala.listsapi.model.CursorPage;
 import au.org.ala.listsapi.model.Facet;
+import au.org.ala.listsapi.model.FacetedPage;
 import au.org.ala.listsapi.model.FacetCount;
 import au.org.ala.listsapi.model.Filter;
 import au.org.ala.listsapi.model.ListSearchContext;
 import au.org.ala.listsapi.model.SingleListSearchContext;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.model.SpeciesListMetadataIndex;
 import au.org.ala.listsapi.model.SpeciesListItem;
-import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
 import au.org.ala.listsapi.util.ElasticUtils;
+import au.org.ala.listsapi.util.SearchCursor;
 import au.org.ala.ws.security.profile.AlaUserProfile;
 import co.elastic.clients.elasticsearch._types.FieldSort;
+import co.elastic.clients.elasticsearch._types.mapping.FieldType;
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.SortOrder;
 import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
 import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
-import co.elastic.clients.elasticsearch._types.aggregations.MultiBucketBase;
 import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.util.ObjectBuilder;
@@ -87,10 +100,27 @@ public class SearchHelperService {
     @Autowired private MongoTemplate mongoTemplate;
     @Autowired private ElasticsearchOperations elasticsearchOperations;
     @Autowired private SpeciesListMongoRepository speciesListMongoRepository;
-    @Autowired private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+    @Autowired private SearchCacheService searchCacheService;
+
+    @Value("${elastic.cursor.keepAlive:1m}")
+    private Duration cursorKeepAlive;
+
+    @Value("${legacy.stream.batchSize:1000}")
+    private int streamBatchSize;
+
+    @Value("${legacy.maxOffset:100000}")
+    private int legacyMaxOffset;
 
     private static final String SPECIES_LIST_ID = "speciesListID";
     private static final int MAX_LIST_ENTRIES = 10000;
+    private static final String PROPERTIES_MAP = ElasticUtils.PROPERTIES_MAP;
+    private static final String PROPERTY_FACET_PREFIX = "property_facet_";
+    private static final int MAX_PROPERTY_FACETS = 100;
+    private static final String MAX_ITEM_SCORE = "maxItemScore";
+    private static final String FACET_SCOPE = "facetScope";
+    private static final String FACET_BASE = "facetBase";
+    /** Lists matched by their items are boosted by their best item score, rounded to this many tiers */
+    private static final int ITEM_SCORE_TIERS = 10;
 
     private static final Set<String> CORE_FIELDS = Set.of(
                     "id",
@@ -124,11 +154,14 @@ public class SearchHelperService {
      */
     public BulkWriteResult speciesListItemsBulkUpdate(List<SpeciesListItem> items, List<String> keys) {
         BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SpeciesListItem.class);
+        Date now = new Date();
         for (SpeciesListItem item : items) {
             // Build an upsert or replace operation based on unique identifier
             Query query = new Query(Criteria.where("_id").is(item.getId()));
             Update update = new Update();
             keys.forEach(key -> update.set(key, item.getPropFromKey(key)));
+            // bulk writes bypass auditing, the change feed reads lastUpdated
+            update.set("lastUpdated", now);
 
             bulkOps.upsert(query, update);
         }
@@ -168,6 +201,24 @@ public class SearchHelperService {
             int page,
             int pageSize,
             Principal principal
+    ) {
+        return fetchSpeciesListItems(guids, speciesListIDs, null, page, pageSize, principal);
+    }
+
+    /**
+     * As fetchSpeciesListItems, restricted to items of lists with the list-level flags
+     * (isAuthoritative, isThreatened, isInvasive, isSDS, isBIE) set in listFilter. The flags are
+     * copied onto every item document, so they are applied as filters of the item query.
+     *
+     * @param listFilter the flags to match, null flags are not filtered on
+     */
+    public List<SpeciesListItem> fetchSpeciesListItems(
+            String guids,
+            @Nullable String speciesListIDs,
+            @Nullable SpeciesList listFilter,
+            int page,
+            int pageSize,
+            Principal principal
     ) {
         AlaUserProfile profile = authUtils.getUserProfile(principal);
         List<FieldValue> GUIDs = Arrays.stream(guids.split(",")).map(FieldValue::of).toList();
@@ -180,38 +231,11 @@ public class SearchHelperService {
 
         Pageable pageableRequest = PageRequest.of(page - 1, pageSize);
         NativeQueryBuilder builder = NativeQuery.builder().withPageable(pageableRequest);
-        builder.withQuery(
-                q ->
-                        q.bool(
-                                bq -> {
-                                    bq.filter(f -> f.terms(t -> t.field("classification.taxonConceptID.keyword")
-                                            .terms(ta -> ta.value(GUIDs))));
-
-                                    if (listIDs != null) {
-                                        bq.filter(f -> f.bool(b -> b
-                                                .should(s -> s.terms(t -> t.field("speciesListID.keyword").terms(ta -> ta.value(listIDs))))
-                                                .should(s -> s.terms(t -> t.field("dataResourceUid.keyword").terms(ta -> ta.value(listIDs))))
-                                        ));
-                                    }
-
-                                    // If the user is not an admin or doesn't have internal scope, only query their private lists, and all other public lists
-                                    if (!authUtils.isAuthenticated(principal)) {
-                                        logger.debug("Filtering for public lists only (user not authenticated)");
-                                        bq.filter(f -> f.term(t -> t.field("isPrivate").value(false)));
-                                    } else if (!authUtils.hasAdminRole(profile) && !authUtils.hasInternalScope(profile)) {
-                                        logger.debug("Filtering for private lists only (non-admin/non-internal users)");
-                                        bq.filter(f -> f.bool(b -> b
-                                                .should(s -> s.bool(b2 -> b2
-                                                        // .must(m -> m.term(t -> t.field("owner").value(profile.getUserId())))
-                                                        .must(m -> m.term(t -> t.field("isPrivate").value(true)))
-                                                ))
-                                                .should(s -> s.term(t -> t.field("isPrivate").value(false)))
-                                        ));
-                                    }
-                                    // If user is admin or has internal scope, no filters applied (can see all lists)
-
-                                    return bq;
-                                }));
+        builder.withQuery(q -> q.bool(bq -> {
+            buildGuidItemsQuery(GUIDs, listIDs, principal, profile, bq);
+            applyListFlagFilters(listFilter, bq);
+            return bq;
+        }));
 
         NativeQuery query = builder.build();
         query.setPageable(pageableRequest);
@@ -222,6 +246,95 @@ public class SearchHelperService {
         return ElasticUtils.convertList((List<SpeciesListIndex>) SearchHitSupport.unwrapSearchHits(results));
     }
 
+    /**
+     * Fetches a page of species list items for the given GUIDs using a search cursor, for paging
+     * through all the results without the 10,000 item limit of page based requests.
+     *
+     * @param guids          comma separated taxon GUIDs
+     * @param speciesListIDs optional comma separated species list IDs or data resource IDs
+     * @param pageSize       the number of items per page
+     * @param cursor         the cursor returned with the previous page, or "*" for the first page
+     * @param principal
+     * @return the page of items and the cursor for the next page
+     */
+    public CursorPage<SpeciesListItem> fetchSpeciesListItemsWithCursor(
+            String guids,
+            @Nullable String speciesListIDs,
+            int pageSize,
+            String cursor,
+            Principal principal
+    ) {
+        AlaUserProfile profile = authUtils.getUserProfile(principal);
+        List<FieldValue> GUIDs = Arrays.stream(guids.split(",")).map(FieldValue::of).toList();
+        List<FieldValue> listIDs = speciesListIDs != null ?
+                Arrays.stream(speciesListIDs.split(",")).map(FieldValue::of).toList() : null;
+
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query =
+                co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.bool(bq -> {
+                    buildGuidItemsQuery(GUIDs, listIDs, principal, profile, bq);
+                    return bq;
+                }));
+
+        return searchItemsWithCursor(query, "scientificName", "asc", pageSize, cursor,
+                Arrays.asList("species", guids, speciesListIDs, profile != null ? profile.getUserId() : null));
+    }
+
+    /**
+     * Filters items on the non-null list-level flags of the list filter
+     */
+    private static void applyListFlagFilters(@Nullable SpeciesList listFilter, BoolQuery.Builder bq) {
+        if (listFilter == null) {
+            return;
+        }
+        Map<String, Boolean> flags = new HashMap<>();
+        flags.put("isAuthoritative", listFilter.getIsAuthoritative());
+        flags.put("isThreatened", listFilter.getIsThreatened());
+        flags.put("isInvasive", listFilter.getIsInvasive());
+        flags.put("isSDS", listFilter.getIsSDS());
+        flags.put("isBIE", listFilter.getIsBIE());
+        flags.forEach((field, value) -> {
+            if (value != null) {
+                bq.filter(f -> f.term(t -> t.field(field).value(value)));
+            }
+        });
+    }
+
+    /**
+     * Builds the query for the items of the given taxa, restricted to the lists the user can see
+     */
+    private void buildGuidItemsQuery(
+            List<FieldValue> GUIDs,
+            @Nullable List<FieldValue> listIDs,
+            Principal principal,
+            AlaUserProfile profile,
+            BoolQuery.Builder bq) {
+        bq.filter(f -> f.terms(t -> t.field("classification.taxonConceptID.keyword")
+                .terms(ta -> ta.value(GUIDs))));
+
+        if (listIDs != null) {
+            bq.filter(f -> f.bool(b -> b
+                    .should(s -> s.terms(t -> t.field("speciesListID.keyword").terms(ta -> ta.value(listIDs))))
+                    .should(s -> s.terms(t -> t.field("dataResourceUid.keyword").terms(ta -> ta.value(listIDs))))
+            ));
+        }
+
+        // If the user is not an admin or doesn't have internal scope, only query their private lists, and all other public lists
+        if (!authUtils.isAuthenticated(principal)) {
+            logger.debug("Filtering for public lists only (user not authenticated)");
+            bq.filter(f -> f.term(t -> t.field("isPrivate").value(false)));
+        } else if (!authUtils.hasAdminRole(profile) && !authUtils.hasInternalScope(profile)) {
+            logger.debug("Filtering for private lists only (non-admin/non-internal users)");
+            bq.filter(f -> f.bool(b -> b
+                    .should(s -> s.bool(b2 -> b2
+                            // .must(m -> m.term(t -> t.field("owner").value(profile.getUserId())))
+                            .must(m -> m.term(t -> t.field("isPrivate").value(true)))
+                    ))
+                    .should(s -> s.term(t -> t.field("isPrivate").value(false)))
+            ));
+        }
+        // If user is admin or has internal scope, no filters applied (can see all lists)
+    }
+
     /**
      * Fetches species list items based on species list IDs and optional search query
      * that can be restricted to specific fields.
@@ -247,6 +360,74 @@ public class SearchHelperService {
             @Nullable String sort,
             @Nullable String dir,
             Principal principal) throws IllegalArgumentException {
+        List<SpeciesListItem> items = new ArrayList<>();
+        legacyItemBatches(speciesListIDs, searchQuery, fields, page, pageSize, sort, dir, principal, pageSize)
+                .forEachRemaining(items::addAll);
+        return items;
+    }
+
+    /**
+     * As fetchSpeciesListItems, returning the page in batches of legacy.stream.batchSize items,
+     * so that a large page can be written out one batch at a time. The first batch is read
+     * before this returns, so query errors are thrown here rather than while iterating.
+     */
+    public Iterator<List<SpeciesListItem>> streamSpeciesListItems(
+            String speciesListIDs,
+            @Nullable String searchQuery,
+            @Nullable String fields,
+            @Nullable Integer page,
+            @Nullable Integer pageSize,
+            @Nullable String sort,
+            @Nullable String dir,
+            Principal principal) throws IllegalArgumentException {
+        return legacyItemBatches(speciesListIDs, searchQuery, fields, page, pageSize, sort, dir, principal,
+                streamBatchSize);
+    }
+
+    /**
+     * As fetchSpeciesListItems for GUIDs, returning the page in batches of
+     * legacy.stream.batchSize items in item id order. The first batch is read before this
+     * returns.
+     *
+     * @param listFilter the flags to match, null flags are not filtered on
+     */
+    public Iterator<List<SpeciesListItem>> streamSpeciesListItems(
+            String guids,
+            @Nullable String speciesListIDs,
+            @Nullable SpeciesList listFilter,
+            int page,
+            int pageSize,
+            Principal principal
+    ) {
+        AlaUserProfile profile = authUtils.getUserProfile(principal);
+        List<FieldValue> GUIDs = Arrays.stream(guids.split(",")).map(FieldValue::of).toList();
+        List<FieldValue> listIDs = speciesListIDs != null ?
+                Arrays.stream(speciesListIDs.split(",")).map(FieldValue::of).toList() : null;
+
+        if (page < 1 || (page * pageSize) > 10000) {
+            return Collections.emptyIterator();
+        }
+
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query =
+                co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.bool(bq -> {
+                    buildGuidItemsQuery(GUIDs, listIDs, principal, profile, bq);
+                    applyListFlagFilters(listFilter, bq);
+                    return bq;
+                }));
+
+        return new ItemSliceIterator(query, null, null, "asc", (page - 1) * pageSize, pageSize, streamBatchSize);
+    }
+
+    private Iterator<List<SpeciesListItem>> legacyItemBatches(
+            String speciesListIDs,
+            @Nullable String searchQuery,
+            @Nullable String fields,
+            @Nullable Integer page,
+            @Nullable Integer pageSize,
+            @Nullable String sort,
+            @Nullable String dir,
+            Principal principal,
+            int batchSize) {
         if (speciesListIDs == null || speciesListIDs.isBlank()) {
             // throw new IllegalArgumentException("speciesListIDs parameter is required");
             speciesListIDs = ".*";
@@ -267,21 +448,298 @@ public class SearchHelperService {
                 .collect(Collectors.toList());
 
         if (validListIDs.isEmpty()) {
-            return new ArrayList<>();
+            return Collections.emptyIterator();
+        }
+
+        // each MAX_LIST_ENTRIES of offset costs a search to skip
+        int offset = page * pageSize;
+        if (offset > legacyMaxOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is beyond the maximum of " + legacyMaxOffset);
         }
 
         String sortField = (sort != null && !sort.isBlank()) ? sort : "scientificName";
         String sortDir = (dir != null && !dir.isBlank()) ? dir : "asc";
 
         String query = (searchQuery != null && !searchQuery.isBlank()) ? searchQuery : ".*";
-        Sort pageableSort = Sort.by(
-            sortDir.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC,
-            sortField
-        ).and(Sort.by("_id")); // secondary sort for consistent ordering across pages
-        Pageable pageable = PageRequest.of(page, pageSize, pageableSort);
-        // For pagination, we use the repository method directly for better performance
-        Page<SpeciesListItem> itemsPage = speciesListItemMongoRepository.findNextBatch(validListIDs, query, pageable);
-        return itemsPage.getContent();
+        // routed to the shards holding the lists
+        return new ItemSliceIterator(
+            ElasticUtils.legacyItemSearchQuery(validListIDs, query),
+            String.join(",", validListIDs),
+            sortField,
+            sortDir,
+            offset,
+            pageSize,
+            batchSize
+        );
+    }
+
+    /**
+     * Reads a slice of items in the given sort order (with the item id as tie breaker, as in
+     * the Mongo _id order), without counting the total hits, in batches of up to batchSize
+     * items. A slice that fits in one batch within the index result window is read with
+     * from/size. Otherwise the offset is skipped with search_after, fetching only the sort
+     * values of the skipped items, and the batches are read with search_after, so any offset
+     * can be read, up to the legacy.maxOffset callers allow. The first batch is read when the iterator is created. When the items are of
+     * known lists, routing holds their ids, so only the shards holding them are searched.
+     */
+    private class ItemSliceIterator implements Iterator<List<SpeciesListItem>> {
+        private final co.elastic.clients.elasticsearch._types.query_dsl.Query query;
+        @Nullable private final String routing;
+        private final String sortField;
+        private final String dir;
+        private final int batchSize;
+        private int remaining;
+        private List<Object> searchAfter;
+        private List<SpeciesListItem> next;
+
+        ItemSliceIterator(
+                co.elastic.clients.elasticsearch._types.query_dsl.Query query,
+                @Nullable String routing,
+                @Nullable String sortField,
+                String dir,
+                int from,
+                int size,
+                int batchSize) {
+            this.query = query;
+            this.routing = routing;
+            this.sortField = sortField;
+            this.dir = dir;
+            this.batchSize = Math.max(batchSize, 1);
+            this.remaining = size;
+
+            if (from + size <= MAX_LIST_ENTRIES && size <= this.batchSize) {
+                NativeQueryBuilder builder = NativeQuery.builder()
+                    .withQuery(query)
+                    .withRoute(routing)
+                    .withTrackTotalHits(false)
+                    .withPageable(PageRequest.of(from / Math.max(size, 1), Math.max(size, 1)));
+                applyItemSliceSorting(builder, sortField, dir);
+                remaining = 0;
+                next = read(builder).items();
+            } else if (remaining > 0 && skip(from)) {
+                next = readBatch();
+            } else {
+                remaining = 0;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && remaining > 0) {
+                next = readBatch();
+            }
+            return next != null && !next.isEmpty();
+        }
+
+        @Override
+        public List<SpeciesListItem> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<SpeciesListItem> batch = next;
+            next = null;
+            return batch;
+        }
+
+        /**
+         * @return false if the slice starts after the last item
+         */
+        private boolean skip(int from) {
+            int skip = from;
+            while (skip > 0) {
+                int chunk = Math.min(skip, MAX_LIST_ENTRIES);
+                NativeQueryBuilder skipBuilder = NativeQuery.builder()
+                    .withQuery(query)
+                    .withRoute(routing)
+                    .withMaxResults(chunk)
+                    .withTrackTotalHits(false)
+                    .withSourceFilter(new FetchSourceFilterBuilder().withIncludes("id").build());
+                applyItemSliceSorting(skipBuilder, sortField, dir);
+                if (searchAfter != null) {
+                    skipBuilder.withSearchAfter(searchAfter);
+                }
+                List<SearchHit<SpeciesListIndex>> skipped = elasticsearchOperations
+                    .search(skipBuilder.build(), SpeciesListIndex.class).getSearchHits();
+                if (skipped.size() < chunk) {
+                    return false;
+                }
+                searchAfter = skipped.get(skipped.size() - 1).getSortValues();
+                skip -= chunk;
+            }
+            return true;
+        }
+
+        private List<SpeciesListItem> readBatch() {
+            int count = Math.min(remaining, batchSize);
+            NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(query)
+                .withRoute(routing)
+                .withMaxResults(count)
+                .withTrackTotalHits(false);
+            applyItemSliceSorting(builder, sortField, dir);
+            if (searchAfter != null) {
+                builder.withSearchAfter(searchAfter);
+            }
+            Batch batch = read(builder);
+            // a short batch is the last one
+            remaining = batch.items().size() < count ? 0 : remaining - count;
+            searchAfter = batch.lastSortValues();
+            return batch.items();
+        }
+
+        private Batch read(NativeQueryBuilder builder) {
+            SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(builder.build(), SpeciesListIndex.class);
+            List<SearchHit<SpeciesListIndex>> hits = results.getSearchHits();
+            return new Batch(
+                ElasticUtils.convertList((List<SpeciesListIndex>) SearchHitSupport.unwrapSearchHits(results)),
+                hits.isEmpty() ? searchAfter : hits.get(hits.size() - 1).getSortValues());
+        }
+    }
+
+    private record Batch(List<SpeciesListItem> items, List<Object> lastSortValues) {}
+
+    private void applyItemSliceSorting(NativeQueryBuilder builder, @Nullable String sortField, String dir) {
+        if (sortField != null) {
+            SortOrder order = "asc".equalsIgnoreCase(dir) ? SortOrder.Asc : SortOrder.Desc;
+            // legacy sort fields may not exist in the item index, which sorts like a missing Mongo field
+            builder.withSort(s -> s.field(f -> f.field(sortField).order(order).unmappedType(FieldType.Keyword)));
+        }
+        builder.withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)));
+    }
+
+    /**
+     * Fetches a page of species list items using a search cursor, for paging through all the
+     * items of large lists. Takes the same parameters as fetchSpeciesListItems, with the
+     * search query matched against the item's indexed names and classification.
+     *
+     * @param cursor the cursor returned with the previous page, or "*" for the first page
+     * @return the page of items and the cursor for the next page
+     */
+    public CursorPage<SpeciesListItem> fetchSpeciesListItemsWithCursor(
+            String speciesListIDs,
+            @Nullable String searchQuery,
+            @Nullable String fields,
+            int pageSize,
+            @Nullable String sort,
+            @Nullable String dir,
+            String cursor,
+            Principal principal) {
+        List<String> IDs = speciesListIDs == null ? List.of() : Arrays.stream(speciesListIDs.split(",")).toList();
+        List<String> validListIDs = IDs.isEmpty() ? List.of() : speciesListMongoRepository.findByDataResourceUidInOrIdIn(IDs)
+                .stream()
+                .filter(list -> !list.getIsPrivate() || authUtils.isAuthorized(list, principal))
+                .map(SpeciesList::getId)
+                .toList();
+
+        if (validListIDs.isEmpty()) {
+            return new CursorPage<>(new ArrayList<>(), pageSize, 0, null);
+        }
+
+        String sortField = StringUtils.defaultIfBlank(sort, "scientificName");
+        String sortDir = StringUtils.defaultIfBlank(dir, "asc");
+        String search = ElasticUtils.cleanRawQuery(searchQuery);
+        HashSet<String> restrictedFields = new HashSet<>();
+        if (fields != null && !fields.isBlank()) {
+            restrictedFields.addAll(Arrays.asList(fields.split(",")));
+        }
+
+        List<FieldValue> listIDs = validListIDs.stream().map(FieldValue::of).toList();
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query =
+                co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.bool(bq -> {
+                    bq.filter(f -> f.terms(t -> t.field(SPECIES_LIST_ID).terms(ta -> ta.value(listIDs))));
+                    if (!search.isEmpty()) {
+                        if (restrictedFields.isEmpty()) {
+                            bq.must(m -> m.matchPhrasePrefix(mp -> mp.field("all").query(search.toLowerCase())));
+                        } else {
+                            ElasticUtils.restrictFields(search, restrictedFields, bq);
+                        }
+                    }
+                    return bq;
+                }));
+
+        return searchItemsWithCursor(query, sortField, sortDir, pageSize, cursor,
+                Arrays.asList("speciesListItems", validListIDs, search, fields, sortField, sortDir));
+    }
+
+    /**
+     * Reads a page of items from a point in time (PIT) of the species-lists index, starting after
+     * the last hit of the previous page. The first page opens the PIT, and each page extends it
+     * by the short cursorKeepAlive, so deep pages cost the same as the first one and are not
+     * affected by edits made while paging. The PIT is closed as soon as the last page has been
+     * read: a short page, or one that brings the hits read up to the total counted on the first
+     * page. No cursor is returned with the last page.
+     *
+     * @param query      the items query
+     * @param sort       the sort field, with the PIT shard doc order as tie breaker
+     * @param dir        the sort direction
+     * @param pageSize   the number of items per page
+     * @param cursor     the cursor returned with the previous page, or "*" for the first page
+     * @param requestKey the request parameters, which the cursor must have been created with
+     * @throws IllegalArgumentException if the cursor is invalid or belongs to another request
+     */
+    public CursorPage<SpeciesListItem> searchItemsWithCursor(
+            co.elastic.clients.elasticsearch._types.query_dsl.Query query,
+            String sort,
+            String dir,
+            int pageSize,
+            @Nullable String cursor,
+            Object requestKey) {
+        int requestHash = Objects.hashCode(requestKey);
+        SearchCursor previous = SearchCursor.isStart(cursor) ? null : SearchCursor.decode(cursor);
+        if (previous != null && previous.requestHash() != requestHash) {
+            throw new IllegalArgumentException("The cursor was created for a different search");
+        }
+
+        String pitId = previous != null
+                ? previous.pitId()
+                : elasticsearchOperations.openPointInTime(IndexCoordinates.of("species-lists"), cursorKeepAlive);
+
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(query)
+                .withPointInTime(new org.springframework.data.elasticsearch.core.query.Query.PointInTime(
+                        pitId, cursorKeepAlive))
+                .withMaxResults(pageSize)
+                .withTrackTotalHits(previous == null);
+        applySorting(builder, sort, dir);
+        if (previous != null) {
+            builder.withSearchAfter(previous.searchAfter());
+        }
+
+        SearchHits<SpeciesListIndex> results;
+        try {
+            results = elasticsearchOperations.search(builder.build(), SpeciesListIndex.class);
+        } catch (RuntimeException e) {
+            closePointInTime(pitId);
+            throw e;
+        }
+
+        List<SearchHit<SpeciesListIndex>> hits = results.getSearchHits();
+        long total = previous != null ? previous.total() : results.getTotalHits();
+        String nextPitId = results.getPointInTimeId() != null ? results.getPointInTimeId() : pitId;
+
+        long read = (previous != null ? previous.read() : 0) + hits.size();
+
+        String nextCursor = null;
+        if (!hits.isEmpty() && hits.size() == pageSize && read < total) {
+            nextCursor = new SearchCursor(nextPitId, hits.get(hits.size() - 1).getSortValues(), total, read,
+                    requestHash).encode();
+        } else {
+            closePointInTime(nextPitId);
+        }
+
+        List<SpeciesListItem> items = hits.stream()
+                .map(hit -> ElasticUtils.convert(hit.getContent()))
+                .collect(Collectors.toList());
+        return new CursorPage<>(items, pageSize, total, nextCursor);
+    }
+
+    private void closePointInTime(String pitId) {
+        try {
+            elasticsearchOperations.closePointInTime(pitId);
+        } catch (RuntimeException e) {
+            // the PIT expires after the keep alive anyway
+            logger.warn("Unable to close point in time: {}", e.getMessage());
+        }
     }
 
     /**
@@ -333,15 +791,27 @@ public class SearchHelperService {
      * @return
      */
     public Page<SpeciesList> searchDocuments(SpeciesList speciesListQuery, String userId, Boolean isAdmin, String searchTerm, Pageable pageable) {
-        // Your search criteria
-        Criteria searchCriteria = new Criteria().orOperator(
-            Criteria.where("title").regex(searchTerm, "i"),
-            Criteria.where("description").regex(searchTerm, "i")
-        );
-        
-        // Build query with access control
-        Criteria finalCriteria = buildDocumentAccessCriteria(userId, isAdmin, searchCriteria);
+        return searchDocuments(speciesListQuery, userId, isAdmin, searchTerm, pageable, true);
+    }
+
+    /**
+     * As searchDocuments, for callers that only need the page content or an approximate total
+     * (exactCount = false, see SpeciesListCustomRepository.findPage).
+     */
+    public Page<SpeciesList> searchDocuments(SpeciesList speciesListQuery, String userId, Boolean isAdmin, String searchTerm, Pageable pageable, boolean exactCount) {
+        if (userId == null && !Boolean.TRUE.equals(isAdmin)) {
+            return searchCacheService.get("documents", Arrays.asList(speciesListQuery, searchTerm, pageable, exactCount),
+                () -> searchDocumentsUncached(speciesListQuery, null, false, searchTerm, pageable, exactCount),
+                SearchCacheService::copyLists);
+        }
+        return searchDocumentsUncached(speciesListQuery, userId, isAdmin, searchTerm, pageable, exactCount);
+    }
+
+    private Page<SpeciesList> searchDocumentsUncached(SpeciesList speciesListQuery, String userId, Boolean isAdmin, String searchTerm, Pageable pageable, boolean exactCount) {
+        // Build query with access control, the search term uses the title/description text index
+        Criteria finalCriteria = buildDocumentAccessCriteria(userId, isAdmin, null);
         Query query = new Query(finalCriteria);
+        SpeciesListCustomRepository.addTextSearch(query, searchTerm);
 
         if (speciesListQuery.getIsAuthoritative() != null) {
             query.addCriteria(Criteria.where("isAuthoritative").is(speciesListQuery.getIsAuthoritative()));
@@ -373,13 +843,8 @@ public class SearchHelperService {
         // Add paging
         query.with(pageable);
         
-        // Execute query
-        List<SpeciesList> speciesLists = mongoTemplate.find(query, SpeciesList.class);
-        
-        // Get total count for pagination
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), SpeciesList.class);
-        
-        return new PageImpl<>(speciesLists, pageable, total);
+        // Execute query, counting the total only when the page doesn't give it
+        return SpeciesListCustomRepository.findPage(mongoTemplate, query, pageable, exactCount);
     }
     /**
      * Builds a Criteria object that enforces document access based on user roles and additional search criteria.
@@ -417,52 +882,119 @@ public class SearchHelperService {
     // Methods added from GraphQL refactoring - Dec 2025
 
     /**
-     * Main search method for species lists with permission-aware filtering
+     * Main search method for species lists with permission-aware filtering.
+     * Lists are searched, sorted and paginated in the species-lists-metadata index (one
+     * document per list), so only the requested page of lists is loaded from Mongo. The item
+     * index is only queried when a search term may match the names of items in a list.
      */
     public Page<SpeciesList> searchSpeciesLists(
             ListSearchContext context, 
             Pageable pageable) {
         
+        // Anonymous searches all see the same results, so they can be shared
+        if (!context.isAuthenticated()) {
+            return searchCacheService.get("lists",
+                List.of(listSearchCacheKey(context), pageable.getPageNumber(), pageable.getPageSize()),
+                () -> searchSpeciesListsUncached(context, pageable),
+                SearchCacheService::copyLists);
+        }
+        return searchSpeciesListsUncached(context, pageable);
+    }
+
+    private Page<SpeciesList> searchSpeciesListsUncached(
+            ListSearchContext context,
+            Pageable pageable) {
+        return searchListMetadata(context, pageable, false).getPage();
+    }
+
+    /**
+     * Searches species lists and aggregates their facets in a single request, for clients that
+     * need both (e.g. the GraphQL lists and facetSpeciesLists fields of the same operation).
+     * The results are the same as searchSpeciesLists and getFacetsForSpeciesLists.
+     */
+    public FacetedPage<SpeciesList> searchSpeciesListsWithFacets(
+            ListSearchContext context,
+            Pageable pageable) {
+
+        if (!context.isAuthenticated()) {
+            return searchCacheService.get("listsWithFacets",
+                List.of(listSearchCacheKey(context), pageable.getPageNumber(), pageable.getPageSize()),
+                () -> searchListMetadata(context, pageable, true),
+                SearchCacheService::copyListsWithFacets);
+        }
+        return searchListMetadata(context, pageable, true);
+    }
+
+    private FacetedPage<SpeciesList> searchListMetadata(
+            ListSearchContext context,
+            Pageable pageable,
+            boolean withFacets) {
+
+        Map<String, Double> itemMatchScores = findListIdsWithMatchingItems(context);
+
         // Build Elasticsearch query
         NativeQueryBuilder builder = NativeQuery.builder()
-            .withPageable(PageRequest.of(0, 1)); // Initial query for aggregations only
+            .withPageable(pageable)
+            .withTrackTotalHits(true);
         
         // Apply query with permission filters
         builder.withQuery(q -> q.bool(bq -> {
-            buildListSearchQuery(context, bq);
+            buildListMetadataQuery(context, itemMatchScores, bq);
             return bq;
         }));
         
-        // Add aggregations for list counting and scoring
-        addListAggregations(builder);
+        applyListSorting(builder, context.getSort(), context.getDir());
+
+        // Facets are aggregated over the whole query, independent of the page
+        if (withFacets) {
+            addFacetAggregations(builder);
+        }
         
         // Execute search
-        SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(
+        SearchHits<SpeciesListMetadataIndex> results = elasticsearchOperations.search(
             builder.build(), 
-            SpeciesListIndex.class
+            SpeciesListMetadataIndex.class
         );
         
-        // Extract list IDs and scores
-        Map<String, Long> listCounts = extractListCounts(results);
-        Map<String, Double> listScores = extractListScores(results);
-        long totalLists = extractTotalListCount(results);
-        
-        // Fetch list metadata
-        List<SpeciesList> lists = fetchAndEnrichLists(listCounts, listScores, context);
-        
-        // Apply pagination
-        return paginateResults(lists, pageable, totalLists);
+        // Fetch the page of lists, keeping the search order
+        List<String> ids = results.getSearchHits().stream()
+            .map(SearchHit::getId)
+            .toList();
+        Map<String, SpeciesList> listsById = new HashMap<>();
+        speciesListMongoRepository.findAllById(ids)
+            .forEach(list -> listsById.put(list.getId(), list));
+        List<SpeciesList> lists = ids.stream()
+            .map(listsById::get)
+            .filter(Objects::nonNull)
+            .toList();
+        
+        return new FacetedPage<>(
+            new PageImpl<>(lists, pageable, results.getTotalHits()),
+            withFacets ? processFacetResults(results) : null
+        );
     }
 
     /**
      * Get facets for species lists with permission-aware filtering
      */
     public List<Facet> getFacetsForSpeciesLists(ListSearchContext context) {
-        NativeQueryBuilder builder = NativeQuery.builder();
+        if (!context.isAuthenticated()) {
+            return searchCacheService.get("listFacets", listSearchCacheKey(context),
+                () -> getFacetsForSpeciesListsUncached(context),
+                SearchCacheService::copyFacets);
+        }
+        return getFacetsForSpeciesListsUncached(context);
+    }
+
+    private List<Facet> getFacetsForSpeciesListsUncached(ListSearchContext context) {
+        Map<String, Double> itemMatchScores = findListIdsWithMatchingItems(context);
+
+        NativeQueryBuilder builder = NativeQuery.builder()
+            .withMaxResults(0);
         
         // Apply query with permission filters
         builder.withQuery(q -> q.bool(bq -> {
-            buildListSearchQuery(context, bq);
+            buildListMetadataQuery(context, itemMatchScores, bq);
             return bq;
         }));
         
@@ -470,15 +1002,120 @@ public class SearchHelperService {
         addFacetAggregations(builder);
         
         // Execute search
-        SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(
+        SearchHits<SpeciesListMetadataIndex> results = elasticsearchOperations.search(
             builder.build(),
-            SpeciesListIndex.class
+            SpeciesListMetadataIndex.class
         );
         
         // Process and return facets
         return processFacetResults(results);
     }
 
+    /**
+     * Cache key for a list search: the parts of the context that affect the results, with the
+     * filters in a canonical order.
+     */
+    private static List<Object> listSearchCacheKey(ListSearchContext context) {
+        List<String> filters = context.getFilters() == null ? List.of() : context.getFilters().stream()
+            .map(f -> f.getKey() + "=" + f.getValue())
+            .sorted()
+            .toList();
+        return Arrays.asList(
+            StringUtils.trimToEmpty(context.getSearchQuery()),
+            filters,
+            context.getUserId(),
+            StringUtils.lowerCase(context.getSort()),
+            StringUtils.lowerCase(context.getDir())
+        );
+    }
+
+    /**
+     * Builds the list metadata query. Lists match on their own metadata, or on the ids of
+     * lists with matching items. Item matches are scored by the best matching item of the list,
+     * grouped into ITEM_SCORE_TIERS tiers relative to the best score overall, so that the query
+     * has a clause per tier rather than per list.
+     */
+    private void buildListMetadataQuery(
+            ListSearchContext context,
+            Map<String, Double> itemMatchScores,
+            BoolQuery.Builder bq) {
+
+        buildListSearchQuery(context, bq);
+
+        if (itemMatchScores.isEmpty()) {
+            return;
+        }
+        double maxScore = itemMatchScores.values().stream().mapToDouble(Double::doubleValue).max().orElse(1.0);
+        Map<Integer, List<String>> tiers = new HashMap<>();
+        itemMatchScores.forEach((id, score) -> {
+            int tier = maxScore > 0 ? (int) Math.ceil(score / maxScore * ITEM_SCORE_TIERS) : ITEM_SCORE_TIERS;
+            tiers.computeIfAbsent(Math.max(tier, 1), t -> new ArrayList<>()).add(id);
+        });
+        tiers.forEach((tier, ids) -> {
+            float boost = (float) (maxScore > 0 ? maxScore * tier / ITEM_SCORE_TIERS : 1.0);
+            bq.should(s -> s.constantScore(cs -> cs
+                .filter(f -> f.ids(i -> i.values(ids)))
+                .boost(boost)));
+        });
+    }
+
+    /**
+     * Finds the lists with items matching the search query (e.g. a species name) in the item
+     * index, with the score of the best matching item of each list. Returns an empty map when
+     * there is no search query to match items against.
+     */
+    private Map<String, Double> findListIdsWithMatchingItems(ListSearchContext context) {
+        String searchQuery = StringUtils.trimToNull(context.getSearchQuery());
+        if (searchQuery == null || searchQuery.length() < 2) {
+            return Collections.emptyMap();
+        }
+
+        NativeQuery query = NativeQuery.builder()
+            .withQuery(q -> q.bool(bq -> {
+                ElasticUtils.buildQuery(
+                    searchQuery,
+                    new ArrayList<>(),
+                    context.getUserId(),
+                    context.isAdmin(),
+                    null,
+                    context.getFilters(),
+                    bq
+                );
+                applyPermissionFilters(context, bq);
+                return bq;
+            }))
+            .withMaxResults(0)
+            .withAggregation(
+                SPECIES_LIST_ID,
+                Aggregation.of(a -> a
+                    .terms(ta -> ta
+                        .field(SPECIES_LIST_ID + ".keyword")
+                        .size(MAX_LIST_ENTRIES))
+                    .aggregations(MAX_ITEM_SCORE, sub -> sub
+                        .topHits(th -> th.size(1).source(src -> src.fetch(false))))
+                )
+            )
+            .build();
+
+        SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(query, SpeciesListIndex.class);
+
+        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
+        if (agg == null) return Collections.emptyMap();
+
+        Map<String, Double> scores = new HashMap<>();
+        agg.aggregations().stream()
+            .filter(a -> SPECIES_LIST_ID.equals(a.aggregation().getName()))
+            .findFirst()
+            .map(a -> a.aggregation().getAggregate().sterms().buckets().array())
+            .orElse(Collections.emptyList())
+            .forEach(b -> {
+                Aggregate topHit = b.aggregations().get(MAX_ITEM_SCORE);
+                Double score = topHit != null ? topHit.topHits().hits().maxScore() : null;
+                scores.put(b.key().stringValue(), score != null ? score : 1.0);
+            });
+        return scores;
+    }
+
     /**
      * Builds the core Elasticsearch query with permission-aware filters
      */
@@ -563,34 +1200,40 @@ public class SearchHelperService {
     }
 
     /**
-     * Adds aggregations for list counting and scoring
+     * Applies list sorting. Relevance ties, and lists with equal sort values, are ordered by
+     * title and then id so that pages are stable.
      */
-    private void addListAggregations(NativeQueryBuilder builder) {
-        // Total list count
-        builder.withAggregation(
-            "list_count",
-            Aggregation.of(a -> a.cardinality(
-                ca -> ca.field(SPECIES_LIST_ID + ".keyword").precisionThreshold(40000)
-            ))
-        );
-        
-        // List IDs with max scores
-        builder.withAggregation(
-            SPECIES_LIST_ID,
-            Aggregation.of(a -> a
-                .terms(ta -> ta
-                    .field(SPECIES_LIST_ID + ".keyword")
-                    .size(MAX_LIST_ENTRIES)
-                )
-                .aggregations("max_score",
-                    Aggregation.of(ma -> ma.max(m -> m.script(s -> s.source("_score"))))
-                )
-            )
-        );
+    private void applyListSorting(NativeQueryBuilder builder, String sort, String dir) {
+        SortOrder order = "asc".equalsIgnoreCase(dir) ? SortOrder.Asc : SortOrder.Desc;
+        String sortField = sort != null ? sort : "lastUpdated";
+
+        switch (sortField) {
+            case "relevance":
+                builder.withSort(s -> s.score(sc -> sc.order(order)));
+                break;
+            case "listType":
+                builder.withSort(s -> s.field(f -> f
+                    .field("listType.keyword")
+                    .order(order)
+                    .missing(FieldValue.of(order == SortOrder.Asc ? "_last" : "_first"))));
+                break;
+            case "rowCount":
+                builder.withSort(s -> s.field(f -> f.field("rowCount").order(order)));
+                break;
+            case "title":
+                break;
+            case "lastUpdated":
+            default:
+                builder.withSort(s -> s.field(f -> f.field("lastUpdated").order(order)));
+                break;
+        }
+
+        builder.withSort(s -> s.field(f -> f.field("speciesListName.sort").order(order)));
+        builder.withSort(s -> s.field(f -> f.field("id").order(SortOrder.Asc)));
     }
 
     /**
-     * Adds facet aggregations with distinct list counts
+     * Adds facet aggregations. Each document is a list, so bucket counts are list counts.
      */
     private void addFacetAggregations(NativeQueryBuilder builder) {
         List<String> facetFields = Arrays.asList(
@@ -611,169 +1254,15 @@ public class SearchHelperService {
             
             builder.withAggregation(
                 field,
-                Aggregation.of(a -> a
-                    .terms(ta -> ta.field(esField).size(50))
-                    .aggregations("distinct_list_count",
-                        Aggregation.of(ca -> ca.cardinality(
-                            c -> c.field(SPECIES_LIST_ID + ".keyword").precisionThreshold(40000)
-                        ))
-                    )
-                )
+                Aggregation.of(a -> a.terms(ta -> ta.field(esField).size(50)))
             );
         }
     }
 
-    /**
-     * Extracts list counts from aggregation results
-     */
-    private Map<String, Long> extractListCounts(SearchHits<SpeciesListIndex> results) {
-        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
-        if (agg == null) return Collections.emptyMap();
-        
-        return agg.aggregations().stream()
-            .filter(a -> SPECIES_LIST_ID.equals(a.aggregation().getName()))
-            .findFirst()
-            .map(a -> a.aggregation().getAggregate().sterms().buckets().array())
-            .orElse(Collections.emptyList())
-            .stream()
-            .collect(Collectors.toMap(
-                b -> b.key().stringValue(),
-                MultiBucketBase::docCount
-            ));
-    }
-
-    /**
-     * Extracts relevance scores from aggregation results
-     */
-    private Map<String, Double> extractListScores(SearchHits<SpeciesListIndex> results) {
-        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
-        if (agg == null) return Collections.emptyMap();
-        
-        return agg.aggregations().stream()
-            .filter(a -> SPECIES_LIST_ID.equals(a.aggregation().getName()))
-            .findFirst()
-            .map(a -> a.aggregation().getAggregate().sterms().buckets().array())
-            .orElse(Collections.emptyList())
-            .stream()
-            .collect(Collectors.toMap(
-                b -> b.key().stringValue(),
-                b -> {
-                    Aggregate maxScore = b.aggregations().get("max_score");
-                    double score = maxScore != null ? maxScore.max().value() : 0.0;
-                    return (Double.isInfinite(score) || Double.isNaN(score)) ? 0.0 : score;
-                }
-            ));
-    }
-
-    /**
-     * Extracts total list count from aggregation results
-     */
-    private long extractTotalListCount(SearchHits<SpeciesListIndex> results) {
-        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
-        if (agg == null) return 0;
-        
-        return agg.aggregations().stream()
-            .filter(a -> "list_count".equals(a.aggregation().getName()))
-            .findFirst()
-            .map(a -> a.aggregation().getAggregate().cardinality().value())
-            .orElse(0L);
-    }
-
-    /**
-     * Fetches list metadata and enriches with counts and scores
-     */
-    private List<SpeciesList> fetchAndEnrichLists(
-            Map<String, Long> counts,
-            Map<String, Double> scores,
-            ListSearchContext context) {
-        
-        if (counts.isEmpty()) return Collections.emptyList();
-        
-        List<SpeciesList> lists = new ArrayList<>();
-        speciesListMongoRepository.findAllById(counts.keySet())
-            .forEach(list -> {
-                list.setRowCount(counts.get(list.getId()).intValue());
-                lists.add(list);
-            });
-        
-        // Sort lists
-        lists.sort(buildComparator(context.getSort(), context.getDir(), scores));
-        
-        return lists;
-    }
-
-    /**
-     * Builds comparator for sorting lists
-     */
-    private Comparator<SpeciesList> buildComparator(
-            String sort,
-            String dir,
-            Map<String, Double> scores) {
-        
-        boolean ascending = "asc".equalsIgnoreCase(dir);
-        Comparator<SpeciesList> comparator;
-        
-        switch (sort) {
-            case "relevance":
-                comparator = Comparator
-                    .comparing((SpeciesList list) -> scores.getOrDefault(list.getId(), 0.0))
-                    .thenComparing(list -> 
-                        list.getTitle() != null ? list.getTitle() : "", 
-                        String.CASE_INSENSITIVE_ORDER
-                    );
-                return ascending ? comparator : comparator.reversed();
-                
-            case "title":
-                comparator = Comparator.comparing(
-                    SpeciesList::getTitle, 
-                    String.CASE_INSENSITIVE_ORDER
-                );
-                break;
-                
-            case "listType":
-                comparator = ascending
-                    ? Comparator.comparing(
-                        SpeciesList::getListType,
-                        Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)
-                    )
-                    : Comparator.comparing(
-                        SpeciesList::getListType,
-                        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)
-                    );
-                break;
-                
-            case "rowCount":
-                comparator = Comparator.comparing(SpeciesList::getRowCount);
-                break;
-                
-            case "lastUpdated":
-            default:
-                comparator = Comparator.comparing(SpeciesList::getLastUpdated);
-                break;
-        }
-        
-        return ascending ? comparator : comparator.reversed();
-    }
-
-    /**
-     * Applies pagination to results
-     */
-    private Page<SpeciesList> paginateResults(
-            List<SpeciesList> lists,
-            Pageable pageable,
-            long total) {
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), lists.size());
-        
-        List<SpeciesList> page = lists.subList(start, end);
-        return new PageImpl<>(page, pageable, total);
-    }
-
     /**
      * Processes facet aggregation results
      */
-    private List<Facet> processFacetResults(SearchHits<SpeciesListIndex> results) {
+    private List<Facet> processFacetResults(SearchHits<SpeciesListMetadataIndex> results) {
         ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
         if (agg == null) return Collections.emptyList();
         
@@ -789,18 +1278,16 @@ public class SearchHelperService {
             
             if (aggregate.isSterms()) {
                 // String terms
-                aggregate.sterms().buckets().array().forEach(bucket -> {
-                    long distinctCount = getDistinctListCount(bucket.aggregations());
+                aggregate.sterms().buckets().array().forEach(bucket ->
                     facet.getCounts().add(
-                        new FacetCount(bucket.key().stringValue(), distinctCount)
-                    );
-                });
+                        new FacetCount(bucket.key().stringValue(), bucket.docCount())
+                    )
+                );
             } else if (aggregate.isLterms()) {
                 // Boolean terms
                 aggregate.lterms().buckets().array().forEach(bucket -> {
-                    long distinctCount = getDistinctListCount(bucket.aggregations());
                     String key = bucket.key() == 1 ? "true" : "false";
-                    facet.getCounts().add(new FacetCount(key, distinctCount));
+                    facet.getCounts().add(new FacetCount(key, bucket.docCount()));
                 });
             }
             
@@ -812,14 +1299,6 @@ public class SearchHelperService {
         return facets;
     }
 
-    /**
-     * Extracts distinct list count from nested aggregation
-     */
-    private long getDistinctListCount(Map<String, Aggregate> aggregations) {
-        Aggregate distinctCount = aggregations.get("distinct_list_count");
-        return distinctCount != null ? distinctCount.cardinality().value() : 0;
-    }
-
     // Helpers for list view graphql methods
 
     /**
@@ -829,8 +1308,10 @@ public class SearchHelperService {
             SingleListSearchContext context,
             Pageable pageable) {
         
-        // Build Elasticsearch query
-        NativeQueryBuilder builder = NativeQuery.builder().withPageable(pageable);
+        // Build Elasticsearch query, routed to the shard holding this list
+        NativeQueryBuilder builder = NativeQuery.builder()
+            .withPageable(pageable)
+            .withRoute(context.getSpeciesListId());
         
         // Apply query with filters
         builder.withQuery(q -> q.bool(bq -> {
@@ -861,7 +1342,8 @@ public class SearchHelperService {
             SingleListSearchContext context,
             List<String> facetFields) {
         
-        NativeQueryBuilder builder = NativeQuery.builder();
+        NativeQueryBuilder builder = NativeQuery.builder()
+            .withRoute(context.getSpeciesListId());
         
         // Build query without filters (for base aggregations)
         builder.withQuery(q -> q.bool(bq -> {
@@ -870,21 +1352,16 @@ public class SearchHelperService {
         }));
         
         // Add post-filter if filters are present
-        if (!context.getFilters().isEmpty()) {
+        if (context.getFilters() != null && !context.getFilters().isEmpty()) {
             builder.withFilter(q -> q.bool(bq -> {
-                buildSingleListQuery(context, bq);
+                applyUserFilters(context, bq);
                 return bq;
             }));
         }
         
-        // Add aggregations for facet fields
-        addSingleListFacetAggregations(builder, facetFields);
-        
-        // Add classification aggregations
-        addClassificationAggregations(builder);
-        
-        // Add property key aggregations
-        addPropertyAggregations(builder);
+        // Add aggregations for facet fields, classification fields and property values
+        List<String> propertyKeys = getPropertyFacetKeys(context);
+        singleListFacetAggregations(facetFields, propertyKeys).forEach(builder::withAggregation);
         
         // Execute search
         SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(
@@ -893,7 +1370,88 @@ public class SearchHelperService {
         );
         
         // Process and return facets
-        return processSingleListFacets(results, facetFields, context);
+        return processSingleListFacets(facetAggregates(results), facetFields, propertyKeys);
+    }
+
+    /**
+     * Search items within a specific species list using a search cursor, for paging past the
+     * 10,000 item limit of page based requests
+     */
+    public CursorPage<SpeciesListItem> searchSingleSpeciesListWithCursor(
+            SingleListSearchContext context,
+            int pageSize,
+            @Nullable String cursor) {
+
+        co.elastic.clients.elasticsearch._types.query_dsl.Query query =
+            co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.bool(bq -> {
+                buildSingleListQuery(context, bq);
+                return bq;
+            }));
+
+        return searchItemsWithCursor(query, context.getSort(), context.getDir(), pageSize, cursor,
+            Arrays.asList("filterSpeciesList", context.getSpeciesListId(), context.getSearchQuery(),
+                context.getFilters(), context.getSort(), context.getDir()));
+    }
+
+    /**
+     * Searches items within a specific species list and aggregates their facets in a single
+     * request. The user filters are applied as a post filter, so the hits are those of
+     * searchSingleSpeciesList. The facets are those of getFacetsForSingleSpeciesList: with a
+     * search query they are aggregated in a global aggregation filtered by buildBaseListQuery,
+     * as that path matches the search query with query_string rather than the
+     * simple_query_string AND of the hits.
+     */
+    public FacetedPage<SpeciesListItem> searchSingleSpeciesListWithFacets(
+            SingleListSearchContext context,
+            Pageable pageable,
+            List<String> facetFields) {
+
+        NativeQueryBuilder builder = NativeQuery.builder()
+            .withPageable(pageable)
+            .withRoute(context.getSpeciesListId());
+
+        builder.withQuery(q -> q.bool(bq -> {
+            buildSingleListMatchQuery(context, bq);
+            return bq;
+        }));
+
+        if (context.getFilters() != null && !context.getFilters().isEmpty()) {
+            builder.withFilter(q -> q.bool(bq -> {
+                applyUserFilters(context, bq);
+                return bq;
+            }));
+        }
+
+        applySorting(builder, context.getSort(), context.getDir());
+
+        List<String> propertyKeys = getPropertyFacetKeys(context);
+        Map<String, Aggregation> facetAggregations = singleListFacetAggregations(facetFields, propertyKeys);
+        if (StringUtils.isNotBlank(context.getSearchQuery())) {
+            co.elastic.clients.elasticsearch._types.query_dsl.Query facetBase =
+                co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.bool(bq -> {
+                    buildBaseListQuery(context, bq);
+                    return bq;
+                }));
+            builder.withAggregation(FACET_SCOPE, Aggregation.of(a -> a
+                .global(g -> g)
+                .aggregations(FACET_BASE, Aggregation.of(f -> f
+                    .filter(facetBase)
+                    .aggregations(facetAggregations)))));
+        } else {
+            facetAggregations.forEach(builder::withAggregation);
+        }
+
+        SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(
+            builder.build(),
+            SpeciesListIndex.class,
+            IndexCoordinates.of("species-lists")
+        );
+
+        List<SpeciesListItem> items = convertSearchResults(results);
+        return new FacetedPage<>(
+            new PageImpl<>(items, pageable, results.getTotalHits()),
+            processSingleListFacets(facetAggregates(results), facetFields, propertyKeys)
+        );
     }
 
     /**
@@ -920,6 +1478,17 @@ public class SearchHelperService {
         SingleListSearchContext context,
         BoolQuery.Builder bq) {
 
+        buildSingleListMatchQuery(context, bq);
+        applyUserFilters(context, bq);
+    }
+
+    /**
+     * Builds the list ID + search query part of the full query
+     */
+    private void buildSingleListMatchQuery(
+        SingleListSearchContext context,
+        BoolQuery.Builder bq) {
+
         // Filter by the specific list ID
         bq.must(m -> m.term(t -> t.field(SPECIES_LIST_ID).value(context.getSpeciesListId())));
         
@@ -944,8 +1513,15 @@ public class SearchHelperService {
                 .defaultOperator(co.elastic.clients.elasticsearch._types.query_dsl.Operator.And)
             ));
         }
-        
-        // Apply user-provided filters (but NOT privacy filters - access already validated)
+    }
+
+    /**
+     * Applies the user-provided filters (but NOT privacy filters - access already validated)
+     */
+    private void applyUserFilters(
+        SingleListSearchContext context,
+        BoolQuery.Builder bq) {
+
         if (context.getFilters() != null && !context.getFilters().isEmpty()) {
             Map<String, List<Filter>> filtersByKey = context.getFilters().stream()
                     .collect(Collectors.groupingBy(Filter::getKey));
@@ -1019,11 +1595,42 @@ public class SearchHelperService {
         ));
     }
 
+    /**
+     * Facet, classification and property value aggregations for a single list, by name
+     */
+    private Map<String, Aggregation> singleListFacetAggregations(
+            List<String> facetFields,
+            List<String> propertyKeys) {
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        addSingleListFacetAggregations(aggregations, facetFields);
+        addClassificationAggregations(aggregations);
+        addPropertyAggregations(aggregations, propertyKeys);
+        return aggregations;
+    }
+
+    /**
+     * The facet aggregates of a single list search, from the global aggregation when the
+     * facets were scoped to their own query
+     */
+    private static Map<String, Aggregate> facetAggregates(SearchHits<SpeciesListIndex> results) {
+        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
+        if (agg == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Aggregate> aggregates = new HashMap<>();
+        agg.aggregations().forEach(a -> aggregates.put(a.aggregation().getName(), a.aggregation().getAggregate()));
+        Aggregate scope = aggregates.get(FACET_SCOPE);
+        if (scope != null && scope.isGlobal()) {
+            return scope.global().aggregations().get(FACET_BASE).filter().aggregations();
+        }
+        return aggregates;
+    }
+
     /**
      * Adds facet aggregations for the specified fields
      */
     private void addSingleListFacetAggregations(
-            NativeQueryBuilder builder,
+            Map<String, Aggregation> aggregations,
             List<String> facetFields) {
         
         if (facetFields == null || facetFields.isEmpty()) {
@@ -1035,7 +1642,7 @@ public class SearchHelperService {
                 continue;
             }
             String esField = getPropertiesFacetField(field);
-            builder.withAggregation(
+            aggregations.put(
                 field,
                 Aggregation.of(a -> a.terms(ta -> ta.field(esField).size(30)))
             );
@@ -1045,7 +1652,7 @@ public class SearchHelperService {
     /**
      * Adds classification field aggregations
      */
-    private void addClassificationAggregations(NativeQueryBuilder builder) {
+    private void addClassificationAggregations(Map<String, Aggregation> aggregations) {
         List<String> classificationFields = Arrays.asList(
             "classification.family",
             "classification.order",
@@ -1059,7 +1666,7 @@ public class SearchHelperService {
         );
         
         for (String field : classificationFields) {
-            builder.withAggregation(
+            aggregations.put(
                 field,
                 Aggregation.of(a -> a.terms(ta -> ta.field(field + ".keyword").size(500)))
             );
@@ -1067,30 +1674,44 @@ public class SearchHelperService {
     }
 
     /**
-     * Adds property key aggregations for dynamic properties
+     * Adds one terms aggregation per property key on the flattened propertiesMap field, so
+     * every key/value facet for the list comes back from the same search. Keys are taken
+     * from the list's field list rather than discovered with a separate query.
      */
-    private void addPropertyAggregations(NativeQueryBuilder builder) {
-        builder.withAggregation(
-            "properties_keys",
-            Aggregation.of(a -> a
-                .nested(na -> na.path("properties"))
-                .aggregations("key_counts",
-                    sa -> sa.terms(ta -> ta.field("properties.key.keyword").size(100))
-                )
-            )
-        );
+    private void addPropertyAggregations(Map<String, Aggregation> aggregations, List<String> propertyKeys) {
+        for (int i = 0; i < propertyKeys.size(); i++) {
+            String esField = PROPERTIES_MAP + "." + propertyKeys.get(i);
+            aggregations.put(
+                PROPERTY_FACET_PREFIX + i,
+                Aggregation.of(a -> a.terms(ta -> ta.field(esField).size(100)))
+            );
+        }
+    }
+
+    /**
+     * Property keys to facet on for a list (at most MAX_PROPERTY_FACETS)
+     */
+    private List<String> getPropertyFacetKeys(SingleListSearchContext context) {
+        SpeciesList speciesList = context.getSpeciesList();
+        if (speciesList == null || speciesList.getFieldList() == null) {
+            return Collections.emptyList();
+        }
+        return speciesList.getFieldList().stream()
+            .filter(StringUtils::isNotBlank)
+            .distinct()
+            .limit(MAX_PROPERTY_FACETS)
+            .collect(Collectors.toList());
     }
 
     /**
      * Processes facet results including property facets
      */
     private List<Facet> processSingleListFacets(
-            SearchHits<SpeciesListIndex> results,
+            Map<String, Aggregate> aggregates,
             List<String> facetFields,
-            SingleListSearchContext context) {
+            List<String> propertyKeys) {
         
-        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
-        if (agg == null) {
+        if (aggregates.isEmpty()) {
             return Collections.emptyList();
         }
         
@@ -1110,14 +1731,10 @@ public class SearchHelperService {
         ));
         
         for (String field : allFields) {
-            ElasticsearchAggregation aggResult = agg.aggregations().stream()
-                .filter(a -> field.equals(a.aggregation().getName()))
-                .findFirst()
-                .orElse(null);
+            Aggregate aggResult = aggregates.get(field);
             
-            if (aggResult != null && aggResult.aggregation().getAggregate().isSterms()) {
-                Facet facet = createFacetFromTerms(field, 
-                    aggResult.aggregation().getAggregate().sterms().buckets().array());
+            if (aggResult != null && aggResult.isSterms()) {
+                Facet facet = createFacetFromTerms(field, aggResult.sterms().buckets().array());
                 if (!facet.getCounts().isEmpty()) {
                     facets.add(facet);
                 }
@@ -1125,7 +1742,7 @@ public class SearchHelperService {
         }
         
         // Process property facets
-        List<Facet> propertyFacets = processPropertyFacets(agg, context);
+        List<Facet> propertyFacets = processPropertyFacets(aggregates, propertyKeys);
         facets.addAll(propertyFacets);
         
         return facets;
@@ -1149,149 +1766,28 @@ public class SearchHelperService {
     }
 
     /**
-     * Processes property facets by identifying keys and their values
+     * Processes property facets from the per-key propertiesMap aggregations
      */
     private List<Facet> processPropertyFacets(
-            ElasticsearchAggregations agg,
-            SingleListSearchContext context) {
+            Map<String, Aggregate> aggregates,
+            List<String> propertyKeys) {
         
         List<Facet> propertyFacets = new ArrayList<>();
         
-        // Extract property keys
-        List<String> propertyKeys = extractPropertyKeys(agg);
-        
-        // For each property key, get its values
-        for (String propertyKey : propertyKeys) {
-            Facet propertyFacet = getPropertyValueFacet(propertyKey, context);
-            if (propertyFacet != null && !propertyFacet.getCounts().isEmpty()) {
-                propertyFacets.add(propertyFacet);
+        for (int i = 0; i < propertyKeys.size(); i++) {
+            Aggregate aggResult = aggregates.get(PROPERTY_FACET_PREFIX + i);
+            
+            if (aggResult != null && aggResult.isSterms()) {
+                Facet facet = createFacetFromTerms(propertyKeys.get(i), aggResult.sterms().buckets().array());
+                if (!facet.getCounts().isEmpty()) {
+                    propertyFacets.add(facet);
+                }
             }
         }
         
         return propertyFacets;
     }
 
-    /**
-     * Extracts property keys from the properties_keys aggregation
-     */
-    private List<String> extractPropertyKeys(ElasticsearchAggregations agg) {
-        List<String> keys = new ArrayList<>();
-        
-        ElasticsearchAggregation propertiesAgg = agg.aggregations().stream()
-            .filter(a -> "properties_keys".equals(a.aggregation().getName()))
-            .findFirst()
-            .orElse(null);
-        
-        if (propertiesAgg == null) {
-            return keys;
-        }
-        
-        Aggregate nestedAgg = propertiesAgg.aggregation().getAggregate();
-        if (nestedAgg.isNested()) {
-            Aggregate keyCountsAgg = nestedAgg.nested().aggregations().get("key_counts");
-            if (keyCountsAgg != null && keyCountsAgg.isSterms()) {
-                keyCountsAgg.sterms().buckets().array()
-                    .forEach(bucket -> keys.add(bucket.key().stringValue()));
-            }
-        }
-        
-        return keys;
-    }
-
-    /**
-     * Gets facet counts for a specific property key by executing a separate query
-     */
-    private Facet getPropertyValueFacet(String propertyKey, SingleListSearchContext context) {
-        NativeQueryBuilder builder = NativeQuery.builder();
-        
-        // Build base query (list ID + search query)
-        builder.withQuery(q -> q.bool(bq -> {
-            buildBaseListQuery(context, bq);
-            return bq;
-        }));
-        
-        // Add nested aggregation for this specific property key's values
-        builder.withAggregation(
-            propertyKey + "_values",
-            Aggregation.of(a -> a
-                .nested(na -> na.path("properties"))
-                .aggregations("filtered_values", 
-                    sa -> sa
-                        .filter(f -> f.term(t -> t
-                            .field("properties.key.keyword")
-                            .value(propertyKey)
-                        ))
-                        .aggregations("value_counts",
-                            va -> va.terms(ta -> ta
-                                .field("properties.value.keyword")
-                                .size(100)
-                            )
-                        )
-                )
-            )
-        );
-        
-        // Execute query
-        SearchHits<SpeciesListIndex> results = elasticsearchOperations.search(
-            builder.build(),
-            SpeciesListIndex.class
-        );
-        
-        // Extract results
-        return extractPropertyValueFacet(propertyKey, results);
-    }
-
-    /**
-     * Extracts property value facet from query results
-     */
-    private Facet extractPropertyValueFacet(String propertyKey, SearchHits<SpeciesListIndex> results) {
-        ElasticsearchAggregations agg = (ElasticsearchAggregations) results.getAggregations();
-        if (agg == null) {
-            return null;
-        }
-        
-        ElasticsearchAggregation keyValueAgg = agg.aggregations().stream()
-            .filter(a -> (propertyKey + "_values").equals(a.aggregation().getName()))
-            .findFirst()
-            .orElse(null);
-        
-        if (keyValueAgg == null) {
-            return null;
-        }
-        
-        Aggregate nestedAgg = keyValueAgg.aggregation().getAggregate();
-        if (!nestedAgg.isNested()) {
-            return null;
-        }
-        
-        Aggregate filteredValuesAgg = nestedAgg.nested().aggregations().get("filtered_values");
-        if (filteredValuesAgg == null || !filteredValuesAgg.isFilter()) {
-            return null;
-        }
-        
-        Aggregate valueCountsAgg = filteredValuesAgg.filter().aggregations().get("value_counts");
-        if (valueCountsAgg == null || !valueCountsAgg.isSterms()) {
-            return null;
-        }
-        
-        List<StringTermsBucket> valueBuckets = valueCountsAgg.sterms().buckets().array();
-        if (valueBuckets.isEmpty()) {
-            return null;
-        }
-        
-        Facet facet = new Facet();
-        facet.setKey(propertyKey); 
-        facet.setCounts(new ArrayList<>());
-        
-        for (StringTermsBucket bucket : valueBuckets) {
-            facet.getCounts().add(
-                new FacetCount(bucket.key().stringValue(), bucket.docCount())
-            );
-        }
-        
-        return facet;
-    }
-
     /**
      * Converts search results to SpeciesListItem list
      */
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.ItemRevision;
+import au.org.ala.listsapi.model.ListSnapshot;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.ItemRevisionMongoRepository;
+import au.org.ala.listsapi.repo.ListSnapshotMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+
+/**
+ * Copy-on-write snapshots of list items.
+ *
+ * Taking a snapshot copies nothing: it numbers the list's current state and points
+ * SpeciesList.snapshotVersion at it. The first time an item is updated, deleted or created after
+ * the latest snapshot, its previous state (or null for a new item) is recorded as an ItemRevision
+ * of that snapshot. A version is read back by merging the live items with, per item, the
+ * earliest revision of that version or later, both read in item id order.
+ *
+ * Taxon matching is derived from the supplied names and is not versioned, so rematching a list
+ * records no revisions. Changes that rewrite every item (reloads, field renames) record the whole
+ * list once per snapshot.
+ */
+@Service
+public class SnapshotService {
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private SpeciesListMongoRepository speciesListMongoRepository;
+
+    @Autowired
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @Autowired
+    private ListSnapshotMongoRepository listSnapshotMongoRepository;
+
+    @Autowired
+    private ItemRevisionMongoRepository itemRevisionMongoRepository;
+
+    @Value("${snapshots.batchSize:1000}")
+    private int batchSize;
+
+    /**
+     * Takes a snapshot of the list's current items, which are recorded from now on as they change.
+     * The snapshot is saved before the list's pointer is moved to it, so revisions are never
+     * recorded against a snapshot that doesn't exist. Taking the same snapshot concurrently fails
+     * on the unique index of the list's snapshot versions.
+     */
+    public ListSnapshot createSnapshot(SpeciesList speciesList, @Nullable String description, String createdBy) {
+        int version = (speciesList.getSnapshotVersion() != null ? speciesList.getSnapshotVersion() : 0) + 1;
+
+        ListSnapshot snapshot = listSnapshotMongoRepository.save(ListSnapshot.builder()
+                .speciesListID(speciesList.getId())
+                .version(version)
+                .description(description)
+                .createdBy(createdBy)
+                .createdAt(new Date())
+                .rowCount(speciesList.getRowCount())
+                .fieldList(speciesList.getFieldList())
+                .build());
+
+        // only the pointer is set, so the list's version, and the caches and index keyed on it, are unchanged
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(speciesList.getId())),
+                new Update().set("snapshotVersion", version), SpeciesList.class);
+        speciesList.setSnapshotVersion(version);
+        logger.info("Created snapshot {} of species list {}", version, speciesList.getId());
+        return snapshot;
+    }
+
+    public List<ListSnapshot> getSnapshots(String speciesListID) {
+        return listSnapshotMongoRepository.findBySpeciesListIDOrderByVersionDesc(speciesListID);
+    }
+
+    public Optional<ListSnapshot> getSnapshot(String speciesListID, int version) {
+        return listSnapshotMongoRepository.findBySpeciesListIDAndVersion(speciesListID, version);
+    }
+
+    /** @return the latest snapshot of the list, or null if it has none */
+    @Nullable
+    public Integer currentVersion(String speciesListID) {
+        return speciesListMongoRepository.findById(speciesListID).map(SpeciesList::getSnapshotVersion).orElse(null);
+    }
+
+    /** Records the item's state before it is updated or deleted */
+    public void recordBeforeChange(SpeciesList speciesList, SpeciesListItem item) {
+        recordBeforeChange(speciesList, List.of(item));
+    }
+
+    /** Records the items' states before they are updated or deleted */
+    public void recordBeforeChange(SpeciesList speciesList, List<SpeciesListItem> items) {
+        record(speciesList.getId(), speciesList.getSnapshotVersion(), items, true);
+    }
+
+    /** Records that the item, which must already have its id, was created after the latest snapshot */
+    public void recordCreated(SpeciesList speciesList, SpeciesListItem item) {
+        recordCreated(speciesList.getId(), speciesList.getSnapshotVersion(), List.of(item));
+    }
+
+    /** Records that the items, which must already have their ids, were created after the snapshot */
+    public void recordCreated(String speciesListID, @Nullable Integer snapshotVersion, List<SpeciesListItem> items) {
+        record(speciesListID, snapshotVersion, items, false);
+    }
+
+    /** Records the state of every item of the list before they are all removed, as before a reload */
+    public void recordBeforeReset(SpeciesList speciesList) {
+        if (speciesList.getSnapshotVersion() == null) {
+            return;
+        }
+        ObjectId lastId = null;
+        long count = 0;
+        while (true) {
+            List<SpeciesListItem> items = lastId == null
+                    ? speciesListItemMongoRepository.findFirstBatch(speciesList.getId(), PageRequest.of(0, batchSize))
+                    : speciesListItemMongoRepository.findNextBatchAfter(speciesList.getId(), lastId,
+                            PageRequest.of(0, batchSize));
+            if (items.isEmpty()) {
+                break;
+            }
+            recordBeforeChange(speciesList, items);
+            count += items.size();
+            lastId = items.get(items.size() - 1).getId();
+        }
+        logger.info("Recorded {} items of species list {} for snapshot {}", count, speciesList.getId(),
+                speciesList.getSnapshotVersion());
+    }
+
+    public void deleteSnapshots(String speciesListID) {
+        itemRevisionMongoRepository.deleteBySpeciesListID(speciesListID);
+        listSnapshotMongoRepository.deleteBySpeciesListID(speciesListID);
+    }
+
+    /**
+     * Upserts a revision per item for the snapshot. Only the first change after the snapshot
+     * inserts, later ones leave the recorded state as it is.
+     */
+    private void record(String speciesListID, @Nullable Integer snapshotVersion, List<SpeciesListItem> items,
+            boolean keepState) {
+        if (snapshotVersion == null || items.isEmpty()) {
+            return;
+        }
+        Date now = new Date();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ItemRevision.class);
+        for (SpeciesListItem item : items) {
+            Query query = new Query(Criteria.where("speciesListID").is(speciesListID)
+                    .and("itemId").is(item.getId())
+                    .and("snapshotVersion").is(snapshotVersion));
+            Update update = new Update()
+                    .setOnInsert("item", keepState ? item : null)
+                    .setOnInsert("recordedAt", now);
+            bulkOps.upsert(query, update);
+        }
+        bulkOps.execute();
+    }
+
+    /**
+     * Streams the items of the list as they were at the snapshot, in item id order.
+     *
+     * @return the number of items
+     */
+    public long stream(String speciesListID, int version, Consumer<SpeciesListItem> consumer) {
+        KeysetSource<SpeciesListItem> live = new KeysetSource<>(after -> after == null
+                ? speciesListItemMongoRepository.findFirstBatch(speciesListID, PageRequest.of(0, batchSize))
+                : speciesListItemMongoRepository.findNextBatchAfter(speciesListID, after, PageRequest.of(0, batchSize)),
+                SpeciesListItem::getId);
+        KeysetSource<ItemRevision> revisions = new KeysetSource<>(after -> mongoTemplate.find(
+                revisionQuery(speciesListID, version, after), ItemRevision.class), ItemRevision::getItemId);
+
+        long count = 0;
+        while (true) {
+            SpeciesListItem item = live.peek();
+            ItemRevision revision = revisions.peek();
+            if (item == null && revision == null) {
+                break;
+            }
+
+            SpeciesListItem state;
+            if (revision == null || (item != null && item.getId().compareTo(revision.getItemId()) < 0)) {
+                // unchanged since the snapshot
+                state = live.poll();
+            } else {
+                // the earliest revision has the state at the snapshot, later ones are of later snapshots
+                revisions.poll();
+                while (revisions.peek() != null && revisions.peek().getItemId().equals(revision.getItemId())) {
+                    revisions.poll();
+                }
+                if (item != null && item.getId().equals(revision.getItemId())) {
+                    live.poll();
+                }
+                state = revision.getItem();
+                if (state != null) {
+                    state.setId(revision.getItemId());
+                }
+            }
+
+            if (state != null) {
+                consumer.accept(state);
+                count++;
+            }
+        }
+        logger.debug("Read {} items of snapshot {} of species list {}", count, version, speciesListID);
+        return count;
+    }
+
+    /** Revisions of the snapshot or later, in item id then snapshot order, after the given item */
+    private Query revisionQuery(String speciesListID, int version, @Nullable ObjectId after) {
+        Criteria criteria = Criteria.where("speciesListID").is(speciesListID).and("snapshotVersion").gte(version);
+        if (after != null) {
+            // the rest of that item's revisions are of later snapshots
+            criteria = criteria.and("itemId").gt(after);
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "itemId", "snapshotVersion"))
+                .limit(batchSize);
+    }
+
+    /** Reads one source in pages, after the id of the last value read */
+    private class KeysetSource<T> {
+        private final Function<ObjectId, List<T>> fetch;
+        private final Function<T, ObjectId> key;
+        private final Deque<T> buffer = new ArrayDeque<>();
+        private ObjectId after;
+        private boolean exhausted;
+
+        KeysetSource(Function<ObjectId, List<T>> fetch, Function<T, ObjectId> key) {
+            this.fetch = fetch;
+            this.key = key;
+        }
+
+        T peek() {
+            if (buffer.isEmpty() && !exhausted) {
+                List<T> page = fetch.apply(after);
+                buffer.addAll(page);
+                exhausted = page.size() < batchSize;
+                if (!page.isEmpty()) {
+                    after = key.apply(page.get(page.size() - 1));
+                }
+            }
+            return buffer.peek();
+        }
+
+        T poll() {
+            return buffer.poll();
+        }
+    }
+}
@@ -71,10 +71,21 @@ public class SpeciesListLegacyService {
      * @return List of legacy SpeciesListItemVersion1 representations
      */
     public List<SpeciesListItemVersion1> convertListItemToVersion1(List<SpeciesListItem> speciesListItems) {
-        Map<String, Optional<SpeciesList>> listCache = new HashMap<>();
-        
+        return convertListItemToVersion1(speciesListItems, 0, new HashMap<>());
+    }
+
+    /**
+     * Converts a batch of a larger result to the legacy SpeciesListItemVersion1 format.
+     *
+     * @param speciesListItems The batch of items
+     * @param startIndex The index of the first item of the batch in the result
+     * @param listCache The lists looked up by earlier batches, reused and added to
+     * @return List of legacy SpeciesListItemVersion1 representations
+     */
+    public List<SpeciesListItemVersion1> convertListItemToVersion1(List<SpeciesListItem> speciesListItems,
+            int startIndex, Map<String, Optional<SpeciesList>> listCache) {
         return IntStream.range(0, speciesListItems.size())
-                .mapToObj(i -> speciesListTransformer.transformToVersion1(speciesListItems.get(i), i, listCache))
+                .mapToObj(i -> speciesListTransformer.transformToVersion1(speciesListItems.get(i), startIndex + i, listCache))
                 .collect(Collectors.toList());
     }
 
@@ -89,25 +100,37 @@ public class SpeciesListLegacyService {
      * @return List of SpeciesItemVersion1 representations
      */
     public List<SpeciesItemVersion1> convertToSpeciesItemVersion1(List<SpeciesListItem> speciesListItems) {
-        // Collect the distinct speciesListIDs referenced by the items
+        return convertToSpeciesItemVersion1(speciesListItems, new HashMap<>());
+    }
+
+    /**
+     * Converts a batch of a larger result to the SpeciesItemVersion1 format, fetching only the
+     * SpeciesList records that are not already in the cache.
+     *
+     * @param speciesListItems The batch of items
+     * @param listCache The lists by id and dataResourceUid fetched for earlier batches, reused and added to
+     * @return List of SpeciesItemVersion1 representations
+     */
+    public List<SpeciesItemVersion1> convertToSpeciesItemVersion1(List<SpeciesListItem> speciesListItems,
+            Map<String, SpeciesList> listCache) {
+        // Collect the distinct speciesListIDs referenced by the items that haven't been fetched yet
         Set<String> listIDs = speciesListItems.stream()
                 .map(SpeciesListItem::getSpeciesListID)
-                .filter(id -> id != null && !id.isEmpty())
+                .filter(id -> id != null && !id.isEmpty() && !listCache.containsKey(id))
                 .collect(Collectors.toSet());
 
-        // Bulk-fetch all required SpeciesList records in a single query
-        List<SpeciesList> speciesLists = speciesListMongoRepository.findByDataResourceUidInOrIdIn(listIDs);
-
-        // Build a lookup map: both the raw speciesListID and the dataResourceUid are valid keys
-        Map<String, SpeciesList> listCache = speciesLists.stream()
-                .collect(Collectors.toMap(
-                        sl -> sl.getId() != null ? sl.getId() : sl.getDataResourceUid(),
-                        sl -> sl,
-                        (a, b) -> a)); // keep first on collision
-        // Also index by dataResourceUid so lookups work regardless of which ID the item stores
-        speciesLists.stream()
-                .filter(sl -> sl.getDataResourceUid() != null)
-                .forEach(sl -> listCache.putIfAbsent(sl.getDataResourceUid(), sl));
+        if (!listIDs.isEmpty()) {
+            // Bulk-fetch all required SpeciesList records in a single query
+            List<SpeciesList> speciesLists = speciesListMongoRepository.findByDataResourceUidInOrIdIn(listIDs);
+
+            // Build a lookup map: both the raw speciesListID and the dataResourceUid are valid keys
+            speciesLists.forEach(sl -> listCache.putIfAbsent(
+                    sl.getId() != null ? sl.getId() : sl.getDataResourceUid(), sl)); // keep first on collision
+            // Also index by dataResourceUid so lookups work regardless of which ID the item stores
+            speciesLists.stream()
+                    .filter(sl -> sl.getDataResourceUid() != null)
+                    .forEach(sl -> listCache.putIfAbsent(sl.getDataResourceUid(), sl));
+        }
 
         return speciesListItems.stream()
                 .map(item -> speciesListTransformer.transformToSpeciesItemVersion1(item, listCache))
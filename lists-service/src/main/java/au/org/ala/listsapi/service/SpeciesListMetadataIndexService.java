@@ -0,0 +1,171 @@
+package au.org.ala.listsapi.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListMetadataIndex;
+import au.org.ala.listsapi.repo.SpeciesListMetadataIndexElasticRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+
+/**
+ * Keeps the species-lists-metadata index (one document per list) in step with the lists
+ * collection. Every save or delete of a SpeciesList, whichever code path makes it, is mirrored
+ * to the index, so list search never has to aggregate the item documents. Template updates
+ * raise no mapping events, so partial updates of a list go through updateList instead.
+ */
+@Service
+public class SpeciesListMetadataIndexService extends AbstractMongoEventListener<SpeciesList> {
+    private static final Logger logger = LoggerFactory.getLogger(SpeciesListMetadataIndexService.class);
+
+    @Autowired protected SpeciesListMetadataIndexElasticRepository speciesListMetadataIndexElasticRepository;
+    @Autowired protected ElasticsearchOperations elasticsearchOperations;
+    @Autowired protected SpeciesListMongoRepository speciesListMongoRepository;
+    @Autowired protected SearchCacheService searchCacheService;
+    @Autowired protected MongoTemplate mongoTemplate;
+
+    /**
+     * Populates the index from the lists collection when it is empty, e.g. on the first start
+     * after the index was introduced or after it was reset.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void populateIfEmpty() {
+        try {
+            if (speciesListMetadataIndexElasticRepository.count() > 0) {
+                return;
+            }
+            logger.info("List metadata index is empty, indexing all lists");
+            int page = 0;
+            long indexed = 0;
+            Page<SpeciesList> speciesLists;
+            do {
+                speciesLists = speciesListMongoRepository.findAll(PageRequest.of(page++, 1000));
+                List<SpeciesListMetadataIndex> documents = speciesLists.stream()
+                        .map(SpeciesListMetadataIndexService::toIndex)
+                        .toList();
+                if (!documents.isEmpty()) {
+                    speciesListMetadataIndexElasticRepository.saveAll(documents);
+                    indexed += documents.size();
+                }
+            } while (speciesLists.hasNext());
+            logger.info("Indexed metadata for {} lists", indexed);
+        } catch (Exception e) {
+            logger.error("Failed to populate the list metadata index: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<SpeciesList> event) {
+        indexList(event.getSource());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<SpeciesList> event) {
+        Document query = event.getSource();
+        try {
+            Object id = query.get("_id");
+            if (query.isEmpty()) {
+                speciesListMetadataIndexElasticRepository.deleteAll();
+            } else if (id instanceof Document idQuery && idQuery.get("$in") instanceof Collection<?> ids) {
+                speciesListMetadataIndexElasticRepository.deleteAllById(ids.stream().map(String::valueOf).toList());
+            } else if (id != null) {
+                speciesListMetadataIndexElasticRepository.deleteById(id.toString());
+            } else {
+                logger.warn("Unable to remove lists deleted by {} from the metadata index", query.toJson());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to remove lists deleted by {} from the metadata index: {}",
+                    query.toJson(), e.getMessage(), e);
+        }
+        searchCacheService.invalidate();
+    }
+
+    /**
+     * Applies a partial update to a list without saving the whole document, so its @Version is
+     * left alone, and reindexes its metadata.
+     *
+     * @return the updated list, or null if there is no list with the id
+     */
+    public SpeciesList updateList(String speciesListID, Update update) {
+        SpeciesList updated = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(speciesListID)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                SpeciesList.class);
+        indexList(updated);
+        return updated;
+    }
+
+    /**
+     * Writes the metadata document for a list. Failures are logged rather than thrown, so an
+     * indexing problem never fails the Mongo write that triggered it.
+     */
+    public void indexList(SpeciesList speciesList) {
+        if (speciesList == null || speciesList.getId() == null) {
+            return;
+        }
+        try {
+            speciesListMetadataIndexElasticRepository.save(toIndex(speciesList));
+        } catch (Exception e) {
+            logger.error("[{}] Failed to index list metadata: {}", speciesList.getId(), e.getMessage(), e);
+        }
+        searchCacheService.invalidate();
+    }
+
+    /** Drops and recreates the index with its settings and mapping, ready for a reindex. */
+    public void resetIndex() {
+        IndexOperations indexOps = elasticsearchOperations.indexOps(SpeciesListMetadataIndex.class);
+        indexOps.delete();
+        indexOps.createWithMapping();
+        searchCacheService.invalidate();
+    }
+
+    static SpeciesListMetadataIndex toIndex(SpeciesList speciesList) {
+        return SpeciesListMetadataIndex.builder()
+                .id(speciesList.getId())
+                .dataResourceUid(speciesList.getDataResourceUid())
+                .speciesListName(speciesList.getTitle())
+                .listType(speciesList.getListType())
+                .description(speciesList.getDescription())
+                .licence(speciesList.getLicence())
+                .isPrivate(Boolean.TRUE.equals(speciesList.getIsPrivate()))
+                .isAuthoritative(Boolean.TRUE.equals(speciesList.getIsAuthoritative()))
+                .isBIE(Boolean.TRUE.equals(speciesList.getIsBIE()))
+                .isSDS(Boolean.TRUE.equals(speciesList.getIsSDS()))
+                .isThreatened(Boolean.TRUE.equals(speciesList.getIsThreatened()))
+                .isInvasive(Boolean.TRUE.equals(speciesList.getIsInvasive()))
+                .hasRegion(StringUtils.isNotEmpty(speciesList.getRegion())
+                        || StringUtils.isNotEmpty(speciesList.getWkt()))
+                .owner(speciesList.getOwner())
+                .editors(speciesList.getEditors())
+                .tags(speciesList.getTags() != null ? speciesList.getTags() : new ArrayList<>())
+                .dateCreated(speciesList.getDateCreated() != null ? speciesList.getDateCreated().getTime() : null)
+                .lastUpdated(speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().getTime() : null)
+                .lastUpdatedBy(speciesList.getLastUpdatedBy())
+                .rowCount(speciesList.getRowCount() != null ? speciesList.getRowCount() : 0)
+                .distinctMatchCount(speciesList.getDistinctMatchCount() != null ? speciesList.getDistinctMatchCount() : 0)
+                .build();
+    }
+}
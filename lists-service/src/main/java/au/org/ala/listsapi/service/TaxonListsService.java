@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.service;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.stereotype.Service;
+
+import au.org.ala.listsapi.controller.AuthUtils;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.model.TaxonLists;
+import au.org.ala.listsapi.model.TaxonListsQuery;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.ws.security.profile.AlaUserProfile;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+
+/**
+ * Looks up the lists that each of a large batch of taxa belongs to.
+ *
+ * The taxa are matched with terms queries in batches of termsBatchSize and the (taxon, list)
+ * pairs are read with a composite aggregation, page by page. Composite buckets are sorted by
+ * taxon, so the lists of a taxon are complete when the next taxon starts and each taxon can be
+ * written out as soon as it is read. List metadata is read from Mongo once per distinct list.
+ */
+@Service
+public class TaxonListsService {
+    private static final Logger logger = LoggerFactory.getLogger(TaxonListsService.class);
+
+    private static final String PAIRS_AGG = "taxon_lists";
+    private static final String ITEM_AGG = "item";
+    private static final String TAXON_KEY = "taxon";
+    private static final String LIST_KEY = "list";
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private SpeciesListMongoRepository speciesListMongoRepository;
+
+    @Autowired
+    private AuthUtils authUtils;
+
+    @Value("${taxonLists.maxTaxa:100000}")
+    private int maxTaxa;
+
+    @Value("${taxonLists.termsBatchSize:10000}")
+    private int termsBatchSize;
+
+    @Value("${taxonLists.compositePageSize:1000}")
+    private int compositePageSize;
+
+    /**
+     * @throws IllegalArgumentException if no taxa or more than maxTaxa taxa are requested
+     */
+    public void validate(TaxonListsQuery query) {
+        int requested = distinct(query.getTaxonConceptIDs()).size() + distinct(query.getTaxonIDs()).size();
+        if (requested == 0) {
+            throw new IllegalArgumentException("At least one taxonConceptID or taxonID is required");
+        }
+        if (requested > maxTaxa) {
+            throw new IllegalArgumentException("A maximum of " + maxTaxa + " taxa can be requested at once");
+        }
+    }
+
+    /**
+     * Sends the lists of each requested taxon that is in at least one list the user can see to
+     * the sink, taxonConceptIDs first and then taxonIDs.
+     *
+     * @throws IllegalArgumentException if the query is not valid, see validate
+     */
+    public void streamTaxonLists(TaxonListsQuery query, Principal principal, Consumer<TaxonLists> sink) {
+        validate(query);
+        Set<String> taxonConceptIDs = distinct(query.getTaxonConceptIDs());
+        Set<String> taxonIDs = distinct(query.getTaxonIDs());
+
+        List<String> fields = query.getFields() != null ? query.getFields() : List.of();
+        Map<String, SpeciesList> lists = new HashMap<>();
+
+        streamTaxa("classification.taxonConceptID.keyword", new ArrayList<>(taxonConceptIDs), true,
+                fields, principal, lists, sink);
+        streamTaxa("taxonID.keyword", new ArrayList<>(taxonIDs), false, fields, principal, lists, sink);
+
+        logger.debug("Looked up {} taxa across {} lists", taxonConceptIDs.size() + taxonIDs.size(), lists.size());
+    }
+
+    private void streamTaxa(String field, List<String> taxa, boolean byConceptID, List<String> fields,
+            Principal principal, Map<String, SpeciesList> lists, Consumer<TaxonLists> sink) {
+        for (int from = 0; from < taxa.size(); from += termsBatchSize) {
+            List<FieldValue> batch = taxa.subList(from, Math.min(from + termsBatchSize, taxa.size()))
+                    .stream().map(FieldValue::of).toList();
+
+            TaxonLists current = null;
+            Map<String, FieldValue> after = null;
+            do {
+                CompositeAggregate pairs = searchPairs(field, batch, fields, principal, after);
+                List<CompositeBucket> buckets = pairs.buckets().array();
+                fetchMissingLists(buckets, lists);
+
+                for (CompositeBucket bucket : buckets) {
+                    String taxon = bucket.key().get(TAXON_KEY).stringValue();
+                    SpeciesList speciesList = lists.get(bucket.key().get(LIST_KEY).stringValue());
+                    if (speciesList == null) {
+                        // the list has been deleted but its items are still in the index
+                        continue;
+                    }
+
+                    if (current == null || !taxon.equals(byConceptID ? current.getTaxonConceptID() : current.getTaxonID())) {
+                        if (current != null) {
+                            sink.accept(current);
+                        }
+                        current = new TaxonLists();
+                        if (byConceptID) {
+                            current.setTaxonConceptID(taxon);
+                        } else {
+                            current.setTaxonID(taxon);
+                        }
+                    }
+                    current.getLists().add(toMembership(speciesList, bucket, fields));
+                }
+
+                after = buckets.size() < compositePageSize ? null : pairs.afterKey();
+            } while (after != null && !after.isEmpty());
+
+            if (current != null) {
+                sink.accept(current);
+            }
+        }
+    }
+
+    private CompositeAggregate searchPairs(String field, List<FieldValue> taxa, List<String> fields,
+            Principal principal, Map<String, FieldValue> after) {
+        Aggregation pairsAgg = Aggregation.of(a -> {
+            Aggregation.Builder.ContainerBuilder container = a.composite(c -> {
+                c.size(compositePageSize)
+                        .sources(List.of(
+                                Map.of(TAXON_KEY, CompositeAggregationSource.of(s -> s.terms(t -> t.field(field)))),
+                                Map.of(LIST_KEY, CompositeAggregationSource.of(s -> s.terms(t -> t.field("speciesListID.keyword"))))));
+                if (after != null) {
+                    c.after(after);
+                }
+                return c;
+            });
+            if (!fields.isEmpty()) {
+                container.aggregations(ITEM_AGG, sub -> sub.topHits(th -> th
+                        .size(1)
+                        .source(src -> src.filter(f -> f.includes("properties")))));
+            }
+            return container;
+        });
+
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(q -> q.bool(bq -> {
+                    bq.filter(f -> f.terms(t -> t.field(field).terms(ta -> ta.value(taxa))));
+                    applyAccessFilter(principal, bq);
+                    return bq;
+                }))
+                .withMaxResults(0)
+                .withAggregation(PAIRS_AGG, pairsAgg)
+                .build();
+
+        SearchHits<SpeciesListIndex> hits = elasticsearchOperations.search(query, SpeciesListIndex.class);
+        ElasticsearchAggregations aggregations = (ElasticsearchAggregations) hits.getAggregations();
+        return aggregations.aggregationsAsMap().get(PAIRS_AGG).aggregation().getAggregate().composite();
+    }
+
+    /**
+     * Same rules as /v2/speciesList/byGuid: anonymous users see public lists, other users see
+     * public lists and their own private lists, admins and internal clients see all lists.
+     */
+    private void applyAccessFilter(Principal principal, BoolQuery.Builder bq) {
+        AlaUserProfile profile = authUtils.getUserProfile(principal);
+        if (!authUtils.isAuthenticated(principal)) {
+            bq.filter(f -> f.term(t -> t.field("isPrivate").value(false)));
+        } else if (!authUtils.hasAdminRole(profile) && !authUtils.hasInternalScope(profile)) {
+            if (profile.getUserId() != null) {
+                bq.filter(f -> f.bool(b -> b
+                        .should(s -> s.bool(b2 -> b2
+                                .must(m -> m.term(t -> t.field("owner").value(profile.getUserId())))
+                                .must(m -> m.term(t -> t.field("isPrivate").value(true)))))
+                        .should(s -> s.term(t -> t.field("isPrivate").value(false)))));
+            } else {
+                bq.filter(f -> f.term(t -> t.field("isPrivate").value(false)));
+            }
+        }
+    }
+
+    private void fetchMissingLists(List<CompositeBucket> buckets, Map<String, SpeciesList> lists) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (CompositeBucket bucket : buckets) {
+            String speciesListID = bucket.key().get(LIST_KEY).stringValue();
+            if (!lists.containsKey(speciesListID)) {
+                missing.add(speciesListID);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        speciesListMongoRepository.findAllById(missing).forEach(list -> lists.put(list.getId(), list));
+        // remember lists that no longer exist, so they are not looked up again
+        missing.forEach(id -> lists.putIfAbsent(id, null));
+    }
+
+    private TaxonLists.Membership toMembership(SpeciesList speciesList, CompositeBucket bucket, List<String> fields) {
+        Map<String, String> kvps = null;
+        if (!fields.isEmpty() && bucket.aggregations().containsKey(ITEM_AGG)) {
+            kvps = new LinkedHashMap<>();
+            List<Hit<JsonData>> hits = bucket.aggregations().get(ITEM_AGG).topHits().hits().hits();
+            if (!hits.isEmpty() && hits.get(0).source() != null) {
+                SpeciesListIndex item = hits.get(0).source().to(SpeciesListIndex.class);
+                if (item.getProperties() != null) {
+                    for (KeyValue kv : item.getProperties()) {
+                        if (fields.contains(kv.getKey())) {
+                            kvps.put(kv.getKey(), kv.getValue());
+                        }
+                    }
+                }
+            }
+        }
+        return TaxonLists.Membership.of(speciesList, kvps);
+    }
+
+    private static Set<String> distinct(List<String> values) {
+        Set<String> distinct = new LinkedHashSet<>();
+        if (values != null) {
+            values.stream().filter(v -> v != null && !v.isBlank()).map(String::trim).forEach(distinct::add);
+        }
+        return distinct;
+    }
+}
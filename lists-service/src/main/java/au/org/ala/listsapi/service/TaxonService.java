@@ -1,8 +1,14 @@
 package au.org.ala.listsapi.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -15,7 +21,15 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +37,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.elasticsearch.BulkFailureException;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
@@ -31,21 +44,28 @@ import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
-import org.springframework.data.elasticsearch.core.query.IndexQuery;
-import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
 
 import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.IndexDeadLetter;
 import au.org.ala.listsapi.model.KeyValue;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListIndex;
 import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.IndexDeadLetterMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import au.org.ala.listsapi.util.ElasticBulkWriter;
 import au.org.ala.names.ws.api.NameMatchService;
 import au.org.ala.names.ws.api.NameSearch;
 import au.org.ala.names.ws.api.NameUsageMatch;
@@ -61,6 +81,8 @@ public class TaxonService {
 
     private static final Logger logger = LoggerFactory.getLogger(TaxonService.class);
     public static final String SPECIES_LIST_ID = "speciesListID";
+    public static final String INDEX_NAME = "species-lists";
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson");
     
     @Value("${namematching.url:https://namematching-ws.ala.org.au}")
     private String nameMatchingServiceUrl;
@@ -95,6 +117,12 @@ public class TaxonService {
     @Value("${namematching.dataCacheConfig.suppressExceptions:false}")
     private boolean cacheSuppressExceptions;
 
+    @Value("${elastic.bulk.maxRetries:3}")
+    private int bulkMaxRetries;
+
+    @Value("${elastic.bulk.retryBackoffMs:1000}")
+    private long bulkRetryBackoffMs;
+
     @Autowired
     protected SpeciesListItemMongoRepository speciesListItemMongoRepository;
     
@@ -110,6 +138,23 @@ public class TaxonService {
     @Autowired
     protected SearchHelperService searchHelperService;
 
+    @Autowired
+    protected MongoTemplate mongoTemplate;
+
+    @Autowired
+    protected RestClient elasticsearchRestClient;
+
+    @Autowired
+    protected IndexDeadLetterMongoRepository indexDeadLetterMongoRepository;
+
+    @Autowired
+    protected SpeciesListMetadataIndexService speciesListMetadataIndexService;
+
+    @Autowired
+    protected SearchCacheService searchCacheService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
     private NameMatchService nameMatchService;
     private ExecutorService executorService;
     private Semaphore rateLimiter;
@@ -288,74 +333,149 @@ public class TaxonService {
                 allLists.size(), minutes, seconds, overallElapsed);
     }
 
-    private void bulkIndexSafe(List<IndexQuery> updateList, SpeciesList list) {
+    /**
+     * Sends the bulk body and handles per-document failures. Documents rejected with a retryable
+     * status (429, 503, 504) and requests that fail with a transport error are resent with
+     * exponential backoff, and only the failed documents are included in each retry. Documents
+     * that still fail are recorded in the indexDeadLetters collection for inspection and replay.
+     *
+     * @return the number of documents indexed
+     */
+    private int bulkIndexSafe(ElasticBulkWriter writer, SpeciesList list) {
         long startTime = System.nanoTime();
-        logger.info("[{}|reindex|bulkIndex] Indexing {} items", list.getId(), updateList.size());
-        try {
-            elasticsearchOperations.bulkIndex(updateList, SpeciesListIndex.class);
-            progressService.addIngestElasticProgress(list.getId(), updateList.size());
-        } catch (BulkFailureException e) {
-            logger.error("[{}|reindex|bulkIndex] Indexing error: {}", list.getId(), e.getMessage());
+        int size = writer.size();
+        logger.info("[{}|reindex|bulkIndex] Indexing {} items", list.getId(), size);
+
+        List<Integer> pending = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            pending.add(i);
+        }
+        byte[] body = writer.getBuffer();
+        int length = writer.getLength();
+
+        int indexed = 0;
+        int attempt = 0;
+        Map<Integer, BulkFailure> failures = new LinkedHashMap<>();
+        while (!pending.isEmpty()) {
+            attempt++;
+            Map<Integer, BulkFailure> retryable = new LinkedHashMap<>();
+            try {
+                Request request = new Request("POST", "/_bulk");
+                request.setEntity(new ByteArrayEntity(body, 0, length, NDJSON));
+                Response response = elasticsearchRestClient.performRequest(request);
+
+                JsonNode result;
+                try (InputStream content = response.getEntity().getContent()) {
+                    result = objectMapper.readTree(content);
+                }
 
-            Set<String> failedIds = e.getFailedDocuments().keySet();
-            logger.error(" -- FAILED IDS --");
-            logger.error(failedIds.toString(), e);
+                JsonNode items = result.path("items");
+                for (int i = 0; i < pending.size(); i++) {
+                    JsonNode action = items.path(i).path("index");
+                    if (!action.has("error")) {
+                        indexed++;
+                        continue;
+                    }
+                    BulkFailure failure = new BulkFailure(action.path("status").asInt(),
+                            action.path("error").path("type").asText(null),
+                            action.path("error").path("reason").asText(null));
+                    (isRetryable(failure.status) ? retryable : failures).put(pending.get(i), failure);
+                }
+            } catch (IOException e) {
+                // the whole request failed, e.g. a timeout or a 429 for the entire bulk request
+                int status = e instanceof ResponseException re ? re.getResponse().getStatusLine().getStatusCode() : 0;
+                BulkFailure failure = new BulkFailure(status, e.getClass().getSimpleName(), e.getMessage());
+                Map<Integer, BulkFailure> target = status == 0 || isRetryable(status) ? retryable : failures;
+                pending.forEach(position -> target.put(position, failure));
+            }
 
+            if (retryable.isEmpty()) {
+                break;
+            }
+            if (attempt > bulkMaxRetries) {
+                failures.putAll(retryable);
+                break;
+            }
+
+            long backoff = bulkRetryBackoffMs * (1L << (attempt - 1));
+            logger.warn("[{}|reindex|bulkIndex] {} of {} documents failed with a retryable error, retry {} of {} in {}ms",
+                    list.getId(), retryable.size(), size, attempt, bulkMaxRetries, backoff);
             try {
-                Optional<IndexQuery> failedItem = updateList.stream().filter(item -> failedIds.contains(item.getId()))
-                        .findFirst();
-                ObjectMapper mapper = new ObjectMapper();
-
-                logger.error(" -- FAILED DOCUMENT EXAMPLE --");
-                logger.error(mapper.writeValueAsString(failedItem.get()));
-                logger.error(" -- FAILED DOCUMENTS --");
-            } catch (JsonProcessingException ex) {
-                logger.error("Failed to write update list to console", ex);
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.putAll(retryable);
+                break;
             }
+
+            pending = new ArrayList<>(retryable.keySet());
+            body = writer.toBulkBody(pending);
+            length = body.length;
         }
+
+        progressService.addIngestElasticProgress(list.getId(), indexed);
+        searchCacheService.invalidate();
+        if (!failures.isEmpty()) {
+            logger.error("[{}|reindex|bulkIndex] Indexing error: {} of {} documents failed, recorded as dead letters. Example error: {}",
+                    list.getId(), failures.size(), size, failures.values().iterator().next());
+            saveDeadLetters(writer, list, failures, attempt);
+            progressService.addIngestElasticFailures(list.getId(), failures.size());
+        }
+
         long elapsed = System.nanoTime() - startTime;
         logger.info(
-                "[{}|reindex|bulkIndex] Indexing " + updateList.size() + " items took " + (elapsed / 1000000) + "ms",
+                "[{}|reindex|bulkIndex] Indexing " + size + " items took " + (elapsed / 1000000) + "ms",
                 list.getId());
+        return indexed;
+    }
+
+    private static boolean isRetryable(int status) {
+        return status == 429 || status == 503 || status == 504;
+    }
+
+    private void saveDeadLetters(ElasticBulkWriter writer, SpeciesList list, Map<Integer, BulkFailure> failures,
+            int attempts) {
+        Date now = new Date();
+        List<String> ids = failures.keySet().stream().map(writer.getIds()::get).toList();
+        Map<String, IndexDeadLetter> existing = new HashMap<>();
+        indexDeadLetterMongoRepository.findAllById(ids).forEach(letter -> existing.put(letter.getId(), letter));
+
+        List<IndexDeadLetter> letters = new ArrayList<>(failures.size());
+        failures.forEach((position, failure) -> {
+            String id = writer.getIds().get(position);
+            IndexDeadLetter letter = existing.getOrDefault(id, IndexDeadLetter.builder()
+                    .id(id)
+                    .speciesListID(list.getId())
+                    .created(now)
+                    .build());
+            letter.setStatus(failure.status);
+            letter.setErrorType(failure.type);
+            letter.setReason(failure.reason);
+            letter.setAttempts(letter.getAttempts() + attempts);
+            letter.setLastAttempt(now);
+            letters.add(letter);
+        });
+
+        try {
+            indexDeadLetterMongoRepository.saveAll(letters);
+        } catch (Exception e) {
+            logger.error("[{}|reindex|bulkIndex] Failed to save dead letters for ids {}: {}",
+                    list.getId(), ids, e.getMessage(), e);
+        }
     }
 
-    private SpeciesListIndex listItemToIndex(SpeciesList speciesList, SpeciesListItem speciesListItem) {
-        // write the data to Elasticsearch
-        return new SpeciesListIndex(
-                speciesListItem.getId().toString(),
-                speciesList.getDataResourceUid(),
-                speciesList.getTitle(),
-                speciesList.getListType(),
-                speciesListItem.getSpeciesListID(),
-                speciesList.getDescription(),
-                speciesList.getLicence(),
-                speciesListItem.getSuppliedName(),
-                speciesListItem.getScientificName(),
-                speciesListItem.getVernacularName(),
-                speciesListItem.getTaxonID(),
-                speciesListItem.getKingdom(),
-                speciesListItem.getPhylum(),
-                speciesListItem.getClasss(),
-                speciesListItem.getOrder(),
-                speciesListItem.getFamily(),
-                speciesListItem.getGenus(),
-                speciesListItem.getProperties(),
-                speciesListItem.getClassification(),
-                speciesList.getIsPrivate() != null ? speciesList.getIsPrivate() : false,
-                speciesList.getIsAuthoritative() != null ? speciesList.getIsAuthoritative() : false,
-                speciesList.getIsBIE() != null ? speciesList.getIsBIE() : false,
-                speciesList.getIsSDS() != null ? speciesList.getIsSDS() : false,
-                speciesList.getIsThreatened() != null ? speciesList.getIsThreatened() : false,
-                speciesList.getIsInvasive() != null ? speciesList.getIsInvasive() : false,
-                StringUtils.isNotEmpty(speciesList.getRegion()) || StringUtils.isNotEmpty(speciesList.getWkt()),
-                speciesList.getOwner(),
-                speciesList.getEditors(),
-                speciesList.getTags() != null ? speciesList.getTags() : new ArrayList<>(),
-                speciesList.getDateCreated() != null ? speciesList.getDateCreated().toString() : null,
-                speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().toString() : null,
-                speciesList.getLastUpdatedBy());
+    private record BulkFailure(int status, String type, String reason) {
     }
 
+    /**
+     * Reindex a single species list.
+     *
+     * Items are read from Mongo as raw BSON (projected to the indexed fields only) and written
+     * straight into the bulk request body, so no SpeciesListItem or SpeciesListIndex objects are
+     * created. The list-level fields are rendered once and shared by every item document.
+     *
+     * @param speciesListID the species list id or data resource uid
+     */
     public void reindex(String speciesListID) {
         logger.info("[{}|reindex] Starting indexing", speciesListID);
         int batchSize = bulkMatchBatchSize * 4; // larger batch for indexing
@@ -368,54 +488,135 @@ public class TaxonService {
         if (optionalSpeciesList.isEmpty())
             return;
 
-        SpeciesList speciesList = optionalSpeciesList.get();
+        indexItems(optionalSpeciesList.get(), null, null);
+        speciesListMetadataIndexService.indexList(optionalSpeciesList.get());
 
-        ObjectId lastId = null;
+        logger.info("[{}|reindex] Indexing complete.", speciesListID);
+    }
+
+    /**
+     * Indexes the items of a list with an _id in the range (afterId, toId]. Either bound may be
+     * null for an open range, so indexItems(list, null, null) indexes the whole list.
+     *
+     * @return the number of items sent to Elasticsearch
+     */
+    public long indexItems(SpeciesList speciesList, ObjectId afterId, ObjectId toId) {
+        String speciesListID = speciesList.getId();
+        int batchSize = bulkMatchBatchSize * 4; // larger batch for indexing
+
+        ElasticBulkWriter writer;
+        try {
+            writer = new ElasticBulkWriter(INDEX_NAME, speciesList);
+        } catch (IOException e) {
+            logger.error("reindex({}) exception: {}", speciesListID, e.getMessage(), e);
+            return 0;
+        }
+
+        MongoCollection<RawBsonDocument> collection = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(SpeciesListItem.class))
+                .withDocumentClass(RawBsonDocument.class);
+        Bson projection = Projections.include(new ArrayList<>(ElasticBulkWriter.PROJECTION_FIELDS));
+
+        ObjectId lastId = afterId;
+        long indexed = 0;
 
         boolean finished = false;
         while (!finished) {
             long startTime = System.nanoTime();
 
-            List<SpeciesListItem> speciesListItems;
-            // Use optimized batch fetching methods due to DocumentDB performance issues with $expr queries
-            if (lastId == null) {
-                speciesListItems = speciesListItemMongoRepository.findFirstBatch(
-                    speciesList.getId(), PageRequest.of(0, batchSize));
-            } else {
-                speciesListItems = speciesListItemMongoRepository.findNextBatchAfter(
-                    speciesList.getId(), lastId, PageRequest.of(0, batchSize));
+            // Keyset paging on _id, avoiding $expr which performs poorly on DocumentDB
+            List<Bson> conditions = new ArrayList<>();
+            conditions.add(Filters.eq(SPECIES_LIST_ID, speciesListID));
+            if (lastId != null) {
+                conditions.add(Filters.gt("_id", lastId));
+            }
+            if (toId != null) {
+                conditions.add(Filters.lte("_id", toId));
+            }
+
+            writer.reset();
+            try (MongoCursor<RawBsonDocument> cursor = collection.find(Filters.and(conditions))
+                    .projection(projection)
+                    .sort(Sorts.ascending("_id"))
+                    .limit(batchSize)
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    RawBsonDocument item = cursor.next();
+                    writer.add(item);
+                    lastId = item.getObjectId("_id").getValue();
+                }
+            } catch (IOException e) {
+                logger.error("reindex({}) exception: {}", speciesListID, e.getMessage(), e);
+                return indexed;
             }
 
             long elapsed = System.nanoTime() - startTime;
 
             logger.info("[{}|reindex] Fetched {} items in {} ms",
-                    speciesListID, speciesListItems.size(), elapsed / 1_000_000);
-
-            if (!speciesListItems.isEmpty()) {
-                List<IndexQuery> updateList = new ArrayList<>();
-                for (SpeciesListItem item : speciesListItems) {
-                    SpeciesListIndex indexItem = listItemToIndex(speciesList, item);
-                    updateList.add(
-                            new IndexQueryBuilder()
-                                    .withId(item.getId().toString())
-                                    .withObject(indexItem)
-                                    .build());
-                }
+                    speciesListID, writer.size(), elapsed / 1_000_000);
 
+            if (writer.size() > 0) {
                 try {
-                    bulkIndexSafe(updateList, speciesList);
-                    updateList.clear();
+                    indexed += bulkIndexSafe(writer, speciesList);
                 } catch (Exception e) {
                     logger.error("reindex({}) exception: {}", speciesListID, e.getMessage(), e);
                 }
+            }
 
-                lastId = speciesListItems.get(speciesListItems.size() - 1).getId();
-            } else {
-                finished = true;
+            finished = writer.size() < batchSize;
+        }
+
+        return indexed;
+    }
+
+    /**
+     * Indexes the given items of a list, e.g. to replay dead-lettered documents. Ids that no
+     * longer exist in Mongo are ignored.
+     *
+     * @return the number of items indexed
+     */
+    public long indexItemsById(SpeciesList speciesList, List<ObjectId> itemIds) {
+        String speciesListID = speciesList.getId();
+        int batchSize = bulkMatchBatchSize * 4;
+
+        ElasticBulkWriter writer;
+        try {
+            writer = new ElasticBulkWriter(INDEX_NAME, speciesList);
+        } catch (IOException e) {
+            logger.error("reindex({}) exception: {}", speciesListID, e.getMessage(), e);
+            return 0;
+        }
+
+        MongoCollection<RawBsonDocument> collection = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(SpeciesListItem.class))
+                .withDocumentClass(RawBsonDocument.class);
+        Bson projection = Projections.include(new ArrayList<>(ElasticBulkWriter.PROJECTION_FIELDS));
+
+        long indexed = 0;
+        for (int from = 0; from < itemIds.size(); from += batchSize) {
+            List<ObjectId> batch = itemIds.subList(from, Math.min(from + batchSize, itemIds.size()));
+
+            writer.reset();
+            try (MongoCursor<RawBsonDocument> cursor = collection
+                    .find(Filters.and(Filters.eq(SPECIES_LIST_ID, speciesListID), Filters.in("_id", batch)))
+                    .projection(projection)
+                    .batchSize(batchSize)
+                    .iterator()) {
+                while (cursor.hasNext()) {
+                    writer.add(cursor.next());
+                }
+            } catch (IOException e) {
+                logger.error("reindex({}) exception: {}", speciesListID, e.getMessage(), e);
+                return indexed;
+            }
+
+            if (writer.size() > 0) {
+                indexed += bulkIndexSafe(writer, speciesList);
             }
         }
 
-        logger.info("[{}|reindex] Indexing complete.", speciesListID);
+        return indexed;
     }
 
     public long taxonMatchDataset(String speciesListID) {
@@ -506,6 +707,26 @@ public class TaxonService {
         return distinctTaxa.size();
     }
 
+    /**
+     * Matches items stored under an ID other than the list's own, such as the items staged for a
+     * reload dry run, with the list's matching settings. Progress is not recorded.
+     */
+    public void taxonMatchItems(String itemsListID, SpeciesList speciesList) {
+        ObjectId lastId = null;
+        while (true) {
+            List<SpeciesListItem> items = lastId == null
+                    ? speciesListItemMongoRepository.findFirstBatch(itemsListID, PageRequest.of(0, bulkMatchBatchSize))
+                    : speciesListItemMongoRepository.findNextBatchAfter(itemsListID, lastId,
+                            PageRequest.of(0, bulkMatchBatchSize));
+            if (items.isEmpty()) {
+                break;
+            }
+            updateClassifications(items, speciesList);
+            searchHelperService.speciesListItemsBulkUpdate(items, List.of("classification"));
+            lastId = items.get(items.size() - 1).getId();
+        }
+    }
+
     /**
      * Update classifications for a list of species list items using multi-threaded lookups
      * 
@@ -878,6 +1099,9 @@ public class TaxonService {
             queryBuilder.withQuery(q -> q
                     .bool(b -> b.filter(f -> f.term(t -> t.field(SPECIES_LIST_ID + ".keyword").value(speciesListID)))));
 
+            // All items for a list are routed to the same shard
+            queryBuilder.withRoute(speciesListID);
+
             // Add a cardinality aggregation for distinct taxonConceptID
             queryBuilder.withAggregation(
                     "distinctTaxonConceptID",
@@ -31,12 +31,15 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.apache.commons.lang3.StringUtils;
+import org.bson.types.ObjectId;
 import org.gbif.dwc.terms.DwcTerm;
 import org.gbif.dwc.terms.Term;
 import org.gbif.dwc.terms.TermFactory;
@@ -44,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -57,6 +61,7 @@ import au.org.ala.listsapi.model.InputSpeciesList;
 import au.org.ala.listsapi.model.KeyValue;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.SpeciesListIndexCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListIndexElasticRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
@@ -73,6 +78,8 @@ public class UploadService {
     @Autowired
     protected SpeciesListIndexElasticRepository speciesListIndexElasticRepository;
     @Autowired
+    protected SpeciesListIndexCustomRepository speciesListIndexCustomRepository;
+    @Autowired
     protected TaxonService taxonService;
     @Autowired
     protected ReleaseService releaseService;
@@ -84,6 +91,10 @@ public class UploadService {
     protected ProgressService progressService;
     @Autowired
     protected SearchHelperService searchHelperService;
+    @Autowired
+    protected ChangeFeedService changeFeedService;
+    @Autowired
+    protected SnapshotService snapshotService;
     @Autowired(required = false)
     protected S3Service s3Service;
 
@@ -93,6 +104,12 @@ public class UploadService {
     @Value("${temp.dir:/tmp}")
     private String tempDir;
 
+    @Value("${changes.lagSeconds:60}")
+    private long changeFeedLagSeconds;
+
+    @Value("${staging.cleanup.maxAgeHours:24}")
+    private long stagingMaxAgeHours;
+
     private static final Set<String> NULL_VALUES = new HashSet<>();
 
     static {
@@ -108,6 +125,9 @@ public class UploadService {
 
     private static final Set<String> ACCEPTED_FILE_TYPES = Set.of("text/csv", "application/zip");
 
+    /** Prefix of the speciesListID of items staged for a reload dry run, which have no list */
+    public static final String STAGING_PREFIX = "staging-";
+
     private static final Pattern UUID_PATTERN = Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$");
 
     public static Set<String> getAcceptedFileTypes() {
@@ -135,8 +155,10 @@ public class UploadService {
             SpeciesList speciesList = optionalSpeciesList.get();
             String ID = speciesList.getId();
             logger.info("Deleting speciesListID " + speciesListID);
-            speciesListIndexElasticRepository.deleteSpeciesListItemBySpeciesListID(ID);
+            changeFeedService.recordListDeleted(speciesList);
+            speciesListIndexCustomRepository.deleteBySpeciesListID(ID);
             speciesListItemMongoRepository.deleteBySpeciesListID(ID);
+            snapshotService.deleteSnapshots(ID);
             speciesListMongoRepository.deleteById(ID);
             metadataService.deleteMeta(speciesList);
             
@@ -283,9 +305,11 @@ public class UploadService {
                 SpeciesList speciesList = optionalSpeciesList.get();
 
                 // delete from index
-                speciesListIndexElasticRepository.deleteSpeciesListItemBySpeciesListID(speciesList.getId());
+                speciesListIndexCustomRepository.deleteBySpeciesListID(speciesList.getId());
 
-                // delete from mongo
+                // delete from mongo, change feed consumers drop the old items
+                changeFeedService.recordListReset(speciesList);
+                snapshotService.recordBeforeReset(speciesList);
                 speciesListItemMongoRepository.deleteBySpeciesListID(speciesList.getId());
 
                 final SpeciesList ingestList = speciesList;
@@ -327,6 +351,74 @@ public class UploadService {
         }
     }
 
+    /**
+     * Loads the file into the items collection under a staging ID, as the items the list would
+     * have after a reload, without changing the list. The staged items are matched when match is
+     * set, and must be removed with deleteStaged. Ones that aren't are swept by
+     * deleteOrphanedStaging.
+     *
+     * @return the speciesListID of the staged items
+     */
+    public String stageReload(SpeciesList speciesList, String fileIdentifier, boolean match) throws Exception {
+        String stagingID = STAGING_PREFIX + UUID.randomUUID();
+        try {
+            String contentType = determineContentType(fileIdentifier);
+            IngestJob ingestJob = null;
+            if (s3Enabled) {
+                if ("text/csv".equals(contentType)) {
+                    ingestJob = ingestCSVS3(stagingID, fileIdentifier, false, true);
+                } else if ("application/zip".equals(contentType)) {
+                    ingestJob = ingestZipS3(stagingID, fileIdentifier, false, true);
+                }
+            } else {
+                File fileToLoad = new File(tempDir, fileIdentifier);
+                if ("text/csv".equals(contentType)) {
+                    ingestJob = ingestCSV(stagingID, fileToLoad, false, true);
+                } else if ("application/zip".equals(contentType)) {
+                    try (ZipFile zipFile = new ZipFile(fileToLoad)) {
+                        ingestJob = ingestZip(stagingID, zipFile, false, true);
+                    }
+                }
+            }
+            if (ingestJob == null) {
+                throw new Exception("File did not have a valid content type: " + fileIdentifier);
+            }
+
+            if (match) {
+                taxonService.taxonMatchItems(stagingID, speciesList);
+            }
+            logger.info("Staged {} rows of {} for a reload of species list {}", ingestJob.getRowCount(),
+                    fileIdentifier, speciesList.getId());
+            return stagingID;
+        } catch (Exception e) {
+            deleteStaged(stagingID);
+            throw e;
+        }
+    }
+
+    public void deleteStaged(String stagingID) {
+        if (stagingID.startsWith(STAGING_PREFIX)) {
+            speciesListItemMongoRepository.deleteBySpeciesListID(stagingID);
+        }
+    }
+
+    /**
+     * Deletes staged items older than staging.cleanup.maxAgeHours, left behind when a dry run
+     * stopped before it removed them, e.g. a response that timed out or a restart.
+     */
+    @Scheduled(fixedDelayString = "${staging.cleanup.intervalMs:3600000}")
+    public void deleteOrphanedStaging() {
+        try {
+            Date before = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(stagingMaxAgeHours));
+            long deleted = speciesListItemMongoRepository.deleteStagedCreatedBefore(before);
+            if (deleted > 0) {
+                logger.info("Deleted {} orphaned staged items", deleted);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to delete orphaned staged items: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Uploads and ingests a file, returning the IngestJob details.
      * Called from the controller after upload.
@@ -571,8 +663,9 @@ public class UploadService {
                 logger.warn("UTF-8 parsing failed for list {}, falling back to Windows-1252", speciesListID);
                 if (!dryRun && speciesListID != null) {
                     // Cleanup any partially inserted records before retrying
+                    speciesListMongoRepository.findById(speciesListID).ifPresent(changeFeedService::recordListReset);
                     speciesListItemMongoRepository.deleteBySpeciesListID(speciesListID);
-                    speciesListIndexElasticRepository.deleteSpeciesListItemBySpeciesListID(speciesListID);
+                    speciesListIndexCustomRepository.deleteBySpeciesListID(speciesListID);
                 }
                 try (InputStream is2 = streamProvider.get()) {
                     return loadCSV(speciesListID, is2, dryRun, skipIndexing, isMigration, java.nio.charset.Charset.forName("windows-1252"));
@@ -601,7 +694,9 @@ public class UploadService {
             java.nio.charset.Charset charset)
             throws Exception {
 
-        if (!dryRun && speciesListID != null) {
+        // new items are recorded against the list's latest snapshot, if it has one
+        Integer snapshotVersion = null;
+        if (!dryRun && speciesListID != null && !speciesListID.startsWith(STAGING_PREFIX)) {
             long findByIdStart = System.nanoTime();
             Optional<SpeciesList> speciesList = speciesListMongoRepository.findById(speciesListID);
             long findByIdElapsed = (System.nanoTime() - findByIdStart) / 1000000;
@@ -609,6 +704,7 @@ public class UploadService {
             if (speciesList.isEmpty()) {
                 throw new Exception("Species list not found");
             }
+            snapshotVersion = speciesList.get().getSnapshotVersion();
         }
 
         int rowCount = 0;
@@ -724,7 +820,7 @@ public class UploadService {
 
                 // write to mongo
                 SpeciesListItem speciesListItem = new SpeciesListItem(
-                        null,
+                        new ObjectId(), // assigned here so the new items can be recorded against a snapshot
                         0,
                         speciesListID,
                         cleanField(taxonID),
@@ -747,7 +843,8 @@ public class UploadService {
 
                 if (batch.size() == 10000) {
                     long iteratorSavingStart = System.nanoTime();
-                    searchHelperService.speciesListItemsBulkSave(batch);
+                    saveItemBatch(speciesListID, batch);
+                    snapshotService.recordCreated(speciesListID, snapshotVersion, batch);
                     long iteratorSavingElapsed = (System.nanoTime() - iteratorSavingStart) / 1000000;
                     logger.info("[{}|loadCSV] Iterator saving took {}ms", speciesListID, iteratorSavingElapsed);
                     batch.clear();
@@ -760,7 +857,8 @@ public class UploadService {
 
         if (!batch.isEmpty()) {
             long batchSavingStart = System.nanoTime();
-            searchHelperService.speciesListItemsBulkSave(batch);
+            saveItemBatch(speciesListID, batch);
+            snapshotService.recordCreated(speciesListID, snapshotVersion, batch);
             long batchSavingElapsed = (System.nanoTime() - batchSavingStart) / 1000000;
             logger.info("[{}|loadCSV] Batch saving took {}ms", speciesListID, batchSavingElapsed);
             batch.clear();
@@ -811,6 +909,22 @@ public class UploadService {
         return ingestJob;
     }
 
+    /**
+     * Inserts a batch of new items. Their lastUpdated is set just before the insert rather than
+     * when each row was read, so the change feed, which holds back the last changes.lagSeconds,
+     * doesn't move its cursor past items of a batch that is still being written.
+     */
+    private void saveItemBatch(String speciesListID, List<SpeciesListItem> batch) {
+        Date lastUpdated = new Date();
+        batch.forEach(item -> item.setLastUpdated(lastUpdated));
+        searchHelperService.speciesListItemsBulkSave(batch);
+        long elapsed = System.currentTimeMillis() - lastUpdated.getTime();
+        if (elapsed > TimeUnit.SECONDS.toMillis(changeFeedLagSeconds)) {
+            logger.warn("[{}|loadCSV] Saving {} items took {}ms, longer than changes.lagSeconds, the change feed may have skipped some of them",
+                    speciesListID, batch.size(), elapsed);
+        }
+    }
+
     public static String cleanField(String value) {
         if (value == null || NULL_VALUES.contains(value.trim().toLowerCase())) {
             return null;
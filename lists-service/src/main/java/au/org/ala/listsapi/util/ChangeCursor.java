@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+
+package au.org.ala.listsapi.util;
+
+import java.io.IOException;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Position in the change feed. Changes are ordered by time and then by the id of the item or
+ * tombstone, and a cursor resumes after the change it points at. Clients treat the token as
+ * opaque: it is the URL-safe base64 of a small JSON document.
+ *
+ * @param time the time of the last change returned, in epoch milliseconds
+ * @param id   the id of the last change returned
+ */
+public record ChangeCursor(long time, String id) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** The largest id, the cursor of a time excludes every change at that time */
+    private static final String MAX_ID = "ffffffffffffffffffffffff";
+
+    /** @return a cursor that resumes after every change made at or before the time */
+    public static ChangeCursor after(long time) {
+        return new ChangeCursor(time, MAX_ID);
+    }
+
+    public ObjectId objectId() {
+        return new ObjectId(id);
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode change cursor", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a cursor returned by encode
+     */
+    public static ChangeCursor decode(String token) {
+        try {
+            ChangeCursor cursor = MAPPER.readValue(Base64.getUrlDecoder().decode(token.trim()), ChangeCursor.class);
+            if (cursor.id() == null || !ObjectId.isValid(cursor.id())) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+/**
+ * Copyright (c) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+
+package au.org.ala.listsapi.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import au.org.ala.listsapi.model.SpeciesList;
+
+/**
+ * Writes Elasticsearch bulk (NDJSON) request bodies for species list items directly from raw
+ * BSON, bypassing the SpeciesListItem -> SpeciesListIndex -> JSON mapping round trip.
+ *
+ * The list-level fields are rendered once per list into a JSON fragment and spliced into every
+ * item document. The resulting documents have the same shape as those written by Spring Data
+ * for SpeciesListIndex (field names, null handling and date formatting), so both paths can be
+ * used interchangeably against the same index.
+ */
+public class ElasticBulkWriter {
+
+    private static final String VERSION = "version";
+
+    /** Item fields copied from the listItems collection into the index document. */
+    public static final Set<String> ITEM_FIELDS = Set.of(
+            "speciesListID",
+            "suppliedName",
+            "scientificName",
+            "vernacularName",
+            "taxonID",
+            "kingdom",
+            "phylum",
+            "classs",
+            "order",
+            "family",
+            "genus",
+            "properties",
+            "classification");
+
+    /** Fields to project when reading listItems for indexing (the item fields plus the version). */
+    public static final Set<String> PROJECTION_FIELDS = Stream
+            .concat(ITEM_FIELDS.stream(), Stream.of(VERSION))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private static final String PROPERTIES = "properties";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    static {
+        // bulk bodies are newline delimited, the separators are written explicitly
+        JSON_FACTORY.setRootValueSeparator(null);
+    }
+
+    private final String indexName;
+    private final String routing;
+    private final String listFragment;
+    private final BulkBuffer buffer = new BulkBuffer();
+    private final List<String> ids = new ArrayList<>();
+    /** Start offset of each item's action line in the buffer, so failed items can be resent. */
+    private final List<Integer> offsets = new ArrayList<>();
+
+    /**
+     * @param indexName   the target index
+     * @param speciesList the list the items belong to, used for the denormalised list-level fields
+     */
+    public ElasticBulkWriter(String indexName, SpeciesList speciesList) throws IOException {
+        this.indexName = indexName;
+        this.routing = speciesList.getId();
+        this.listFragment = buildListFragment(speciesList);
+    }
+
+    /**
+     * Appends an index action and source document for the given raw listItems document.
+     */
+    public void add(RawBsonDocument item) throws IOException {
+        String id = item.getObjectId("_id").getValue().toHexString();
+        ids.add(id);
+        offsets.add(buffer.size());
+
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(buffer)) {
+            gen.writeStartObject();
+            gen.writeObjectFieldStart("index");
+            gen.writeStringField("_index", indexName);
+            gen.writeStringField("_id", id);
+            gen.writeStringField("routing", routing);
+            gen.writeEndObject();
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+
+            gen.writeStartObject();
+            // fragment ends with a separator, so the generator's own comma handling stays correct
+            gen.writeRaw(listFragment);
+            gen.writeStringField("id", id);
+            gen.writeNumberField(ElasticUtils.ITEM_CHECKSUM, ElasticUtils.itemChecksum(id, version(item)));
+
+            Map<String, String> propertiesMap = new LinkedHashMap<>();
+            BsonReader reader = item.asBsonReader();
+            try {
+                reader.readStartDocument();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String name = reader.readName();
+                    if (!ITEM_FIELDS.contains(name) || reader.getCurrentBsonType() == BsonType.NULL) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    gen.writeFieldName(name);
+                    if (PROPERTIES.equals(name) && reader.getCurrentBsonType() == BsonType.ARRAY) {
+                        writeProperties(reader, gen, propertiesMap);
+                    } else {
+                        writeValue(reader, gen);
+                    }
+                }
+                reader.readEndDocument();
+            } finally {
+                reader.close();
+            }
+
+            // flattened copy of the properties for single-request facets (see ElasticUtils.toPropertiesMap)
+            gen.writeObjectFieldStart(ElasticUtils.PROPERTIES_MAP);
+            for (Map.Entry<String, String> entry : propertiesMap.entrySet()) {
+                gen.writeStringField(entry.getKey(), entry.getValue());
+            }
+            gen.writeEndObject();
+
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+        }
+    }
+
+    private static Integer version(RawBsonDocument item) {
+        BsonValue version = item.get(VERSION);
+        return version != null && version.isNumber() ? version.asNumber().intValue() : null;
+    }
+
+    /** Ids of the documents added since the last reset, in bulk request order. */
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public byte[] getBuffer() {
+        return buffer.buffer();
+    }
+
+    public int getLength() {
+        return buffer.size();
+    }
+
+    /**
+     * Copies the action and source lines of the given items (positions in bulk request order) into
+     * a new bulk body, used to resend only the items that failed.
+     */
+    public byte[] toBulkBody(List<Integer> positions) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int position : positions) {
+            int start = offsets.get(position);
+            int end = position + 1 < offsets.size() ? offsets.get(position + 1) : buffer.size();
+            out.write(buffer.buffer(), start, end - start);
+        }
+        return out.toByteArray();
+    }
+
+    public void reset() {
+        buffer.reset();
+        ids.clear();
+        offsets.clear();
+    }
+
+    /**
+     * Writes the properties array of key/value documents, collecting the pairs for propertiesMap.
+     */
+    private static void writeProperties(BsonReader reader, JsonGenerator gen, Map<String, String> propertiesMap)
+            throws IOException {
+        reader.readStartArray();
+        gen.writeStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                writeValue(reader, gen);
+                continue;
+            }
+            String key = null;
+            String value = null;
+            reader.readStartDocument();
+            gen.writeStartObject();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                String name = reader.readName();
+                if ("_class".equals(name) || reader.getCurrentBsonType() == BsonType.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                gen.writeFieldName(name);
+                if (reader.getCurrentBsonType() == BsonType.STRING) {
+                    String text = reader.readString();
+                    gen.writeString(text);
+                    if ("key".equals(name)) {
+                        key = text;
+                    } else if ("value".equals(name)) {
+                        value = text;
+                    }
+                } else {
+                    writeValue(reader, gen);
+                }
+            }
+            reader.readEndDocument();
+            gen.writeEndObject();
+            if (StringUtils.isNotEmpty(key) && value != null) {
+                propertiesMap.putIfAbsent(key, value);
+            }
+        }
+        reader.readEndArray();
+        gen.writeEndArray();
+    }
+
+    private static void writeValue(BsonReader reader, JsonGenerator gen) throws IOException {
+        switch (reader.getCurrentBsonType()) {
+            case STRING -> gen.writeString(reader.readString());
+            case INT32 -> gen.writeNumber(reader.readInt32());
+            case INT64 -> gen.writeNumber(reader.readInt64());
+            case DOUBLE -> gen.writeNumber(reader.readDouble());
+            case DECIMAL128 -> gen.writeNumber(reader.readDecimal128().bigDecimalValue());
+            case BOOLEAN -> gen.writeBoolean(reader.readBoolean());
+            case NULL -> {
+                reader.readNull();
+                gen.writeNull();
+            }
+            case OBJECT_ID -> gen.writeString(reader.readObjectId().toHexString());
+            case DATE_TIME -> gen.writeNumber(reader.readDateTime());
+            case DOCUMENT -> {
+                reader.readStartDocument();
+                gen.writeStartObject();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    String name = reader.readName();
+                    if ("_class".equals(name) || reader.getCurrentBsonType() == BsonType.NULL) {
+                        reader.skipValue();
+                        continue;
+                    }
+                    gen.writeFieldName(name);
+                    writeValue(reader, gen);
+                }
+                reader.readEndDocument();
+                gen.writeEndObject();
+            }
+            case ARRAY -> {
+                reader.readStartArray();
+                gen.writeStartArray();
+                while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                    writeValue(reader, gen);
+                }
+                reader.readEndArray();
+                gen.writeEndArray();
+            }
+            default -> {
+                reader.skipValue();
+                gen.writeNull();
+            }
+        }
+    }
+
+    /**
+     * Renders the list-level fields of SpeciesListIndex as a JSON fragment (no enclosing braces,
+     * trailing comma), matching the values used when a SpeciesListIndex is built from a SpeciesList.
+     */
+    static String buildListFragment(SpeciesList speciesList) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.writeStartObject();
+            writeStringIfPresent(gen, "dataResourceUid", speciesList.getDataResourceUid());
+            writeStringIfPresent(gen, "speciesListName", speciesList.getTitle());
+            writeStringIfPresent(gen, "listType", speciesList.getListType());
+            writeStringIfPresent(gen, "description", speciesList.getDescription());
+            writeStringIfPresent(gen, "licence", speciesList.getLicence());
+            gen.writeBooleanField("isPrivate", Boolean.TRUE.equals(speciesList.getIsPrivate()));
+            gen.writeBooleanField("isAuthoritative", Boolean.TRUE.equals(speciesList.getIsAuthoritative()));
+            gen.writeBooleanField("isBIE", Boolean.TRUE.equals(speciesList.getIsBIE()));
+            gen.writeBooleanField("isSDS", Boolean.TRUE.equals(speciesList.getIsSDS()));
+            gen.writeBooleanField("isThreatened", Boolean.TRUE.equals(speciesList.getIsThreatened()));
+            gen.writeBooleanField("isInvasive", Boolean.TRUE.equals(speciesList.getIsInvasive()));
+            gen.writeBooleanField("hasRegion",
+                    StringUtils.isNotEmpty(speciesList.getRegion()) || StringUtils.isNotEmpty(speciesList.getWkt()));
+            writeStringIfPresent(gen, "owner", speciesList.getOwner());
+            writeStringArrayIfPresent(gen, "editors", speciesList.getEditors());
+            writeStringArrayIfPresent(gen, "tags",
+                    speciesList.getTags() != null ? speciesList.getTags() : new ArrayList<>());
+            writeStringIfPresent(gen, "dateCreated",
+                    speciesList.getDateCreated() != null ? speciesList.getDateCreated().toString() : null);
+            writeStringIfPresent(gen, "lastUpdated",
+                    speciesList.getLastUpdated() != null ? speciesList.getLastUpdated().toString() : null);
+            writeStringIfPresent(gen, "lastUpdatedBy", speciesList.getLastUpdatedBy());
+            gen.writeEndObject();
+        }
+
+        String object = out.toString(StandardCharsets.UTF_8);
+        // strip the braces and terminate with a separator for the item fields that follow
+        return object.substring(1, object.length() - 1) + ",";
+    }
+
+    private static void writeStringIfPresent(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    private static void writeStringArrayIfPresent(JsonGenerator gen, String name, List<String> values)
+            throws IOException {
+        if (values != null) {
+            gen.writeArrayFieldStart(name);
+            for (String value : values) {
+                gen.writeString(value);
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /** Exposes the backing array so the bulk body can be sent without another copy. */
+    private static class BulkBuffer extends ByteArrayOutputStream {
+        BulkBuffer() {
+            super(1 << 20);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,10 +30,12 @@ import org.bson.types.ObjectId;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import au.org.ala.listsapi.controller.AuthUtils;
 import au.org.ala.listsapi.model.Filter;
+import au.org.ala.listsapi.model.KeyValue;
 import au.org.ala.listsapi.model.SpeciesListIndex;
 import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.repo.ReleaseMongoRepository;
@@ -45,6 +48,7 @@ import au.org.ala.listsapi.service.ValidationService;
 import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.ChildScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 
 /** GraphQL API for lists */
 @Component
@@ -107,7 +111,29 @@ public class ElasticUtils {
             "classification.vernacularName"          // classification.vernacularName.search
     );
 
+    /** Item fields matched by the legacy item search (see legacyItemSearchQuery) */
+    public static final List<String> LEGACY_SEARCH_FIELDS = List.of(
+            "suppliedName",
+            "vernacularName",
+            "scientificName",
+            "classification.taxonConceptID",
+            "classification.kingdom",
+            "classification.phylum",
+            "classification.classs",
+            "classification.order",
+            "classification.family",
+            "classification.genus",
+            "classification.scientificName",
+            "classification.vernacularName"
+    );
+
     public static final String SPECIES_LIST_ID = "speciesListID";
+    /** Flattened copy of the item properties, keyed by property key, used for facets */
+    public static final String PROPERTIES_MAP = "propertiesMap";
+    /** Per item hash of id and version, summed per list to detect drift between Mongo and ES */
+    public static final String ITEM_CHECKSUM = "itemChecksum";
+    private static final int CHECKSUM_MODULUS = 1_048_573;
+
     @Autowired protected SpeciesListMongoRepository speciesListMongoRepository;
     @Autowired protected ReleaseMongoRepository releaseMongoRepository;
     @Autowired protected ElasticsearchOperations elasticsearchOperations;
@@ -119,6 +145,117 @@ public class ElasticUtils {
     @Autowired protected AuthUtils authUtils;
     @Autowired protected MetadataService metadataService;
 
+    /**
+     * Query for the items of a list with an id in the range (afterId, toId]. Item ids are
+     * ObjectId hex strings, so keyword order matches the _id order in Mongo. Either bound may
+     * be null for an open range.
+     */
+    public static Query idRangeQuery(String speciesListID, @Nullable String afterId, @Nullable String toId) {
+        return Query.of(q -> q.bool(b -> {
+            b.filter(f -> f.term(t -> t.field(SPECIES_LIST_ID).value(speciesListID)));
+            if (afterId != null || toId != null) {
+                b.filter(f -> f.range(r -> r.term(t -> {
+                    t.field("id");
+                    if (afterId != null) {
+                        t.gt(afterId);
+                    }
+                    if (toId != null) {
+                        t.lte(toId);
+                    }
+                    return t;
+                })));
+            }
+            return b;
+        }));
+    }
+
+    /**
+     * Query for the legacy item search: items of the given lists where one of the
+     * LEGACY_SEARCH_FIELDS contains the search text, or a property value has a phrase starting
+     * with it, case insensitively. Names are matched on their ".search" subfields, which are
+     * indexed as 2-grams, with a phrase of the 2-grams of the text, so a substring is found
+     * without scanning the terms dictionary as a regexp would. Property values are matched with
+     * match_phrase_prefix on the analysed value. Unlike the Mongo $regex search this replaced,
+     * the text is not a regular expression (see legacySearchText). Text of a single character
+     * matches names starting with it. A blank or ".*" text matches all items of the lists, and an
+     * empty list of ids matches items of any list.
+     */
+    public static Query legacyItemSearchQuery(List<String> speciesListIDs, @Nullable String searchText) {
+        String text = searchText != null ? legacySearchText(searchText) : "";
+        return Query.of(q -> q.bool(b -> {
+            if (!speciesListIDs.isEmpty()) {
+                List<FieldValue> ids = speciesListIDs.stream().map(FieldValue::of).toList();
+                b.filter(f -> f.terms(t -> t.field(SPECIES_LIST_ID).terms(ta -> ta.value(ids))));
+            }
+            if (!text.isEmpty()) {
+                b.filter(f -> f.bool(ob -> {
+                    for (String field : LEGACY_SEARCH_FIELDS) {
+                        if (text.length() < 2) {
+                            ob.should(s -> s.prefix(p -> p.field(field).value(text).caseInsensitive(true)));
+                        } else {
+                            ob.should(s -> s.matchPhrase(mp -> mp.field(field + ".search").query(text)));
+                        }
+                    }
+                    ob.should(s -> s.nested(n -> n
+                            .path("properties")
+                            .query(nq -> nq.matchPhrasePrefix(mp -> mp.field("properties.value").query(text)))));
+                    return ob.minimumShouldMatch("1");
+                }));
+            } else {
+                b.must(m -> m.matchAll(ma -> ma));
+            }
+            return b;
+        }));
+    }
+
+    /**
+     * The text to search for in a legacy item search. Clients of the Mongo $regex search send
+     * plain text, optionally anchored or wrapped in ".*", so the anchors and wrapping ".*" are
+     * dropped, as are backslash escapes. Any other regular expression syntax is searched for
+     * literally.
+     */
+    public static String legacySearchText(String searchText) {
+        String text = searchText.trim();
+        if (text.startsWith("^")) {
+            text = text.substring(1);
+        }
+        if (text.endsWith("$") && !text.endsWith("\\$")) {
+            text = text.substring(0, text.length() - 1);
+        }
+        while (text.startsWith(".*")) {
+            text = text.substring(2);
+        }
+        while (text.endsWith(".*") && !text.endsWith("\\.*")) {
+            text = text.substring(0, text.length() - 2);
+        }
+        return text.replace("\\", "").trim();
+    }
+
+    /**
+     * Checksum for a single item, derived from its id and version. It is reduced modulo a prime
+     * below 2^20, so that the sum over a list stays below 2^53 and exact in an Elasticsearch sum
+     * aggregation (a double) for lists of up to 2^33 items.
+     */
+    public static int itemChecksum(String id, Integer version) {
+        return Math.floorMod(31 * id.hashCode() + (version != null ? version : 0), CHECKSUM_MODULUS);
+    }
+
+    /**
+     * Builds the flattened propertiesMap value for an item. Empty values are skipped and the
+     * first value wins for duplicated keys.
+     */
+    public static Map<String, String> toPropertiesMap(List<KeyValue> properties) {
+        Map<String, String> propertiesMap = new LinkedHashMap<>();
+        if (properties != null) {
+            for (KeyValue kv : properties) {
+                if (StringUtils.isNotEmpty(kv.getKey()) && kv.getValue() != null) {
+                    propertiesMap.putIfAbsent(kv.getKey(), kv.getValue());
+                }
+            }
+        }
+        return propertiesMap;
+    }
+
     public static SpeciesListItem convert(SpeciesListIndex index) {
         SpeciesListItem speciesListItem = new SpeciesListItem();
         speciesListItem.setId(new ObjectId(index.getId()));
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+package au.org.ala.listsapi.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * Uploads everything written to it to S3 with a multipart upload, sending each part as soon as
+ * it is full, so that large files are never held in memory or on disk. Closing the stream
+ * completes the upload. After a failure, call abort instead of close, so that a partial object
+ * is never created.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+
+    /** S3 rejects parts smaller than 5 MB, except for the last one */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String key;
+    private final String uploadId;
+    private final byte[] buffer;
+    private final List<CompletedPart> parts = new ArrayList<>();
+    private int position;
+    private boolean completed;
+    private boolean aborted;
+
+    public S3MultipartOutputStream(S3Client s3Client, String bucket, String key, String contentType, int partSize) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.key = key;
+        this.buffer = new byte[Math.max(partSize, MIN_PART_SIZE)];
+        this.uploadId = s3Client.createMultipartUpload(r -> r.bucket(bucket).key(key).contentType(contentType))
+                .uploadId();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[position++] = (byte) b;
+        if (position == buffer.length) {
+            uploadPart();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, buffer.length - position);
+            System.arraycopy(b, off, buffer, position, n);
+            position += n;
+            off += n;
+            len -= n;
+            if (position == buffer.length) {
+                uploadPart();
+            }
+        }
+    }
+
+    /**
+     * Completes the upload. The stream only counts as closed once the upload is complete, so when
+     * completing it fails, abort still discards the parts.
+     */
+    @Override
+    public void close() throws IOException {
+        if (completed || aborted) {
+            return;
+        }
+        // an empty object still needs one (empty) part
+        if (position > 0 || parts.isEmpty()) {
+            uploadPart();
+        }
+        s3Client.completeMultipartUpload(r -> r.bucket(bucket).key(key).uploadId(uploadId)
+                .multipartUpload(u -> u.parts(parts)));
+        completed = true;
+    }
+
+    /** Abandons the upload, discarding the parts sent so far. Does nothing once it is complete. */
+    public void abort() {
+        if (completed || aborted) {
+            return;
+        }
+        aborted = true;
+        s3Client.abortMultipartUpload(r -> r.bucket(bucket).key(key).uploadId(uploadId));
+    }
+
+    private void uploadPart() {
+        int partNumber = parts.size() + 1;
+        UploadPartResponse response = s3Client.uploadPart(
+                r -> r.bucket(bucket).key(key).uploadId(uploadId).partNumber(partNumber),
+                RequestBody.fromBytes(Arrays.copyOf(buffer, position)));
+        parts.add(CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build());
+        position = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (completed || aborted) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
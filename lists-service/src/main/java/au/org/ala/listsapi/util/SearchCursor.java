@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2025 Atlas of Living Australia
+ * All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ *
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ */
+
+package au.org.ala.listsapi.util;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Continuation token for paging through search results with an Elasticsearch point in time (PIT)
+ * and search_after. Clients treat the token as opaque: it is the URL-safe base64 of a small JSON
+ * document holding the PIT id, the sort values of the last hit returned, the total hits counted
+ * on the first page, the number of hits returned so far and a hash of the request parameters the
+ * cursor was created for.
+ *
+ * @param pitId       the point in time the pages are read from
+ * @param searchAfter the sort values of the last hit of the previous page
+ * @param total       the total hits, counted on the first page only
+ * @param read        the number of hits returned up to and including the previous page
+ * @param requestHash the hash of the request parameters, so a cursor can't be reused for another search
+ */
+public record SearchCursor(String pitId, List<Object> searchAfter, long total, long read, int requestHash) {
+
+    /** The cursor value that starts a new cursor search */
+    public static final String START = "*";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static boolean isStart(String cursor) {
+        return cursor == null || cursor.isBlank() || START.equals(cursor.trim());
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(this));
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode search cursor", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is not a cursor returned by encode
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            SearchCursor cursor = MAPPER.readValue(Base64.getUrlDecoder().decode(token.trim()), SearchCursor.class);
+            if (cursor.pitId() == null || cursor.searchAfter() == null || cursor.searchAfter().isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return cursor;
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
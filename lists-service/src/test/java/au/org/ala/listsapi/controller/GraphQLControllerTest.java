@@ -24,17 +24,28 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 
 import au.org.ala.listsapi.model.Facet;
+import au.org.ala.listsapi.model.FacetedPage;
 import au.org.ala.listsapi.model.Filter;
 import au.org.ala.listsapi.model.ListSearchContext;
 import au.org.ala.listsapi.model.SpeciesList;
 import au.org.ala.listsapi.model.SpeciesListItem;
 import au.org.ala.listsapi.model.InputSpeciesListItem;
+import au.org.ala.listsapi.service.ChangeFeedService;
+import au.org.ala.listsapi.service.MetadataService;
+import au.org.ala.listsapi.service.SearchCacheService;
 import au.org.ala.listsapi.service.SearchHelperService;
+import au.org.ala.listsapi.service.SnapshotService;
 import au.org.ala.listsapi.service.TaxonService;
+import au.org.ala.listsapi.service.ValidationService;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListIndexElasticRepository;
 import au.org.ala.ws.security.profile.AlaUserProfile;
+import graphql.GraphQLContext;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.language.SelectionSet;
+import graphql.schema.DataFetchingEnvironment;
 
 @ExtendWith(MockitoExtension.class)
 class GraphQLControllerTest {
@@ -57,6 +68,21 @@ class GraphQLControllerTest {
     @Mock
     private SpeciesListIndexElasticRepository speciesListIndexElasticRepository;
 
+    @Mock
+    private SearchCacheService searchCacheService;
+
+    @Mock
+    private SnapshotService snapshotService;
+
+    @Mock
+    private ChangeFeedService changeFeedService;
+
+    @Mock
+    private ValidationService validationService;
+
+    @Mock
+    private MetadataService metadataService;
+
     @Mock
     private Principal principal;
 
@@ -85,7 +111,7 @@ class GraphQLControllerTest {
                 .thenReturn(mockPage);
 
         Page<SpeciesList> result = graphQLController.lists(
-                "kangaroo", null, 0, 10, null, "relevance", false, "desc", principal);
+                "kangaroo", null, 0, 10, null, "relevance", false, "desc", principal, null);
 
         assertNotNull(result);
         verify(searchHelperService).searchSpeciesLists(any(ListSearchContext.class), any(PageRequest.class));
@@ -100,7 +126,7 @@ class GraphQLControllerTest {
         filters.add(new Filter("isPrivate", "true"));
 
         assertThrows(AccessDeniedException.class, () -> {
-            graphQLController.lists("kangaroo", filters, 0, 10, null, "relevance", true, "desc", principal);
+            graphQLController.lists("kangaroo", filters, 0, 10, null, "relevance", true, "desc", principal, null);
         });
     }
 
@@ -117,7 +143,7 @@ class GraphQLControllerTest {
                 .thenReturn(mockPage);
 
         Page<SpeciesList> result = graphQLController.lists(
-                "", null, 0, 10, "user123", "relevance", true, "desc", principal);
+                "", null, 0, 10, "user123", "relevance", true, "desc", principal, null);
 
         assertNotNull(result);
         verify(searchHelperService).searchSpeciesLists(argThat(context -> 
@@ -132,7 +158,7 @@ class GraphQLControllerTest {
         when(authUtils.hasInternalScope(userProfile)).thenReturn(false);
 
         assertThrows(AccessDeniedException.class, () -> {
-            graphQLController.lists("", null, 0, 10, "otherUser456", "relevance", false, "desc", principal);
+            graphQLController.lists("", null, 0, 10, "otherUser456", "relevance", false, "desc", principal, null);
         });
     }
 
@@ -147,12 +173,43 @@ class GraphQLControllerTest {
                 .thenReturn(mockFacets);
 
         List<Facet> result = graphQLController.facetSpeciesLists(
-                "birds", null, null, false, 0, 10, principal);
+                "birds", null, null, false, 0, 10, principal, null);
 
         assertNotNull(result);
         verify(searchHelperService).getFacetsForSpeciesLists(any(ListSearchContext.class));
     }
 
+    @Test
+    void testListsAndFacetsInOneOperation_SingleSearch() {
+        when(authUtils.getUserProfile(principal)).thenReturn(null);
+
+        OperationDefinition operation = OperationDefinition.newOperationDefinition()
+                .selectionSet(SelectionSet.newSelectionSet()
+                        .selection(new Field("lists"))
+                        .selection(new Field("facetSpeciesLists"))
+                        .build())
+                .build();
+        DataFetchingEnvironment env = mock(DataFetchingEnvironment.class);
+        when(env.getOperationDefinition()).thenReturn(operation);
+        when(env.getGraphQlContext()).thenReturn(GraphQLContext.newContext().build());
+
+        Page<SpeciesList> mockPage = new PageImpl<>(new ArrayList<>());
+        List<Facet> mockFacets = List.of(new Facet("listType", new ArrayList<>()));
+        when(searchHelperService.searchSpeciesListsWithFacets(any(ListSearchContext.class), any(PageRequest.class)))
+                .thenReturn(new FacetedPage<>(mockPage, mockFacets));
+
+        Page<SpeciesList> lists = graphQLController.lists(
+                "birds", null, 0, 10, null, "relevance", false, "desc", principal, env);
+        List<Facet> facets = graphQLController.facetSpeciesLists(
+                "birds", null, null, false, 0, 10, principal, env);
+
+        assertSame(mockPage, lists);
+        assertSame(mockFacets, facets);
+        verify(searchHelperService).searchSpeciesListsWithFacets(any(ListSearchContext.class), any(PageRequest.class));
+        verify(searchHelperService, never()).searchSpeciesLists(any(), any());
+        verify(searchHelperService, never()).getFacetsForSpeciesLists(any());
+    }
+
     @Test
     void testAddSpeciesListItem_HexId() {
         InputSpeciesListItem input = new InputSpeciesListItem();
@@ -292,4 +349,52 @@ class GraphQLControllerTest {
         verify(speciesListMongoRepository).save(list);
         verify(taxonService).reindex(listId);
     }
+
+    @Test
+    void testUpdateMetadata_MadePrivate_RecordsVisibilityChange() throws Exception {
+        SpeciesList list = updatableList(false);
+
+        SpeciesList result = updateVisibility(list, true);
+
+        assertTrue(result.getIsPrivate());
+        verify(changeFeedService).recordVisibilityChange(list);
+        verify(taxonService).reindex("list123");
+    }
+
+    @Test
+    void testUpdateMetadata_MadePublic_RecordsVisibilityChange() throws Exception {
+        SpeciesList list = updatableList(true);
+
+        SpeciesList result = updateVisibility(list, false);
+
+        assertFalse(result.getIsPrivate());
+        verify(changeFeedService).recordVisibilityChange(list);
+    }
+
+    @Test
+    void testUpdateMetadata_SameVisibility_RecordsNoChange() throws Exception {
+        SpeciesList list = updatableList(true);
+
+        updateVisibility(list, true);
+
+        verify(changeFeedService, never()).recordVisibilityChange(any());
+    }
+
+    private SpeciesList updatableList(boolean isPrivate) {
+        SpeciesList list = new SpeciesList();
+        list.setId("list123");
+        list.setTitle("Title");
+        list.setIsPrivate(isPrivate);
+        when(speciesListMongoRepository.findByIdOrDataResourceUid("list123", "list123"))
+                .thenReturn(Optional.of(list));
+        when(authUtils.isAuthorized(list, principal)).thenReturn(true);
+        when(validationService.isValueValid(any(), any())).thenReturn(true);
+        when(speciesListMongoRepository.save(any(SpeciesList.class))).thenAnswer(i -> i.getArgument(0));
+        return list;
+    }
+
+    private SpeciesList updateVisibility(SpeciesList list, boolean isPrivate) throws Exception {
+        return graphQLController.updateMetadata(list.getId(), list.getTitle(), null, null, null, null, null, null,
+                isPrivate, null, null, null, null, null, null, null, principal);
+    }
 }
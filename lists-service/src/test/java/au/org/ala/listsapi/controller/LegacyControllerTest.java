@@ -1,16 +1,28 @@
 package au.org.ala.listsapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.model.SpeciesListItemVersion1;
 import au.org.ala.listsapi.service.SearchHelperService;
 import au.org.ala.listsapi.service.SpeciesListLegacyService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.security.Principal;
 import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -21,6 +33,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @ExtendWith(MockitoExtension.class)
 class LegacyControllerTest {
@@ -72,4 +88,61 @@ class LegacyControllerTest {
         capturedQuery.getListType(),
         "ListType should be parsed correctly, removing 'eq:'");
   }
+
+  @Test
+  void getSpeciesListItemsByPath_streamsBatchesAsGzippedJsonArray() throws Exception {
+    JsonMapper mapper = JsonMapper.builder().disable(MapperFeature.DEFAULT_VIEW_INCLUSION).build();
+    ReflectionTestUtils.setField(legacyController, "objectMapper", mapper);
+
+    List<SpeciesListItem> firstBatch = List.of(new SpeciesListItem(), new SpeciesListItem());
+    List<SpeciesListItem> secondBatch = List.of(new SpeciesListItem());
+    when(searchHelperService.streamSpeciesListItems(
+            eq("dr1"), any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(List.of(firstBatch, secondBatch).iterator());
+    when(legacyService.convertListItemToVersion1(eq(firstBatch), eq(0), anyMap()))
+        .thenReturn(List.of(itemVersion1("a"), itemVersion1("b")));
+    when(legacyService.convertListItemToVersion1(eq(secondBatch), eq(2), anyMap()))
+        .thenReturn(List.of(itemVersion1("c")));
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    request.addHeader("Accept-Encoding", "gzip, deflate");
+    ResponseEntity<StreamingResponseBody> response =
+        legacyController.getSpeciesListItemsByPath(
+            "dr1", null, "speciesListID", null, null, 0, principal, request);
+
+    assertEquals(200, response.getStatusCode().value());
+    assertEquals("gzip", response.getHeaders().getFirst("Content-Encoding"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    JsonNode items =
+        mapper.readTree(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+
+    assertEquals(3, items.size());
+    assertEquals("a", items.get(0).get("name").asText());
+    assertEquals("c", items.get(2).get("name").asText());
+  }
+
+  @Test
+  void getSpeciesListItemsByPath_writesEmptyArrayWithoutGzip() throws Exception {
+    ReflectionTestUtils.setField(legacyController, "objectMapper", new JsonMapper());
+    when(searchHelperService.streamSpeciesListItems(
+            eq("dr1"), any(), any(), any(), any(), any(), any(), any()))
+        .thenReturn(Collections.emptyIterator());
+
+    ResponseEntity<StreamingResponseBody> response =
+        legacyController.getSpeciesListItemsByPath(
+            "dr1", null, "speciesListID", null, null, 0, principal, new MockHttpServletRequest());
+
+    assertFalse(response.getHeaders().containsKey("Content-Encoding"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    response.getBody().writeTo(out);
+    assertEquals("[]", out.toString());
+  }
+
+  private static SpeciesListItemVersion1 itemVersion1(String name) {
+    SpeciesListItemVersion1 item = new SpeciesListItemVersion1();
+    item.setName(name);
+    return item;
+  }
 }
@@ -15,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -26,6 +27,7 @@ import au.org.ala.listsapi.model.SpeciesListPage;
 import au.org.ala.listsapi.repo.SpeciesListCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
 import au.org.ala.listsapi.service.BiocacheService;
+import au.org.ala.listsapi.service.SearchCacheService;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 
 @ExtendWith(MockitoExtension.class)
@@ -49,6 +51,9 @@ class RESTControllerTest {
     @Mock
     private Principal principal;
 
+    @Spy
+    private SearchCacheService searchCacheService = new SearchCacheService();
+
     @InjectMocks
     private RESTController restController;
 
@@ -121,11 +126,11 @@ class RESTControllerTest {
         matchingList.setTitle("Eucalyptus");
 
         when(authUtils.isAuthenticated(principal)).thenReturn(false);
-        when(speciesListCustomRepository.findByExample(any(), eq("Eucalyptus"), any(Pageable.class)))
+        when(speciesListCustomRepository.findByExample(any(), eq("Eucalyptus"), any(Pageable.class), eq(true)))
                 .thenAnswer(invocation -> new PageImpl<>(List.of(matchingList), invocation.getArgument(2), 1));
 
         ResponseEntity<Object> response = restController.speciesLists(new au.org.ala.listsapi.model.RESTSpeciesListQuery(),
-                "Eucalyptus", "listName", "desc", 1, 10, principal);
+                "Eucalyptus", "listName", "desc", 1, 10, true, principal);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertInstanceOf(SpeciesListPage.class, response.getBody());
@@ -137,7 +142,7 @@ class RESTControllerTest {
         assertEquals(1, body.getLists().size());
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(speciesListCustomRepository).findByExample(any(), eq("Eucalyptus"), pageableCaptor.capture());
+        verify(speciesListCustomRepository).findByExample(any(), eq("Eucalyptus"), pageableCaptor.capture(), eq(true));
         assertTrue(pageableCaptor.getValue().getSort().getOrderFor("title").isDescending());
     }
 
@@ -145,7 +150,7 @@ class RESTControllerTest {
     void testSpeciesListQid_Found() throws Exception {
         when(speciesListMongoRepository.findByIdOrDataResourceUid("public123", "public123"))
                 .thenReturn(Optional.of(publicList));
-        when(biocacheService.getQidForSpeciesList("public123")).thenReturn("qid-12345");
+        when(biocacheService.getQidsForSpeciesList(publicList)).thenReturn(List.of("qid-12345"));
 
         ResponseEntity<Object> response = restController.speciesListQid("public123");
 
@@ -0,0 +1,55 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+
+class BiocacheServiceTest {
+
+    @Test
+    void testTermPrefersLsid() {
+        SpeciesListItem matched = SpeciesListItem.builder().scientificName("Acacia dealbata")
+                .classification(Classification.builder().taxonConceptID("urn:lsid:1").build()).build();
+        SpeciesListItem unmatched = SpeciesListItem.builder().scientificName("Acacia \"sp. 1\"").build();
+
+        assertEquals("lsid:urn:lsid:1", BiocacheService.term(matched));
+        assertEquals("raw_scientificName:\"Acacia \\\"sp. 1\\\"\"", BiocacheService.term(unmatched));
+        assertNull(BiocacheService.term(SpeciesListItem.builder().build()));
+    }
+
+    @Test
+    void testQueriesCoverEveryTerm() {
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        for (int i = 0; i < 7; i++) {
+            terms.add("lsid:" + i);
+        }
+
+        List<String> queries = BiocacheService.buildQueries(terms, 2, 5);
+
+        assertEquals(List.of(
+                "((lsid:0 OR lsid:1) OR (lsid:2 OR lsid:3) OR (lsid:4))",
+                "((lsid:5 OR lsid:6))"), queries);
+        assertTrue(BiocacheService.buildQueries(List.of(), 2, 5).isEmpty());
+    }
+
+    @Test
+    void testCacheKeyChangesWithVersion() {
+        Date updated = new Date(1000);
+        SpeciesList v1 = SpeciesList.builder().id("list1").version(1).lastUpdated(updated).build();
+        SpeciesList v2 = SpeciesList.builder().id("list1").version(2).lastUpdated(updated).build();
+
+        assertEquals(BiocacheService.cacheKey(v1), BiocacheService.cacheKey(new SpeciesList(v1)));
+        assertNotEquals(BiocacheService.cacheKey(v1), BiocacheService.cacheKey(v2));
+    }
+}
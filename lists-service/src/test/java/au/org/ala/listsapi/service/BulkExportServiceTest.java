@@ -0,0 +1,150 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.SpeciesList;
+
+@ExtendWith(MockitoExtension.class)
+class BulkExportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ExportService exportService;
+
+    @Mock
+    private ExportCacheService exportCacheService;
+
+    @InjectMocks
+    private BulkExportService bulkExportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkExportService, "parallelism", 2);
+        ReflectionTestUtils.setField(bulkExportService, "tempDir", tempDir.toString());
+        bulkExportService.init();
+        lenient().when(exportCacheService.isEnabled()).thenReturn(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkExportService.shutdown();
+    }
+
+    @Test
+    void testEntriesAreWrittenInListOrder() throws Exception {
+        doAnswer(invocation -> {
+            SpeciesList list = invocation.getArgument(0);
+            OutputStream out = invocation.getArgument(1);
+            out.write(("Supplied Name\n" + list.getId() + "\n").getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).writeCsv(any(SpeciesList.class), any(OutputStream.class));
+
+        List<SpeciesList> lists = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            lists.add(SpeciesList.builder().id("list" + i).dataResourceUid("dr" + i).build());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkExportService.writeZip(lists, out);
+
+        Map<String, String> entries = readZip(out.toByteArray());
+        assertEquals(List.of("lists.json", "dr0.csv", "dr1.csv", "dr2.csv", "dr3.csv", "dr4.csv"),
+                new ArrayList<>(entries.keySet()));
+        assertEquals("Supplied Name\nlist3\n", entries.get("dr3.csv"));
+        assertTrue(entries.get("lists.json").contains("\"file\":\"dr0.csv\""));
+        assertTrue(isEmpty(tempDir), "temporary exports are removed");
+    }
+
+    @Test
+    void testCollidingEntryNamesAreMadeUnique() throws Exception {
+        List<SpeciesList> lists = List.of(
+                SpeciesList.builder().id("list1").dataResourceUid("dr/1").build(),
+                SpeciesList.builder().id("list2").dataResourceUid("dr?1").build(),
+                SpeciesList.builder().id("list1").dataResourceUid("dr/1").build());
+
+        assertEquals(List.of("dr_1.csv", "dr_1-list2.csv", "dr_1-list1.csv"), BulkExportService.entryNames(lists));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkExportService.writeZip(lists, out);
+
+        Map<String, String> entries = readZip(out.toByteArray());
+        assertEquals(List.of("lists.json", "dr_1.csv", "dr_1-list2.csv", "dr_1-list1.csv"),
+                new ArrayList<>(entries.keySet()));
+        assertTrue(entries.get("lists.json").contains("\"file\":\"dr_1-list2.csv\""));
+    }
+
+    @Test
+    void testFailedExportFailsTheArchive() throws Exception {
+        doAnswer(invocation -> {
+            SpeciesList list = invocation.getArgument(0);
+            if ("list1".equals(list.getId())) {
+                throw new IOException("boom");
+            }
+            return null;
+        }).when(exportService).writeCsv(any(SpeciesList.class), any(OutputStream.class));
+
+        List<SpeciesList> lists = List.of(
+                SpeciesList.builder().id("list1").build(),
+                SpeciesList.builder().id("list2").build());
+
+        IOException e = assertThrows(IOException.class,
+                () -> bulkExportService.writeZip(lists, new ByteArrayOutputStream()));
+        assertEquals("boom", e.getMessage());
+    }
+
+    @Test
+    void testFlagCriteria() {
+        assertTrue(BulkExportService.flagCriteria(null).isEmpty());
+        assertEquals(2, BulkExportService.flagCriteria(
+                SpeciesList.builder().isAuthoritative(true).isSDS(false).build()).size());
+        assertEquals("dr_1_.csv", BulkExportService.entryName(SpeciesList.builder().dataResourceUid("dr/1?").build()));
+    }
+
+    private static boolean isEmpty(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.findAny().isEmpty();
+        }
+    }
+
+    private static Map<String, String> readZip(byte[] bytes) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
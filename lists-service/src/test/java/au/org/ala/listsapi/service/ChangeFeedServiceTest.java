@@ -0,0 +1,149 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.ChangeEvent;
+import au.org.ala.listsapi.model.ChangeTombstone;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.ChangeTombstoneMongoRepository;
+import au.org.ala.listsapi.util.ChangeCursor;
+import com.mongodb.client.result.UpdateResult;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeFeedServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ChangeTombstoneMongoRepository changeTombstoneMongoRepository;
+
+    @InjectMocks
+    private ChangeFeedService changeFeedService;
+
+    private final long now = System.currentTimeMillis();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(changeFeedService, "batchSize", 100);
+        ReflectionTestUtils.setField(changeFeedService, "lagSeconds", 0L);
+        ReflectionTestUtils.setField(changeFeedService, "maxLimit", 1000);
+    }
+
+    @Test
+    void testChangesAreMergedInTimeOrder() {
+        SpeciesListItem added = item(now - 3000, now - 3000);
+        SpeciesListItem updated = item(now - 10000, now - 1000);
+        ChangeTombstone deleted = ChangeTombstone.builder().id(new ObjectId()).speciesListID("list1")
+                .type(ChangeTombstone.Type.ITEM_DELETED).itemId("abc").deletedAt(new Date(now - 2000)).build();
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesListItem.class))).thenReturn(List.of(added, updated));
+        when(mongoTemplate.find(any(Query.class), eq(ChangeTombstone.class))).thenReturn(List.of(deleted));
+
+        List<ChangeEvent> events = new ArrayList<>();
+        ChangeFeedService.Result result = changeFeedService.stream("list1", ChangeCursor.after(now - 5000), 10, events::add);
+
+        assertEquals(List.of(ChangeEvent.ADDED, ChangeEvent.DELETED, ChangeEvent.UPDATED),
+                events.stream().map(ChangeEvent::getOp).toList());
+        assertEquals("abc", events.get(1).getId());
+        assertEquals(3, result.count());
+        assertFalse(result.more());
+        // the whole feed was read, the next call starts after it
+        assertTrue(result.cursor().time() >= updated.getLastUpdated().getTime());
+    }
+
+    @Test
+    void testLimitReturnsTheCursorOfTheLastChange() {
+        SpeciesListItem first = item(now - 3000, now - 3000);
+        SpeciesListItem second = item(now - 2000, now - 2000);
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesListItem.class))).thenReturn(List.of(first, second));
+        when(mongoTemplate.find(any(Query.class), eq(ChangeTombstone.class))).thenReturn(List.of());
+
+        List<ChangeEvent> events = new ArrayList<>();
+        ChangeFeedService.Result result = changeFeedService.stream("list1", ChangeCursor.after(now - 5000), 1, events::add);
+
+        assertEquals(1, events.size());
+        assertTrue(result.more());
+        assertEquals(new ChangeCursor(first.getLastUpdated().getTime(), first.getId().toHexString()), result.cursor());
+    }
+
+    @Test
+    void testCursorRoundTrip() {
+        ChangeCursor cursor = new ChangeCursor(now, new ObjectId().toHexString());
+
+        assertEquals(cursor, ChangeCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> ChangeCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> changeFeedService.validateLimit(0));
+        assertTrue(ChangeFeedService.isExpired(ChangeCursor.after(0)));
+    }
+
+    @Test
+    void testVisibilityChangeResetsThePublicFeedAndResendsTheItems() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").isPrivate(true).build();
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(SpeciesListItem.class)))
+                .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+
+        changeFeedService.recordVisibilityChange(speciesList);
+
+        ArgumentCaptor<ChangeTombstone> tombstone = ArgumentCaptor.forClass(ChangeTombstone.class);
+        verify(changeTombstoneMongoRepository).save(tombstone.capture());
+        assertEquals(ChangeTombstone.Type.LIST_RESET, tombstone.getValue().getType());
+        assertEquals(false, tombstone.getValue().getIsPrivate(), "The reset is in the public feed");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(SpeciesListItem.class));
+        assertEquals("list1", query.getValue().getQueryObject().get("speciesListID"));
+        Date touched = (Date) update.getValue().getUpdateObject().get("$set", Document.class).get("lastUpdated");
+        assertTrue(touched.after(tombstone.getValue().getDeletedAt()), "The items are resent after the reset");
+    }
+
+    @Test
+    void testPublicListIdsAreCachedWithinTheLag() {
+        ReflectionTestUtils.setField(changeFeedService, "lagSeconds", 60L);
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesList.class)))
+                .thenReturn(List.of(SpeciesList.builder().id("list1").build()));
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesListItem.class))).thenReturn(List.of());
+        when(mongoTemplate.find(any(Query.class), eq(ChangeTombstone.class))).thenReturn(List.of());
+
+        changeFeedService.stream(null, ChangeCursor.after(now - 600_000), 10, event -> { });
+        changeFeedService.stream(null, ChangeCursor.after(now - 600_000), 10, event -> { });
+
+        verify(mongoTemplate, times(1)).find(any(Query.class), eq(SpeciesList.class));
+    }
+
+    private static SpeciesListItem item(long created, long updated) {
+        return SpeciesListItem.builder()
+                .id(new ObjectId())
+                .speciesListID("list1")
+                .dateCreated(new Date(created))
+                .lastUpdated(new Date(updated))
+                .build();
+    }
+}
@@ -0,0 +1,158 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ColumnarExportServiceTest {
+
+    @Mock
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @InjectMocks
+    private ColumnarExportService columnarExportService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(columnarExportService, "rowGroupSize", 2);
+    }
+
+    @Test
+    void testTypeInference() {
+        assertEquals(ColumnarExportService.ColumnType.INTEGER, infer("1", "-20", ""));
+        assertEquals(ColumnarExportService.ColumnType.NUMBER, infer("1", "2.5"));
+        assertEquals(ColumnarExportService.ColumnType.BOOLEAN, infer("true", "FALSE", null));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("1", "one"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("NaN"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer(" ", null));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("0800", "2000"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("1.5", "007.5"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("1f"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("+5", "6"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("007", "8"));
+        assertEquals(ColumnarExportService.ColumnType.STRING, infer("+1.5"));
+        assertEquals(ColumnarExportService.ColumnType.NUMBER, infer("0", "0.5", "-0.25"));
+    }
+
+    @Test
+    void testValueEditedAfterInferenceIsWrittenAsNull() throws Exception {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").title("Test list")
+                .fieldList(List.of("count", "status")).build();
+        SpeciesListItem item = item("Acacia dealbata", "3", "E");
+        SpeciesListItem edited = item("Acacia dealbata", "three", "E");
+        edited.setId(item.getId());
+
+        // the first batch is read once to infer the types and again to write the rows
+        when(speciesListItemMongoRepository.findFirstExportBatch(eq("list1"), any(Pageable.class)))
+                .thenReturn(List.of(item), List.of(edited));
+        when(speciesListItemMongoRepository.findNextExportBatchAfter(eq("list1"), eq(item.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columnarExportService.write(List.of(speciesList), out);
+
+        List<JsonNode> lines = readLines(out.toByteArray());
+        assertEquals("integer", lines.get(0).get("columns").get(1).get("type").asText());
+        assertTrue(lines.get(1).get("columns").get(1).get(0).isNull(), "A value that no longer fits the schema is null");
+        assertEquals("E", lines.get(1).get("columns").get(2).get(0).asText());
+    }
+
+    @Test
+    void testSchemaAndRowGroups() throws Exception {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").title("Test list")
+                .fieldList(List.of("count", "status")).build();
+        SpeciesListItem first = item("Acacia dealbata", "3", "E");
+        SpeciesListItem second = item("Acacia baileyana", "", "V");
+        SpeciesListItem third = item("Eucalyptus regnans", "12", "E");
+        third.setClassification(Classification.builder().taxonConceptID("urn:lsid:3").build());
+
+        when(speciesListItemMongoRepository.findFirstExportBatch(eq("list1"), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(speciesListItemMongoRepository.findNextExportBatchAfter(eq("list1"), eq(second.getId()), any(Pageable.class)))
+                .thenReturn(List.of(third));
+        when(speciesListItemMongoRepository.findNextExportBatchAfter(eq("list1"), eq(third.getId()), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        columnarExportService.write(List.of(speciesList), out);
+
+        List<JsonNode> lines = readLines(out.toByteArray());
+        assertEquals(3, lines.size());
+
+        JsonNode columns = lines.get(0).get("columns");
+        assertEquals(2 + 1 + ExportService.CLASSIFICATION_HEADER_NAMES.length, columns.size());
+        assertEquals("suppliedName", columns.get(0).get("name").asText());
+        assertEquals("integer", columns.get(1).get("type").asText());
+        assertEquals("string", columns.get(2).get("type").asText());
+
+        JsonNode firstGroup = lines.get(1);
+        assertEquals(2, firstGroup.get("rows").asInt());
+        assertEquals(3, firstGroup.get("columns").get(1).get(0).asInt());
+        assertTrue(firstGroup.get("columns").get(1).get(1).isNull());
+
+        JsonNode secondGroup = lines.get(2);
+        assertEquals(1, secondGroup.get("rows").asInt());
+        assertEquals("Eucalyptus regnans", secondGroup.get("columns").get(0).get(0).asText());
+        assertEquals("urn:lsid:3", secondGroup.get("columns").get(3).get(0).asText());
+    }
+
+    private static ColumnarExportService.ColumnType infer(String... values) {
+        ColumnarExportService.TypeInference inference = new ColumnarExportService.TypeInference();
+        for (String value : values) {
+            inference.accept(value);
+        }
+        return inference.type();
+    }
+
+    private static SpeciesListItem item(String name, String count, String status) {
+        return SpeciesListItem.builder()
+                .id(new ObjectId())
+                .scientificName(name)
+                .properties(List.of(new KeyValue("count", count), new KeyValue("status", status)))
+                .build();
+    }
+
+    private static List<JsonNode> readLines(byte[] gzipped) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(gzipped)), StandardCharsets.UTF_8))) {
+            return reader.lines().map(line -> {
+                try {
+                    return mapper.readTree(line);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).toList();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.SpeciesList;
+
+@ExtendWith(MockitoExtension.class)
+class ExportCacheServiceTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Mock
+    private ExportService exportService;
+
+    @InjectMocks
+    private ExportCacheService exportCacheService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(exportCacheService, "enabled", true);
+        ReflectionTestUtils.setField(exportCacheService, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(exportCacheService, "maxSizeMb", 10L);
+        exportCacheService.init();
+
+        doAnswer(invocation -> {
+            SpeciesList list = invocation.getArgument(0);
+            OutputStream out = invocation.getArgument(1);
+            out.write(("name,v" + list.getVersion() + "\n").getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).writeCsv(any(SpeciesList.class), any(OutputStream.class));
+    }
+
+    @Test
+    void testExportIsStreamedAndCachedOncePerVersion() throws Exception {
+        SpeciesList v1 = SpeciesList.builder().id("list1").version(1).build();
+        assertNull(exportCacheService.getCachedExport(v1, ExportCacheService.Format.CSV));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportCacheService.writeExport(v1, ExportCacheService.Format.CSV, out);
+
+        assertEquals("name,v1\n", out.toString(StandardCharsets.UTF_8));
+        Path cached = exportCacheService.getCachedExport(v1, ExportCacheService.Format.CSV);
+        assertNotNull(cached);
+        assertEquals("name,v1\n", Files.readString(cached));
+        verify(exportService, times(1)).writeCsv(any(SpeciesList.class), any(OutputStream.class));
+    }
+
+    @Test
+    void testFailedExportIsNotCached() throws Exception {
+        SpeciesList v1 = SpeciesList.builder().id("list1").version(1).build();
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("client went away");
+            }
+        };
+
+        assertThrows(IOException.class,
+                () -> exportCacheService.writeExport(v1, ExportCacheService.Format.CSV, failing));
+
+        assertNull(exportCacheService.getCachedExport(v1, ExportCacheService.Format.CSV));
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testNewVersionEvictsOlderExport() throws Exception {
+        SpeciesList v1 = SpeciesList.builder().id("list1").version(1).build();
+        SpeciesList v2 = SpeciesList.builder().id("list1").version(2).build();
+
+        exportCacheService.writeExport(v1, ExportCacheService.Format.CSV, OutputStream.nullOutputStream());
+        Path old = exportCacheService.getCachedExport(v1, ExportCacheService.Format.CSV);
+        exportCacheService.writeExport(v2, ExportCacheService.Format.CSV, OutputStream.nullOutputStream());
+        Path current = exportCacheService.getCachedExport(v2, ExportCacheService.Format.CSV);
+
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(current));
+        assertEquals("name,v2\n", Files.readString(current));
+        assertNotEquals(ExportCacheService.etag(v1, ExportCacheService.Format.CSV),
+                ExportCacheService.etag(v2, ExportCacheService.Format.CSV));
+        assertNotEquals(ExportCacheService.etag(v2, ExportCacheService.Format.CSV),
+                ExportCacheService.etag(v2, ExportCacheService.Format.ZIP));
+    }
+}
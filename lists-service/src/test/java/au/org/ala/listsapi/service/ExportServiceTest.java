@@ -0,0 +1,55 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+
+class ExportServiceTest {
+
+    private static final List<String> FIELDS = List.of("status", "region", "notes");
+
+    @Test
+    void testMissingFieldsKeepTheirColumns() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").fieldList(FIELDS).build();
+        List<String> headers = ExportService.csvHeaders(speciesList);
+        Map<String, Integer> columnIndex = ExportService.columnIndex(FIELDS);
+
+        // properties out of header order, "region" missing and an extra property not in the field list
+        SpeciesListItem item = SpeciesListItem.builder()
+                .scientificName("Acacia dealbata")
+                .properties(List.of(new KeyValue("notes", "n1"), new KeyValue("other", "x"), new KeyValue("status", "E")))
+                .classification(Classification.builder().taxonConceptID("urn:lsid:1").kingdom("Plantae").build())
+                .build();
+
+        String[] row = ExportService.toRow(item, columnIndex, headers.size());
+
+        assertEquals(headers.size(), row.length);
+        assertArrayEquals(new String[] { "Acacia dealbata", "E", null, "n1" }, Arrays.copyOf(row, 4));
+        assertEquals("urn:lsid:1", row[headers.indexOf("guid")]);
+        assertEquals("Plantae", row[headers.indexOf("kingdom")]);
+    }
+
+    @Test
+    void testItemWithoutPropertiesOrClassification() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").fieldList(FIELDS).build();
+        List<String> headers = ExportService.csvHeaders(speciesList);
+
+        String[] row = ExportService.toRow(SpeciesListItem.builder().scientificName("Unmatched").build(),
+                ExportService.columnIndex(FIELDS), headers.size());
+
+        assertEquals(headers.size(), row.length);
+        assertEquals("Unmatched", row[0]);
+        assertNull(row[headers.indexOf("guid")]);
+    }
+}
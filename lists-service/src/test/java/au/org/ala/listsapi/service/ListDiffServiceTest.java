@@ -0,0 +1,199 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.ItemRevision;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.ListDiffEntry;
+import au.org.ala.listsapi.model.SpeciesListItem;
+
+class ListDiffServiceTest {
+
+    private final ListDiffService listDiffService = new ListDiffService();
+
+    @Test
+    void testDiffReportsAddedRemovedAndChangedItems() {
+        List<SpeciesListItem> from = List.of(
+                item("Acacia dealbata", "urn:1", new KeyValue("status", "Vulnerable")),
+                item("Banksia serrata", "urn:2", new KeyValue("status", "Endangered")),
+                item("Eucalyptus regnans", "urn:4", new KeyValue("status", "")));
+        List<SpeciesListItem> to = List.of(
+                item("Acacia dealbata", "urn:1", new KeyValue("status", "Vulnerable")),
+                item("Banksia serrata", "urn:2", new KeyValue("status", "Critically Endangered"),
+                        new KeyValue("source", "NSW")),
+                item("Callistemon citrinus", "urn:3", new KeyValue("status", "Common")),
+                item("Eucalyptus regnans", "urn:4"));
+
+        List<ListDiffEntry> entries = new ArrayList<>();
+        ListDiffService.Result result = listDiffService.diff(from.iterator(), to.iterator(),
+                ListDiffService.Key.TAXON_CONCEPT_ID, entries::add);
+
+        assertEquals(new ListDiffService.Result(1, 0, 1, 2), result);
+        assertEquals(List.of(ListDiffEntry.CHANGED, ListDiffEntry.ADDED),
+                entries.stream().map(ListDiffEntry::getOp).toList());
+
+        ListDiffEntry changed = entries.get(0);
+        assertEquals("urn:2", changed.getKey());
+        assertEquals(List.of(
+                new ListDiffEntry.ValueChange("status", "Endangered", "Critically Endangered"),
+                new ListDiffEntry.ValueChange("source", null, "NSW")), changed.getChanges());
+        assertEquals("Callistemon citrinus", entries.get(1).getScientificName());
+    }
+
+    @Test
+    void testUnmatchedItemsArePairedByScientificName() {
+        List<SpeciesListItem> from = List.of(
+                item("Acacia sp. A", null, new KeyValue("status", "Vulnerable")),
+                item("Banksia sp. B", null),
+                item("Acacia dealbata", "urn:1"));
+        List<SpeciesListItem> to = List.of(
+                item("Acacia sp. A", null, new KeyValue("status", "Endangered")),
+                item("Banksia sp. B", null),
+                item("Callistemon sp. C", null),
+                item("Acacia dealbata", "urn:1"));
+
+        List<ListDiffEntry> entries = new ArrayList<>();
+        ListDiffService.Result result = listDiffService.diff(from.iterator(), to.iterator(),
+                ListDiffService.Key.TAXON_CONCEPT_ID, entries::add);
+
+        assertEquals(new ListDiffService.Result(1, 0, 1, 2), result);
+        assertEquals(List.of(ListDiffEntry.CHANGED, ListDiffEntry.ADDED),
+                entries.stream().map(ListDiffEntry::getOp).toList());
+        assertEquals("Acacia sp. A", entries.get(0).getScientificName());
+        assertEquals("Callistemon sp. C", entries.get(1).getScientificName());
+    }
+
+    @Test
+    void testItemsWithoutAKeyAreNotPaired() {
+        List<SpeciesListItem> from = List.of(item(null, null), item("Acacia dealbata", "urn:1"));
+        List<SpeciesListItem> to = List.of(item(null, null), item("Acacia dealbata", "urn:1"));
+
+        List<ListDiffEntry> entries = new ArrayList<>();
+        ListDiffService.Result result = listDiffService.diff(from.iterator(), to.iterator(),
+                ListDiffService.Key.TAXON_CONCEPT_ID, entries::add);
+
+        assertEquals(new ListDiffService.Result(1, 1, 0, 1), result);
+        assertEquals(List.of(ListDiffEntry.REMOVED, ListDiffEntry.ADDED),
+                entries.stream().map(ListDiffEntry::getOp).toList());
+    }
+
+    @Test
+    void testUnmatchedItemsAreReadFirstByScientificName() {
+        ListDiffService service = new ListDiffService();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "batchSize", 10);
+
+        SpeciesListItem unmatched = item("Acacia sp. A", null);
+        SpeciesListItem matched = item("Acacia dealbata", "urn:1");
+        List<Query> queries = new ArrayList<>();
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesListItem.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            queries.add(query);
+            return queries.size() == 1 ? List.of(unmatched) : List.of(matched);
+        });
+
+        List<SpeciesListItem> items = new ArrayList<>();
+        service.items("list1", null, ListDiffService.Key.TAXON_CONCEPT_ID).forEachRemaining(items::add);
+
+        assertEquals(List.of(unmatched, matched), items);
+        assertEquals(List.of("scientificName", "_id"), new ArrayList<>(queries.get(0).getSortObject().keySet()));
+        assertTrue(queries.get(0).getQueryObject().containsKey("classification.taxonConceptID"));
+        assertEquals(List.of("classification.taxonConceptID", "_id"),
+                new ArrayList<>(queries.get(1).getSortObject().keySet()));
+    }
+
+    @Test
+    void testDuplicateKeysArePairedInOrder() {
+        List<SpeciesListItem> from = List.of(
+                item("Acacia dealbata", "urn:1", new KeyValue("site", "A")),
+                item("Acacia dealbata", "urn:1", new KeyValue("site", "B")));
+        List<SpeciesListItem> to = List.of(item("Acacia dealbata", "urn:1", new KeyValue("site", "A")));
+
+        List<ListDiffEntry> entries = new ArrayList<>();
+        ListDiffService.Result result = listDiffService.diff(from.iterator(), to.iterator(),
+                ListDiffService.Key.SCIENTIFIC_NAME, entries::add);
+
+        assertEquals(new ListDiffService.Result(0, 1, 0, 1), result);
+        assertEquals("Acacia dealbata", entries.get(0).getKey());
+    }
+
+    @Test
+    void testKeysCompareInMongoOrder() {
+        assertTrue(ListDiffService.compareKeys(null, "") < 0);
+        assertTrue(ListDiffService.compareKeys("Acacia", "Acacia dealbata") < 0);
+        assertEquals(0, ListDiffService.compareKeys("urn:1", "urn:1"));
+        // a supplementary character sorts after U+FFFD by UTF-8 bytes, before it by UTF-16 code units
+        assertTrue(ListDiffService.compareKeys("\uFFFD", "\uD83C\uDF3F") < 0);
+        assertThrows(IllegalArgumentException.class, () -> ListDiffService.Key.of("guid"));
+    }
+
+    @Test
+    void testRevisionsOfAnItemArePagedInVersionOrder() {
+        ListDiffService service = new ListDiffService();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+
+        ObjectId itemId = new ObjectId();
+        List<Query> pages = new ArrayList<>();
+        when(mongoTemplate.find(any(Query.class), eq(ItemRevision.class))).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(0);
+            if (query.getQueryObject().containsKey("itemId")) {
+                // the versions of the page's items
+                return List.of(revision(itemId, 1, null), revision(itemId, 2, null));
+            }
+            pages.add(query);
+            return pages.size() == 1
+                    ? List.of(revision(itemId, 1, item("Acacia dealbata", null, new KeyValue("status", "V"))),
+                            revision(itemId, 2, item("Acacia dealbata", null, new KeyValue("status", "E"))))
+                    : List.of();
+        });
+
+        List<SpeciesListItem> items = new ArrayList<>();
+        service.items("list1", 1, ListDiffService.Key.SCIENTIFIC_NAME).forEachRemaining(items::add);
+
+        assertEquals(1, items.size());
+        assertEquals("V", items.get(0).getProperties().get(0).getValue());
+        assertEquals(2, pages.size());
+        Query next = pages.get(1);
+        assertEquals(List.of("item.scientificName", "itemId", "snapshotVersion"),
+                new ArrayList<>(next.getSortObject().keySet()));
+        assertTrue(next.getQueryObject().toJson().contains("\"snapshotVersion\": {\"$gt\": 2}"),
+                "The next page starts after the last version of the last item");
+    }
+
+    private static ItemRevision revision(ObjectId itemId, int snapshotVersion, SpeciesListItem item) {
+        return ItemRevision.builder().speciesListID("list1").itemId(itemId).snapshotVersion(snapshotVersion)
+                .item(item).build();
+    }
+
+    private static SpeciesListItem item(String scientificName, String taxonConceptID, KeyValue... properties) {
+        SpeciesListItem item = new SpeciesListItem();
+        item.setId(new ObjectId());
+        item.setScientificName(scientificName);
+        item.setProperties(List.of(properties));
+        if (taxonConceptID != null) {
+            Classification classification = new Classification();
+            classification.setTaxonConceptID(taxonConceptID);
+            item.setClassification(classification);
+        }
+        return item;
+    }
+}
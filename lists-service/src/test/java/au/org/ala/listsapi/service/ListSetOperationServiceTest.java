@@ -0,0 +1,183 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.ListSetMember;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.service.ListSetOperationService.Operation;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+
+@ExtendWith(MockitoExtension.class)
+class ListSetOperationServiceTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @InjectMocks
+    private ListSetOperationService listSetOperationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(listSetOperationService, "maxLists", 10);
+        ReflectionTestUtils.setField(listSetOperationService, "compositePageSize", PAGE_SIZE);
+    }
+
+    @Test
+    void testParseOperation() {
+        assertEquals(ListSetOperationService.Operation.INTERSECTION, ListSetOperationService.Operation.parse("intersection"));
+        assertEquals(ListSetOperationService.Operation.DIFFERENCE, ListSetOperationService.Operation.parse(" Difference "));
+        assertThrows(IllegalArgumentException.class, () -> ListSetOperationService.Operation.parse("xor"));
+    }
+
+    @Test
+    void testCompareKeysUsesCodePointOrder() {
+        assertTrue(ListSetOperationService.compareKeys("urn:lsid:a", "urn:lsid:b") < 0);
+        assertTrue(ListSetOperationService.compareKeys("urn:lsid:a", "urn:lsid:a1") < 0);
+        assertEquals(0, ListSetOperationService.compareKeys("urn:lsid:a", "urn:lsid:a"));
+        // U+1F600 sorts after U+FFFD in UTF-8 byte order, but before it as UTF-16 code units
+        assertTrue(ListSetOperationService.compareKeys("😀", "�") > 0);
+    }
+
+    @Test
+    void testRequiresAtLeastTwoLists() {
+        ListSetOperationService service = new ListSetOperationService();
+        assertThrows(IllegalArgumentException.class,
+                () -> service.count(List.of(SpeciesList.builder().id("list1").build()),
+                        ListSetOperationService.Operation.UNION));
+    }
+
+    @Test
+    void testOverlappingLists() {
+        givenTaxa(Map.of(
+                "a", List.of("t1", "t2", "t3", "t5"),
+                "b", List.of("t2", "t3", "t4", "t5", "t6")));
+
+        assertEquals(List.of("t2", "t3", "t5"), taxa(Operation.INTERSECTION, "a", "b"));
+        assertEquals(List.of("t1", "t2", "t3", "t4", "t5", "t6"), taxa(Operation.UNION, "a", "b"));
+        assertEquals(List.of("t1"), taxa(Operation.DIFFERENCE, "a", "b"));
+        assertEquals(List.of("t4", "t6"), taxa(Operation.DIFFERENCE, "b", "a"));
+        assertEquals(3, listSetOperationService.count(lists("a", "b"), Operation.INTERSECTION));
+    }
+
+    @Test
+    void testOverlappingListsRecordTheirMemberships() {
+        givenTaxa(Map.of(
+                "a", List.of("t1", "t2"),
+                "b", List.of("t2", "t3")));
+
+        List<ListSetMember> members = new ArrayList<>();
+        listSetOperationService.stream(lists("a", "b"), Operation.UNION, members::add);
+
+        assertEquals(List.of("a"), members.get(0).getSpeciesListIDs());
+        assertEquals(List.of("a", "b"), members.get(1).getSpeciesListIDs());
+        assertEquals(List.of("b"), members.get(2).getSpeciesListIDs());
+    }
+
+    @Test
+    void testDisjointLists() {
+        givenTaxa(Map.of(
+                "a", List.of("t1", "t3", "t5"),
+                "b", List.of("t2", "t4", "t6", "t7")));
+
+        assertEquals(List.of(), taxa(Operation.INTERSECTION, "a", "b"));
+        assertEquals(List.of("t1", "t2", "t3", "t4", "t5", "t6", "t7"), taxa(Operation.UNION, "a", "b"));
+        assertEquals(List.of("t1", "t3", "t5"), taxa(Operation.DIFFERENCE, "a", "b"));
+    }
+
+    @Test
+    void testThreeListsAcrossPages() {
+        givenTaxa(Map.of(
+                "a", List.of("t1", "t2", "t3", "t4", "t5"),
+                "b", List.of("t2", "t4", "t5"),
+                "c", List.of("t4", "t5", "t9")));
+
+        assertEquals(List.of("t4", "t5"), taxa(Operation.INTERSECTION, "a", "b", "c"));
+        assertEquals(List.of("t1", "t3"), taxa(Operation.DIFFERENCE, "a", "b", "c"));
+    }
+
+    @Test
+    void testDuplicateKeys() {
+        // the same list given twice, so every key is in both inputs
+        givenTaxa(Map.of("a", List.of("t1", "t2", "t3")));
+
+        assertEquals(List.of("t1", "t2", "t3"), taxa(Operation.INTERSECTION, "a", "a"));
+        assertEquals(List.of("t1", "t2", "t3"), taxa(Operation.UNION, "a", "a"));
+        assertEquals(List.of(), taxa(Operation.DIFFERENCE, "a", "a"));
+    }
+
+    private List<String> taxa(Operation operation, String... speciesListIDs) {
+        List<String> taxa = new ArrayList<>();
+        listSetOperationService.stream(lists(speciesListIDs), operation, member -> taxa.add(member.getTaxonConceptID()));
+        return taxa;
+    }
+
+    private static List<SpeciesList> lists(String... speciesListIDs) {
+        List<SpeciesList> lists = new ArrayList<>();
+        for (String id : speciesListIDs) {
+            lists.add(SpeciesList.builder().id(id).build());
+        }
+        return lists;
+    }
+
+    /**
+     * Answers the composite aggregation of each list from its sorted, distinct taxa, a page of
+     * PAGE_SIZE at a time after the after key of the request
+     */
+    private void givenTaxa(Map<String, List<String>> taxaByList) {
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class))).thenAnswer(invocation -> {
+            NativeQuery query = invocation.getArgument(0);
+            List<String> taxa = taxaByList.get(query.getRoute());
+            Map<String, FieldValue> after = query.getAggregations().get("taxa").composite().after();
+            int from = after == null || after.isEmpty() ? 0 : taxa.indexOf(after.get("taxa").stringValue()) + 1;
+            return page(taxa.subList(from, Math.min(from + PAGE_SIZE, taxa.size())));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SearchHits<SpeciesListIndex> page(List<String> taxa) {
+        List<CompositeBucket> buckets = taxa.stream()
+                .map(taxon -> CompositeBucket.of(b -> b.key(Map.of("taxa", FieldValue.of(taxon))).docCount(1)))
+                .toList();
+        CompositeAggregate composite = CompositeAggregate.of(c -> {
+            c.buckets(bs -> bs.array(buckets));
+            if (!buckets.isEmpty()) {
+                c.afterKey(buckets.get(buckets.size() - 1).key());
+            }
+            return c;
+        });
+
+        SearchHits<SpeciesListIndex> hits = mock(SearchHits.class);
+        doReturn(new ElasticsearchAggregations(Map.of("taxa", Aggregate.of(a -> a.composite(composite)))))
+                .when(hits).getAggregations();
+        return hits;
+    }
+}
@@ -0,0 +1,82 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import au.org.ala.listsapi.model.Classification;
+import au.org.ala.listsapi.model.KeyValue;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.model.TaxonLists;
+
+@ExtendWith(MockitoExtension.class)
+class MembershipSnapshotServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @InjectMocks
+    private MembershipSnapshotService membershipSnapshotService;
+
+    private static SpeciesList list(int version) {
+        return SpeciesList.builder().id("list1").version(version).dataResourceUid("dr1")
+                .title("Conservation list").isAuthoritative(true).build();
+    }
+
+    private static SpeciesListItem item(String taxonConceptID, String status) {
+        return SpeciesListItem.builder()
+                .speciesListID("list1")
+                .classification(Classification.builder().taxonConceptID(taxonConceptID).build())
+                .properties(List.of(new KeyValue("status", status)))
+                .build();
+    }
+
+    @Test
+    void testLookupBeforeFirstBuildThrows() {
+        assertFalse(membershipSnapshotService.isReady());
+        assertThrows(IllegalStateException.class, () -> membershipSnapshotService.lookup("taxon1"));
+    }
+
+    @Test
+    void testBuildsSnapshotAndRebuildsOnlyWhenAListChanges() {
+        when(mongoTemplate.find(any(Query.class), eq(SpeciesList.class)))
+                .thenReturn(List.of(list(1)), List.of(list(1)), List.of(list(2)));
+        when(mongoTemplate.stream(any(Query.class), eq(SpeciesListItem.class)))
+                .thenReturn(Stream.of(item("taxon1", "Endangered"), item("taxon2", "Vulnerable")),
+                        Stream.of(item("taxon1", "Extinct")));
+
+        assertTrue(membershipSnapshotService.refresh());
+        TaxonLists taxonLists = membershipSnapshotService.lookup("taxon1");
+        assertEquals(1, taxonLists.getLists().size());
+        assertEquals("dr1", taxonLists.getLists().get(0).getDataResourceUid());
+        assertEquals("Endangered", taxonLists.getLists().get(0).getKvps().get("status"));
+        assertTrue(membershipSnapshotService.lookup("unknown").getLists().isEmpty());
+
+        // unchanged lists keep the current snapshot
+        assertFalse(membershipSnapshotService.refresh());
+
+        // a new version of a list swaps in a rebuilt snapshot
+        assertTrue(membershipSnapshotService.refresh());
+        assertEquals("Extinct", membershipSnapshotService.lookup("taxon1").getLists().get(0).getKvps().get("status"));
+        assertTrue(membershipSnapshotService.lookup("taxon2").getLists().isEmpty());
+        verify(mongoTemplate, times(2)).stream(any(Query.class), eq(SpeciesListItem.class));
+    }
+}
@@ -0,0 +1,170 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.Release;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.repo.ReleaseMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ReleaseServiceTest {
+
+    private static final int PARALLELISM = 2;
+
+    @Mock
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @Mock
+    private SpeciesListMongoRepository speciesItemMongoRepository;
+
+    @Mock
+    private ReleaseMongoRepository releaseMongoRepository;
+
+    @InjectMocks
+    private ReleaseService releaseService;
+
+    @TempDir
+    Path releaseDirectory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(releaseService, "s3Enabled", false);
+        ReflectionTestUtils.setField(releaseService, "releaseDirectory", releaseDirectory.toString());
+        ReflectionTestUtils.setField(releaseService, "compression", "none");
+        ReflectionTestUtils.setField(releaseService, "batchSize", 100);
+        ReflectionTestUtils.setField(releaseService, "parallelism", PARALLELISM);
+        releaseService.init();
+
+        lenient().when(speciesItemMongoRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.of(list(invocation.getArgument(0), 3)));
+        lenient().when(releaseMongoRepository.findBySpeciesListID(anyString(), any(Pageable.class)))
+                .thenReturn(Page.empty());
+        lenient().when(speciesListItemMongoRepository.findFirstBatch(anyString(), any(Pageable.class)))
+                .thenReturn(List.of());
+        lenient().when(releaseMongoRepository.save(any(Release.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseService.shutdown();
+    }
+
+    @Test
+    void releaseAll_returnsReleasesInTheOrderOfTheIds() {
+        List<String> ids = List.of("l5", "l1", "l4", "l2", "l3");
+
+        List<Release> releases = releaseService.releaseAll(ids, false);
+
+        assertEquals(ids, releases.stream().map(Release::getSpeciesListID).toList());
+        for (Release release : releases) {
+            assertTrue(Files.exists(Path.of(release.getStoredLocation())));
+        }
+    }
+
+    @Test
+    void releaseAll_runsUpToParallelismReleasesAtOnce() {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        // each release waits for another one to be running, which times out without parallelism
+        CyclicBarrier barrier = new CyclicBarrier(PARALLELISM);
+        when(speciesItemMongoRepository.findById(anyString())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+                return Optional.of(list(invocation.getArgument(0), 1));
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        List<Release> releases = releaseService.releaseAll(List.of("l1", "l2", "l3", "l4"), false);
+
+        assertEquals(4, releases.size());
+        assertEquals(PARALLELISM, maxRunning.get());
+    }
+
+    @Test
+    void releaseAll_skipsListsAlreadyReleasedAtTheirVersion() {
+        Release current = Release.builder().speciesListID("l1").releasedVersion(3).storedLocation("old.csv").build();
+        when(releaseMongoRepository.findBySpeciesListID(eq("l1"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(current)));
+
+        List<Release> releases = releaseService.releaseAll(List.of("l1"), false);
+
+        assertSame(current, releases.get(0));
+        verify(releaseMongoRepository, never()).save(any(Release.class));
+        assertFalse(Files.exists(releaseDirectory.resolve("l1-3.csv")));
+    }
+
+    @Test
+    void releaseAll_ignoringCurrentVersionReleasesAgain() {
+        Release current = Release.builder().speciesListID("l1").releasedVersion(3).storedLocation("old.csv").build();
+        when(releaseMongoRepository.findBySpeciesListID(eq("l1"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(current)));
+
+        List<Release> releases = releaseService.releaseAll(List.of("l1"), true);
+
+        assertEquals(releaseDirectory.resolve("l1-3.csv").toString(), releases.get(0).getStoredLocation());
+        verify(releaseMongoRepository).save(any(Release.class));
+    }
+
+    @Test
+    void asyncReleaseAll_returnsBeforeTheReleasesComplete() throws Exception {
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(speciesItemMongoRepository.findById(anyString())).thenAnswer(invocation -> {
+            proceed.await(5, TimeUnit.SECONDS);
+            return Optional.of(list(invocation.getArgument(0), 1));
+        });
+
+        CompletableFuture<List<Release>> future = releaseService.asyncReleaseAll(List.of("l1", "l2"), false);
+
+        assertFalse(future.isDone());
+        proceed.countDown();
+        assertEquals(List.of("l1", "l2"),
+                future.get(5, TimeUnit.SECONDS).stream().map(Release::getSpeciesListID).toList());
+    }
+
+    private static SpeciesList list(String id, int version) {
+        SpeciesList speciesList = new SpeciesList();
+        speciesList.setId(id);
+        speciesList.setVersion(version);
+        speciesList.setFieldList(List.of());
+        return speciesList;
+    }
+}
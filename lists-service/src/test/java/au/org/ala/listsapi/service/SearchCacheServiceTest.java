@@ -0,0 +1,113 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.SpeciesList;
+
+class SearchCacheServiceTest {
+
+    private SearchCacheService searchCacheService;
+
+    @BeforeEach
+    void setUp() {
+        searchCacheService = new SearchCacheService();
+        ReflectionTestUtils.setField(searchCacheService, "enabled", true);
+        ReflectionTestUtils.setField(searchCacheService, "entryCapacity", 100L);
+        ReflectionTestUtils.setField(searchCacheService, "ttlSeconds", 60L);
+        searchCacheService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchCacheService.close();
+    }
+
+    @Test
+    void testReturnsCachedResultUntilInvalidated() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("result1", searchCacheService.get("lists", List.of("q", 1), () -> "result" + loads.incrementAndGet()));
+        assertEquals("result1", searchCacheService.get("lists", List.of("q", 1), () -> "result" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+
+        // a different key or kind is a separate entry
+        searchCacheService.get("lists", List.of("q", 2), () -> "result" + loads.incrementAndGet());
+        searchCacheService.get("listFacets", List.of("q", 1), () -> "result" + loads.incrementAndGet());
+        assertEquals(3, loads.get());
+
+        searchCacheService.invalidate();
+        assertEquals("result4", searchCacheService.get("lists", List.of("q", 1), () -> "result" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void testCoalescesConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<String> first = executor.submit(() -> searchCacheService.get("lists", "key", () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "value";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<String> second = executor.submit(() -> searchCacheService.get("lists", "key", () -> {
+                loads.incrementAndGet();
+                return "other";
+            }));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertEquals("value", first.get(5, TimeUnit.SECONDS));
+            assertEquals("value", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailuresAreNotCached() {
+        assertThrows(IllegalStateException.class, () -> searchCacheService.get("lists", "key", () -> {
+            throw new IllegalStateException("search failed");
+        }));
+        assertEquals("value", searchCacheService.get("lists", "key", () -> "value"));
+    }
+
+    @Test
+    void testCopiedResultsAreNotShared() {
+        Supplier<Page<SpeciesList>> loader = () -> new PageImpl<>(
+                List.of(SpeciesList.builder().id("list1").title("Birds").build()), PageRequest.of(0, 10), 1);
+
+        Page<SpeciesList> first = searchCacheService.get("lists", "key", loader, SearchCacheService::copyLists);
+        first.getContent().get(0).setTitle("changed by a caller");
+        Page<SpeciesList> second = searchCacheService.get("lists", "key", loader, SearchCacheService::copyLists);
+
+        assertEquals("Birds", second.getContent().get(0).getTitle());
+        assertEquals(1, second.getTotalElements());
+    }
+}
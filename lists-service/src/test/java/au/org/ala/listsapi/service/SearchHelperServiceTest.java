@@ -1,14 +1,29 @@
 package au.org.ala.listsapi.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import au.org.ala.listsapi.controller.AuthUtils;
+import au.org.ala.listsapi.model.CursorPage;
+import au.org.ala.listsapi.model.ListSearchContext;
 import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.model.SpeciesListMetadataIndex;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.Arrays;
+import java.util.List;
 import au.org.ala.listsapi.model.SingleListSearchContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,14 +32,20 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
 import org.springframework.data.elasticsearch.core.SearchHitsImpl;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
 class SearchHelperServiceTest {
@@ -33,6 +54,12 @@ class SearchHelperServiceTest {
   
   @Mock private ElasticsearchOperations elasticsearchOperations;
 
+  @Mock private SpeciesListMongoRepository speciesListMongoRepository;
+
+  @Mock private AuthUtils authUtils;
+
+  @Spy private SearchCacheService searchCacheService = new SearchCacheService();
+
   @InjectMocks private SearchHelperService searchHelperService;
 
   @Captor private ArgumentCaptor<Query> queryCaptor;
@@ -55,7 +82,6 @@ class SearchHelperServiceTest {
 
     when(mongoTemplate.find(any(Query.class), eq(SpeciesList.class)))
         .thenReturn(Collections.emptyList());
-    when(mongoTemplate.count(any(Query.class), eq(SpeciesList.class))).thenReturn(0L);
 
     // Act
     searchHelperService.searchDocuments(speciesListQuery, userId, isAdmin, searchTerm, pageable);
@@ -67,6 +93,72 @@ class SearchHelperServiceTest {
     String queryStr = capturedQuery.getQueryObject().toJson();
     assertTrue(
         queryStr.contains("\"listType\": \"PROFILE\""), "Query should contain listType filter");
+    // a partial first page gives the total without a count query
+    verify(mongoTemplate, never()).count(any(Query.class), eq(SpeciesList.class));
+  }
+
+  @Test
+  void searchDocuments_withSearchTerm_usesTextIndex() {
+    Pageable pageable = PageRequest.of(0, 10);
+    when(mongoTemplate.find(any(Query.class), eq(SpeciesList.class)))
+        .thenReturn(Collections.emptyList());
+
+    searchHelperService.searchDocuments(new SpeciesList(), null, true, "tree  frogs", pageable);
+
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(SpeciesList.class));
+    String queryStr = queryCaptor.getValue().getQueryObject().toJson();
+    assertTrue(queryStr.contains("$text"), "Query should use the text index");
+    assertTrue(queryStr.contains("\"$search\": \"tree frogs\""), "Each word should be a separate term");
+    assertFalse(queryStr.contains("$regex"), "Query should not scan with a regex");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void fetchSpeciesListItems_withListFilter_filtersItemQueryOnListFlags() {
+    when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class), any(IndexCoordinates.class)))
+        .thenReturn(mock(SearchHits.class));
+    SpeciesList listFilter = new SpeciesList();
+    listFilter.setIsAuthoritative(true);
+    listFilter.setIsThreatened(false);
+
+    searchHelperService.fetchSpeciesListItems("urn:lsid:1", null, listFilter, 1, 10, null);
+
+    ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+    verify(elasticsearchOperations).search(captor.capture(), eq(SpeciesListIndex.class), any(IndexCoordinates.class));
+    String queryStr = captor.getValue().getQuery().toString();
+    assertTrue(queryStr.contains("\"isAuthoritative\":{\"value\":true}"), "Item query should filter on isAuthoritative");
+    assertTrue(queryStr.contains("\"isThreatened\":{\"value\":false}"), "Item query should filter on isThreatened");
+    assertFalse(queryStr.contains("isInvasive"), "Unset flags should not be filtered on");
+    assertFalse(queryStr.contains("isSDS"), "Unset flags should not be filtered on");
+    assertFalse(queryStr.contains("isBIE"), "Unset flags should not be filtered on");
+    // the flags are on the item documents, so the lists aren't looked up first
+    verify(speciesListMongoRepository, never()).findByDataResourceUidInOrIdIn(any());
+  }
+
+  @Test
+  void fetchSpeciesListItems_withoutListFilter_addsNoFlagFilters() {
+    when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class), any(IndexCoordinates.class)))
+        .thenReturn(mock(SearchHits.class));
+
+    searchHelperService.fetchSpeciesListItems("urn:lsid:1", null, 1, 10, null);
+
+    ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+    verify(elasticsearchOperations).search(captor.capture(), eq(SpeciesListIndex.class), any(IndexCoordinates.class));
+    assertFalse(captor.getValue().getQuery().toString().contains("isAuthoritative"));
+  }
+
+  @Test
+  void streamSpeciesListItems_beyondMaxOffset_isRejected() {
+    ReflectionTestUtils.setField(searchHelperService, "legacyMaxOffset", 100);
+    SpeciesList list = new SpeciesList();
+    list.setId("list1");
+    list.setIsPrivate(false);
+    when(speciesListMongoRepository.findByDataResourceUidInOrIdIn(List.of("dr1"))).thenReturn(List.of(list));
+
+    assertThrows(IllegalArgumentException.class, () ->
+        searchHelperService.streamSpeciesListItems("dr1", null, null, 20, 10, null, null, null));
+    verify(elasticsearchOperations, never())
+        .search(any(org.springframework.data.elasticsearch.core.query.Query.class), eq(SpeciesListIndex.class));
   }
 
   @Test
@@ -81,4 +173,89 @@ class SearchHelperServiceTest {
     searchHelperService.getFacetsForSingleSpeciesList(context, Arrays.asList("validField", "", null, "   "));
     // As long as it doesn't throw an Invalid aggregation name exception, we're good.
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void searchSingleSpeciesListWithFacets_withQuery_facetsKeepQueryStringSemantics() {
+    SingleListSearchContext context = SingleListSearchContext.builder()
+        .speciesListId("testListId")
+        .searchQuery("Acacia")
+        .sort("scientificName")
+        .dir("asc")
+        .filters(Collections.emptyList())
+        .build();
+    SearchHits<SpeciesListIndex> hits = mock(SearchHits.class);
+    when(hits.getSearchHits()).thenReturn(List.of());
+    when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class), any(IndexCoordinates.class)))
+        .thenReturn(hits);
+
+    searchHelperService.searchSingleSpeciesListWithFacets(context, PageRequest.of(0, 10), List.of("licence"));
+
+    ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+    verify(elasticsearchOperations).search(captor.capture(), eq(SpeciesListIndex.class), any(IndexCoordinates.class));
+    NativeQuery query = captor.getValue();
+    assertTrue(query.getQuery().toString().contains("simple_query_string"), "Hits should match with simple_query_string");
+    assertEquals(List.of("facetScope"), List.copyOf(query.getAggregations().keySet()));
+    String facetAggregation = query.getAggregations().get("facetScope").toString();
+    assertTrue(facetAggregation.contains("\"global\""), "Facets should be aggregated outside the hits query");
+    assertTrue(facetAggregation.contains("\"query_string\""), "Facets should match with query_string");
+    assertTrue(facetAggregation.contains("\"licence\""), "Requested facets should be nested in the scope");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void searchItemsWithCursor_fullLastPage_closesPointInTime() {
+    ReflectionTestUtils.setField(searchHelperService, "cursorKeepAlive", Duration.ofMinutes(1));
+    when(elasticsearchOperations.openPointInTime(any(IndexCoordinates.class), any(Duration.class))).thenReturn("pit");
+    SpeciesListIndex index = new SpeciesListIndex();
+    index.setId("507f1f77bcf86cd799439011");
+    SearchHit<SpeciesListIndex> hit = mock(SearchHit.class);
+    when(hit.getContent()).thenReturn(index);
+    SearchHits<SpeciesListIndex> hits = mock(SearchHits.class);
+    when(hits.getSearchHits()).thenReturn(List.of(hit, hit));
+    when(hits.getTotalHits()).thenReturn(2L);
+    when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class))).thenReturn(hits);
+
+    CursorPage<SpeciesListItem> page = searchHelperService.searchItemsWithCursor(
+        co.elastic.clients.elasticsearch._types.query_dsl.Query.of(q -> q.matchAll(m -> m)),
+        "scientificName", "asc", 2, "*", "key");
+
+    assertEquals(2, page.getContent().size());
+    assertNull(page.getCursor(), "No cursor should be returned once the total has been read");
+    verify(elasticsearchOperations).closePointInTime("pit");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void searchSpeciesLists_withoutQuery_usesListIndexOnlyAndKeepsOrder() {
+    ListSearchContext context = ListSearchContext.builder()
+        .filters(Collections.emptyList())
+        .sort("lastUpdated")
+        .dir("desc")
+        .build();
+
+    SearchHit<SpeciesListMetadataIndex> first = mock(SearchHit.class);
+    SearchHit<SpeciesListMetadataIndex> second = mock(SearchHit.class);
+    when(first.getId()).thenReturn("list2");
+    when(second.getId()).thenReturn("list1");
+    SearchHits<SpeciesListMetadataIndex> hits = mock(SearchHits.class);
+    when(hits.getSearchHits()).thenReturn(List.of(first, second));
+    when(hits.getTotalHits()).thenReturn(42L);
+    when(elasticsearchOperations.search(any(org.springframework.data.elasticsearch.core.query.Query.class), eq(SpeciesListMetadataIndex.class)))
+        .thenReturn(hits);
+
+    SpeciesList list1 = new SpeciesList();
+    list1.setId("list1");
+    SpeciesList list2 = new SpeciesList();
+    list2.setId("list2");
+    when(speciesListMongoRepository.findAllById(List.of("list2", "list1"))).thenReturn(List.of(list1, list2));
+
+    Page<SpeciesList> page = searchHelperService.searchSpeciesLists(context, PageRequest.of(0, 2));
+
+    assertEquals(42L, page.getTotalElements());
+    assertEquals("list2", page.getContent().get(0).getId());
+    assertEquals("list1", page.getContent().get(1).getId());
+    verify(elasticsearchOperations, never())
+        .search(any(org.springframework.data.elasticsearch.core.query.Query.class), eq(SpeciesListIndex.class));
+  }
 }
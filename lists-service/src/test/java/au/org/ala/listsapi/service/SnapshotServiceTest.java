@@ -0,0 +1,164 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.model.ItemRevision;
+import au.org.ala.listsapi.model.ListSnapshot;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.ItemRevisionMongoRepository;
+import au.org.ala.listsapi.repo.ListSnapshotMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private SpeciesListMongoRepository speciesListMongoRepository;
+
+    @Mock
+    private SpeciesListItemMongoRepository speciesListItemMongoRepository;
+
+    @Mock
+    private ListSnapshotMongoRepository listSnapshotMongoRepository;
+
+    @Mock
+    private ItemRevisionMongoRepository itemRevisionMongoRepository;
+
+    @InjectMocks
+    private SnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(snapshotService, "batchSize", 100);
+    }
+
+    @Test
+    void testStreamMergesLiveItemsWithRevisions() {
+        ObjectId unchanged = new ObjectId("000000000000000000000001");
+        ObjectId updated = new ObjectId("000000000000000000000002");
+        ObjectId deleted = new ObjectId("000000000000000000000003");
+        ObjectId created = new ObjectId("000000000000000000000004");
+
+        when(speciesListItemMongoRepository.findFirstBatch(eq("list1"), any(Pageable.class))).thenReturn(List.of(
+                item(unchanged, "Acacia dealbata"),
+                item(updated, "Eucalyptus regnans"),
+                item(created, "Banksia serrata")));
+        when(mongoTemplate.find(any(Query.class), eq(ItemRevision.class))).thenReturn(List.of(
+                revision(updated, 1, item(null, "Eucalyptus regnan")),
+                revision(updated, 2, item(null, "Eucalyptus regnans var.")),
+                revision(deleted, 1, item(null, "Grevillea robusta")),
+                revision(created, 1, null)));
+
+        List<SpeciesListItem> items = new ArrayList<>();
+        long count = snapshotService.stream("list1", 1, items::add);
+
+        assertEquals(3, count);
+        assertEquals(List.of("Acacia dealbata", "Eucalyptus regnan", "Grevillea robusta"),
+                items.stream().map(SpeciesListItem::getScientificName).toList());
+        assertEquals(List.of(unchanged, updated, deleted), items.stream().map(SpeciesListItem::getId).toList());
+    }
+
+    @Test
+    void testCreateSnapshotSavesTheSnapshotThenMovesTheListPointer() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").version(7).snapshotVersion(2).rowCount(10).build();
+        when(listSnapshotMongoRepository.save(any(ListSnapshot.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ListSnapshot snapshot = snapshotService.createSnapshot(speciesList, "before the reload", "user1");
+
+        assertEquals(3, snapshot.getVersion());
+        assertEquals(3, speciesList.getSnapshotVersion());
+        assertEquals(10, snapshot.getRowCount());
+
+        InOrder inOrder = inOrder(listSnapshotMongoRepository, mongoTemplate);
+        inOrder.verify(listSnapshotMongoRepository).save(any(ListSnapshot.class));
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        inOrder.verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(SpeciesList.class));
+        assertEquals(new Document("snapshotVersion", 3), update.getValue().getUpdateObject().get("$set"));
+        // the list document isn't saved, so its version is unchanged
+        verify(speciesListMongoRepository, never()).save(any(SpeciesList.class));
+        assertEquals(7, speciesList.getVersion());
+    }
+
+    @Test
+    void testFailedSnapshotLeavesTheListPointer() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").snapshotVersion(2).build();
+        when(listSnapshotMongoRepository.save(any(ListSnapshot.class))).thenThrow(new DuplicateKeyException("version 3"));
+
+        assertThrows(DuplicateKeyException.class, () -> snapshotService.createSnapshot(speciesList, null, "user1"));
+
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(SpeciesList.class));
+        assertEquals(2, speciesList.getSnapshotVersion());
+    }
+
+    @Test
+    void testNothingIsRecordedWithoutASnapshot() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").build();
+
+        snapshotService.recordBeforeChange(speciesList, item(new ObjectId(), "Acacia dealbata"));
+
+        verify(mongoTemplate, never()).bulkOps(any(), eq(ItemRevision.class));
+    }
+
+    @Test
+    void testChangesAreRecordedAgainstTheListsSnapshot() {
+        SpeciesList speciesList = SpeciesList.builder().id("list1").snapshotVersion(2).build();
+        BulkOperations bulkOps = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ItemRevision.class)).thenReturn(bulkOps);
+
+        snapshotService.recordBeforeChange(speciesList, item(new ObjectId(), "Acacia dealbata"));
+
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOps).upsert(captor.capture(), any(Update.class));
+        assertEquals(2, captor.getValue().getQueryObject().get("snapshotVersion"));
+        verify(bulkOps).execute();
+        // the version is taken from the caller's list, not read again per batch
+        verify(speciesListMongoRepository, never()).findById(any());
+    }
+
+    private static SpeciesListItem item(ObjectId id, String scientificName) {
+        SpeciesListItem item = new SpeciesListItem();
+        item.setId(id);
+        item.setSpeciesListID("list1");
+        item.setScientificName(scientificName);
+        return item;
+    }
+
+    private static ItemRevision revision(ObjectId itemId, int snapshotVersion, SpeciesListItem item) {
+        return ItemRevision.builder().speciesListID("list1").itemId(itemId).snapshotVersion(snapshotVersion)
+                .item(item).build();
+    }
+}
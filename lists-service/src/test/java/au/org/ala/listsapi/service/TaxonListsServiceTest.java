@@ -0,0 +1,207 @@
+package au.org.ala.listsapi.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import au.org.ala.listsapi.controller.AuthUtils;
+import au.org.ala.listsapi.model.SpeciesList;
+import au.org.ala.listsapi.model.SpeciesListIndex;
+import au.org.ala.listsapi.model.TaxonLists;
+import au.org.ala.listsapi.model.TaxonListsQuery;
+import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+
+@ExtendWith(MockitoExtension.class)
+class TaxonListsServiceTest {
+
+    @Mock
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Mock
+    private SpeciesListMongoRepository speciesListMongoRepository;
+
+    @Mock
+    private AuthUtils authUtils;
+
+    @InjectMocks
+    private TaxonListsService taxonListsService;
+
+    private final Map<String, SpeciesList> storedLists = Map.of(
+            "l1", list("l1"),
+            "l2", list("l2"),
+            "l3", list("l3"));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(taxonListsService, "maxTaxa", 3);
+        ReflectionTestUtils.setField(taxonListsService, "termsBatchSize", 10);
+        ReflectionTestUtils.setField(taxonListsService, "compositePageSize", 2);
+        lenient().when(speciesListMongoRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<String> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false)
+                    .filter(storedLists::containsKey)
+                    .map(storedLists::get)
+                    .toList();
+        });
+    }
+
+    @Test
+    void validate_withoutTaxa_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> taxonListsService.validate(new TaxonListsQuery(null, List.of(" "), null)));
+    }
+
+    @Test
+    void validate_countsDistinctTaxa() {
+        TaxonListsQuery query = new TaxonListsQuery(
+                Arrays.asList("urn:lsid:1", "urn:lsid:1", "urn:lsid:2"), List.of("t1"), null);
+
+        assertDoesNotThrow(() -> taxonListsService.validate(query));
+    }
+
+    @Test
+    void validate_withTooManyTaxa_throws() {
+        TaxonListsQuery query = new TaxonListsQuery(
+                List.of("urn:lsid:1", "urn:lsid:2"), List.of("t1", "t2"), List.of("status"));
+
+        assertThrows(IllegalArgumentException.class, () -> taxonListsService.validate(query));
+    }
+
+    @Test
+    void streamTaxonLists_pagesThroughCompositeAfterKey() {
+        SearchHits<SpeciesListIndex> first = pairs("t1/l1", "t1/l2");
+        SearchHits<SpeciesListIndex> second = pairs("t1/l3", "t2/l1");
+        SearchHits<SpeciesListIndex> last = pairs();
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class)))
+                .thenReturn(first, second, last);
+
+        List<TaxonLists> results = stream(List.of("t1", "t2"));
+
+        ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations, times(3)).search(captor.capture(), eq(SpeciesListIndex.class));
+        String firstPairs = captor.getAllValues().get(0).getAggregations().get("taxon_lists").toString();
+        String secondPairs = captor.getAllValues().get(1).getAggregations().get("taxon_lists").toString();
+        String lastPairs = captor.getAllValues().get(2).getAggregations().get("taxon_lists").toString();
+        assertFalse(firstPairs.contains("\"after\""), "The first page starts without an after key");
+        assertTrue(secondPairs.contains("\"after\"") && secondPairs.contains("\"l2\""),
+                "The second page starts after the last bucket of the first");
+        assertTrue(lastPairs.contains("\"t2\"") && lastPairs.contains("\"l1\""),
+                "The third page starts after the last bucket of the second");
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void streamTaxonLists_groupsTaxonMembershipsAcrossPages() {
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class)))
+                .thenReturn(pairs("t1/l1", "t1/l2"), pairs("t1/l3", "t2/l1"), pairs());
+
+        List<TaxonLists> results = stream(List.of("t1", "t2"));
+
+        assertEquals(2, results.size(), "Each taxon is sent once, even when its lists span pages");
+        assertEquals("t1", results.get(0).getTaxonConceptID());
+        assertEquals(List.of("l1", "l2", "l3"), listIds(results.get(0)));
+        assertEquals("t2", results.get(1).getTaxonConceptID());
+        assertEquals(List.of("l1"), listIds(results.get(1)));
+        verify(speciesListMongoRepository, times(2)).findAllById(any());
+    }
+
+    @Test
+    void streamTaxonLists_skipsDeletedLists() {
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class)))
+                .thenReturn(pairs("t1/l1", "t1/gone"), pairs("t2/gone"));
+
+        List<TaxonLists> results = stream(List.of("t1", "t2"));
+
+        assertEquals(1, results.size(), "A taxon only in deleted lists is not sent");
+        assertEquals(List.of("l1"), listIds(results.get(0)));
+        // the deleted list is looked up once
+        verify(speciesListMongoRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void streamTaxonLists_anonymousUsersOnlySeePublicLists() {
+        when(elasticsearchOperations.search(any(NativeQuery.class), eq(SpeciesListIndex.class)))
+                .thenReturn(pairs("t1/l1"));
+
+        stream(List.of("t1"));
+
+        ArgumentCaptor<NativeQuery> captor = ArgumentCaptor.forClass(NativeQuery.class);
+        verify(elasticsearchOperations).search(captor.capture(), eq(SpeciesListIndex.class));
+        String query = captor.getValue().getQuery().toString();
+        assertTrue(query.contains("\"isPrivate\":{\"value\":false}"), "Private lists are filtered out in the query");
+    }
+
+    private List<TaxonLists> stream(List<String> taxonConceptIDs) {
+        List<TaxonLists> results = new ArrayList<>();
+        taxonListsService.streamTaxonLists(new TaxonListsQuery(taxonConceptIDs, null, null), null, results::add);
+        return results;
+    }
+
+    private static List<String> listIds(TaxonLists taxonLists) {
+        return taxonLists.getLists().stream().map(TaxonLists.Membership::getSpeciesListID).toList();
+    }
+
+    /** A page of composite buckets, each given as "taxon/list" */
+    @SuppressWarnings("unchecked")
+    private static SearchHits<SpeciesListIndex> pairs(String... taxonListPairs) {
+        List<CompositeBucket> buckets = new ArrayList<>();
+        for (String pair : taxonListPairs) {
+            String[] parts = pair.split("/");
+            buckets.add(CompositeBucket.of(b -> b
+                    .key(Map.of("taxon", FieldValue.of(parts[0]), "list", FieldValue.of(parts[1])))
+                    .docCount(1)));
+        }
+        CompositeAggregate composite = CompositeAggregate.of(c -> {
+            c.buckets(bs -> bs.array(buckets));
+            if (!buckets.isEmpty()) {
+                c.afterKey(buckets.get(buckets.size() - 1).key());
+            }
+            return c;
+        });
+
+        SearchHits<SpeciesListIndex> hits = mock(SearchHits.class);
+        doReturn(new ElasticsearchAggregations(Map.of("taxon_lists", Aggregate.of(a -> a.composite(composite)))))
+                .when(hits).getAggregations();
+        return hits;
+    }
+
+    private static SpeciesList list(String id) {
+        SpeciesList speciesList = new SpeciesList();
+        speciesList.setId(id);
+        speciesList.setTitle("List " + id);
+        return speciesList;
+    }
+}
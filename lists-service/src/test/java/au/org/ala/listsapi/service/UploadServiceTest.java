@@ -1,21 +1,30 @@
 package au.org.ala.listsapi.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.times;
 
 import au.org.ala.listsapi.model.IngestJob;
+import au.org.ala.listsapi.model.SpeciesListItem;
+import au.org.ala.listsapi.repo.SpeciesListIndexCustomRepository;
 import au.org.ala.listsapi.repo.SpeciesListIndexElasticRepository;
 import au.org.ala.listsapi.repo.SpeciesListItemMongoRepository;
 import au.org.ala.listsapi.repo.SpeciesListMongoRepository;
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -27,11 +36,14 @@ class UploadServiceTest {
     @Mock private SpeciesListItemMongoRepository speciesListItemMongoRepository;
     @Mock private SpeciesListMongoRepository speciesListMongoRepository;
     @Mock private SpeciesListIndexElasticRepository speciesListIndexElasticRepository;
+    @Mock private SpeciesListIndexCustomRepository speciesListIndexCustomRepository;
     @Mock private TaxonService taxonService;
     @Mock private ReleaseService releaseService;
     @Mock private MetadataService metadataService;
     @Mock private ProgressService progressService;
     @Mock private SearchHelperService searchHelperService;
+    @Mock private ChangeFeedService changeFeedService;
+    @Mock private SnapshotService snapshotService;
 
     @InjectMocks private UploadService uploadService;
 
@@ -63,7 +75,7 @@ class UploadServiceTest {
         
         // It should have caught the charset error and cleaned up the DB
         verify(speciesListItemMongoRepository, times(1)).deleteBySpeciesListID("testList");
-        verify(speciesListIndexElasticRepository, times(1)).deleteSpeciesListItemBySpeciesListID("testList");
+        verify(speciesListIndexCustomRepository, times(1)).deleteBySpeciesListID("testList");
         
         // And the facet list should be extracted correctly based on the windows-1252 char
         assertTrue(job.getFieldList().contains("value"));
@@ -95,4 +107,39 @@ class UploadServiceTest {
             assertTrue(facet != null && !facet.trim().isEmpty(), "Facet list should not contain empty strings");
         }
     }
+
+    @Test
+    void testLoadCSV_LastUpdatedIsSetJustBeforeEachBatchIsSaved() throws Exception {
+        String csv = "name,value\nAcacia dealbata,1\nBanksia serrata,2";
+        when(speciesListMongoRepository.findById("testList")).thenReturn(Optional.of(new au.org.ala.listsapi.model.SpeciesList()));
+        List<SpeciesListItem> saved = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<SpeciesListItem> batch = invocation.getArgument(0);
+            saved.addAll(batch);
+            return null;
+        }).when(searchHelperService).speciesListItemsBulkSave(any());
+
+        uploadService.loadCSV("testList",
+                new ByteArrayInputStream(csv.getBytes(java.nio.charset.StandardCharsets.UTF_8)), false, true, false);
+
+        assertEquals(2, saved.size());
+        Date lastUpdated = saved.get(0).getLastUpdated();
+        for (SpeciesListItem item : saved) {
+            assertEquals(lastUpdated, item.getLastUpdated(), "A batch shares the time it was saved");
+            assertFalse(item.getLastUpdated().before(item.getDateCreated()), "lastUpdated is set after the rows are read");
+        }
+    }
+
+    @Test
+    void testDeleteOrphanedStaging_DeletesStagedItemsOlderThanMaxAge() {
+        ReflectionTestUtils.setField(uploadService, "stagingMaxAgeHours", 24L);
+        long start = System.currentTimeMillis();
+
+        uploadService.deleteOrphanedStaging();
+
+        ArgumentCaptor<Date> before = ArgumentCaptor.forClass(Date.class);
+        verify(speciesListItemMongoRepository).deleteStagedCreatedBefore(before.capture());
+        long age = start - before.getValue().getTime();
+        assertTrue(age > TimeUnit.HOURS.toMillis(23) && age <= TimeUnit.HOURS.toMillis(24));
+    }
 }
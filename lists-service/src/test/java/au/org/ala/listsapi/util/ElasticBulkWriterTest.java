@@ -0,0 +1,114 @@
+package au.org.ala.listsapi.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import au.org.ala.listsapi.model.SpeciesList;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+class ElasticBulkWriterTest {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private SpeciesList speciesList() {
+    SpeciesList list = new SpeciesList();
+    list.setId("list123");
+    list.setDataResourceUid("dr123");
+    list.setTitle("Test list");
+    list.setIsAuthoritative(true);
+    list.setRegion("Australia");
+    list.setTags(List.of("tag1"));
+    return list;
+  }
+
+  private RawBsonDocument item(ObjectId id) {
+    Document doc = new Document("_id", id)
+        .append("version", 3)
+        .append("speciesListID", "list123")
+        .append("suppliedName", "Macropus giganteus")
+        .append("vernacularName", null)
+        .append("properties", List.of(new Document("key", "status").append("value", "Endangered")))
+        .append("classification", new Document("_class", "au.org.ala.listsapi.model.Classification")
+            .append("taxonConceptID", "tc1")
+            .append("rankID", 7000)
+            .append("speciesGroup", List.of("Mammals")))
+        .append("lastUpdatedBy", "someone");
+    return RawBsonDocument.parse(doc.toJson());
+  }
+
+  @Test
+  void testWritesActionAndSourceLines() throws Exception {
+    ElasticBulkWriter writer = new ElasticBulkWriter("species-lists", speciesList());
+    ObjectId id = new ObjectId();
+    writer.add(item(id));
+
+    String body = new String(writer.getBuffer(), 0, writer.getLength(), StandardCharsets.UTF_8);
+    String[] lines = body.split("\n");
+    assertTrue(body.endsWith("\n"));
+    assertEquals(2, lines.length);
+
+    JsonNode action = mapper.readTree(lines[0]).get("index");
+    assertEquals("species-lists", action.get("_index").asText());
+    assertEquals(id.toHexString(), action.get("_id").asText());
+    assertEquals("list123", action.get("routing").asText());
+
+    JsonNode source = mapper.readTree(lines[1]);
+    assertEquals(id.toHexString(), source.get("id").asText());
+    assertEquals("dr123", source.get("dataResourceUid").asText());
+    assertEquals("Test list", source.get("speciesListName").asText());
+    assertTrue(source.get("isAuthoritative").asBoolean());
+    assertFalse(source.get("isPrivate").asBoolean());
+    assertTrue(source.get("hasRegion").asBoolean());
+    assertEquals("tag1", source.get("tags").get(0).asText());
+    assertEquals("list123", source.get("speciesListID").asText());
+    assertEquals("Macropus giganteus", source.get("suppliedName").asText());
+    assertEquals("Endangered", source.get("properties").get(0).get("value").asText());
+    assertEquals("Endangered", source.get("propertiesMap").get("status").asText());
+    assertEquals("tc1", source.get("classification").get("taxonConceptID").asText());
+    assertEquals(7000, source.get("classification").get("rankID").asInt());
+
+    // nulls, non-indexed item fields and type hints are not written
+    assertFalse(source.has("vernacularName"));
+    assertFalse(source.has("version"));
+    assertFalse(source.has("lastUpdatedBy"));
+    assertFalse(source.get("classification").has("_class"));
+  }
+
+  @Test
+  void testResetClearsBuffer() throws Exception {
+    ElasticBulkWriter writer = new ElasticBulkWriter("species-lists", speciesList());
+    writer.add(item(new ObjectId()));
+    writer.add(item(new ObjectId()));
+    assertEquals(2, writer.size());
+    assertEquals(2, writer.getIds().size());
+
+    writer.reset();
+    assertEquals(0, writer.size());
+    assertEquals(0, writer.getLength());
+  }
+
+  @Test
+  void testToBulkBodyCopiesSelectedItems() throws Exception {
+    ElasticBulkWriter writer = new ElasticBulkWriter("species-lists", speciesList());
+    ObjectId first = new ObjectId();
+    ObjectId second = new ObjectId();
+    ObjectId third = new ObjectId();
+    writer.add(item(first));
+    writer.add(item(second));
+    writer.add(item(third));
+
+    String body = new String(writer.toBulkBody(List.of(0, 2)), StandardCharsets.UTF_8);
+    String[] lines = body.split("\n");
+    assertEquals(4, lines.length);
+    assertEquals(first.toHexString(), mapper.readTree(lines[0]).get("index").get("_id").asText());
+    assertEquals(first.toHexString(), mapper.readTree(lines[1]).get("id").asText());
+    assertEquals(third.toHexString(), mapper.readTree(lines[2]).get("index").get("_id").asText());
+    assertEquals(third.toHexString(), mapper.readTree(lines[3]).get("id").asText());
+  }
+}
@@ -10,6 +10,7 @@ import au.org.ala.listsapi.model.SpeciesListItem;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 
@@ -109,4 +110,48 @@ class ElasticUtilsTest {
     assertEquals(1, filters.size());
     assertEquals("Animalia", filters.get(0).getValue());
   }
+
+  @Test
+  void testToPropertiesMap() {
+    List<KeyValue> properties = Arrays.asList(
+        new KeyValue("status", "Endangered"),
+        new KeyValue("status", "Vulnerable"),
+        new KeyValue("notes", null),
+        new KeyValue("", "ignored"));
+
+    Map<String, String> propertiesMap = ElasticUtils.toPropertiesMap(properties);
+    assertEquals(1, propertiesMap.size());
+    assertEquals("Endangered", propertiesMap.get("status"));
+    assertTrue(ElasticUtils.toPropertiesMap(null).isEmpty());
+  }
+
+  @Test
+  void testLegacySearchText() {
+    assertEquals("kangaroo", ElasticUtils.legacySearchText("kangaroo"));
+    assertEquals("Macropus", ElasticUtils.legacySearchText("^Macropus"));
+    assertEquals("giganteus", ElasticUtils.legacySearchText("giganteus$"));
+    assertEquals("roo", ElasticUtils.legacySearchText(".*roo.*"));
+    assertEquals("cost$", ElasticUtils.legacySearchText("cost\\$"));
+    assertEquals("a|b", ElasticUtils.legacySearchText("a|b"));
+    assertEquals("", ElasticUtils.legacySearchText(".*"));
+  }
+
+  @Test
+  void testLegacyItemSearchQuery() {
+    String all = ElasticUtils.legacyItemSearchQuery(List.of("list1"), ".*").toString();
+    assertTrue(all.contains("match_all"));
+    assertFalse(all.contains("match_phrase"));
+
+    String search = ElasticUtils.legacyItemSearchQuery(List.of("list1", "list2"), "^roo").toString();
+    assertTrue(search.contains("list2"));
+    assertTrue(search.contains("\"classification.taxonConceptID.search\""));
+    assertTrue(search.contains("match_phrase_prefix"));
+    assertTrue(search.contains("\"properties.value\""));
+    assertFalse(search.contains("regexp"));
+    assertFalse(search.contains("^roo"));
+
+    String single = ElasticUtils.legacyItemSearchQuery(List.of("list1"), "M").toString();
+    assertTrue(single.contains("prefix"));
+    assertTrue(single.contains("\"scientificName\""));
+  }
 }
@@ -0,0 +1,77 @@
+package au.org.ala.listsapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+@SuppressWarnings("unchecked")
+class S3MultipartOutputStreamTest {
+
+    private S3Client s3Client;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        when(s3Client.createMultipartUpload(any(Consumer.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload1").build());
+        when(s3Client.uploadPart(any(Consumer.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+    }
+
+    @Test
+    void testUploadsFullPartsWhileWritingAndCompletesOnClose() throws IOException {
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "lists", "releases/a.csv", "text/csv",
+                S3MultipartOutputStream.MIN_PART_SIZE);
+
+        out.write(new byte[S3MultipartOutputStream.MIN_PART_SIZE + 10]);
+        verify(s3Client, times(1)).uploadPart(any(Consumer.class), any(RequestBody.class));
+
+        out.close();
+        verify(s3Client, times(2)).uploadPart(any(Consumer.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(any(Consumer.class));
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    @Test
+    void testAbortDiscardsTheUpload() throws IOException {
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "lists", "releases/a.csv", "text/csv",
+                S3MultipartOutputStream.MIN_PART_SIZE);
+        out.write(new byte[100]);
+
+        out.abort();
+        out.close();
+
+        verify(s3Client).abortMultipartUpload(any(Consumer.class));
+        verify(s3Client, never()).completeMultipartUpload(any(Consumer.class));
+    }
+
+    @Test
+    void testAbortDiscardsTheUploadWhenCompletingFails() throws IOException {
+        when(s3Client.completeMultipartUpload(any(Consumer.class)))
+                .thenThrow(S3Exception.builder().message("complete failed").build());
+        S3MultipartOutputStream out = new S3MultipartOutputStream(s3Client, "lists", "releases/a.csv", "text/csv",
+                S3MultipartOutputStream.MIN_PART_SIZE);
+        out.write(new byte[100]);
+
+        assertThrows(S3Exception.class, out::close);
+        out.abort();
+
+        verify(s3Client).abortMultipartUpload(any(Consumer.class));
+    }
+}
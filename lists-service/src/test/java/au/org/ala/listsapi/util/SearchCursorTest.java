@@ -0,0 +1,40 @@
+package au.org.ala.listsapi.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class SearchCursorTest {
+
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        SearchCursor cursor = new SearchCursor("pit-id==", List.of("Macropus giganteus", 42), 12345L, 500L, 99);
+
+        String token = cursor.encode();
+        assertFalse(token.contains("="));
+        assertFalse(token.contains("/"));
+
+        SearchCursor decoded = SearchCursor.decode(token);
+        assertEquals("pit-id==", decoded.pitId());
+        assertEquals(List.of("Macropus giganteus", 42), decoded.searchAfter());
+        assertEquals(12345L, decoded.total());
+        assertEquals(500L, decoded.read());
+        assertEquals(99, decoded.requestHash());
+    }
+
+    @Test
+    void testStartCursor() {
+        assertTrue(SearchCursor.isStart("*"));
+        assertTrue(SearchCursor.isStart(""));
+        assertTrue(SearchCursor.isStart(null));
+        assertFalse(SearchCursor.isStart(new SearchCursor("pit", List.of(1), 1, 1, 1).encode()));
+    }
+
+    @Test
+    void testDecodeRejectsInvalidTokens() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("e30"));
+    }
+}
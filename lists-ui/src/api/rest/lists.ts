@@ -135,11 +135,14 @@ export default (token: string) => ({
       'GET',
       null
     ),
-  qid: async (id: string): Promise<string> => {
-    const { qid } = await request<{ qid: string }>(
+  // Returns the biocache QIDs of the list, or null when it has no matched taxa.
+  // Large lists are split across several QIDs, each searched on its own
+  qids: async (id: string): Promise<string[] | null> => {
+    const { qid, qids } = await request<{ qid: string | null; qids: string[] | null }>(
       `${import.meta.env.VITE_API_LIST_QID}/${id}`,
       'GET'
     );
-    return qid;
+    if (qids && qids.length > 0) return qids;
+    return qid ? [qid] : null;
   },
 });
@@ -63,7 +63,7 @@ export function Actions({
   const [updating, setUpdating] = useState<boolean>(false);
   const [deleting, setDeleting] = useState<boolean>(false);
   const [fetchingQid, setFetchingQid] = useState<string | null>(null);
-  const listQid = useRef<string | null>(null);
+  const listQids = useRef<string[] | null>(null);
   const navigate = useNavigate();
   const intl = useIntl();
   const isReingest = location.pathname.endsWith('reingest');
@@ -87,16 +87,15 @@ export function Actions({
   }, []);
 
   // Biocache QID callback handler
-  // NOTE: Biocache can handle more than 2000 taxa for non-authoritative lists, 
-  // as long they are public (it calls the API). We could implement this service
-  // in the future but it won't easily work with private lists, so might not be worth 
-  // implementing yet another way of linking to biocache records page.
+  // NOTE: The API splits lists with more than biocache.qid.maxTerms taxa across
+  // several QIDs. Each one is opened in its own tab, as ORing them back together
+  // would exceed the biocache clause limit the split avoids
   const handleQidRedirect = useCallback(
     async (url: string) => {
-      if (!listQid.current) {
+      if (!listQids.current) {
         setFetchingQid(url);
         try {
-          listQid.current = await ala.rest.lists.qid(meta.id);
+          listQids.current = await ala.rest.lists.qids(meta.id);
         } catch (error) {
           notifications.show({
             message: getErrorMessage(error),
@@ -105,14 +104,28 @@ export function Actions({
           });
 
           return;
+        } finally {
+          setFetchingQid(null);
         }
-        setFetchingQid(null);
       }
 
-      if (listQid.current)
-        window.open(`${url}?q=qid:${listQid.current}`, '_blank');
+      if (!listQids.current) {
+        notifications.show({
+          message: intl.formatMessage({
+            id: 'actions.qid.noTaxa',
+            defaultMessage: 'This list has no matched taxa to search for',
+          }),
+          position: 'bottom-left',
+          radius: 'md',
+        });
+        return;
+      }
+
+      listQids.current.forEach((qid) =>
+        window.open(`${url}?q=${encodeURIComponent(`qid:${qid}`)}`, '_blank')
+      );
     },
-    [ala, meta]
+    [ala, meta, intl]
   );
   
   // Handle Biocache links (now can reference the above functions)